@@ -0,0 +1,26 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+create table if not exists `data_sync_change_log`
+(
+    id         integer primary key autoincrement,           -- change sequence
+    table_name varchar(256)                       not null, -- entity class name
+    action     varchar(16)                        not null, -- create update remove
+    node_ids   text,                                        -- comma separated target nodes, null for every node
+    payload    text                               not null, -- entity json
+    gmt_create datetime default CURRENT_TIMESTAMP not null  -- create time
+);
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+create table if not exists `data_sync_dead_letter`
+(
+    id         integer primary key autoincrement,
+    node_id    varchar(64)                        not null, -- target node id
+    table_name varchar(256)                       not null, -- entity class name
+    action     varchar(16)                        not null, -- create update remove
+    payload    text                               not null, -- sync data json
+    reason     varchar(512),                                -- last error
+    attempts   integer  default 0                 not null, -- failed deliveries
+    gmt_create datetime default CURRENT_TIMESTAMP not null  -- create time
+);
+create index if not exists `idx_data_sync_dead_letter_node_id` on data_sync_dead_letter (`node_id`);
+
+insert or ignore into sys_resource(resource_type, resource_code, resource_name)
+values
+    ('API', 'DATA_SYNC_DEAD_LETTER_PAGE', 'DATA_SYNC_DEAD_LETTER_PAGE'),
+    ('API', 'DATA_SYNC_DEAD_LETTER_REPLAY', 'DATA_SYNC_DEAD_LETTER_REPLAY'),
+    ('API', 'DATA_SYNC_DEAD_LETTER_DELETE', 'DATA_SYNC_DEAD_LETTER_DELETE')
+;
@@ -305,6 +305,30 @@ create table if not exists `project_job_task_log`
 
 create index `idx_project_job_task_log` on `project_job_task_log` (`project_id`, `job_id`, `task_id`);
 
+create table if not exists `data_sync_dead_letter`
+(
+    `id`         int auto_increment primary key,
+    `node_id`    varchar(64)  not null,                    -- target node id
+    `table_name` varchar(256) not null,                    -- entity class name
+    `action`     varchar(16)  not null,                    -- create update remove
+    `payload`    text         not null,                    -- sync data json
+    `reason`     varchar(512),                             -- last error
+    `attempts`   int      default 0 not null,              -- failed deliveries
+    `gmt_create` datetime default current_timestamp not null -- create time
+);
+
+create index `idx_data_sync_dead_letter_node_id` on `data_sync_dead_letter` (`node_id`);
+
+create table if not exists `data_sync_change_log`
+(
+    `id`         bigint auto_increment primary key,         -- change sequence
+    `table_name` varchar(256) not null,                    -- entity class name
+    `action`     varchar(16)  not null,                    -- create update remove
+    `node_ids`   text,                                     -- comma separated target nodes, null for every node
+    `payload`    longtext     not null,                    -- entity json
+    `gmt_create` datetime default current_timestamp not null -- create time
+);
+
 create table if not exists `user_accounts`
 (
     `id`                           int auto_increment primary key,
@@ -176,3 +176,6 @@ INSERT INTO sys_role_resource_rel VALUES(58,'EDGE_USER','PRJ_UPDATE','2024-03-22
 ---- todo check mysql table column value if not exists
 INSERT INTO sys_role_resource_rel VALUES(59,'EDGE_NODE', 'DATATABLE_CREATE','2024-03-22 08:07:37','2024-03-22 08:07:37');
 INSERT INTO sys_resource VALUES(75,'API','DATATABLE_CREATE','DATATABLE_CREATE',0,'2024-03-22 08:07:36','2024-03-22 08:07:36');
+INSERT INTO sys_resource VALUES(76,'API','DATA_SYNC_DEAD_LETTER_PAGE','DATA_SYNC_DEAD_LETTER_PAGE',0,'2024-12-19 08:00:00','2024-12-19 08:00:00');
+INSERT INTO sys_resource VALUES(77,'API','DATA_SYNC_DEAD_LETTER_REPLAY','DATA_SYNC_DEAD_LETTER_REPLAY',0,'2024-12-19 08:00:00','2024-12-19 08:00:00');
+INSERT INTO sys_resource VALUES(78,'API','DATA_SYNC_DEAD_LETTER_DELETE','DATA_SYNC_DEAD_LETTER_DELETE',0,'2024-12-19 08:00:00','2024-12-19 08:00:00');
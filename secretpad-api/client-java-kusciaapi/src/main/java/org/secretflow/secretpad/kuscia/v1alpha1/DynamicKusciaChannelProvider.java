@@ -24,7 +24,10 @@ import org.secretflow.secretpad.kuscia.v1alpha1.factory.impl.GrpcKusciaApiChanne
 import org.secretflow.secretpad.kuscia.v1alpha1.model.DynamicKusciaGrpcConfig;
 import org.secretflow.secretpad.kuscia.v1alpha1.model.KusciaGrpcConfig;
 
+import io.grpc.Channel;
+import io.grpc.Status;
 import io.grpc.stub.AbstractStub;
+import io.micrometer.core.instrument.Metrics;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
@@ -32,7 +35,6 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.jetbrains.annotations.NotNull;
 import org.secretflow.v1alpha1.kusciaapi.*;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
@@ -47,12 +49,14 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.nio.file.Files;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * @author yutu
@@ -64,9 +68,34 @@ import java.util.concurrent.TimeUnit;
 public class DynamicKusciaChannelProvider {
 
     private static final Map<String, KusciaApiChannelFactory> CHANNEL_FACTORIES = new ConcurrentHashMap<>();
-    private final static int BLOCKING_TIMEOUT_MILLISECOND = 5000;
-    private final static int FUTURE_TIMEOUT_MILLISECOND = 5000;
-    private final static int StubSCRIPTION_TIMEOUT_DAY = 365;
+    private final static long BLOCKING_TIMEOUT_MILLISECOND = 5000;
+    private final static long FUTURE_TIMEOUT_MILLISECOND = 5000;
+    private final static long StubSCRIPTION_TIMEOUT_MILLISECOND = TimeUnit.DAYS.toMillis(365);
+    private static final Map<Class<?>, StubSpec> STUB_SPECS = new HashMap<>();
+
+    static {
+        stubs(DomainServiceGrpc::newBlockingStub, DomainServiceGrpc::newStub, DomainServiceGrpc::newFutureStub,
+                DomainServiceGrpc.DomainServiceBlockingStub.class, DomainServiceGrpc.DomainServiceStub.class, DomainServiceGrpc.DomainServiceFutureStub.class);
+        stubs(DomainDataServiceGrpc::newBlockingStub, DomainDataServiceGrpc::newStub, DomainDataServiceGrpc::newFutureStub,
+                DomainDataServiceGrpc.DomainDataServiceBlockingStub.class, DomainDataServiceGrpc.DomainDataServiceStub.class, DomainDataServiceGrpc.DomainDataServiceFutureStub.class);
+        stubs(DomainRouteServiceGrpc::newBlockingStub, DomainRouteServiceGrpc::newStub, DomainRouteServiceGrpc::newFutureStub,
+                DomainRouteServiceGrpc.DomainRouteServiceBlockingStub.class, DomainRouteServiceGrpc.DomainRouteServiceStub.class, DomainRouteServiceGrpc.DomainRouteServiceFutureStub.class);
+        stubs(DomainDataSourceServiceGrpc::newBlockingStub, DomainDataSourceServiceGrpc::newStub, DomainDataSourceServiceGrpc::newFutureStub,
+                DomainDataSourceServiceGrpc.DomainDataSourceServiceBlockingStub.class, DomainDataSourceServiceGrpc.DomainDataSourceServiceStub.class, DomainDataSourceServiceGrpc.DomainDataSourceServiceFutureStub.class);
+        stubs(DomainDataGrantServiceGrpc::newBlockingStub, DomainDataGrantServiceGrpc::newStub, DomainDataGrantServiceGrpc::newFutureStub,
+                DomainDataGrantServiceGrpc.DomainDataGrantServiceBlockingStub.class, DomainDataGrantServiceGrpc.DomainDataGrantServiceStub.class, DomainDataGrantServiceGrpc.DomainDataGrantServiceFutureStub.class);
+        stubs(JobServiceGrpc::newBlockingStub, JobServiceGrpc::newStub, JobServiceGrpc::newFutureStub,
+                JobServiceGrpc.JobServiceBlockingStub.class, JobServiceGrpc.JobServiceStub.class, JobServiceGrpc.JobServiceFutureStub.class);
+        // job watch streams stay open
+        STUB_SPECS.put(JobServiceGrpc.JobServiceStub.class, new StubSpec(JobServiceGrpc::newStub, 0));
+        stubs(ServingServiceGrpc::newBlockingStub, ServingServiceGrpc::newStub, ServingServiceGrpc::newFutureStub,
+                ServingServiceGrpc.ServingServiceBlockingStub.class, ServingServiceGrpc.ServingServiceStub.class, ServingServiceGrpc.ServingServiceFutureStub.class);
+        stubs(HealthServiceGrpc::newBlockingStub, HealthServiceGrpc::newStub, HealthServiceGrpc::newFutureStub,
+                HealthServiceGrpc.HealthServiceBlockingStub.class, HealthServiceGrpc.HealthServiceStub.class, HealthServiceGrpc.HealthServiceFutureStub.class);
+        stubs(CertificateServiceGrpc::newBlockingStub, CertificateServiceGrpc::newStub, CertificateServiceGrpc::newFutureStub,
+                CertificateServiceGrpc.CertificateServiceBlockingStub.class, CertificateServiceGrpc.CertificateServiceStub.class, CertificateServiceGrpc.CertificateServiceFutureStub.class);
+    }
+
     private final Object lock = new Object();
     private volatile boolean isInitialized = false;
     @Resource
@@ -83,15 +112,15 @@ public class DynamicKusciaChannelProvider {
     @Value("${secretpad.kuscia-path:./config/kuscia/}")
     private String kusciaPath;
 
-    private static <T> @NotNull String getServiceName(Class<T> clazz) {
-        String serviceName;
-        try {
-            serviceName = String.valueOf(clazz.getDeclaredField("SERVICE_NAME").get(null));
-            Assert.notNull(serviceName, "SERVICE_NAME must not be null");
-        } catch (Exception e) {
-            throw new IllegalArgumentException("Unsupported class type: " + clazz.getName(), e);
-        }
-        return serviceName;
+    @Value("${kusciaapi.channel.pool-size:2}")
+    @Setter
+    private int channelPoolSize = GrpcKusciaApiChannelFactory.DEFAULT_POOL_SIZE;
+
+    private static void stubs(Function<Channel, AbstractStub<?>> blocking, Function<Channel, AbstractStub<?>> async,
+                              Function<Channel, AbstractStub<?>> future, Class<?> blockingClass, Class<?> asyncClass, Class<?> futureClass) {
+        STUB_SPECS.put(blockingClass, new StubSpec(blocking, BLOCKING_TIMEOUT_MILLISECOND));
+        STUB_SPECS.put(asyncClass, new StubSpec(async, StubSCRIPTION_TIMEOUT_MILLISECOND));
+        STUB_SPECS.put(futureClass, new StubSpec(future, FUTURE_TIMEOUT_MILLISECOND));
     }
 
     @PostConstruct
@@ -118,7 +147,7 @@ public class DynamicKusciaChannelProvider {
     }
 
     public <T extends AbstractStub<T>> T currentStub(Class<T> clazz) {
-        log.info("The nodeId received by kuscia is: {}", nodeId);
+        log.debug("The nodeId received by kuscia is: {}", nodeId);
         return createStub(nodeId, clazz);
     }
 
@@ -132,7 +161,7 @@ public class DynamicKusciaChannelProvider {
         if (isInitialized || dynamicKusciaGrpcConfig.getNodes().add(config)) {
             log.info("Register kuscia node success, config={}", config);
             synchronized (lock) {
-                registerChannelFactory(config.getDomainId(), new GrpcKusciaApiChannelFactory(config));
+                registerChannelFactory(config.getDomainId(), new GrpcKusciaApiChannelFactory(config, Metrics.globalRegistry, channelPoolSize));
                 if (!ObjectUtils.isEmpty(publisher)) {
                     publisher.publishEvent(new RegisterKusciaEvent(this, config));
                 }
@@ -179,149 +208,24 @@ public class DynamicKusciaChannelProvider {
         }
     }
 
+    /**
+     * The stub is created once per domain and type on the pooled channel of the domain, each call only sets the
+     * deadline on it. A domain whose channels all failed to connect fails at once with UNAVAILABLE.
+     */
     public <T extends AbstractStub<T>> T createStub(String domainId, Class<T> clazz) {
-        checkChannelFactoryExist(domainId);
-        String serviceName = getServiceName(clazz.getEnclosingClass());
-        AbstractStub<?> t = null;
-
-        switch (serviceName) {
-            case DomainServiceGrpc.SERVICE_NAME -> {
-                if (clazz.equals(DomainServiceGrpc.DomainServiceBlockingStub.class)) {
-                    t = DomainServiceGrpc.newBlockingStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(BLOCKING_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-                if (clazz.equals(DomainServiceGrpc.DomainServiceStub.class)) {
-                    t = DomainServiceGrpc.newStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(StubSCRIPTION_TIMEOUT_DAY, TimeUnit.DAYS);
-                }
-                if (clazz.equals(DomainServiceGrpc.DomainServiceFutureStub.class)) {
-                    t = DomainServiceGrpc.newFutureStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(FUTURE_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-            }
-
-            case DomainDataServiceGrpc.SERVICE_NAME -> {
-                if (clazz.equals(DomainDataServiceGrpc.DomainDataServiceBlockingStub.class)) {
-                    t = DomainDataServiceGrpc.newBlockingStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(BLOCKING_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-                if (clazz.equals(DomainDataServiceGrpc.DomainDataServiceStub.class)) {
-                    t = DomainDataServiceGrpc.newStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(StubSCRIPTION_TIMEOUT_DAY, TimeUnit.DAYS);
-                }
-                if (clazz.equals(DomainDataServiceGrpc.DomainDataServiceFutureStub.class)) {
-                    t = DomainDataServiceGrpc.newFutureStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(FUTURE_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-            }
-
-            case DomainRouteServiceGrpc.SERVICE_NAME -> {
-                if (clazz.equals(DomainRouteServiceGrpc.DomainRouteServiceBlockingStub.class)) {
-                    t = DomainRouteServiceGrpc.newBlockingStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(BLOCKING_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-                if (clazz.equals(DomainRouteServiceGrpc.DomainRouteServiceStub.class)) {
-                    t = DomainRouteServiceGrpc.newStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(StubSCRIPTION_TIMEOUT_DAY, TimeUnit.DAYS);
-                }
-                if (clazz.equals(DomainRouteServiceGrpc.DomainRouteServiceFutureStub.class)) {
-                    t = DomainRouteServiceGrpc.newFutureStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(FUTURE_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-            }
-            case DomainDataSourceServiceGrpc.SERVICE_NAME -> {
-                if (clazz.equals(DomainDataSourceServiceGrpc.DomainDataSourceServiceBlockingStub.class)) {
-                    t = DomainDataSourceServiceGrpc.newBlockingStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(BLOCKING_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-                if (clazz.equals(DomainDataSourceServiceGrpc.DomainDataSourceServiceStub.class)) {
-                    t = DomainDataSourceServiceGrpc.newStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(StubSCRIPTION_TIMEOUT_DAY, TimeUnit.DAYS);
-                }
-                if (clazz.equals(DomainDataSourceServiceGrpc.DomainDataSourceServiceFutureStub.class)) {
-
-                    t = DomainDataSourceServiceGrpc.newFutureStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(FUTURE_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-            }
-            case DomainDataGrantServiceGrpc.SERVICE_NAME -> {
-                if (clazz.equals(DomainDataGrantServiceGrpc.DomainDataGrantServiceBlockingStub.class)) {
-
-                    t = DomainDataGrantServiceGrpc.newBlockingStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(BLOCKING_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-                if (clazz.equals(DomainDataGrantServiceGrpc.DomainDataGrantServiceStub.class)) {
-                    t = DomainDataGrantServiceGrpc.newStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(StubSCRIPTION_TIMEOUT_DAY, TimeUnit.DAYS);
-                }
-                if (clazz.equals(DomainDataGrantServiceGrpc.DomainDataGrantServiceFutureStub.class)) {
-                    t = DomainDataGrantServiceGrpc.newFutureStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(FUTURE_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-            }
-
-            case JobServiceGrpc.SERVICE_NAME -> {
-                if (clazz.equals(JobServiceGrpc.JobServiceBlockingStub.class)) {
-                    t = JobServiceGrpc.newBlockingStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(BLOCKING_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-                if (clazz.equals(JobServiceGrpc.JobServiceStub.class)) {
-                    t = JobServiceGrpc.newStub(CHANNEL_FACTORIES.get(domainId).getChannel());
-                }
-                if (clazz.equals(JobServiceGrpc.JobServiceFutureStub.class)) {
-                    t = JobServiceGrpc.newFutureStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(FUTURE_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-            }
-
-            case ServingServiceGrpc.SERVICE_NAME -> {
-                if (clazz.equals(ServingServiceGrpc.ServingServiceBlockingStub.class)) {
-                    t = ServingServiceGrpc.newBlockingStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(BLOCKING_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-                if (clazz.equals(ServingServiceGrpc.ServingServiceStub.class)) {
-                    t = ServingServiceGrpc.newStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(StubSCRIPTION_TIMEOUT_DAY, TimeUnit.DAYS);
-                }
-                if (clazz.equals(ServingServiceGrpc.ServingServiceFutureStub.class)) {
-                    t = ServingServiceGrpc.newFutureStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(FUTURE_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-            }
-
-            case HealthServiceGrpc.SERVICE_NAME -> {
-                if (clazz.equals(HealthServiceGrpc.HealthServiceBlockingStub.class)) {
-                    t = HealthServiceGrpc.newBlockingStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(BLOCKING_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-                if (clazz.equals(HealthServiceGrpc.HealthServiceStub.class)) {
-                    t = HealthServiceGrpc.newStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(StubSCRIPTION_TIMEOUT_DAY, TimeUnit.DAYS);
-                }
-                if (clazz.equals(HealthServiceGrpc.HealthServiceFutureStub.class)) {
-                    t = HealthServiceGrpc.newFutureStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(FUTURE_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-            }
-
-            case CertificateServiceGrpc.SERVICE_NAME -> {
-                if (clazz.equals(CertificateServiceGrpc.CertificateServiceBlockingStub.class)) {
-                    t = CertificateServiceGrpc.newBlockingStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(BLOCKING_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-                if (clazz.equals(CertificateServiceGrpc.CertificateServiceStub.class)) {
-                    t = CertificateServiceGrpc.newStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(StubSCRIPTION_TIMEOUT_DAY, TimeUnit.DAYS);
-                }
-                if (clazz.equals(CertificateServiceGrpc.CertificateServiceFutureStub.class)) {
-                    t = CertificateServiceGrpc.newFutureStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(FUTURE_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-            }
-
-            default -> throw new IllegalArgumentException("Unsupported class type: " + clazz.getName());
+        KusciaApiChannelFactory factory = CHANNEL_FACTORIES.get(domainId);
+        if (factory == null) {
+            throw new IllegalArgumentException("No such kuscia instance domain id: " + domainId);
+        }
+        StubSpec spec = STUB_SPECS.get(clazz);
+        if (spec == null) {
+            throw new IllegalArgumentException("Unsupported class type: " + clazz.getName());
         }
-        return (T) t;
+        if (factory.isDown()) {
+            throw Status.UNAVAILABLE.withDescription("kuscia " + domainId + " is unreachable").asRuntimeException();
+        }
+        T stub = factory.getStub(clazz, channel -> (T) spec.newStub.apply(channel));
+        return spec.deadlineMillis > 0 ? stub.withDeadlineAfter(spec.deadlineMillis, TimeUnit.MILLISECONDS) : stub;
     }
 
     /**
@@ -332,12 +236,6 @@ public class DynamicKusciaChannelProvider {
     }
 
 
-    private void checkChannelFactoryExist(String domainId) {
-        if (!CHANNEL_FACTORIES.containsKey(domainId)) {
-            throw new IllegalArgumentException("No such kuscia instance domain id: " + domainId);
-        }
-    }
-
     public String getProtocolByDomainId(String domainId) {
         String protocol = KusciaProtocolEnum.TLS.name().toLowerCase(Locale.ROOT);
         if (CollectionUtils.isEmpty(dynamicKusciaGrpcConfig.getNodes())) {
@@ -366,4 +264,16 @@ public class DynamicKusciaChannelProvider {
         IOUtils.closeQuietly(in);
     }
 
-}
\ No newline at end of file
+    private static class StubSpec {
+        private final Function<Channel, AbstractStub<?>> newStub;
+        /**
+         * 0 for no deadline
+         */
+        private final long deadlineMillis;
+
+        private StubSpec(Function<Channel, AbstractStub<?>> newStub, long deadlineMillis) {
+            this.newStub = newStub;
+            this.deadlineMillis = deadlineMillis;
+        }
+    }
+}
@@ -16,9 +16,12 @@
 
 package org.secretflow.secretpad.kuscia.v1alpha1.factory;
 
+import io.grpc.Channel;
 import io.grpc.ConnectivityState;
 import io.grpc.ManagedChannel;
 
+import java.util.function.Function;
+
 /**
  * @author yutu
  * @date 2024/06/12
@@ -27,6 +30,18 @@ public interface KusciaApiChannelFactory {
 
     ManagedChannel getChannel();
 
+    /**
+     * @return a channel which spreads its calls over the channels of the domain
+     */
+    Channel getPooledChannel();
+
+    /**
+     * @param stubClass stub type
+     * @param newStub   creates the stub on the pooled channel
+     * @return the stub of the type, created once
+     */
+    <T> T getStub(Class<T> stubClass, Function<Channel, T> newStub);
+
     void shutdownNow();
 
     void shutdown();
@@ -34,4 +49,9 @@ public interface KusciaApiChannelFactory {
     ConnectivityState getState();
 
     boolean isAvailable();
+
+    /**
+     * @return true if every channel failed to connect, a call would fail anyway
+     */
+    boolean isDown();
 }
\ No newline at end of file
@@ -14,134 +14,306 @@
  * limitations under the License.
  */
 
+
 package org.secretflow.secretpad.kuscia.v1alpha1.factory.impl;
 
 import org.secretflow.secretpad.common.util.FileUtils;
 import org.secretflow.secretpad.kuscia.v1alpha1.constant.KusciaProtocolEnum;
 import org.secretflow.secretpad.kuscia.v1alpha1.factory.KusciaApiChannelFactory;
-import org.secretflow.secretpad.kuscia.v1alpha1.interceptor.KusciaGrpcLoggingInterceptor;
+import org.secretflow.secretpad.kuscia.v1alpha1.interceptor.KusciaGrpcMetricsInterceptor;
 import org.secretflow.secretpad.kuscia.v1alpha1.interceptor.TokenAuthClientInterceptor;
 import org.secretflow.secretpad.kuscia.v1alpha1.listener.ManagedChannelStateListener;
 import org.secretflow.secretpad.kuscia.v1alpha1.model.KusciaGrpcConfig;
 
-import io.grpc.ClientInterceptor;
-import io.grpc.ConnectivityState;
-import io.grpc.ManagedChannel;
+import io.grpc.*;
 import io.grpc.netty.shaded.io.grpc.netty.GrpcSslContexts;
 import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
 import io.grpc.netty.shaded.io.netty.handler.ssl.SslContext;
 import io.grpc.netty.shaded.io.netty.handler.ssl.SslContextBuilder;
 import io.grpc.netty.shaded.io.netty.handler.ssl.SslProvider;
 import io.grpc.netty.shaded.io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.Assert;
 
 import javax.net.ssl.SSLException;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 /**
+ * Channels of one kuscia domain
+ * <p>
+ * The domain is reached through poolSize channels, each with its own connection. A call goes to the next READY channel
+ * in turn, or to the next channel if none is ready, so that concurrent calls do not queue on one connection. The
+ * channels are created on first use and read without locking afterwards. Shutting down is terminal: no channel is
+ * created afterwards, and a call through a stub still held fails with UNAVAILABLE.
+ *
  * @author yutu
  * @date 2024/06/12
  */
 @Slf4j
 public class GrpcKusciaApiChannelFactory implements KusciaApiChannelFactory {
 
-
+    public static final int DEFAULT_POOL_SIZE = 2;
     private final static int MAX_INBOUND_MESSAGE_SIZE = 256 * 1024 * 1024;
-    private final AtomicReference<ConnectivityState> state = new AtomicReference<>(ConnectivityState.SHUTDOWN);
+    /**
+     * kuscia answers pings more frequent than its 5 minutes minimum with GOAWAY
+     */
+    private final static long KEEPALIVE_TIME_MINUTES = 5;
+    private final static long KEEPALIVE_TIMEOUT_SECONDS = 20;
     private final KusciaGrpcConfig kusciaGrpcConfig;
-    private final ClientInterceptor loggingInterceptor;
+    private final ClientInterceptor metricsInterceptor;
     private final ClientInterceptor tokenAuthClientInterceptor;
-    private ManagedChannel channel;
-
+    private final int poolSize;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Map<Class<?>, Object> stubs = new ConcurrentHashMap<>();
+    private final Channel pooledChannel = new PooledChannel();
+    private volatile Pool pool;
+    private volatile boolean closed;
 
     public GrpcKusciaApiChannelFactory(KusciaGrpcConfig kusciaGrpcConfig) {
+        this(kusciaGrpcConfig, Metrics.globalRegistry, DEFAULT_POOL_SIZE);
+    }
+
+    public GrpcKusciaApiChannelFactory(KusciaGrpcConfig kusciaGrpcConfig, MeterRegistry meterRegistry) {
+        this(kusciaGrpcConfig, meterRegistry, DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * @param meterRegistry registry of the call metrics, spring boot binds its registries to the global one
+     * @param poolSize      channels to the domain
+     */
+    public GrpcKusciaApiChannelFactory(KusciaGrpcConfig kusciaGrpcConfig, MeterRegistry meterRegistry, int poolSize) {
         Assert.notNull(kusciaGrpcConfig, "KusciaGrpcConfig must not be null");
         kusciaGrpcConfig.validateAndProcess();
         this.kusciaGrpcConfig = kusciaGrpcConfig;
-        this.loggingInterceptor = new KusciaGrpcLoggingInterceptor(kusciaGrpcConfig.getDomainId());
+        this.poolSize = Math.max(1, poolSize);
+        this.metricsInterceptor = new KusciaGrpcMetricsInterceptor(kusciaGrpcConfig.getDomainId(), meterRegistry);
         this.tokenAuthClientInterceptor = new TokenAuthClientInterceptor(kusciaGrpcConfig.getToken(), kusciaGrpcConfig.getDomainId());
     }
 
     @Override
     public ManagedChannel getChannel() {
-        synchronized (this) {
-            if (!state.get().equals(ConnectivityState.SHUTDOWN)) {
-                return channel;
+        Pool current = pool;
+        if (current == null) {
+            if (closed) {
+                throw new IllegalStateException("channels of kuscia domain " + kusciaGrpcConfig.getDomainId() + " are shut down");
             }
-            assertInitialized();
-            initChannel();
-            return channel;
+            current = initPool();
         }
+        int start = Math.floorMod(next.getAndIncrement(), current.channels.length);
+        for (int i = 0; i < current.channels.length; i++) {
+            int index = (start + i) % current.channels.length;
+            if (current.states[index].get() == ConnectivityState.READY) {
+                return current.channels[index];
+            }
+        }
+        return current.channels[start];
+    }
+
+    @Override
+    public Channel getPooledChannel() {
+        return pooledChannel;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getStub(Class<T> stubClass, Function<Channel, T> newStub) {
+        return (T) stubs.computeIfAbsent(stubClass, k -> newStub.apply(pooledChannel));
     }
 
     @Override
     public void shutdownNow() {
-        if (channel != null && !channel.isShutdown()) {
-            channel.shutdownNow();
+        Pool current = close();
+        if (current != null) {
+            for (ManagedChannel channel : current.channels) {
+                channel.shutdownNow();
+            }
         }
     }
 
     @Override
     public void shutdown() {
-        if (channel != null && !channel.isShutdown()) {
-            channel.shutdown();
+        Pool current = close();
+        if (current != null) {
+            for (ManagedChannel channel : current.channels) {
+                channel.shutdown();
+            }
         }
     }
 
+    /**
+     * @return READY if a channel is ready, otherwise the most hopeful state of the channels
+     */
     @Override
     public ConnectivityState getState() {
-        return state.get();
+        Pool current = pool;
+        if (current == null) {
+            return ConnectivityState.SHUTDOWN;
+        }
+        ConnectivityState best = ConnectivityState.SHUTDOWN;
+        for (AtomicReference<ConnectivityState> state : current.states) {
+            ConnectivityState s = state.get();
+            if (rank(s) < rank(best)) {
+                best = s;
+            }
+        }
+        return best;
     }
 
     @Override
     public boolean isAvailable() {
-        return state.get().equals(ConnectivityState.READY);
+        return getState() == ConnectivityState.READY;
     }
 
-    private void initChannel() {
+    @Override
+    public boolean isDown() {
+        return getState() == ConnectivityState.TRANSIENT_FAILURE;
+    }
+
+    private static int rank(ConnectivityState state) {
+        return switch (state) {
+            case READY -> 0;
+            case CONNECTING -> 1;
+            case IDLE -> 2;
+            case TRANSIENT_FAILURE -> 3;
+            case SHUTDOWN -> 4;
+        };
+    }
+
+    /**
+     * @return the pool to shut down, null if none was created
+     */
+    private synchronized Pool close() {
+        closed = true;
+        Pool current = pool;
+        pool = null;
+        return current;
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized Pool initPool() {
+        if (pool != null) {
+            return pool;
+        }
+        if (closed) {
+            throw new IllegalStateException("channels of kuscia domain " + kusciaGrpcConfig.getDomainId() + " are shut down");
+        }
+        SslContext sslContext = kusciaGrpcConfig.getProtocol() == KusciaProtocolEnum.NOTLS ? null : sslContext();
+        ManagedChannel[] channels = new ManagedChannel[poolSize];
+        AtomicReference<ConnectivityState>[] states = new AtomicReference[poolSize];
+        for (int i = 0; i < poolSize; i++) {
+            channels[i] = initChannel(sslContext);
+            states[i] = new AtomicReference<>(ConnectivityState.IDLE);
+            new ManagedChannelStateListener(channels[i], kusciaGrpcConfig.getDomainId(), states[i]);
+        }
+        pool = new Pool(channels, states);
+        return pool;
+    }
+
+    private ManagedChannel initChannel(SslContext sslContext) {
         NettyChannelBuilder nettyChannelBuilder = NettyChannelBuilder
                 .forAddress(kusciaGrpcConfig.getHost(), kusciaGrpcConfig.getPort())
-                .intercept(loggingInterceptor)
-                .maxInboundMessageSize(MAX_INBOUND_MESSAGE_SIZE);
+                .intercept(metricsInterceptor)
+                .maxInboundMessageSize(MAX_INBOUND_MESSAGE_SIZE)
+                .keepAliveTime(KEEPALIVE_TIME_MINUTES, TimeUnit.MINUTES)
+                .keepAliveTimeout(KEEPALIVE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
 
         if (kusciaGrpcConfig.getProtocol() == KusciaProtocolEnum.NOTLS) {
             nettyChannelBuilder.usePlaintext();
         } else {
-            SslContextBuilder clientContextBuilder = SslContextBuilder.forClient();
-            GrpcSslContexts.configure(clientContextBuilder, SslProvider.OPENSSL);
-
-            SslContext sslContext = null;
-            try {
-                File cert = FileUtils.readFile(kusciaGrpcConfig.getCertFile());
-                File key = FileUtils.readFile(kusciaGrpcConfig.getKeyFile());
-                sslContext = clientContextBuilder
-                        .keyManager(cert, key)
-                        .trustManager(InsecureTrustManagerFactory.INSTANCE)
-                        .build();
-            } catch (SSLException e) {
-                log.error("Failed to create ssl context", e);
-            } catch (FileNotFoundException e) {
-                log.error("Failed to create ssl context, cert or key file not found", e);
-            }
-
             nettyChannelBuilder
                     .sslContext(sslContext)
                     .intercept(tokenAuthClientInterceptor)
                     .useTransportSecurity();
         }
-        channel = nettyChannelBuilder.build();
-        new ManagedChannelStateListener(channel, kusciaGrpcConfig.getDomainId(), state);
+        return nettyChannelBuilder.build();
     }
 
+    private SslContext sslContext() {
+        SslContextBuilder clientContextBuilder = SslContextBuilder.forClient();
+        GrpcSslContexts.configure(clientContextBuilder, SslProvider.OPENSSL);
+
+        SslContext sslContext = null;
+        try {
+            File cert = FileUtils.readFile(kusciaGrpcConfig.getCertFile());
+            File key = FileUtils.readFile(kusciaGrpcConfig.getKeyFile());
+            sslContext = clientContextBuilder
+                    .keyManager(cert, key)
+                    .trustManager(InsecureTrustManagerFactory.INSTANCE)
+                    .build();
+        } catch (SSLException e) {
+            log.error("Failed to create ssl context", e);
+        } catch (FileNotFoundException e) {
+            log.error("Failed to create ssl context, cert or key file not found", e);
+        }
+        return sslContext;
+    }
+
+    private static class Pool {
+        private final ManagedChannel[] channels;
+        private final AtomicReference<ConnectivityState>[] states;
+
+        private Pool(ManagedChannel[] channels, AtomicReference<ConnectivityState>[] states) {
+            this.channels = channels;
+            this.states = states;
+        }
+    }
+
+    /**
+     * every call picks a channel of the pool
+     */
+    private class PooledChannel extends Channel {
+        @Override
+        public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> methodDescriptor, CallOptions callOptions) {
+            if (closed) {
+                return new ClosedCall<>(kusciaGrpcConfig.getDomainId());
+            }
+            return getChannel().newCall(methodDescriptor, callOptions);
+        }
+
+        @Override
+        public String authority() {
+            return kusciaGrpcConfig.getHost() + ":" + kusciaGrpcConfig.getPort();
+        }
+    }
+
+    /**
+     * call through a factory shut down, it fails as soon as it starts
+     */
+    private static class ClosedCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+        private final String domainId;
+
+        private ClosedCall(String domainId) {
+            this.domainId = domainId;
+        }
+
+        @Override
+        public void start(Listener<RespT> responseListener, Metadata headers) {
+            responseListener.onClose(Status.UNAVAILABLE.withDescription("channels of kuscia domain " + domainId + " are shut down"), new Metadata());
+        }
+
+        @Override
+        public void request(int numMessages) {
+        }
+
+        @Override
+        public void cancel(String message, Throwable cause) {
+        }
+
+        @Override
+        public void halfClose() {
+        }
 
-    private void assertInitialized() {
-        ConnectivityState current = state.get();
-        if (ConnectivityState.SHUTDOWN.equals(current)) {
-            return;
+        @Override
+        public void sendMessage(ReqT message) {
         }
-        throw new IllegalStateException(String.format("GrpcKusciaApiChannelFactory is %s", current));
     }
-}
\ No newline at end of file
+}
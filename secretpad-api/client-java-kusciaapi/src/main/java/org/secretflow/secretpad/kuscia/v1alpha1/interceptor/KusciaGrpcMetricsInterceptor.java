@@ -0,0 +1,139 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.kuscia.v1alpha1.interceptor;
+
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.MessageOrBuilder;
+import com.google.protobuf.TextFormat;
+import io.grpc.*;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Kuscia grpc metrics interceptor
+ * <p>
+ * Every call of a domain is timed by method and status code in kuscia.grpc.client.calls, and the calls in flight are
+ * gauged in kuscia.grpc.client.inflight. Payloads are logged at debug only, for one of every LOG_SAMPLE_EVERY calls and
+ * cut to LOG_MAX_CHARS, a message larger than LOG_MAX_BYTES is logged by its size only and never formatted.
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+@Slf4j
+public class KusciaGrpcMetricsInterceptor implements ClientInterceptor {
+
+    public static final String CALLS = "kuscia.grpc.client.calls";
+    public static final String INFLIGHT = "kuscia.grpc.client.inflight";
+    private static final int LOG_SAMPLE_EVERY = 100;
+    private static final int LOG_MAX_BYTES = 64 * 1024;
+    private static final int LOG_MAX_CHARS = 2048;
+    /**
+     * one counter per domain, a domain registered again keeps the gauge of the first registration
+     */
+    private static final Map<String, AtomicInteger> INFLIGHT_BY_DOMAIN = new ConcurrentHashMap<>();
+
+    private final String domainId;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger inflight;
+    private final AtomicLong calls = new AtomicLong();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public KusciaGrpcMetricsInterceptor(String domainId, MeterRegistry meterRegistry) {
+        this.domainId = domainId;
+        this.meterRegistry = meterRegistry;
+        this.inflight = INFLIGHT_BY_DOMAIN.computeIfAbsent(domainId, k -> new AtomicInteger());
+        Gauge.builder(INFLIGHT, inflight, AtomicInteger::get)
+                .tag("domain", domainId)
+                .description("kuscia api calls in flight")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+            MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+
+        String methodName = method.getFullMethodName();
+        boolean sampled = log.isDebugEnabled() && calls.getAndIncrement() % LOG_SAMPLE_EVERY == 0;
+
+        return new ForwardingClientCall.SimpleForwardingClientCall<>(next.newCall(method, callOptions)) {
+            private long startNanos;
+
+            @Override
+            public void start(Listener<RespT> responseListener, Metadata headers) {
+                startNanos = System.nanoTime();
+                inflight.incrementAndGet();
+                super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                    @Override
+                    public void onMessage(RespT message) {
+                        if (sampled) {
+                            log.debug("[kuscia] {} {} response: {}", domainId, methodName, format(message));
+                        }
+                        super.onMessage(message);
+                    }
+
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        long nanos = System.nanoTime() - startNanos;
+                        inflight.decrementAndGet();
+                        timer(methodName, status.getCode()).record(nanos, TimeUnit.NANOSECONDS);
+                        if (!status.isOk()) {
+                            log.warn("[kuscia] {} {} closed with {} {} after {} ms", domainId, methodName, status.getCode(),
+                                    status.getDescription(), TimeUnit.NANOSECONDS.toMillis(nanos));
+                        } else if (log.isDebugEnabled()) {
+                            log.debug("[kuscia] {} {} done in {} ms", domainId, methodName, TimeUnit.NANOSECONDS.toMillis(nanos));
+                        }
+                        super.onClose(status, trailers);
+                    }
+                }, headers);
+            }
+
+            @Override
+            public void sendMessage(ReqT message) {
+                if (sampled) {
+                    log.debug("[kuscia] {} {} request: {}", domainId, methodName, format(message));
+                }
+                super.sendMessage(message);
+            }
+        };
+    }
+
+    private Timer timer(String methodName, Status.Code code) {
+        return timers.computeIfAbsent(methodName + '#' + code.name(), k -> Timer.builder(CALLS)
+                .tag("domain", domainId)
+                .tag("method", methodName)
+                .tag("status", code.name())
+                .description("kuscia api calls")
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    private static String format(Object message) {
+        if (message instanceof MessageLite messageLite && messageLite.getSerializedSize() > LOG_MAX_BYTES) {
+            return "<" + messageLite.getSerializedSize() + " bytes>";
+        }
+        String text = message instanceof MessageOrBuilder m ? TextFormat.shortDebugString(m) : String.valueOf(message);
+        return text.length() > LOG_MAX_CHARS ? text.substring(0, LOG_MAX_CHARS) + "...(" + text.length() + " chars)" : text;
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.kuscia.v1alpha1.service.impl;
+
+import org.secretflow.secretpad.kuscia.v1alpha1.DynamicKusciaChannelProvider;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.grpc.stub.AbstractFutureStub;
+import jakarta.annotation.Resource;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.secretflow.v1alpha1.kusciaapi.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * kuscia grpc api service, non blocking
+ * <p>
+ * Calls go through the future stubs and complete on the grpc threads, no thread waits for a response. The same call
+ * to several domains is sent by {@link #fanOut} with a bounded number in flight, so that it takes about the slowest
+ * round trip instead of the sum of them. Queries are idempotent and may be hedged: if a query has not answered within
+ * hedge-delay-ms a second one is sent and the first answer wins.
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+@Slf4j
+@Service
+public class KusciaGrpcAsyncClientAdapter {
+
+    @Resource
+    @Setter
+    private DynamicKusciaChannelProvider dynamicKusciaChannelProvider;
+
+    @Value("${kusciaapi.async.deadline-ms:5000}")
+    @Setter
+    private long deadlineMillis = 5000;
+
+    /**
+     * 0 disables hedging
+     */
+    @Value("${kusciaapi.async.hedge-delay-ms:0}")
+    @Setter
+    private long hedgeDelayMillis;
+
+    @Value("${kusciaapi.async.fan-out-concurrency:8}")
+    @Setter
+    private int fanOutConcurrency = 8;
+
+    public CompletableFuture<DomainOuterClass.QueryDomainResponse> queryDomain(DomainOuterClass.QueryDomainRequest request, String domainId) {
+        return hedged(() -> call(domainId, DomainServiceGrpc.DomainServiceFutureStub.class, stub -> stub.queryDomain(request)));
+    }
+
+    public CompletableFuture<DomainOuterClass.BatchQueryDomainResponse> batchQueryDomain(DomainOuterClass.BatchQueryDomainRequest request, String domainId) {
+        return hedged(() -> call(domainId, DomainServiceGrpc.DomainServiceFutureStub.class, stub -> stub.batchQueryDomain(request)));
+    }
+
+    public CompletableFuture<DomainRoute.QueryDomainRouteResponse> queryDomainRoute(DomainRoute.QueryDomainRouteRequest request, String domainId) {
+        return hedged(() -> call(domainId, DomainRouteServiceGrpc.DomainRouteServiceFutureStub.class, stub -> stub.queryDomainRoute(request)));
+    }
+
+    public CompletableFuture<Domaindata.BatchQueryDomainDataResponse> batchQueryDomainData(Domaindata.BatchQueryDomainDataRequest request, String domainId) {
+        return hedged(() -> call(domainId, DomainDataServiceGrpc.DomainDataServiceFutureStub.class, stub -> stub.batchQueryDomainData(request)));
+    }
+
+    public CompletableFuture<Domaindatagrant.QueryDomainDataGrantResponse> queryDomainDataGrant(Domaindatagrant.QueryDomainDataGrantRequest request, String domainId) {
+        return hedged(() -> call(domainId, DomainDataGrantServiceGrpc.DomainDataGrantServiceFutureStub.class, stub -> stub.queryDomainDataGrant(request)));
+    }
+
+    /**
+     * not idempotent, never hedged
+     */
+    public CompletableFuture<Domaindatagrant.CreateDomainDataGrantResponse> createDomainDataGrant(Domaindatagrant.CreateDomainDataGrantRequest request, String domainId) {
+        return call(domainId, DomainDataGrantServiceGrpc.DomainDataGrantServiceFutureStub.class, stub -> stub.createDomainDataGrant(request));
+    }
+
+    /**
+     * Call a domain through its future stub
+     *
+     * @param domainId  domain to call
+     * @param stubClass future stub class of the service
+     * @param call      the call on the stub
+     * @return the response, cancelling it cancels the call
+     */
+    public <S extends AbstractFutureStub<S>, R> CompletableFuture<R> call(String domainId, Class<S> stubClass, Function<S, ListenableFuture<R>> call) {
+        try {
+            S stub = dynamicKusciaChannelProvider.createStub(domainId, stubClass).withDeadlineAfter(deadlineMillis, TimeUnit.MILLISECONDS);
+            return toCompletableFuture(call.apply(stub));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Send the same call to every domain, at most fan-out-concurrency at a time
+     *
+     * @param domainIds     domains to call
+     * @param call          the call of one domain
+     * @param failedRecords domain id to error message of the failed calls
+     * @return domain id to response of the calls which succeeded, completes when every call is done
+     */
+    public <R> CompletableFuture<Map<String, R>> fanOut(Collection<String> domainIds, Function<String, CompletableFuture<R>> call,
+                                                        Map<String, String> failedRecords) {
+        return fanOut(domainIds, call, fanOutConcurrency, failedRecords);
+    }
+
+    public static <R> CompletableFuture<Map<String, R>> fanOut(Collection<String> domainIds, Function<String, CompletableFuture<R>> call,
+                                                               int maxConcurrency, Map<String, String> failedRecords) {
+        Map<String, R> responses = new ConcurrentHashMap<>();
+        CompletableFuture<Map<String, R>> result = new CompletableFuture<>();
+        Queue<String> queue = new ConcurrentLinkedQueue<>(domainIds);
+        AtomicInteger remaining = new AtomicInteger(queue.size());
+        if (queue.isEmpty()) {
+            result.complete(responses);
+            return result;
+        }
+        int lanes = Math.max(1, Math.min(maxConcurrency, queue.size()));
+        for (int i = 0; i < lanes; i++) {
+            next(queue, call, responses, failedRecords, remaining, result);
+        }
+        return result;
+    }
+
+    private static <R> void next(Queue<String> queue, Function<String, CompletableFuture<R>> call, Map<String, R> responses,
+                                 Map<String, String> failedRecords, AtomicInteger remaining, CompletableFuture<Map<String, R>> result) {
+        String domainId = queue.poll();
+        if (domainId == null) {
+            return;
+        }
+        CompletableFuture<R> future;
+        try {
+            future = call.apply(domainId);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((response, ex) -> {
+            if (ex != null) {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                log.error("domain {} call failed: {}", domainId, cause.getMessage());
+                failedRecords.put(domainId, String.valueOf(cause.getMessage()));
+            } else if (response != null) {
+                responses.put(domainId, response);
+            }
+            if (remaining.decrementAndGet() == 0) {
+                result.complete(responses);
+            } else {
+                next(queue, call, responses, failedRecords, remaining, result);
+            }
+        });
+    }
+
+    private <R> CompletableFuture<R> hedged(Supplier<CompletableFuture<R>> attempt) {
+        return hedged(attempt, hedgeDelayMillis);
+    }
+
+    /**
+     * Start a second attempt if the first has not completed within hedgeDelayMillis, the first response wins and the
+     * other attempt is cancelled. Fails only if every attempt fails.
+     */
+    public static <R> CompletableFuture<R> hedged(Supplier<CompletableFuture<R>> attempt, long hedgeDelayMillis) {
+        if (hedgeDelayMillis <= 0) {
+            return attempt.get();
+        }
+        CompletableFuture<R> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(2);
+        CompletableFuture<R> first = attempt.get();
+        first.whenComplete((response, ex) -> settle(result, pending, response, ex));
+        CompletableFuture.delayedExecutor(hedgeDelayMillis, TimeUnit.MILLISECONDS).execute(() -> {
+            if (result.isDone()) {
+                settle(result, pending, null, new CancellationException("not hedged"));
+                return;
+            }
+            CompletableFuture<R> second = attempt.get();
+            second.whenComplete((response, ex) -> settle(result, pending, response, ex));
+            result.whenComplete((response, ex) -> second.cancel(true));
+        });
+        result.whenComplete((response, ex) -> first.cancel(true));
+        return result;
+    }
+
+    private static <R> void settle(CompletableFuture<R> result, AtomicInteger pending, R response, Throwable ex) {
+        int left = pending.decrementAndGet();
+        if (ex == null) {
+            result.complete(response);
+        } else if (left == 0) {
+            result.completeExceptionally(ex);
+        }
+    }
+
+    private static <R> CompletableFuture<R> toCompletableFuture(ListenableFuture<R> listenableFuture) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        Futures.addCallback(listenableFuture, new FutureCallback<>() {
+            @Override
+            public void onSuccess(R response) {
+                future.complete(response);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }, MoreExecutors.directExecutor());
+        future.whenComplete((response, ex) -> {
+            if (future.isCancelled()) {
+                listenableFuture.cancel(true);
+            }
+        });
+        return future;
+    }
+}
@@ -23,10 +23,17 @@ import org.secretflow.secretpad.kuscia.v1alpha1.factory.impl.GrpcKusciaApiChanne
 import org.secretflow.secretpad.kuscia.v1alpha1.mock.MockKusciaGrpcServer;
 import org.secretflow.secretpad.kuscia.v1alpha1.model.KusciaGrpcConfig;
 
+import io.grpc.ConnectivityState;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.secretflow.v1alpha1.kusciaapi.Health;
+import org.secretflow.v1alpha1.kusciaapi.HealthServiceGrpc;
 
 /**
  * @author yutu
@@ -60,4 +67,49 @@ public class KusciaApiChannelFactoryTest {
         factory.getChannel();
         factory.shutdown();
     }
-}
\ No newline at end of file
+
+    @Test
+    void pooledChannel() {
+        KusciaGrpcConfig config = new KusciaGrpcConfig();
+        config.setHost(MockKusciaGrpcServer.HOST);
+        config.setPort(MockKusciaGrpcServer.PORT);
+        config.setProtocol(KusciaProtocolEnum.NOTLS);
+        config.setMode(KusciaModeEnum.P2P);
+        config.setDomainId("alice");
+        KusciaApiChannelFactory factory = new GrpcKusciaApiChannelFactory(config, new SimpleMeterRegistry(), 3);
+        try {
+            HealthServiceGrpc.HealthServiceBlockingStub stub = factory.getStub(HealthServiceGrpc.HealthServiceBlockingStub.class,
+                    HealthServiceGrpc::newBlockingStub);
+            Assertions.assertSame(stub, factory.getStub(HealthServiceGrpc.HealthServiceBlockingStub.class, HealthServiceGrpc::newBlockingStub));
+            for (int i = 0; i < 6; i++) {
+                stub.healthZ(Health.HealthRequest.newBuilder().build());
+            }
+            Assertions.assertTrue(factory.isAvailable());
+            Assertions.assertFalse(factory.isDown());
+        } finally {
+            factory.shutdown();
+        }
+        Assertions.assertEquals(ConnectivityState.SHUTDOWN, factory.getState());
+    }
+
+    @Test
+    void callAfterShutdownCreatesNoChannel() {
+        KusciaGrpcConfig config = new KusciaGrpcConfig();
+        config.setHost(MockKusciaGrpcServer.HOST);
+        config.setPort(MockKusciaGrpcServer.PORT);
+        config.setProtocol(KusciaProtocolEnum.NOTLS);
+        config.setMode(KusciaModeEnum.P2P);
+        config.setDomainId("alice");
+        KusciaApiChannelFactory factory = new GrpcKusciaApiChannelFactory(config, new SimpleMeterRegistry(), 2);
+        HealthServiceGrpc.HealthServiceBlockingStub stub = factory.getStub(HealthServiceGrpc.HealthServiceBlockingStub.class,
+                HealthServiceGrpc::newBlockingStub);
+        stub.healthZ(Health.HealthRequest.newBuilder().build());
+        factory.shutdown();
+
+        StatusRuntimeException e = Assertions.assertThrows(StatusRuntimeException.class,
+                () -> stub.healthZ(Health.HealthRequest.newBuilder().build()));
+        Assertions.assertEquals(Status.Code.UNAVAILABLE, e.getStatus().getCode());
+        Assertions.assertThrows(IllegalStateException.class, factory::getChannel);
+        Assertions.assertEquals(ConnectivityState.SHUTDOWN, factory.getState());
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.kuscia.v1alpha1.test;
+
+import org.secretflow.secretpad.kuscia.v1alpha1.service.impl.KusciaGrpcAsyncClientAdapter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author yutu
+ * @date 2024/12/23
+ */
+public class KusciaGrpcAsyncClientAdapterTest {
+
+    @Test
+    void fanOutBoundsConcurrencyAndRecordsFailures() {
+        AtomicInteger inflight = new AtomicInteger();
+        AtomicInteger maxInflight = new AtomicInteger();
+        Map<String, String> failedRecords = new ConcurrentHashMap<>();
+
+        Map<String, String> responses = KusciaGrpcAsyncClientAdapter.fanOut(List.of("alice", "bob", "carol", "dave", "bad"), domainId -> {
+            maxInflight.accumulateAndGet(inflight.incrementAndGet(), Math::max);
+            if ("bad".equals(domainId)) {
+                inflight.decrementAndGet();
+                return CompletableFuture.failedFuture(new IllegalArgumentException("No such kuscia instance domain id: bad"));
+            }
+            return CompletableFuture.supplyAsync(() -> {
+                inflight.decrementAndGet();
+                return domainId.toUpperCase();
+            }, CompletableFuture.delayedExecutor(20, TimeUnit.MILLISECONDS));
+        }, 2, failedRecords).join();
+
+        Assertions.assertEquals(Map.of("alice", "ALICE", "bob", "BOB", "carol", "CAROL", "dave", "DAVE"), responses);
+        Assertions.assertEquals(List.of("bad"), List.copyOf(failedRecords.keySet()));
+        Assertions.assertTrue(maxInflight.get() <= 2);
+    }
+
+    @Test
+    void hedgedQueryTakesTheFirstAnswer() {
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<String> slow = new CompletableFuture<>();
+
+        String response = KusciaGrpcAsyncClientAdapter.hedged(() -> attempts.incrementAndGet() == 1
+                ? slow : CompletableFuture.completedFuture("hedge"), 10).join();
+
+        Assertions.assertEquals("hedge", response);
+        Assertions.assertEquals(2, attempts.get());
+        Assertions.assertTrue(slow.isCancelled());
+    }
+
+    @Test
+    void hedgedQueryFailsWhenEveryAttemptFails() {
+        CompletableFuture<String> result = KusciaGrpcAsyncClientAdapter.hedged(() ->
+                CompletableFuture.failedFuture(new IllegalStateException("down")), 10);
+
+        Assertions.assertThrows(Exception.class, result::join);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.kuscia.v1alpha1.test;
+
+import org.secretflow.secretpad.kuscia.v1alpha1.constant.KusciaModeEnum;
+import org.secretflow.secretpad.kuscia.v1alpha1.constant.KusciaProtocolEnum;
+import org.secretflow.secretpad.kuscia.v1alpha1.factory.impl.GrpcKusciaApiChannelFactory;
+import org.secretflow.secretpad.kuscia.v1alpha1.interceptor.KusciaGrpcMetricsInterceptor;
+import org.secretflow.secretpad.kuscia.v1alpha1.mock.MockKusciaGrpcServer;
+import org.secretflow.secretpad.kuscia.v1alpha1.model.KusciaGrpcConfig;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.secretflow.v1alpha1.kusciaapi.Health;
+import org.secretflow.v1alpha1.kusciaapi.HealthServiceGrpc;
+
+/**
+ * @author yutu
+ * @date 2024/12/23
+ */
+public class KusciaGrpcMetricsInterceptorTest {
+
+    private MockKusciaGrpcServer mockKusciaGrpcServer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        mockKusciaGrpcServer = new MockKusciaGrpcServer();
+        mockKusciaGrpcServer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        mockKusciaGrpcServer.shutdown();
+    }
+
+    @Test
+    void callsAreTimedByMethodAndStatus() {
+        KusciaGrpcConfig config = new KusciaGrpcConfig();
+        config.setHost(MockKusciaGrpcServer.HOST);
+        config.setPort(MockKusciaGrpcServer.PORT);
+        config.setProtocol(KusciaProtocolEnum.NOTLS);
+        config.setMode(KusciaModeEnum.P2P);
+        config.setDomainId("alice");
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        GrpcKusciaApiChannelFactory factory = new GrpcKusciaApiChannelFactory(config, meterRegistry);
+        try {
+            HealthServiceGrpc.newBlockingStub(factory.getChannel()).healthZ(Health.HealthRequest.newBuilder().build());
+            HealthServiceGrpc.newBlockingStub(factory.getChannel()).healthZ(Health.HealthRequest.newBuilder().build());
+        } finally {
+            factory.shutdown();
+        }
+        Timer timer = meterRegistry.find(KusciaGrpcMetricsInterceptor.CALLS)
+                .tags("domain", "alice", "method", HealthServiceGrpc.getHealthZMethod().getFullMethodName(), "status", "OK")
+                .timer();
+        Assertions.assertNotNull(timer);
+        Assertions.assertEquals(2, timer.count());
+        Assertions.assertEquals(0, meterRegistry.get(KusciaGrpcMetricsInterceptor.INFLIGHT).tag("domain", "alice").gauge().value());
+    }
+}
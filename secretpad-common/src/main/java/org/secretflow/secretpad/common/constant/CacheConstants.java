@@ -28,4 +28,10 @@ public class CacheConstants {
     public static final String MODEL_EXPORT_CACHE = "model_export_cache";
 
     public static final String PROJECT_VOTE_PARTIES_CACHE = "project_vote_parties_cache";
+
+    public static final String TOKEN_SESSION_CACHE = "token_session_cache";
+
+    public static final String NODE_PROJECTS_CACHE = "node_projects_cache";
+
+    public static final String AUTH_DECISION_CACHE = "auth_decision_cache";
 }
\ No newline at end of file
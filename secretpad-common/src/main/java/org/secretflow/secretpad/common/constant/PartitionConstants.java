@@ -22,6 +22,5 @@ package org.secretflow.secretpad.common.constant;
  */
 public class PartitionConstants {
     public static final String PARTITION_MAX_PT = "maxpt";
-    public static final String PARTITION_DATE_REG = "\\$\\{yyyymmdd([+-]\\d*)?}";
     public static final String ODPS_PARTITION_MAX_PT = "max_pt";
 }
\ No newline at end of file
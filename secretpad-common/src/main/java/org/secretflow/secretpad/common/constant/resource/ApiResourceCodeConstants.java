@@ -120,6 +120,10 @@ public class ApiResourceCodeConstants {
     public static final String SCHEDULED_CREATE = "SCHEDULED_CREATE";
     public static final String SCHEDULED_PAGE = "SCHEDULED_PAGE";
     public static final String SCHEDULED_OFFLINE = "SCHEDULED_OFFLINE";
+
+    public static final String DATA_SYNC_DEAD_LETTER_PAGE = "DATA_SYNC_DEAD_LETTER_PAGE";
+    public static final String DATA_SYNC_DEAD_LETTER_REPLAY = "DATA_SYNC_DEAD_LETTER_REPLAY";
+    public static final String DATA_SYNC_DEAD_LETTER_DELETE = "DATA_SYNC_DEAD_LETTER_DELETE";
 }
 
 
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.common.dto;
+
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * result of one item of a batch data sync request, in the same order as the request items
+ *
+ * @author yutu
+ * @date 2024/12/17
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+@ToString
+public class SyncDataResultDTO implements Serializable {
+
+    public static final int SUCCESS = 0;
+    public static final int FAILED = 1;
+    /**
+     * not applied because an earlier item of the batch failed
+     */
+    public static final int SKIPPED = 2;
+
+    private int index;
+
+    private int code;
+
+    private String msg;
+
+    public boolean success() {
+        return code == SUCCESS;
+    }
+}
@@ -25,10 +25,10 @@ import org.apache.commons.compress.utils.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.StreamUtils;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.util.Enumeration;
 import java.util.LinkedList;
 import java.util.List;
@@ -140,28 +140,36 @@ public class CompressUtils {
      */
     public static File compressTar(List<File> list, String inPutPath, String outPutPath, String fileName) throws Exception {
         File outPutFile = new File(outPutPath + File.separator + fileName + ".tar.gz");
-        File tempTar = new File("temp.tar");
-        try (FileInputStream fis = new FileInputStream(pack(list, inPutPath, tempTar))) {
-            try (BufferedInputStream bis = new BufferedInputStream(fis, BUFFER_SIZE)) {
-                try (FileOutputStream fos = new FileOutputStream(outPutFile)) {
-                    try (GZIPOutputStream gzp = new GZIPOutputStream(fos)) {
-                        int count;
-                        byte[] data = new byte[BUFFER_SIZE];
-                        while ((count = bis.read(data, 0, BUFFER_SIZE)) != -1) {
-                            gzp.write(data, 0, count);
-                        }
-                    }
-                }
-            }
+        try (OutputStream fos = new BufferedOutputStream(new FileOutputStream(outPutFile), BUFFER_SIZE)) {
+            writeTarGz(list, inPutPath, fos);
         }
+        return outPutFile;
+    }
 
-        try {
-            Files.deleteIfExists(tempTar.toPath());
-        } catch (IOException e) {
-            LOGGER.error(e.getMessage());
-            throw new RuntimeException(e);
+    /**
+     * Write files as tar.gz to out while they are read, without a temporary tar, out is left open
+     *
+     * @param files     files to pack
+     * @param inPutPath path removed in front of the entry names
+     * @param out       target stream
+     */
+    public static void writeTarGz(List<File> files, String inPutPath, OutputStream out) throws IOException {
+        try (GZIPOutputStream gzp = new GZIPOutputStream(StreamUtils.nonClosing(out), BUFFER_SIZE);
+             TarArchiveOutputStream os = new TarArchiveOutputStream(gzp)) {
+            // Solve the problem of file name too long
+            os.setLongFileMode(TarArchiveOutputStream.LONGFILE_GNU);
+            // sizes over 8GB need the posix extension
+            os.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+            for (File file : files) {
+                // Remove the directory in front of the file
+                os.putArchiveEntry(new TarArchiveEntry(file, file.getAbsolutePath().replace(inPutPath, "")));
+                try (FileInputStream fis = new FileInputStream(file)) {
+                    IOUtils.copy(fis, os, BUFFER_SIZE);
+                }
+                os.closeArchiveEntry();
+            }
+            os.finish();
         }
-        return outPutFile;
     }
 
     /**
@@ -69,6 +69,71 @@ public class CronUtils {
         return matchingDates;
     }
 
+    /**
+     * first date from startTime on, and not before now, matched by any of the cron expressions
+     *
+     * @param cronExpressions cron expressions of one schedule
+     * @param startTime       startTime
+     * @param endTime         endTime
+     * @return the first matching date, null if there is none until endTime
+     */
+    public static Date getFirstMatchingDate(List<String> cronExpressions, String startTime, String endTime) {
+        Date start = parse(startTime);
+        Date now = new Date();
+        return getNextMatchingDate(cronExpressions, start.before(now) ? now : start, endTime);
+    }
+
+    /**
+     * next date after the given date matched by any of the cron expressions, so that a schedule only needs its next
+     * date instead of every date until its end
+     *
+     * @param cronExpressions cron expressions of one schedule
+     * @param after           the date is after this
+     * @param endTime         endTime
+     * @return the next matching date, null if there is none until endTime
+     */
+    public static Date getNextMatchingDate(List<String> cronExpressions, Date after, String endTime) {
+        Date endDate = parse(endTime);
+        Date next = null;
+        for (String cronExpression : new LinkedHashSet<>(cronExpressions)) {
+            Date date = cron(cronExpression).getNextValidTimeAfter(after);
+            if (date != null && !date.after(endDate) && (next == null || date.before(next))) {
+                next = date;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * @return the first of the cron expressions which matches the date, null if none does
+     */
+    public static String getMatchingExpression(List<String> cronExpressions, Date date) {
+        for (String cronExpression : cronExpressions) {
+            if (cron(cronExpression).isSatisfiedBy(date)) {
+                return cronExpression;
+            }
+        }
+        return null;
+    }
+
+    private static Date parse(String time) {
+        try {
+            return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse(time);
+        } catch (Exception e) {
+            log.error("parse time:{}", time, e);
+            throw new IllegalArgumentException("Invalid time format. must be yyyy-MM-dd HH:mm:ss", e);
+        }
+    }
+
+    private static CronExpression cron(String cronExpression) {
+        try {
+            return new CronExpression(cronExpression);
+        } catch (ParseException e) {
+            log.error("cronExpression:{}", cronExpression, e);
+            throw new IllegalArgumentException("Invalid cron expression", e);
+        }
+    }
+
     /**
      * building a cron expression
      *
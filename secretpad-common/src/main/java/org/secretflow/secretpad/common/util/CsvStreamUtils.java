@@ -0,0 +1,344 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.common.util;
+
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Csv stream utils
+ * <p>
+ * Copies a csv in one pass with a fixed buffer: the utf-8 BOM is dropped from the first bytes, line endings become
+ * {@code \n} and the last line gets one, as the former line by line rewrite did. On the way the rows are counted and
+ * the header and the first sample rows are kept to sniff the delimiter and the column types.
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+public class CsvStreamUtils {
+
+    public static final String TYPE_INT = "int";
+    public static final String TYPE_FLOAT = "float";
+    public static final String TYPE_STR = "str";
+    private static final int BUFFER_SIZE = 1024 * 64;
+    private static final int MAX_LINE_BYTES = 1024 * 1024;
+    private static final int SAMPLE_ROWS = 100;
+    private static final char[] DELIMITERS = {',', '\t', ';', '|'};
+    private static final byte[] BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    /**
+     * Copy csv from in to out in one pass
+     *
+     * @param in              csv content
+     * @param out             target, left open
+     * @param progress        called with the bytes read so far every progressBytes, may be null
+     * @param progressBytes   bytes between two progress calls
+     * @return header, delimiter, column types and row count of the csv
+     */
+    public static Summary ingest(InputStream in, OutputStream out, LongConsumer progress, long progressBytes) throws IOException {
+        PushbackInputStream input = new PushbackInputStream(in, BOM.length);
+        byte[] head = input.readNBytes(BOM.length);
+        long read = head.length;
+        if (!(head.length == BOM.length && head[0] == BOM[0] && head[1] == BOM[1] && head[2] == BOM[2])) {
+            input.unread(head);
+            read = 0;
+        }
+        LineCollector lines = new LineCollector();
+        byte[] buf = new byte[BUFFER_SIZE];
+        byte[] normalized = new byte[BUFFER_SIZE];
+        boolean lastCr = false;
+        boolean lineOpen = false;
+        long nextProgress = progressBytes;
+        int n;
+        while ((n = input.read(buf)) > 0) {
+            int len = 0;
+            for (int i = 0; i < n; i++) {
+                byte b = buf[i];
+                if (b == '\n' && lastCr) {
+                    // \r\n, the \r already ended the line
+                    lastCr = false;
+                    continue;
+                }
+                lastCr = b == '\r';
+                if (b == '\r' || b == '\n') {
+                    normalized[len++] = '\n';
+                    lines.end();
+                    lineOpen = false;
+                } else {
+                    normalized[len++] = b;
+                    lines.append(b);
+                    lineOpen = true;
+                }
+            }
+            out.write(normalized, 0, len);
+            read += n;
+            if (progress != null && read >= nextProgress) {
+                progress.accept(read);
+                nextProgress = read + progressBytes;
+            }
+        }
+        if (lineOpen) {
+            out.write('\n');
+            lines.end();
+        }
+        if (progress != null) {
+            progress.accept(read);
+        }
+        return lines.summary();
+    }
+
+    /**
+     * Read the header and the first sample rows of a csv file, the rest of the file is not read
+     *
+     * @param file csv file
+     * @return header, delimiter and column types, the row count is the sampled rows only
+     */
+    public static Summary sample(File file) throws IOException {
+        LineCollector lines = new LineCollector();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE)) {
+            byte[] head = in.readNBytes(BOM.length);
+            int start = head.length == BOM.length && head[0] == BOM[0] && head[1] == BOM[1] && head[2] == BOM[2] ? BOM.length : 0;
+            for (int i = start; i < head.length; i++) {
+                lines.accept(head[i]);
+            }
+            int b;
+            while (lines.sampling() && (b = in.read()) != -1) {
+                lines.accept((byte) b);
+            }
+            lines.end();
+        }
+        return lines.summary();
+    }
+
+    /**
+     * @return columns of the schema which are not in the header
+     */
+    public static List<String> missingColumns(Summary summary, Collection<String> columns) {
+        List<String> missing = new ArrayList<>();
+        for (String column : columns) {
+            if (!summary.getHeader().contains(column)) {
+                missing.add(column);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * @param declaredType declared type, int32 and the like count as int, double as float
+     * @param nullStrs     values which mean null and fit every type
+     * @return true if every sampled value of the column is null or fits the type
+     */
+    public static boolean fits(Summary summary, String column, String declaredType, Collection<String> nullStrs) {
+        int index = summary.getHeader().indexOf(column);
+        String type = StringUtils.startsWith(declaredType, TYPE_INT) ? TYPE_INT
+                : StringUtils.startsWithAny(declaredType, TYPE_FLOAT, "double") ? TYPE_FLOAT : TYPE_STR;
+        if (index < 0 || TYPE_STR.equals(type)) {
+            return true;
+        }
+        for (List<String> row : summary.samples) {
+            String value = index < row.size() ? row.get(index) : "";
+            if (value.isEmpty() || (nullStrs != null && nullStrs.contains(value))) {
+                continue;
+            }
+            String valueType = typeOf(value);
+            if (TYPE_STR.equals(valueType) || (TYPE_INT.equals(type) && TYPE_FLOAT.equals(valueType))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String typeOf(String value) {
+        try {
+            Long.parseLong(value);
+            return TYPE_INT;
+        } catch (NumberFormatException e) {
+            // not an int
+        }
+        try {
+            Double.parseDouble(value);
+            return TYPE_FLOAT;
+        } catch (NumberFormatException e) {
+            return TYPE_STR;
+        }
+    }
+
+    private static char sniffDelimiter(String header) {
+        char delimiter = DELIMITERS[0];
+        int best = 0;
+        for (char candidate : DELIMITERS) {
+            int count = split(header, candidate).size() - 1;
+            if (count > best) {
+                best = count;
+                delimiter = candidate;
+            }
+        }
+        return delimiter;
+    }
+
+    /**
+     * split one line as RFC 4180 does: a quoted value may hold the delimiter and a doubled quote stands for one quote.
+     * Unquoted values are trimmed, quoted ones are kept as they are.
+     */
+    private static List<String> split(String line, char delimiter) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean inQuotes = false;
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (inQuotes) {
+                if (c != '"') {
+                    value.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else {
+                    inQuotes = false;
+                }
+            } else if (c == delimiter) {
+                values.add(quoted ? value.toString() : value.toString().trim());
+                value.setLength(0);
+                quoted = false;
+            } else if (c == '"' && !quoted && StringUtils.isBlank(value)) {
+                value.setLength(0);
+                inQuotes = true;
+                quoted = true;
+            } else if (!quoted || !Character.isWhitespace(c)) {
+                // text after the closing quote is kept, only the padding before the delimiter is dropped
+                value.append(c);
+            }
+        }
+        values.add(quoted ? value.toString() : value.toString().trim());
+        return values;
+    }
+
+    /**
+     * keeps the header and the sample rows, every other line is only counted
+     */
+    private static class LineCollector {
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        private final List<String> sampleLines = new ArrayList<>();
+        private String header;
+        private long rows;
+        private boolean truncated;
+        private boolean blank = true;
+        private boolean lastCr;
+
+        /**
+         * a byte of the raw file, for sample()
+         */
+        private void accept(byte b) {
+            if (b == '\n' && lastCr) {
+                lastCr = false;
+                return;
+            }
+            lastCr = b == '\r';
+            if (b == '\r' || b == '\n') {
+                end();
+            } else {
+                append(b);
+            }
+        }
+
+        private void append(byte b) {
+            blank = false;
+            if (!sampling()) {
+                return;
+            }
+            if (line.size() < MAX_LINE_BYTES) {
+                line.write(b);
+            } else {
+                truncated = true;
+            }
+        }
+
+        private void end() {
+            if (blank) {
+                line.reset();
+                return;
+            }
+            if (header == null) {
+                // an over long header is kept as empty
+                header = truncated ? "" : line.toString(StandardCharsets.UTF_8);
+            } else {
+                if (sampling() && !truncated) {
+                    sampleLines.add(line.toString(StandardCharsets.UTF_8));
+                }
+                rows++;
+            }
+            line.reset();
+            truncated = false;
+            blank = true;
+        }
+
+        private boolean sampling() {
+            return header == null || sampleLines.size() < SAMPLE_ROWS;
+        }
+
+        private Summary summary() {
+            return new Summary(header == null ? "" : header, sampleLines, rows);
+        }
+    }
+
+    @Getter
+    public static class Summary {
+        /**
+         * Column names of the first line
+         */
+        private final List<String> header;
+        private final char delimiter;
+        /**
+         * int, float or str of each column, sniffed from the sample rows
+         */
+        private final List<String> columnTypes;
+        /**
+         * Non blank lines after the header
+         */
+        private final long rows;
+        private final List<List<String>> samples;
+
+        private Summary(String headerLine, List<String> sampleLines, long rows) {
+            this.delimiter = sniffDelimiter(headerLine);
+            this.header = headerLine.isEmpty() ? List.of() : split(headerLine, delimiter);
+            this.samples = sampleLines.stream().map(l -> split(l, delimiter)).toList();
+            this.rows = rows;
+            this.columnTypes = new ArrayList<>(header.size());
+            for (int i = 0; i < header.size(); i++) {
+                String type = null;
+                for (List<String> row : samples) {
+                    String value = i < row.size() ? row.get(i) : "";
+                    if (value.isEmpty()) {
+                        continue;
+                    }
+                    String valueType = typeOf(value);
+                    if (type == null || TYPE_STR.equals(valueType) || (TYPE_INT.equals(type) && TYPE_FLOAT.equals(valueType))) {
+                        type = valueType;
+                    }
+                }
+                columnTypes.add(type == null ? TYPE_STR : type);
+            }
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package org.secretflow.secretpad.common.util;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.TreeNode;
@@ -83,6 +84,16 @@ public class JsonUtils {
         OM.setTimeZone(TimeZone.getDefault());
     }
 
+    /**
+     * Copy the ObjectMapper config onto another data format backed by factory, e.g. smile
+     *
+     * @param factory
+     * @return ObjectMapper
+     */
+    public static ObjectMapper copyWith(JsonFactory factory) {
+        return OM.copyWith(factory);
+    }
+
     /**
      * Make java type with parametrized and parameterClasses
      *
@@ -38,6 +38,15 @@ public class SpringContextUtil implements ApplicationContextAware {
         return (T) ac.getBean(name);
     }
 
+    /**
+     * publish an application event, dropped if the context is not started, as in plain unit tests
+     */
+    public static void publishEvent(Object event) {
+        if (ac != null) {
+            ac.publishEvent(event);
+        }
+    }
+
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
         ac = applicationContext;
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.common.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * binary wire format of a data sync batch.
+ * <p>
+ * The body is a sequence of frames, each frame is a 4 byte big endian length followed by one SyncDataDTO encoded as smile
+ * with the JsonUtils config, so the sender measures every item once while it fills the batch.
+ * The whole body may be gzipped, which is announced by the Content-Encoding header.
+ *
+ * @author yutu
+ * @date 2024/12/20
+ */
+public class SyncDataCodec {
+
+    public static final String MEDIA_TYPE = "application/x-secretpad-sync-smile";
+    public static final String GZIP = "gzip";
+    public static final String IDENTITY = "identity";
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(SyncDataCodec.class);
+    private static final ObjectMapper SMILE = JsonUtils.copyWith(new SmileFactory());
+    private static final int MAX_FRAME_BYTES = 64 * 1024 * 1024;
+    private static final long MAX_BODY_BYTES = 256L * 1024 * 1024;
+
+    /**
+     * Encode one item as smile
+     *
+     * @param value
+     * @return byte[]
+     */
+    public static byte[] encode(Object value) {
+        try {
+            return SMILE.writeValueAsBytes(value);
+        } catch (IOException e) {
+            LOGGER.error("object to smile failed", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Frame encoded items into one body
+     *
+     * @param items encoded by encode
+     * @param gzip  compress the body
+     * @return byte[]
+     */
+    public static byte[] frame(List<byte[]> items, boolean gzip) {
+        int size = items.stream().mapToInt(item -> item.length + Integer.BYTES).sum();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(gzip ? size / 2 : size);
+        try (DataOutputStream out = new DataOutputStream(gzip ? new GZIPOutputStream(body, 8192) : body)) {
+            for (byte[] item : items) {
+                out.writeInt(item.length);
+                out.write(item);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return body.toByteArray();
+    }
+
+    /**
+     * Decode a body written by frame
+     *
+     * @param body
+     * @param contentEncoding gzip, identity or null
+     * @return one tree per item in order
+     */
+    public static List<JsonNode> decode(byte[] body, String contentEncoding) {
+        return decode(body, contentEncoding, MAX_BODY_BYTES);
+    }
+
+    /**
+     * Decode a body written by frame, a gzipped body must not inflate past maxBytes
+     *
+     * @param body
+     * @param contentEncoding gzip, identity or null
+     * @param maxBytes        limit of the decompressed body
+     * @return one tree per item in order
+     */
+    public static List<JsonNode> decode(byte[] body, String contentEncoding, long maxBytes) {
+        List<JsonNode> items = new ArrayList<>();
+        long total = 0;
+        InputStream in = new ByteArrayInputStream(body);
+        try {
+            if (GZIP.equalsIgnoreCase(contentEncoding)) {
+                in = new GZIPInputStream(in, 8192);
+            }
+            DataInputStream data = new DataInputStream(in);
+            int first;
+            while ((first = data.read()) >= 0) {
+                // a truncated length or item fails with EOFException
+                int length = (first << 24) | (data.readUnsignedByte() << 16) | (data.readUnsignedByte() << 8) | data.readUnsignedByte();
+                if (length < 0 || length > MAX_FRAME_BYTES) {
+                    throw new IOException("invalid sync frame length " + length);
+                }
+                // checked before the frame is allocated and inflated
+                total += Integer.BYTES + length;
+                if (total > maxBytes) {
+                    throw new IOException("sync body exceeds " + maxBytes + " bytes");
+                }
+                byte[] item = new byte[length];
+                data.readFully(item);
+                items.add(SMILE.readTree(item));
+            }
+        } catch (IOException e) {
+            LOGGER.error("smile to object failed", e);
+            throw new RuntimeException(e);
+        }
+        return items;
+    }
+}
@@ -17,10 +17,21 @@
 package org.secretflow.secretpad.common.util;
 
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
 
 /**
  * @author yutu
@@ -34,4 +45,22 @@ class CompressUtilsTest {
         String classPath = Objects.requireNonNull(Thread.currentThread().getContextClassLoader().getResource("")).getPath();
         Assertions.assertDoesNotThrow(() -> CompressUtils.getFiles(classPath));
     }
+
+    @Test
+    void writeTarGz(@TempDir Path tempDir) throws Exception {
+        Path source = Files.createDirectories(tempDir.resolve("model"));
+        Files.writeString(source.resolve("a.txt"), "a");
+        Files.writeString(Files.createDirectories(source.resolve("sub")).resolve("b.txt"), "b");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompressUtils.writeTarGz(CompressUtils.getFiles(source.toString()), source.toString(), out);
+
+        Map<String, String> entries = new TreeMap<>();
+        try (TarArchiveInputStream tarIn = new TarArchiveInputStream(new GzipCompressorInputStream(new ByteArrayInputStream(out.toByteArray())))) {
+            TarArchiveEntry entry;
+            while ((entry = tarIn.getNextTarEntry()) != null) {
+                entries.put(entry.getName(), new String(tarIn.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        Assertions.assertEquals(Map.of("a.txt", "a", "sub/b.txt", "b"), entries);
+    }
 }
\ No newline at end of file
@@ -21,7 +21,9 @@ import org.secretflow.secretpad.common.constant.ScheduledConstants;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.text.SimpleDateFormat;
 import java.time.LocalDateTime;
+import java.util.Date;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -96,6 +98,26 @@ public class CronUtilsTest {
         ));
     }
 
+    @Test
+    public void testNextMatchingDate() throws Exception {
+        List<String> cronExpressions = CronUtils.buildCronExpression(
+                ScheduledConstants.SCHEDULED_CYCLE_WEEK,
+                "1,3",
+                "12:00:00",
+                "2024-09-01 00:00:00",
+                "2024-09-10 23:59:59"
+        );
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        // 2024-09-02 is a monday
+        Date first = CronUtils.getNextMatchingDate(cronExpressions, sdf.parse("2024-09-01 00:00:00"), "2024-09-10 23:59:59");
+        assertEquals("2024-09-02 12:00:00", sdf.format(first));
+        Date second = CronUtils.getNextMatchingDate(cronExpressions, first, "2024-09-10 23:59:59");
+        assertEquals("2024-09-04 12:00:00", sdf.format(second));
+        assertEquals("0 00 12 ? * wed", CronUtils.getMatchingExpression(cronExpressions, second));
+        Assertions.assertNull(CronUtils.getNextMatchingDate(cronExpressions, sdf.parse("2024-09-09 12:00:00"), "2024-09-10 23:59:59"));
+        Assertions.assertNull(CronUtils.getFirstMatchingDate(cronExpressions, "2024-09-01 00:00:00", "2024-09-10 23:59:59"));
+    }
+
     @Test
     void test() {
         String start = DateTimes.localDateTimeString(LocalDateTime.now().plusMinutes(1));
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.common.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * single pass csv ingest
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+public class CsvStreamUtilsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void ingestStripsBomAndNormalizesLines() throws Exception {
+        byte[] csv = ("\uFEFFid,age,score\r\n1,20,1.5\r\n2,,2\r\n\r\n3,40,x").getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<Long> progress = new ArrayList<>();
+
+        CsvStreamUtils.Summary summary = CsvStreamUtils.ingest(new ByteArrayInputStream(csv), out, progress::add, 8);
+
+        Assertions.assertEquals("id,age,score\n1,20,1.5\n2,,2\n\n3,40,x\n", out.toString(StandardCharsets.UTF_8));
+        Assertions.assertEquals(List.of("id", "age", "score"), summary.getHeader());
+        Assertions.assertEquals(',', summary.getDelimiter());
+        Assertions.assertEquals(3, summary.getRows());
+        Assertions.assertEquals(List.of("int", "int", "str"), summary.getColumnTypes());
+        Assertions.assertEquals((long) csv.length, progress.get(progress.size() - 1));
+    }
+
+    @Test
+    public void sniffDelimiter() throws Exception {
+        CsvStreamUtils.Summary summary = CsvStreamUtils.ingest(new ByteArrayInputStream("a;b;c\n1;2.5;z\n".getBytes(StandardCharsets.UTF_8)),
+                new ByteArrayOutputStream(), null, 1024);
+        Assertions.assertEquals(';', summary.getDelimiter());
+        Assertions.assertEquals(List.of("a", "b", "c"), summary.getHeader());
+        Assertions.assertEquals(List.of("int", "float", "str"), summary.getColumnTypes());
+    }
+
+    @Test
+    public void sampleChecksSchema() throws Exception {
+        File file = Files.writeString(tempDir.resolve("data.csv"), "id,age,name\n1,20,a\n2,NULL,b\n3,30.5,c\n").toFile();
+        CsvStreamUtils.Summary summary = CsvStreamUtils.sample(file);
+
+        Assertions.assertEquals(List.of("weight"), CsvStreamUtils.missingColumns(summary, List.of("id", "weight")));
+        Assertions.assertTrue(CsvStreamUtils.fits(summary, "id", "int32", null));
+        Assertions.assertTrue(CsvStreamUtils.fits(summary, "age", "float", List.of("NULL")));
+        Assertions.assertFalse(CsvStreamUtils.fits(summary, "age", "int", List.of("NULL")));
+        Assertions.assertFalse(CsvStreamUtils.fits(summary, "name", "float64", null));
+        Assertions.assertTrue(CsvStreamUtils.fits(summary, "name", "str", null));
+    }
+
+    @Test
+    public void quotedValuesKeepDelimiters() throws Exception {
+        File file = Files.writeString(tempDir.resolve("quoted.csv"),
+                "id,\"name, full\",score\n1,\"a,b\",2.5\n2,\"say \"\"hi\"\"\" ,3\n3, c ,\"4\"\n").toFile();
+        CsvStreamUtils.Summary summary = CsvStreamUtils.sample(file);
+
+        Assertions.assertEquals(',', summary.getDelimiter());
+        Assertions.assertEquals(List.of("id", "name, full", "score"), summary.getHeader());
+        Assertions.assertEquals(List.of("1", "a,b", "2.5"), summary.getSamples().get(0));
+        Assertions.assertEquals(List.of("2", "say \"hi\"", "3"), summary.getSamples().get(1));
+        Assertions.assertEquals(List.of("3", "c", "4"), summary.getSamples().get(2));
+        Assertions.assertEquals(List.of("int", "str", "float"), summary.getColumnTypes());
+        Assertions.assertTrue(CsvStreamUtils.missingColumns(summary, List.of("id", "name, full", "score")).isEmpty());
+        Assertions.assertTrue(CsvStreamUtils.fits(summary, "score", "float", null));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.common.util;
+
+import org.secretflow.secretpad.common.dto.SyncDataDTO;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author yutu
+ * @date 2024/12/20
+ */
+class SyncDataCodecTest {
+
+    @Test
+    void roundTrip() {
+        List<byte[]> items = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            items.add(SyncDataCodec.encode(buildSyncDataDTO(i)));
+        }
+        for (boolean gzip : new boolean[]{false, true}) {
+            byte[] body = SyncDataCodec.frame(items, gzip);
+            List<JsonNode> decoded = SyncDataCodec.decode(body, gzip ? SyncDataCodec.GZIP : SyncDataCodec.IDENTITY);
+            Assertions.assertEquals(items.size(), decoded.size());
+            for (int i = 0; i < decoded.size(); i++) {
+                // the tree is the same as the json one, so the typed conversion of the receiver does not change
+                Assertions.assertEquals(JsonUtils.parseObject(buildSyncDataDTO(i).toJson()), decoded.get(i));
+            }
+        }
+    }
+
+    @Test
+    void rejectTruncatedBody() {
+        byte[] body = SyncDataCodec.frame(List.of(SyncDataCodec.encode(buildSyncDataDTO(0))), false);
+        Assertions.assertThrows(RuntimeException.class, () -> SyncDataCodec.decode(Arrays.copyOf(body, body.length - 1), null));
+    }
+
+    @Test
+    void rejectBodyInflatingPastLimit() {
+        // a zero filled item compresses to a tiny body, the limit applies to the inflated size
+        byte[] body = SyncDataCodec.frame(List.of(new byte[1024 * 1024]), true);
+        Assertions.assertTrue(body.length < 16 * 1024);
+        Assertions.assertThrows(RuntimeException.class, () -> SyncDataCodec.decode(body, SyncDataCodec.GZIP, 512 * 1024));
+        byte[] items = SyncDataCodec.frame(List.of(SyncDataCodec.encode(buildSyncDataDTO(0)), SyncDataCodec.encode(buildSyncDataDTO(1))), true);
+        Assertions.assertThrows(RuntimeException.class, () -> SyncDataCodec.decode(items, SyncDataCodec.GZIP, SyncDataCodec.encode(buildSyncDataDTO(0)).length + Integer.BYTES));
+    }
+
+    private SyncDataDTO<Object> buildSyncDataDTO(int i) {
+        return SyncDataDTO.builder()
+                .tableName("org.secretflow.secretpad.persistence.entity.ProjectJobDO")
+                .action("update")
+                .data(Map.of("jobId", "job" + i, "gmtModified", LocalDateTime.of(2024, 12, 20, 10, 0, i),
+                        "graph", Map.of("nodes", List.of("a", "b"), "maxParallelism", i)))
+                .build();
+    }
+}
@@ -25,12 +25,15 @@ import org.secretflow.secretpad.manager.integration.datatable.AbstractDatatableM
 import org.secretflow.secretpad.manager.integration.datatable.DatatableManager;
 import org.secretflow.secretpad.manager.integration.job.AbstractJobManager;
 import org.secretflow.secretpad.manager.integration.job.JobManager;
+import org.secretflow.secretpad.manager.integration.job.JobWatchPipeline;
 import org.secretflow.secretpad.persistence.repository.*;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Scope;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 /**
  * Manager configuration init bean
@@ -41,6 +44,9 @@ import org.springframework.context.annotation.Scope;
 @Configuration
 public class ManagerConfiguration {
 
+    @Value("${secretpad.job.watch.lanes:8}")
+    private int jobWatchLanes;
+
     /**
      * Create a new abstract datatable manager via domain data service blocking stub
      *
@@ -86,6 +92,31 @@ public class ManagerConfiguration {
         return new JobManager(projectJobRepository, datatableManager, resultRepository, fedTableRepository, datatableRepository, ruleRepository, modelRepository, reportRepository, managementRepository, readDataRepository, taskRepository);
     }
 
+    /**
+     * Create the pipeline which handles watched job events of every job manager
+     *
+     * @return job watch pipeline
+     */
+    @Bean
+    JobWatchPipeline jobWatchPipeline() {
+        return new JobWatchPipeline();
+    }
+
+    /**
+     * one thread per job watch lane, a lane is drained by one task at a time
+     *
+     * @return job watch thread pool
+     */
+    @Bean("jobWatchThreadPool")
+    ThreadPoolTaskExecutor jobWatchThreadPool() {
+        ThreadPoolTaskExecutor threadPoolTaskExecutor = new ThreadPoolTaskExecutor();
+        threadPoolTaskExecutor.setCorePoolSize(jobWatchLanes);
+        threadPoolTaskExecutor.setMaxPoolSize(jobWatchLanes);
+        threadPoolTaskExecutor.setThreadNamePrefix("JobWatchThreadPool-");
+        threadPoolTaskExecutor.initialize();
+        return threadPoolTaskExecutor;
+    }
+
     /**
      * Create a new abstract data manager via domain data service blocking stub
      *
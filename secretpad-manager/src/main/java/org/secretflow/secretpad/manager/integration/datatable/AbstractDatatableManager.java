@@ -76,7 +76,23 @@ public abstract class AbstractDatatableManager {
      * @param types
      * @return DatatableListDTO
      */
-    public abstract DatatableListDTO findByNodeId(String nodeId, Integer pageSize, Integer pageNumber, String statusFilter, String datatableNameFilter, List<String> types);
+    public DatatableListDTO findByNodeId(String nodeId, Integer pageSize, Integer pageNumber, String statusFilter, String datatableNameFilter, List<String> types) {
+        return findByNodeId(nodeId, pageSize, pageNumber, null, statusFilter, datatableNameFilter, types);
+    }
+
+    /**
+     * Find a page of DatatableDTO in (datatable name, datatable id) order
+     *
+     * @param nodeId              nodeId
+     * @param pageSize            max datatables of the page, null for all
+     * @param pageNumber          page to return when pageToken is blank, starting at 1
+     * @param pageToken           nextPageToken of the previous page, the page starts right after it
+     * @param statusFilter
+     * @param datatableNameFilter
+     * @param types
+     * @return DatatableListDTO
+     */
+    public abstract DatatableListDTO findByNodeId(String nodeId, Integer pageSize, Integer pageNumber, String pageToken, String statusFilter, String datatableNameFilter, List<String> types);
 
     /**
      * Find DatatableDTO list by nodeId and vendor
@@ -97,4 +113,11 @@ public abstract class AbstractDatatableManager {
 
     public abstract List<DatatableDTO> findAllDatatableByNodeId(String nodeId);
 
+    /**
+     * Forget the listed datatables of a node after datatables were created or deleted
+     *
+     * @param nodeId
+     */
+    public abstract void evict(String nodeId);
+
 }
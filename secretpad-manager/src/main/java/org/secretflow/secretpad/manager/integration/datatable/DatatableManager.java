@@ -23,13 +23,17 @@ import org.secretflow.secretpad.common.enums.PlatformTypeEnum;
 import org.secretflow.secretpad.common.errorcode.DatatableErrorCode;
 import org.secretflow.secretpad.common.exception.SecretpadException;
 import org.secretflow.secretpad.common.util.JsonUtils;
+import org.secretflow.secretpad.kuscia.v1alpha1.service.impl.KusciaGrpcAsyncClientAdapter;
 import org.secretflow.secretpad.kuscia.v1alpha1.service.impl.KusciaGrpcClientAdapter;
 import org.secretflow.secretpad.manager.integration.model.DatatableDTO;
 import org.secretflow.secretpad.manager.integration.model.DatatableListDTO;
+import org.secretflow.secretpad.manager.integration.model.DatatablePageKey;
 import org.secretflow.secretpad.manager.integration.node.SearchTargetNodeManager;
 import org.secretflow.secretpad.persistence.entity.FeatureTableDO;
 import org.secretflow.secretpad.persistence.repository.FeatureTableRepository;
 
+import jakarta.annotation.Resource;
+import lombok.Setter;
 import org.secretflow.v1alpha1.kusciaapi.Domaindata;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,12 +45,10 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import static org.secretflow.secretpad.common.constant.Constants.STATUS_AVAILABLE;
-import static org.secretflow.secretpad.common.constant.Constants.STATUS_UNAVAILABLE;
-
 /**
  * Manager datatable operation
  *
@@ -60,6 +62,10 @@ public class DatatableManager extends AbstractDatatableManager {
      */
     private final KusciaGrpcClientAdapter kusciaGrpcClientAdapter;
     private final FeatureTableRepository featureTableRepository;
+    private final DomainDataCatalog domainDataCatalog;
+    @Resource
+    @Setter
+    private KusciaGrpcAsyncClientAdapter kusciaGrpcAsyncClientAdapter;
     @Value("${secretpad.platform-type}")
     private String plaformType;
 
@@ -69,6 +75,12 @@ public class DatatableManager extends AbstractDatatableManager {
     public DatatableManager(KusciaGrpcClientAdapter kusciaGrpcClientAdapter, FeatureTableRepository featureTableRepository) {
         this.featureTableRepository = featureTableRepository;
         this.kusciaGrpcClientAdapter = kusciaGrpcClientAdapter;
+        this.domainDataCatalog = new DomainDataCatalog(this::findAllDatatableByNodeId);
+    }
+
+    @Value("${secretpad.datatable.catalog.max-staleness-ms:5000}")
+    public void setCatalogMaxStalenessMillis(long catalogMaxStalenessMillis) {
+        domainDataCatalog.setMaxStalenessMillis(catalogMaxStalenessMillis);
     }
 
     /**
@@ -168,14 +180,21 @@ public class DatatableManager extends AbstractDatatableManager {
             nodeDatatableIds.forEach(it -> it.setNodeId(searchManager.getTargetNodeId(it.getNodeId(), null)));
             /* group by target node */
             Map<String, List<DatatableDTO.NodeDatatableId>> nodeIdMap = nodeDatatableIds.stream().collect(Collectors.groupingBy(DatatableDTO.NodeDatatableId::getNodeId));
-            nodeIdMap.forEach((key, value) -> {
+            /* every target node is queried at the same time */
+            Map<String, String> failedRecords = new ConcurrentHashMap<>();
+            Map<String, Domaindata.BatchQueryDomainDataResponse> responsesByNode = kusciaGrpcAsyncClientAdapter.fanOut(nodeIdMap.keySet(), key -> {
                 Domaindata.BatchQueryDomainDataRequest nodeRequest = Domaindata.BatchQueryDomainDataRequest.
-                        newBuilder().addAllData(value.stream().map(it -> Domaindata.QueryDomainDataRequestData.newBuilder()
+                        newBuilder().addAllData(nodeIdMap.get(key).stream().map(it -> Domaindata.QueryDomainDataRequestData.newBuilder()
                                 .setDomainId(it.getNodeId())
                                 .setDomaindataId(it.getDatatableId()).build()).collect(Collectors.toList()))
                         .build();
-
-                Domaindata.BatchQueryDomainDataResponse responses = kusciaGrpcClientAdapter.batchQueryDomainData(nodeRequest, key);
+                return kusciaGrpcAsyncClientAdapter.batchQueryDomainData(nodeRequest, key);
+            }, failedRecords).join();
+            if (!failedRecords.isEmpty()) {
+                LOGGER.error("findByIds lock up from kusciaapi failed: {}, request={}", failedRecords, JsonUtils.toJSONString(nodeDatatableIds));
+                throw SecretpadException.of(DatatableErrorCode.QUERY_DATATABLE_FAILED);
+            }
+            for (Domaindata.BatchQueryDomainDataResponse responses : responsesByNode.values()) {
                 if (responses.getStatus().getCode() != 0) {
                     LOGGER.error("findByIds lock up from kusciaapi failed: code={}, message={}, request={}",
                             responses.getStatus().getCode(), responses.getStatus().getMessage(), JsonUtils.toJSONString(nodeDatatableIds));
@@ -185,7 +204,7 @@ public class DatatableManager extends AbstractDatatableManager {
                 if (!CollectionUtils.isEmpty(responses.getData().getDomaindataListList())) {
                     domainDataList.addAll(responses.getData().getDomaindataListList());
                 }
-            });
+            }
         } else {
             Domaindata.BatchQueryDomainDataRequest batchQueryDomainDataRequest = Domaindata.BatchQueryDomainDataRequest.newBuilder()
                     .addAllData(nodeDatatableIds.stream().map(
@@ -231,34 +250,18 @@ public class DatatableManager extends AbstractDatatableManager {
             String nodeId,
             Integer pageSize,
             Integer pageNumber,
+            String pageToken,
             String statusFilter,
             String datatableNameFilter,
             List<String> types) {
-        LOGGER.info("Find datatable with kuscia api with node id = {}, filter by usermanul vendor.", nodeId);
-        List<DatatableDTO> datatableDTOList = findByNodeId(nodeId, DATA_VENDOR_MANUAL);
-        //feature table
-        List<DatatableDTO> featureTableDTOList = findHttpFeatureTableByNodeId(nodeId);
-        if (!CollectionUtils.isEmpty(featureTableDTOList)) {
-            datatableDTOList.addAll(featureTableDTOList);
-        }
-        LOGGER.info("The datatable list len = {}, now filter by status = {}", datatableDTOList.size(), statusFilter);
-        datatableDTOList = filterByStatus(datatableDTOList, statusFilter);
-        LOGGER.info("After filter by status the datatable list len = {}, now filter by datatable name = {}", datatableDTOList.size(), datatableNameFilter);
-        datatableDTOList = filterByDatatableName(datatableDTOList, datatableNameFilter);
-        LOGGER.info("After filter by name, the datatable list len = {}, now paging.", datatableDTOList.size());
-        datatableDTOList = filterByDatasourceTypes(datatableDTOList, types);
-        LOGGER.info("After filter by types, the datatable list len = {}, now paging.", datatableDTOList.size());
-//        int startIndex = pageSize * (pageNumber - 1);
-//        if (startIndex > datatableDTOList.size()) {
-//            LOGGER.error("When find by node id, the page start index {} > datatableDtolist len {}", startIndex, datatableDTOList.size());
-//            throw SecretpadException.of(SystemErrorCode.OUT_OF_RANGE_ERROR, "page start index > datatable list length.");
-//        }
-//        int endIndex = Math.min((startIndex + pageSize), datatableDTOList.size());
-//        LOGGER.info("After page, we show from {} to {}", startIndex, endIndex);
-        return DatatableListDTO.builder()
-                .datatableDTOList(datatableDTOList)
-                .totalDatatableNums(datatableDTOList.size())
-                .build();
+        DatatablePageKey after = DatatablePageKey.decode(pageToken);
+        int limit = pageSize == null || pageSize <= 0 ? 0 : pageSize;
+        int offset = after != null || limit == 0 || pageNumber == null || pageNumber <= 1 ? 0 : limit * (pageNumber - 1);
+        LOGGER.info("Find datatable page of node id = {}, after = {}, offset = {}, limit = {}, status = {}, name = {}, types = {}",
+                nodeId, after, offset, limit, statusFilter, datatableNameFilter, types);
+        DatatableListDTO datatableListDTO = domainDataCatalog.page(nodeId, after, offset, limit, statusFilter, datatableNameFilter, types);
+        LOGGER.info("The datatable page len = {}, total = {}", datatableListDTO.getDatatableDTOList().size(), datatableListDTO.getTotalDatatableNums());
+        return datatableListDTO;
     }
 
     @Override
@@ -336,48 +339,11 @@ public class DatatableManager extends AbstractDatatableManager {
                     response.getStatus().getCode(), response.getStatus().getMessage(), nodeDatatableId.getNodeId(), nodeDatatableId.getDatatableId());
             throw SecretpadException.of(DatatableErrorCode.DELETE_DATATABLE_FAILED);
         }
+        domainDataCatalog.remove(nodeDatatableId.getNodeId(), nodeDatatableId.getDatatableId());
     }
 
-    /**
-     * Filter datatableDTO list by status
-     *
-     * @param datatableDTOList datatableDTO list
-     * @param statusFilter     status filter
-     * @return DatatableDTO list
-     */
-    private List<DatatableDTO> filterByStatus(List<DatatableDTO> datatableDTOList, String statusFilter) {
-        if ((!STATUS_AVAILABLE.equalsIgnoreCase(statusFilter) && !STATUS_UNAVAILABLE.equalsIgnoreCase(statusFilter))) {
-            return datatableDTOList;
-        }
-        return datatableDTOList.stream().filter(
-                it -> statusFilter.equalsIgnoreCase(it.getStatus())
-        ).collect(Collectors.toList());
-    }
-
-    /**
-     * Filter datatableDTO list by datatable name
-     *
-     * @param datatableDTOList    datatableDTO list
-     * @param datatableNameFilter datatable name filter
-     * @return DatatableDTO list
-     */
-    private List<DatatableDTO> filterByDatatableName(List<DatatableDTO> datatableDTOList, String datatableNameFilter) {
-        if (datatableNameFilter == null) {
-            return datatableDTOList;
-        }
-        return datatableDTOList.stream().filter(
-                it -> it.getDatatableName().contains(datatableNameFilter)
-        ).collect(Collectors.toList());
-    }
-
-
-    private List<DatatableDTO> filterByDatasourceTypes(List<DatatableDTO> datatableDTOList, List<String> types) {
-        if (CollectionUtils.isEmpty(types)) {
-            return datatableDTOList;
-        }
-        return datatableDTOList.stream().filter(
-                it -> types.contains(it.getDatasourceType())
-        ).collect(Collectors.toList());
+    @Override
+    public void evict(String nodeId) {
+        domainDataCatalog.evict(nodeId);
     }
 }
-
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.manager.integration.datatable;
+
+import org.secretflow.secretpad.manager.integration.model.DatatableDTO;
+import org.secretflow.secretpad.manager.integration.model.DatatableListDTO;
+import org.secretflow.secretpad.manager.integration.model.DatatablePageKey;
+
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.util.CollectionUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static org.secretflow.secretpad.common.constant.Constants.STATUS_AVAILABLE;
+import static org.secretflow.secretpad.common.constant.Constants.STATUS_UNAVAILABLE;
+
+/**
+ * local catalog of the datatables of each node, which datatable listings page through.
+ * <p>
+ * A node is listed by the loader at most once per maxStaleness. The listing is diffed against the catalog, so only
+ * added, changed and removed datatables touch the indexes. Datatables are kept in page key order with secondary
+ * indexes on status and datasource type, a page walks the smallest matching index from the page token and stops as
+ * soon as it is full.
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+@Slf4j
+public class DomainDataCatalog {
+
+    /**
+     * node id -> all datatables of the node
+     */
+    private final Map<String, NodeCatalog> nodes = new ConcurrentHashMap<>();
+    private final Function<String, List<DatatableDTO>> loader;
+    @Setter
+    private long maxStalenessMillis = 5000;
+
+    /**
+     * @param loader lists all datatables of a node
+     */
+    public DomainDataCatalog(Function<String, List<DatatableDTO>> loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * @param after        page key to start after, null from the first datatable
+     * @param offset       matching datatables to skip, for page number paging
+     * @param limit        max datatables of the page, 0 for all
+     * @param statusFilter Available or Unavailable, other values match every status
+     * @param nameFilter   part of the datatable name, null matches every name
+     * @param types        datasource types, empty matches every type
+     * @return the page in page key order, the total count of matching datatables and the token of the next page
+     */
+    public DatatableListDTO page(String nodeId, DatatablePageKey after, int offset, int limit,
+                                 String statusFilter, String nameFilter, List<String> types) {
+        NodeCatalog node = nodes.computeIfAbsent(nodeId, k -> new NodeCatalog());
+        synchronized (node) {
+            if (node.refreshedAt == 0 || System.currentTimeMillis() - node.refreshedAt >= maxStalenessMillis) {
+                refresh(nodeId, node);
+            }
+            return node.page(after, offset, limit, statusFilter, nameFilter, types);
+        }
+    }
+
+    /**
+     * drop a datatable which was deleted through this platform
+     */
+    public void remove(String nodeId, String datatableId) {
+        NodeCatalog node = nodes.get(nodeId);
+        if (node == null) {
+            return;
+        }
+        synchronized (node) {
+            DatatablePageKey key = node.keys.get(datatableId);
+            if (key != null) {
+                node.remove(key);
+            }
+        }
+    }
+
+    /**
+     * the next page of the node lists it again
+     */
+    public void evict(String nodeId) {
+        NodeCatalog node = nodes.get(nodeId);
+        if (node == null) {
+            return;
+        }
+        synchronized (node) {
+            node.refreshedAt = 0;
+        }
+    }
+
+    private void refresh(String nodeId, NodeCatalog node) {
+        long start = System.currentTimeMillis();
+        Map<String, DatatableDTO> latest = new LinkedHashMap<>();
+        for (DatatableDTO datatableDTO : loader.apply(nodeId)) {
+            latest.put(datatableDTO.getDatatableId(), datatableDTO);
+        }
+        int removed = 0;
+        int added = 0;
+        int changed = 0;
+        Iterator<Map.Entry<String, DatatablePageKey>> iterator = node.keys.entrySet().iterator();
+        while (iterator.hasNext()) {
+            DatatablePageKey key = iterator.next().getValue();
+            if (!latest.containsKey(key.getDatatableId())) {
+                iterator.remove();
+                node.unindex(key);
+                removed++;
+            }
+        }
+        for (DatatableDTO datatableDTO : latest.values()) {
+            DatatablePageKey key = DatatablePageKey.of(datatableDTO);
+            DatatablePageKey previousKey = node.keys.get(key.getDatatableId());
+            if (previousKey == null) {
+                node.add(key, datatableDTO);
+                added++;
+                continue;
+            }
+            DatatableDTO previous = node.datatables.get(previousKey);
+            if (previousKey.equals(key) && Objects.equals(statusOf(previous), statusOf(datatableDTO))
+                    && Objects.equals(typeOf(previous), typeOf(datatableDTO))) {
+                // same place in every index, only the attributes changed
+                node.datatables.put(key, datatableDTO);
+            } else {
+                node.remove(previousKey);
+                node.add(key, datatableDTO);
+                changed++;
+            }
+        }
+        node.refreshedAt = System.currentTimeMillis();
+        log.debug("datatable catalog of {} refreshed in {}ms, {} datatables, {} added, {} changed, {} removed",
+                nodeId, node.refreshedAt - start, node.datatables.size(), added, changed, removed);
+    }
+
+    private static String statusOf(DatatableDTO datatableDTO) {
+        return StringUtils.lowerCase(StringUtils.defaultString(datatableDTO.getStatus()), Locale.ROOT);
+    }
+
+    private static String typeOf(DatatableDTO datatableDTO) {
+        return StringUtils.defaultString(datatableDTO.getDatasourceType());
+    }
+
+    private static class NodeCatalog {
+        private final TreeMap<DatatablePageKey, DatatableDTO> datatables = new TreeMap<>();
+        /**
+         * datatable id -> page key
+         */
+        private final Map<String, DatatablePageKey> keys = new HashMap<>();
+        /**
+         * lower case status -> page keys
+         */
+        private final Map<String, TreeSet<DatatablePageKey>> byStatus = new HashMap<>();
+        /**
+         * datasource type -> page keys
+         */
+        private final Map<String, TreeSet<DatatablePageKey>> byType = new HashMap<>();
+        /**
+         * 0 if the node has to be listed before the next page
+         */
+        private long refreshedAt;
+
+        private void add(DatatablePageKey key, DatatableDTO datatableDTO) {
+            datatables.put(key, datatableDTO);
+            keys.put(key.getDatatableId(), key);
+            byStatus.computeIfAbsent(statusOf(datatableDTO), k -> new TreeSet<>()).add(key);
+            byType.computeIfAbsent(typeOf(datatableDTO), k -> new TreeSet<>()).add(key);
+        }
+
+        private void remove(DatatablePageKey key) {
+            keys.remove(key.getDatatableId());
+            unindex(key);
+        }
+
+        private void unindex(DatatablePageKey key) {
+            DatatableDTO datatableDTO = datatables.remove(key);
+            if (datatableDTO == null) {
+                return;
+            }
+            unindex(byStatus, statusOf(datatableDTO), key);
+            unindex(byType, typeOf(datatableDTO), key);
+        }
+
+        private void unindex(Map<String, TreeSet<DatatablePageKey>> index, String value, DatatablePageKey key) {
+            TreeSet<DatatablePageKey> set = index.get(value);
+            if (set != null && set.remove(key) && set.isEmpty()) {
+                index.remove(value);
+            }
+        }
+
+        private DatatableListDTO page(DatatablePageKey after, int offset, int limit, String statusFilter, String nameFilter, List<String> types) {
+            String status = STATUS_AVAILABLE.equalsIgnoreCase(statusFilter) || STATUS_UNAVAILABLE.equalsIgnoreCase(statusFilter)
+                    ? statusFilter.toLowerCase(Locale.ROOT) : null;
+            boolean byTypes = !CollectionUtils.isEmpty(types);
+            NavigableSet<DatatablePageKey> candidates = datatables.navigableKeySet();
+            if (status != null) {
+                candidates = byStatus.getOrDefault(status, new TreeSet<>());
+            }
+            if (byTypes) {
+                NavigableSet<DatatablePageKey> typed = typed(types);
+                if (typed.size() < candidates.size()) {
+                    candidates = typed;
+                }
+            }
+            // the chosen index alone decides the total unless other filters apply on top of it
+            boolean exact = nameFilter == null && !(status != null && byTypes);
+            int total = exact ? candidates.size() : 0;
+
+            List<DatatableDTO> page = new ArrayList<>(limit > 0 ? limit : 16);
+            DatatablePageKey last = null;
+            boolean more = false;
+            int skipped = 0;
+            for (DatatablePageKey key : after == null ? candidates : candidates.tailSet(after, false)) {
+                DatatableDTO datatableDTO = datatables.get(key);
+                if (!matches(datatableDTO, status, nameFilter, types)) {
+                    continue;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                    continue;
+                }
+                if (limit > 0 && page.size() == limit) {
+                    more = true;
+                    break;
+                }
+                page.add(datatableDTO);
+                last = key;
+            }
+            if (!exact) {
+                for (DatatablePageKey key : candidates) {
+                    if (matches(datatables.get(key), status, nameFilter, types)) {
+                        total++;
+                    }
+                }
+            }
+            return DatatableListDTO.builder()
+                    .datatableDTOList(page)
+                    .totalDatatableNums(total)
+                    .nextPageToken(more ? last.encode() : null)
+                    .build();
+        }
+
+        private NavigableSet<DatatablePageKey> typed(List<String> types) {
+            Set<String> distinct = new HashSet<>(types);
+            if (distinct.size() == 1) {
+                return byType.getOrDefault(distinct.iterator().next(), new TreeSet<>());
+            }
+            TreeSet<DatatablePageKey> union = new TreeSet<>();
+            distinct.forEach(type -> union.addAll(byType.getOrDefault(type, new TreeSet<>())));
+            return union;
+        }
+
+        private boolean matches(DatatableDTO datatableDTO, String status, String nameFilter, List<String> types) {
+            return (status == null || status.equals(statusOf(datatableDTO)))
+                    && (nameFilter == null || StringUtils.contains(datatableDTO.getDatatableName(), nameFilter))
+                    && (CollectionUtils.isEmpty(types) || types.contains(datatableDTO.getDatasourceType()));
+        }
+    }
+}
@@ -123,7 +123,8 @@ public class JobManager extends AbstractJobManager {
     private ProjectScheduleJobRepository projectScheduleJobRepository;
     @Resource
     private ProjectScheduleTaskRepository projectScheduleTaskRepository;
-    private volatile boolean scheduleJob = false;
+    @Resource
+    private JobWatchPipeline jobWatchPipeline;
 
     public JobManager(ProjectJobRepository projectJobRepository,
                       AbstractDatatableManager datatableManager,
@@ -240,12 +241,11 @@ public class JobManager extends AbstractJobManager {
                         @Override
                         public void onNext(Job.WatchJobEventResponse responses) {
                             LOGGER.info("starter jobEvent ... {},nodeId={}", responses, nodeId);
-                            try {
-                                syncJob(responses);
-                            } catch (Exception e) {
-                                LOGGER.error("syncJob exception: {} {}", responses, e.getMessage(), e);
+                            if (responses.getType() == Job.EventType.UNRECOGNIZED || responses.getType() == Job.EventType.ERROR) {
+                                // do nothing, and do not let it overwrite a queued event of the job
+                                return;
                             }
-
+                            jobWatchPipeline.submit(nodeId, responses, JobManager.this::prepareSyncJob);
                         }
 
                         @Override
@@ -273,9 +273,23 @@ public class JobManager extends AbstractJobManager {
      * @param it
      */
     public void syncJob(Job.WatchJobEventResponse it) {
+        Runnable save = prepareSyncJob(it);
+        if (save != null) {
+            save.run();
+        }
+    }
+
+    /**
+     * Synchronize project job data via job event response, except for the job and task rows which are returned to be
+     * saved by the caller, so that the watch pipeline saves the jobs of a poll together
+     *
+     * @param it
+     * @return save of the job and task rows, null if there is nothing to save
+     */
+    public Runnable prepareSyncJob(Job.WatchJobEventResponse it) {
         if (it.getType() == Job.EventType.UNRECOGNIZED || it.getType() == Job.EventType.ERROR) {
             // do nothing
-            return;
+            return null;
         }
         LOGGER.info("watched jobEvent: jobId={}, jobState={}, task=[{}], endTime={}", it.getObject().getJobId(), it.getObject().getStatus().getState(),
                 it.getObject().getStatus().getTasksList().stream().map(t -> String.format("taskId=%s,alias=%s,state=%s", t.getTaskId(), t.getAlias(), t.getState())).collect(Collectors.joining("|")),
@@ -283,21 +297,21 @@ public class JobManager extends AbstractJobManager {
         // sync tee job first
         if (syncTeeJob(it)) {
             LOGGER.debug("tee job exist, sync tee job status");
-            return;
+            return null;
         }
         //sync model export job
         if (syncModelExportJob(it)) {
             LOGGER.debug("model export job exist, sync model export job status");
-            return;
+            return null;
         }
-        scheduleJob = false;
+        boolean scheduleJob = false;
         ProjectScheduleJobDO projectScheduleJob = null;
         Optional<ProjectJobDO> projectJobOpt = projectJobRepository.findByJobId(it.getObject().getJobId());
         if (projectJobOpt.isEmpty()) {
             Optional<ProjectScheduleJobDO> projectScheduleJobDO = projectScheduleJobRepository.findByJobId(it.getObject().getJobId());
             if (projectScheduleJobDO.isEmpty()) {
                 LOGGER.info("watched jobEvent: jobId={}, but project job not exist, skip", it.getObject().getJobId());
-                return;
+                return null;
             } else {
                 projectScheduleJob = projectScheduleJobDO.get();
                 projectJobOpt = Optional.of(ProjectScheduleJobDO.convertToProjectJobDO(projectScheduleJobDO.get()));
@@ -307,32 +321,34 @@ public class JobManager extends AbstractJobManager {
         if (projectJobOpt.get().isFinished()) {
             if (!scheduleJob) {
                 LOGGER.warn("watched jobEvent: jobId={}, but project job all task  finished, skip", it.getObject().getJobId());
-                return;
+                return null;
             } else {
                 if (GraphJobStatus.SUCCEED.equals(projectJobOpt.get().getStatus())) {
                     LOGGER.info("watched jobEvent: jobId={}, but project job all task  finished, skip", it.getObject().getJobId());
-                    return;
+                    return null;
                 }
             }
         }
-        ProjectJobDO job = updateJob(it, projectJobOpt.get());
+        ProjectJobDO job = updateJob(it, projectJobOpt.get(), scheduleJob);
         if (scheduleJob) {
-            ProjectScheduleJobDO projectScheduleJobDO = ProjectScheduleJobDO.convertFromProjectJobDO(job);
-            projectScheduleJobDO.setOwner(projectScheduleJob.getOwner());
-            projectScheduleJobDO.setScheduleTaskId(projectScheduleJob.getScheduleTaskId());
-            projectScheduleJobRepository.save(projectScheduleJobDO);
-            GraphJobStatus status = job.getStatus();
-            List<ProjectScheduleTaskDO> byScheduleJobIds = projectScheduleTaskRepository.findByScheduleJobId(job.getUpk().getJobId());
-            byScheduleJobIds.forEach(byScheduleJobId -> {
-                byScheduleJobId.setStatus(ScheduledStatus.from(status.name()));
-                if (isFinishedState(status)) {
-                    byScheduleJobId.setScheduleTaskEndTime(LocalDateTime.now());
-                }
-                projectScheduleTaskRepository.save(byScheduleJobId);
-            });
-        } else {
-            projectJobRepository.save(job);
+            ProjectScheduleJobDO scheduleJobDO = projectScheduleJob;
+            return () -> {
+                ProjectScheduleJobDO projectScheduleJobDO = ProjectScheduleJobDO.convertFromProjectJobDO(job);
+                projectScheduleJobDO.setOwner(scheduleJobDO.getOwner());
+                projectScheduleJobDO.setScheduleTaskId(scheduleJobDO.getScheduleTaskId());
+                projectScheduleJobRepository.save(projectScheduleJobDO);
+                GraphJobStatus status = job.getStatus();
+                List<ProjectScheduleTaskDO> byScheduleJobIds = projectScheduleTaskRepository.findByScheduleJobId(job.getUpk().getJobId());
+                byScheduleJobIds.forEach(byScheduleJobId -> {
+                    byScheduleJobId.setStatus(ScheduledStatus.from(status.name()));
+                    if (isFinishedState(status)) {
+                        byScheduleJobId.setScheduleTaskEndTime(LocalDateTime.now());
+                    }
+                    projectScheduleTaskRepository.save(byScheduleJobId);
+                });
+            };
         }
+        return () -> projectJobRepository.save(job);
     }
 
 
@@ -523,9 +539,10 @@ public class JobManager extends AbstractJobManager {
      *
      * @param it
      * @param projectJob
+     * @param scheduleJob whether the job is a scheduled job, whose task status transforms are published
      * @return ProjectJobDO
      */
-    public ProjectJobDO updateJob(Job.WatchJobEventResponse it, ProjectJobDO projectJob) {
+    public ProjectJobDO updateJob(Job.WatchJobEventResponse it, ProjectJobDO projectJob, boolean scheduleJob) {
         switch (it.getType()) {
             case DELETED:
                 projectJob.stop();
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.manager.integration.job;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.Resource;
+import lombok.AllArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.secretflow.v1alpha1.kusciaapi.Job;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * moves watched job events off the kuscia grpc callback thread.
+ * <p>
+ * Events are hashed by job id onto a fixed number of lanes. A lane is drained by at most one task at a time, so the
+ * events of one job are handled in order while different jobs are handled in parallel. Every event carries the full
+ * job status, a newer event of a job which is still queued overwrites the queued one in place, so a lane holds at most
+ * one event per job and needs no bound. A lane takes up to batchSize events per poll. The handler of each event syncs
+ * with kuscia and publishes its events on its own and returns the save of the job and task rows, the saves of a poll
+ * are then written in one transaction. If that transaction fails, every save of it is written again in a transaction
+ * of its own, so a failed row does not lose the others.
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+@Slf4j
+public class JobWatchPipeline {
+
+    @Value("${secretpad.job.watch.lanes:8}")
+    @Setter
+    private int laneCount = 8;
+    @Value("${secretpad.job.watch.batch-size:32}")
+    @Setter
+    private int batchSize = 32;
+    @Resource(name = "jobWatchThreadPool")
+    @Setter
+    private Executor executor = Runnable::run;
+    @Resource
+    @Setter
+    private MeterRegistry meterRegistry;
+    @Resource
+    @Setter
+    private PlatformTransactionManager transactionManager;
+    private volatile Lane[] lanes;
+
+    /**
+     * queue the event of a node, the handler is called on a lane thread
+     *
+     * @param handler handles the event and returns the save of its rows, null if there is nothing to save
+     */
+    public void submit(String nodeId, Job.WatchJobEventResponse event, Function<Job.WatchJobEventResponse, Runnable> handler) {
+        String jobId = event.getObject().getJobId();
+        Lane lane = lane(jobId);
+        boolean coalesced;
+        synchronized (lane) {
+            Entry entry = lane.entries.get(nodeId + "#" + jobId);
+            coalesced = entry != null;
+            if (coalesced) {
+                entry.event = event;
+                entry.handler = handler;
+            } else {
+                lane.entries.put(nodeId + "#" + jobId, new Entry(event, handler, System.currentTimeMillis()));
+            }
+        }
+        meterRegistry.counter("job.watch.events").increment();
+        if (coalesced) {
+            meterRegistry.counter("job.watch.coalesced").increment();
+            log.debug("job watch event of {} coalesced on lane {}", jobId, lane.index);
+        }
+        schedule(lane);
+    }
+
+    /**
+     * @return queued events of all lanes
+     */
+    public int depth() {
+        Lane[] current = lanes;
+        if (current == null) {
+            return 0;
+        }
+        int depth = 0;
+        for (Lane lane : current) {
+            synchronized (lane) {
+                depth += lane.entries.size();
+            }
+        }
+        return depth;
+    }
+
+    private Lane lane(String jobId) {
+        Lane[] current = lanes;
+        if (current == null) {
+            synchronized (this) {
+                current = lanes;
+                if (current == null) {
+                    current = new Lane[Math.max(1, laneCount)];
+                    for (int i = 0; i < current.length; i++) {
+                        current[i] = new Lane(i);
+                        register(current[i]);
+                    }
+                    lanes = current;
+                }
+            }
+        }
+        return current[Math.floorMod(Objects.hashCode(jobId), current.length)];
+    }
+
+    private void register(Lane lane) {
+        Tags tags = Tags.of("lane", String.valueOf(lane.index));
+        Gauge.builder("job.watch.lane.depth", lane, l -> {
+                    synchronized (l) {
+                        return l.entries.size();
+                    }
+                })
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("job.watch.lane.lag", lane, l -> {
+                    synchronized (l) {
+                        Iterator<Entry> iterator = l.entries.values().iterator();
+                        return iterator.hasNext() ? System.currentTimeMillis() - iterator.next().queuedAt : 0;
+                    }
+                })
+                .tags(tags)
+                .register(meterRegistry);
+    }
+
+    private void schedule(Lane lane) {
+        synchronized (lane) {
+            if (lane.draining || lane.entries.isEmpty()) {
+                return;
+            }
+            lane.draining = true;
+        }
+        try {
+            executor.execute(() -> drain(lane));
+        } catch (RuntimeException e) {
+            log.error("job watch lane {} schedule error, {} events wait for the next event", lane.index, lane.entries.size(), e);
+            synchronized (lane) {
+                lane.draining = false;
+            }
+        }
+    }
+
+    private void drain(Lane lane) {
+        try {
+            List<Entry> batch;
+            while (!(batch = poll(lane)).isEmpty()) {
+                handle(lane, batch);
+            }
+        } finally {
+            synchronized (lane) {
+                lane.draining = false;
+            }
+            // an event queued between the last poll and the reset above is picked up here
+            schedule(lane);
+        }
+    }
+
+    private List<Entry> poll(Lane lane) {
+        synchronized (lane) {
+            List<Entry> batch = new ArrayList<>(Math.min(batchSize, lane.entries.size()));
+            Iterator<Entry> iterator = lane.entries.values().iterator();
+            while (iterator.hasNext() && batch.size() < batchSize) {
+                batch.add(iterator.next());
+                iterator.remove();
+            }
+            return batch;
+        }
+    }
+
+    private void handle(Lane lane, List<Entry> batch) {
+        long start = System.currentTimeMillis();
+        List<Runnable> saves = new ArrayList<>(batch.size());
+        for (Entry entry : batch) {
+            try {
+                Runnable save = entry.handler.apply(entry.event);
+                if (save != null) {
+                    saves.add(save);
+                }
+            } catch (Exception e) {
+                log.error("syncJob exception: {} {}", entry.event, e.getMessage(), e);
+            }
+        }
+        save(lane, saves);
+        processed(lane, batch, start);
+    }
+
+    private void save(Lane lane, List<Runnable> saves) {
+        if (saves.isEmpty()) {
+            return;
+        }
+        if (saves.size() > 1 && transactionManager != null) {
+            try {
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> saves.forEach(Runnable::run));
+                return;
+            } catch (RuntimeException e) {
+                log.warn("job watch lane {} save of {} jobs failed, save one by one, {}", lane.index, saves.size(), e.getMessage());
+            }
+        }
+        for (Runnable save : saves) {
+            try {
+                if (transactionManager == null) {
+                    save.run();
+                } else {
+                    new TransactionTemplate(transactionManager).executeWithoutResult(status -> save.run());
+                }
+            } catch (Exception e) {
+                log.error("job watch lane {} save error: {}", lane.index, e.getMessage(), e);
+            }
+        }
+    }
+
+    private void processed(Lane lane, List<Entry> batch, long start) {
+        meterRegistry.counter("job.watch.processed").increment(batch.size());
+        meterRegistry.counter("job.watch.batches").increment();
+        log.debug("job watch lane {} handled {} events in {}ms", lane.index, batch.size(), System.currentTimeMillis() - start);
+    }
+
+    private static class Lane {
+        private final int index;
+        /**
+         * node id and job id -> newest queued event, in arrival order of the first queued event
+         */
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+        private boolean draining;
+
+        private Lane(int index) {
+            this.index = index;
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Entry {
+        private Job.WatchJobEventResponse event;
+        private Function<Job.WatchJobEventResponse, Runnable> handler;
+        private final long queuedAt;
+    }
+}
@@ -44,4 +44,9 @@ public class DatatableListDTO {
      */
     private Integer totalDatatableNums;
 
+    /**
+     * Token of the next page, null on the last page
+     */
+    private String nextPageToken;
+
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.manager.integration.model;
+
+import org.secretflow.secretpad.common.errorcode.SystemErrorCode;
+import org.secretflow.secretpad.common.exception.SecretpadException;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Comparator;
+
+/**
+ * sort key of datatable listings, (datatable name, datatable id, node id).
+ * <p>
+ * A page token is the key of the last datatable of a page, the next page starts right after it.
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class DatatablePageKey implements Comparable<DatatablePageKey> {
+
+    private static final Comparator<DatatablePageKey> ORDER = Comparator.comparing(DatatablePageKey::getDatatableName)
+            .thenComparing(DatatablePageKey::getDatatableId)
+            .thenComparing(DatatablePageKey::getNodeId);
+    private static final String SEPARATOR = ".";
+
+    private final String datatableName;
+    private final String datatableId;
+    private final String nodeId;
+
+    public static DatatablePageKey of(DatatableDTO datatableDTO) {
+        return new DatatablePageKey(StringUtils.defaultString(datatableDTO.getDatatableName()),
+                StringUtils.defaultString(datatableDTO.getDatatableId()), StringUtils.defaultString(datatableDTO.getNodeId()));
+    }
+
+    /**
+     * @return null for a blank token, which means the first page
+     */
+    public static DatatablePageKey decode(String pageToken) {
+        if (StringUtils.isBlank(pageToken)) {
+            return null;
+        }
+        String[] parts = pageToken.split("\\" + SEPARATOR, -1);
+        if (parts.length != 3) {
+            throw SecretpadException.of(SystemErrorCode.VALIDATION_ERROR, "invalid page token");
+        }
+        try {
+            return new DatatablePageKey(decodePart(parts[0]), decodePart(parts[1]), decodePart(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw SecretpadException.of(SystemErrorCode.VALIDATION_ERROR, "invalid page token");
+        }
+    }
+
+    public String encode() {
+        return encodePart(datatableName) + SEPARATOR + encodePart(datatableId) + SEPARATOR + encodePart(nodeId);
+    }
+
+    @Override
+    public int compareTo(DatatablePageKey o) {
+        return ORDER.compare(this, o);
+    }
+
+    private static String encodePart(String s) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodePart(String s) {
+        return new String(Base64.getUrlDecoder().decode(s), StandardCharsets.UTF_8);
+    }
+}
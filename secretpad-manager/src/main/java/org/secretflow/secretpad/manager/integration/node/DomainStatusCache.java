@@ -0,0 +1,312 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.manager.integration.node;
+
+import org.secretflow.secretpad.kuscia.v1alpha1.service.impl.KusciaGrpcClientAdapter;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.secretflow.v1alpha1.errorcode.ErrorCodeOuterClass;
+import org.secretflow.v1alpha1.kusciaapi.DomainOuterClass;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * kuscia domain status of the nodes shown in node listings.
+ * <p>
+ * Domains are grouped by the kuscia channel they are queried through, the blank channel is the current kuscia. A read
+ * returns entries refreshed within maxStaleness and loads the rest of the channel with one multi id batchQueryDomain,
+ * so a listing costs at most one rpc per channel. Domains read within idle-evict are refreshed in the background
+ * every refresh-interval, so listings usually cost no rpc at all. Kuscia has no domain watch, local writes invalidate
+ * the domain instead.
+ * <p>
+ * Only the fields batchQueryDomain returns are cached. Kuscia has no batch query for deploy tokens, so they are kept
+ * apart: the first read of a domain queries them with queryDomain, later reads are served from memory and the tokens of
+ * domains read within idle-evict are reloaded one by one in the background every refresh-interval. A listing thus
+ * costs no queryDomain once its domains were read, however long ago. Callers which need the annotations or the auth
+ * center query kuscia directly.
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DomainStatusCache {
+
+    private static final String DEFAULT_CHANNEL = "";
+    private static final int SUCCESS = 0;
+    private static final int DOMAIN_NOT_EXISTS = ErrorCodeOuterClass.ErrorCode.KusciaAPIErrDomainNotExists_VALUE;
+
+    private final KusciaGrpcClientAdapter kusciaGrpcClientAdapter;
+    /**
+     * channel -> domain id -> entry
+     */
+    private final Map<String, Map<String, Entry>> channels = new ConcurrentHashMap<>();
+    /**
+     * channel -> domain id -> deploy tokens of the last queryDomain
+     */
+    private final Map<String, Map<String, TokenEntry>> tokens = new ConcurrentHashMap<>();
+    @Value("${secretpad.domain-status.max-staleness-ms:10000}")
+    @Setter
+    private long maxStalenessMillis = 10000;
+    @Value("${secretpad.domain-status.refresh-interval-ms:5000}")
+    @Setter
+    private long refreshIntervalMillis = 5000;
+    @Value("${secretpad.domain-status.idle-evict-ms:600000}")
+    @Setter
+    private long idleEvictMillis = 600000;
+
+    /**
+     * @param channel   node id of the kuscia to query through, blank for the current kuscia
+     * @param domainIds domains to read
+     * @return domain id -> domain, a domain which does not exist or could not be queried is absent
+     */
+    public Map<String, DomainOuterClass.Domain> get(String channel, Collection<String> domainIds) {
+        String key = StringUtils.defaultString(channel, DEFAULT_CHANNEL);
+        Map<String, Entry> entries = channels.computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+        long now = System.currentTimeMillis();
+        if (!stale(entries, domainIds, now, maxStalenessMillis).isEmpty()) {
+            // concurrent readers of a channel wait for one load instead of each sending the same batch
+            synchronized (entries) {
+                List<String> stale = stale(entries, domainIds, System.currentTimeMillis(), maxStalenessMillis);
+                if (!stale.isEmpty()) {
+                    load(key, entries, stale);
+                }
+            }
+        }
+        Map<String, DomainOuterClass.Domain> result = new HashMap<>(domainIds.size());
+        for (String domainId : domainIds) {
+            Entry entry = entries.get(domainId);
+            if (entry == null) {
+                continue;
+            }
+            entry.readAt = now;
+            if (entry.domain != null) {
+                result.put(domainId, entry.domain);
+            }
+        }
+        return result;
+    }
+
+    public DomainOuterClass.Domain get(String channel, String domainId) {
+        return get(channel, List.of(domainId)).get(domainId);
+    }
+
+    /**
+     * @param channel  node id of the kuscia to query through, blank for the current kuscia
+     * @param domainId domain to read
+     * @return deploy tokens of the domain, queried on the first read and then kept fresh by the refresh, empty if they could not be queried
+     */
+    public List<DomainOuterClass.DeployTokenStatus> getDeployTokens(String channel, String domainId) {
+        String key = StringUtils.defaultString(channel, DEFAULT_CHANNEL);
+        TokenEntry entry = tokens.computeIfAbsent(key, k -> new ConcurrentHashMap<>()).get(domainId);
+        if (entry != null) {
+            entry.readAt = System.currentTimeMillis();
+            return entry.tokens;
+        }
+        DomainOuterClass.QueryDomainResponse response = queryDomain(key, domainId);
+        put(key, domainId, response);
+        if (response == null || response.getStatus().getCode() != SUCCESS) {
+            return Collections.emptyList();
+        }
+        return response.getData().getDeployTokenStatusesList();
+    }
+
+    /**
+     * keep the result of a queryDomain which was sent anyway, an error other than a missing domain keeps the cached entry
+     */
+    public void put(String channel, String domainId, DomainOuterClass.QueryDomainResponse response) {
+        if (response == null || StringUtils.isBlank(domainId)) {
+            return;
+        }
+        String key = StringUtils.defaultString(channel, DEFAULT_CHANNEL);
+        Map<String, Entry> entries = channels.computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+        Map<String, TokenEntry> tokenEntries = tokens.computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+        int code = response.getStatus().getCode();
+        if (code == SUCCESS) {
+            DomainOuterClass.QueryDomainResponseData data = response.getData();
+            store(entries, domainId, DomainOuterClass.Domain.newBuilder()
+                    .setDomainId(data.getDomainId())
+                    .setRole(data.getRole())
+                    .setCert(data.getCert())
+                    .addAllNodeStatuses(data.getNodeStatusesList())
+                    .build());
+            TokenEntry tokenEntry = new TokenEntry(data.getDeployTokenStatusesList());
+            TokenEntry previous = tokenEntries.get(domainId);
+            if (previous != null) {
+                tokenEntry.readAt = previous.readAt;
+            }
+            tokenEntries.put(domainId, tokenEntry);
+        } else if (code == DOMAIN_NOT_EXISTS) {
+            store(entries, domainId, null);
+            tokenEntries.remove(domainId);
+        }
+    }
+
+    /**
+     * drop the domain from every channel, the next read loads it again
+     */
+    public void invalidate(String domainId) {
+        channels.values().forEach(entries -> entries.remove(domainId));
+        tokens.values().forEach(entries -> entries.remove(domainId));
+    }
+
+    /**
+     * reload domains and deploy tokens which were read lately before they go stale, evict the rest
+     */
+    @Scheduled(initialDelay = 10000, fixedDelayString = "${secretpad.domain-status.refresh-interval-ms:5000}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        tokens.forEach((channel, entries) -> {
+            entries.values().removeIf(e -> now - e.readAt > idleEvictMillis);
+            entries.forEach((domainId, e) -> {
+                if (now - e.refreshedAt >= refreshIntervalMillis) {
+                    put(channel, domainId, queryDomain(channel, domainId));
+                }
+            });
+        });
+        channels.forEach((channel, entries) -> {
+            entries.values().removeIf(e -> now - e.readAt > idleEvictMillis);
+            if (entries.isEmpty()) {
+                return;
+            }
+            synchronized (entries) {
+                List<String> stale = stale(entries, entries.keySet(), now, refreshIntervalMillis);
+                if (!stale.isEmpty()) {
+                    load(channel, entries, stale);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return null if the query failed
+     */
+    private DomainOuterClass.QueryDomainResponse queryDomain(String channel, String domainId) {
+        DomainOuterClass.QueryDomainRequest request = DomainOuterClass.QueryDomainRequest.newBuilder().setDomainId(domainId).build();
+        try {
+            return DEFAULT_CHANNEL.equals(channel) ? kusciaGrpcClientAdapter.queryDomain(request) : kusciaGrpcClientAdapter.queryDomain(request, channel);
+        } catch (RuntimeException e) {
+            log.warn("query domain {} through channel '{}' error: {}", domainId, channel, e.getMessage());
+            return null;
+        }
+    }
+
+    private List<String> stale(Map<String, Entry> entries, Collection<String> domainIds, long now, long maxAgeMillis) {
+        List<String> stale = new ArrayList<>();
+        for (String domainId : domainIds) {
+            Entry entry = entries.get(domainId);
+            if (entry == null || now - entry.refreshedAt >= maxAgeMillis) {
+                stale.add(domainId);
+            }
+        }
+        return stale;
+    }
+
+    private void load(String channel, Map<String, Entry> entries, List<String> domainIds) {
+        // kuscia fails the whole batch when one of the domains does not exist, so known missing domains go one by one
+        List<String> batch = new ArrayList<>(domainIds.size());
+        for (String domainId : domainIds) {
+            Entry entry = entries.get(domainId);
+            if (entry != null && entry.domain == null) {
+                batch(channel, entries, List.of(domainId));
+            } else {
+                batch.add(domainId);
+            }
+        }
+        if (!batch.isEmpty() && !batch(channel, entries, batch) && batch.size() > 1) {
+            log.info("batch query {} domains through channel '{}' failed, query one by one", batch.size(), channel);
+            batch.forEach(domainId -> batch(channel, entries, List.of(domainId)));
+        }
+    }
+
+    /**
+     * a domain is kept as missing only when kuscia reports that it does not exist, any other failure keeps the cached
+     * entry, which is retried by the next read once stale
+     *
+     * @return false if the batch failed
+     */
+    private boolean batch(String channel, Map<String, Entry> entries, List<String> domainIds) {
+        DomainOuterClass.BatchQueryDomainRequest request = DomainOuterClass.BatchQueryDomainRequest.newBuilder().addAllDomainIds(domainIds).build();
+        DomainOuterClass.BatchQueryDomainResponse response;
+        try {
+            response = DEFAULT_CHANNEL.equals(channel) ? kusciaGrpcClientAdapter.batchQueryDomain(request) : kusciaGrpcClientAdapter.batchQueryDomain(request, channel);
+        } catch (RuntimeException e) {
+            log.warn("batch query domains {} through channel '{}' error: {}", domainIds, channel, e.getMessage());
+            return false;
+        }
+        if (response == null) {
+            return false;
+        }
+        if (response.getStatus().getCode() != SUCCESS) {
+            if (domainIds.size() == 1 && response.getStatus().getCode() == DOMAIN_NOT_EXISTS) {
+                store(entries, domainIds.get(0), null);
+                return true;
+            }
+            return false;
+        }
+        Set<String> missing = new HashSet<>(domainIds);
+        for (DomainOuterClass.Domain domain : response.getData().getDomainsList()) {
+            missing.remove(domain.getDomainId());
+            store(entries, domain.getDomainId(), domain);
+        }
+        missing.forEach(domainId -> store(entries, domainId, null));
+        return true;
+    }
+
+    /**
+     * a reload keeps the read time, so that domains nobody lists any more are evicted
+     */
+    private void store(Map<String, Entry> entries, String domainId, DomainOuterClass.Domain domain) {
+        Entry entry = new Entry(domain);
+        Entry previous = entries.get(domainId);
+        if (previous != null) {
+            entry.readAt = previous.readAt;
+        }
+        entries.put(domainId, entry);
+    }
+
+    private static class Entry {
+        /**
+         * null if kuscia reported that the domain does not exist
+         */
+        private final DomainOuterClass.Domain domain;
+        private final long refreshedAt = System.currentTimeMillis();
+        private volatile long readAt = refreshedAt;
+
+        private Entry(DomainOuterClass.Domain domain) {
+            this.domain = domain;
+        }
+    }
+
+    private static class TokenEntry {
+        private final List<DomainOuterClass.DeployTokenStatus> tokens;
+        private final long refreshedAt = System.currentTimeMillis();
+        private volatile long readAt = refreshedAt;
+
+        private TokenEntry(List<DomainOuterClass.DeployTokenStatus> tokens) {
+            this.tokens = tokens;
+        }
+    }
+}
@@ -25,8 +25,10 @@ import org.secretflow.secretpad.common.util.*;
 import org.secretflow.secretpad.kuscia.v1alpha1.service.impl.KusciaGrpcClientAdapter;
 import org.secretflow.secretpad.manager.integration.datasource.AbstractDatasourceManager;
 import org.secretflow.secretpad.manager.integration.model.*;
+import org.secretflow.secretpad.persistence.datasync.event.EntityChangedEvent;
 import org.secretflow.secretpad.persistence.datasync.producer.p2p.P2pDataSyncProducerTemplate;
 import org.secretflow.secretpad.persistence.entity.*;
+import org.secretflow.secretpad.persistence.model.DbChangeAction;
 import org.secretflow.secretpad.persistence.model.ParticipantNodeInstVO;
 import org.secretflow.secretpad.persistence.repository.*;
 
@@ -87,6 +89,8 @@ public class NodeManager extends AbstractNodeManager {
 
     @Resource
     private AbstractDatasourceManager datasourceManager;
+    @Resource
+    private DomainStatusCache domainStatusCache;
 
     private void check(String nodeId) {
         List<NodeDO> byType = nodeRepository.findByType(DomainConstants.DomainTypeEnum.embedded.name());
@@ -110,15 +114,17 @@ public class NodeManager extends AbstractNodeManager {
 
     private NodeDTO getNodeDto(NodeDO nodeDO) {
         if (PlatformTypeEnum.AUTONOMY.name().equals(platformType)) {
-            return getNodeDTOP2P(nodeDO);
+            return getNodeDTOP2P(nodeDO, false);
         }
-        return fillByGrpcDomainQuery(nodeDO);
+        return fillByGrpcDomainQuery(nodeDO, false);
     }
 
     /**
      * query inst too many times
+     *
+     * @param cached read the domain from the domain status cache instead of querying kuscia
      */
-    private NodeDTO getNodeDTOP2P(NodeDO nodeDO) {
+    private NodeDTO getNodeDTOP2P(NodeDO nodeDO, boolean cached) {
         NodeDTO nodeDTO = NodeDTO.fromDo(nodeDO);
         Optional<InstDO> optionalInstDO = instRepository.findById(nodeDO.getInstId());
         if (optionalInstDO.isEmpty()) {
@@ -136,7 +142,7 @@ public class NodeManager extends AbstractNodeManager {
             Set<NodeRouteDO> routes = nodeRouteRepository.findBySrcNodeIdOrDstNodeId(nodeDTO.getNodeId());
             nodeDTO.setAllowDeletion(CollectionUtils.isEmpty(routes));
         }
-        fillByGrpcDomainQueryP2p(nodeDTO);
+        fillByGrpcDomainQueryP2p(nodeDTO, cached);
         return nodeDTO;
     }
 
@@ -148,8 +154,12 @@ public class NodeManager extends AbstractNodeManager {
             return new ArrayList<>();
 
         }
+        // one batch query per kuscia channel, the nodes below read the cache
+        nodeDOs.stream().map(NodeDO::getNodeId)
+                .collect(Collectors.groupingBy(id -> kusciaGrpcClientAdapter.isDomainRegistered(id) ? id : ""))
+                .forEach((channel, ids) -> domainStatusCache.get(channel, ids));
         //TODO: cpu later to thread pool
-        return nodeDOs.parallelStream().map(this::getNodeDTOP2P).toList();
+        return nodeDOs.parallelStream().map(nodeDO -> getNodeDTOP2P(nodeDO, true)).toList();
     }
 
     @Override
@@ -189,7 +199,8 @@ public class NodeManager extends AbstractNodeManager {
             // add oneself
             cooperatingNodeIdSet.add(nodeId);
         }
-        return nodeRepository.findByNodeIdIn(cooperatingNodeIdSet).stream().map(this::fillByGrpcDomainQuery).collect(Collectors.toList());
+        domainStatusCache.get(null, cooperatingNodeIdSet);
+        return nodeRepository.findByNodeIdIn(cooperatingNodeIdSet).stream().map(nodeDO -> fillByGrpcDomainQuery(nodeDO, true)).collect(Collectors.toList());
     }
 
     /**
@@ -225,6 +236,7 @@ public class NodeManager extends AbstractNodeManager {
         } catch (Exception e) {
             throw SecretpadException.of(NodeErrorCode.NODE_CREATE_ERROR, e);
         }
+        domainStatusCache.invalidate(nodeId);
         return nodeId;
     }
 
@@ -276,6 +288,7 @@ public class NodeManager extends AbstractNodeManager {
         if (domain.getStatus().getCode() != 0) {
             throw SecretpadException.of(NodeErrorCode.NODE_CREATE_ERROR, nodeId + " node create fail in kuscia :" + domain.getStatus().getMessage());
         }
+        domainStatusCache.invalidate(nodeId);
         return nodeId;
     }
 
@@ -370,6 +383,7 @@ public class NodeManager extends AbstractNodeManager {
         } catch (Exception e) {
             throw SecretpadException.of(NodeErrorCode.NODE_DELETE_ERROR, e);
         }
+        domainStatusCache.invalidate(nodeId);
     }
 
     /**
@@ -381,10 +395,20 @@ public class NodeManager extends AbstractNodeManager {
         LOGGER.info("delete inst={},nodeId={}", inst, nodeId);
         checkBeforeDelete(inst, nodeId);
         deleteKusciaDomain(nodeId);
-        nodeRepository.deleteAuthentic(nodeId);
+        domainStatusCache.invalidate(nodeId);
+        deleteAuthentic(nodeId);
         LOGGER.info("delete finish inst={},nodeId={}", inst, nodeId);
     }
 
+    /**
+     * the native delete fires no entity event, so the in process state which follows the node, such as the cached
+     * auth decisions on it, is told explicitly
+     */
+    private void deleteAuthentic(String nodeId) {
+        nodeRepository.deleteAuthentic(nodeId);
+        SpringContextUtil.publishEvent(new EntityChangedEvent(NodeDO.builder().nodeId(nodeId).build(), DbChangeAction.REMOVE));
+    }
+
 
     private void checkBeforeDelete(String instId, String nodeId) {
         /* local node check */
@@ -531,6 +555,7 @@ public class NodeManager extends AbstractNodeManager {
         DomainOuterClass.QueryDomainRequest queryDomainRequest =
                 DomainOuterClass.QueryDomainRequest.newBuilder().setDomainId(nodeId).build();
         DomainOuterClass.QueryDomainResponse response = kusciaGrpcClientAdapter.queryDomain(queryDomainRequest);
+        domainStatusCache.put(null, nodeId, response);
         List<DomainOuterClass.DeployTokenStatus> deployTokenStatusesList = response.getData().getDeployTokenStatusesList();
         if (CollectionUtils.isEmpty(deployTokenStatusesList)) {
             throw SecretpadException.of(NodeErrorCode.NODE_TOKEN_IS_EMPTY_ERROR, "kuscia return empty token");
@@ -594,31 +619,55 @@ public class NodeManager extends AbstractNodeManager {
     /**
      * p2p no need token write back
      */
-    private void fillByGrpcDomainQueryP2p(NodeDTO nodeDTO) {
+    private void fillByGrpcDomainQueryP2p(NodeDTO nodeDTO, boolean cached) {
         boolean registered = kusciaGrpcClientAdapter.isDomainRegistered(nodeDTO.getNodeId());
-        DomainOuterClass.QueryDomainRequest queryDomainRequest =
-                DomainOuterClass.QueryDomainRequest.newBuilder().setDomainId(nodeDTO.getNodeId()).build();
+        String channel = registered ? nodeDTO.getNodeId() : null;
+        if (cached) {
+            DomainOuterClass.Domain domain = domainStatusCache.get(channel, nodeDTO.getNodeId());
+            if (!registered) {
+                LOGGER.warn("node domain not registered, nodeId={}", nodeDTO.getNodeId());
+                if (domain != null) {
+                    nodeDTO.setCertText(domain.getCert());
+                }
+                return;
+            }
+            fillNodeDTOByDomain(nodeDTO, channel, domain);
+            return;
+        }
+        DomainOuterClass.QueryDomainResponse response = queryDomain(channel, nodeDTO.getNodeId());
         if (!registered) {
             LOGGER.warn("node domain not registered, nodeId={}", nodeDTO.getNodeId());
-            DomainOuterClass.QueryDomainResponse response = kusciaGrpcClientAdapter.queryDomain(queryDomainRequest);
-            if (response.getStatus().getCode() == 0) {
+            if (response != null && response.getStatus().getCode() == 0) {
                 nodeDTO.setCertText(response.getData().getCert());
             }
             return;
         }
-
-
-        DomainOuterClass.QueryDomainResponse response = kusciaGrpcClientAdapter.queryDomain(queryDomainRequest, nodeDTO.getNodeId());
         fillNodeDTOByKResp(nodeDTO, response);
     }
 
+    /**
+     * query kuscia and keep the result in the domain status cache
+     *
+     * @param channel node id of the kuscia to query through, null for the current kuscia
+     */
+    private DomainOuterClass.QueryDomainResponse queryDomain(String channel, String nodeId) {
+        DomainOuterClass.QueryDomainRequest queryDomainRequest =
+                DomainOuterClass.QueryDomainRequest.newBuilder().setDomainId(nodeId).build();
+        DomainOuterClass.QueryDomainResponse response = channel == null ? kusciaGrpcClientAdapter.queryDomain(queryDomainRequest)
+                : kusciaGrpcClientAdapter.queryDomain(queryDomainRequest, channel);
+        domainStatusCache.put(channel, nodeId, response);
+        return response;
+    }
+
 
     /**
      * compatible
+     *
+     * @param cached read the domain from the domain status cache, a node without token still queries kuscia for the token write back
      */
-    private NodeDTO fillByGrpcDomainQuery(NodeDO nodeDO) {
+    private NodeDTO fillByGrpcDomainQuery(NodeDO nodeDO, boolean cached) {
         NodeDTO nodeDTO = NodeDTO.fromDo(nodeDO);
-        fillByGrpcDomainQuery(nodeDTO);
+        fillByGrpcDomainQuery(nodeDTO, cached && StringUtils.isNotEmpty(nodeDO.getToken()));
         /* token write back */
         if (StringUtils.isEmpty(nodeDO.getToken()) && !StringUtils.isEmpty(nodeDTO.getToken())) {
             nodeDO.setToken(nodeDTO.getToken());
@@ -628,82 +677,84 @@ public class NodeManager extends AbstractNodeManager {
     }
 
 
-    private void fillByGrpcDomainQuery(NodeDTO nodeDTO) {
+    private void fillByGrpcDomainQuery(NodeDTO nodeDTO, boolean cached) {
         nodeDTO.setProtocol(protocol);
-        DomainOuterClass.QueryDomainRequest queryDomainRequest =
-                DomainOuterClass.QueryDomainRequest.newBuilder().setDomainId(nodeDTO.getNodeId()).build();
-        DomainOuterClass.QueryDomainResponse response = kusciaGrpcClientAdapter.queryDomain(queryDomainRequest);
-        fillNodeDTOByKResp(nodeDTO, response);
+        if (cached) {
+            fillNodeDTOByDomain(nodeDTO, null, domainStatusCache.get(null, nodeDTO.getNodeId()));
+            return;
+        }
+        fillNodeDTOByKResp(nodeDTO, queryDomain(null, nodeDTO.getNodeId()));
     }
 
 
     private void fillNodeDTOByKResp(NodeDTO nodeDTO, DomainOuterClass.QueryDomainResponse response) {
         if (ObjectUtils.isNotEmpty(response) && response.getStatus().getCode() == 0) {
-            nodeDTO.setNodeStatus(DomainConstants.DomainStatusEnum.NotReady.name());
-            if (ObjectUtils.isNotEmpty(response.getData())) {
-                String cert = response.getData().getCert();
-                String role = response.getData().getRole();
-                // cert, role are no judgment required for node_statuses
-                nodeDTO.setCert(StringUtils.isEmpty(cert) ? DomainConstants.DomainCertConfigEnum.unconfirmed.name() : DomainConstants.DomainCertConfigEnum.configured.name());
-                nodeDTO.setCertText(cert);
-                nodeDTO.setNodeRole(role);
-                List<DomainOuterClass.NodeStatus> nodeStatusesList = response.getData().getNodeStatusesList();
-                if (ObjectUtils.isNotEmpty(nodeStatusesList)) {
-                    List<NodeInstanceDTO> nodeInstanceDTOList = nodeStatusesList.stream().map(NodeInstanceDTO::formDomainNodeStatus).collect(Collectors.toList());
-                    nodeDTO.setNodeInstances(nodeInstanceDTOList);
-                    nodeInstanceDTOList.forEach(s -> {
-                        if (s.getStatus().equals(DomainConstants.DomainStatusEnum.Ready.name())) {
-                            nodeDTO.setNodeStatus(s.getStatus());
-                        }
-                    });
+            DomainOuterClass.QueryDomainResponseData data = response.getData();
+            fillNodeDTO(nodeDTO, data.getCert(), data.getRole(), data.getNodeStatusesList(), data.getDeployTokenStatusesList());
+        }
+    }
+
+    /**
+     * fill from a cached domain, the deploy tokens are not part of it and come from queryDomain
+     *
+     * @param channel node id of the kuscia the domain was queried through, null for the current kuscia
+     */
+    private void fillNodeDTOByDomain(NodeDTO nodeDTO, String channel, DomainOuterClass.Domain domain) {
+        if (domain != null) {
+            fillNodeDTO(nodeDTO, domain.getCert(), domain.getRole(), domain.getNodeStatusesList(),
+                    domainStatusCache.getDeployTokens(channel, nodeDTO.getNodeId()));
+        }
+    }
+
+    private void fillNodeDTO(NodeDTO nodeDTO, String cert, String role, List<DomainOuterClass.NodeStatus> nodeStatusesList,
+                             List<DomainOuterClass.DeployTokenStatus> deployTokenStatusesList) {
+        nodeDTO.setNodeStatus(DomainConstants.DomainStatusEnum.NotReady.name());
+        // cert, role are no judgment required for node_statuses
+        nodeDTO.setCert(StringUtils.isEmpty(cert) ? DomainConstants.DomainCertConfigEnum.unconfirmed.name() : DomainConstants.DomainCertConfigEnum.configured.name());
+        nodeDTO.setCertText(cert);
+        nodeDTO.setNodeRole(role);
+        if (ObjectUtils.isNotEmpty(nodeStatusesList)) {
+            List<NodeInstanceDTO> nodeInstanceDTOList = nodeStatusesList.stream().map(NodeInstanceDTO::formDomainNodeStatus).collect(Collectors.toList());
+            nodeDTO.setNodeInstances(nodeInstanceDTOList);
+            nodeInstanceDTOList.forEach(s -> {
+                if (s.getStatus().equals(DomainConstants.DomainStatusEnum.Ready.name())) {
+                    nodeDTO.setNodeStatus(s.getStatus());
                 }
-                List<DomainOuterClass.DeployTokenStatus> deployTokenStatusesList = response.getData().getDeployTokenStatusesList();
-                if (ObjectUtils.isNotEmpty(deployTokenStatusesList)) {
-                    String token = nodeDTO.getToken();
-                    if (StringUtils.isEmpty(token)) {
-                        deployTokenStatusesList.forEach(t -> {
-                            if (t.getState().equals(DomainConstants.TokenStatusEnum.unused.name())) {
-                                nodeDTO.setToken(t.getToken());
-                                nodeDTO.setTokenStatus(t.getState());
-                            }
-                        });
-                    } else {
-                        deployTokenStatusesList.forEach(t -> {
-                            if (token.equals(t.getToken())) {
-                                nodeDTO.setTokenStatus(t.getState());
-                            }
-                        });
+            });
+        }
+        if (ObjectUtils.isNotEmpty(deployTokenStatusesList)) {
+            String token = nodeDTO.getToken();
+            if (StringUtils.isEmpty(token)) {
+                deployTokenStatusesList.forEach(t -> {
+                    if (t.getState().equals(DomainConstants.TokenStatusEnum.unused.name())) {
+                        nodeDTO.setToken(t.getToken());
+                        nodeDTO.setTokenStatus(t.getState());
                     }
-                }
+                });
+            } else {
+                deployTokenStatusesList.forEach(t -> {
+                    if (token.equals(t.getToken())) {
+                        nodeDTO.setTokenStatus(t.getState());
+                    }
+                });
             }
         }
     }
 
     private List<NodeDTO> addNodeStatusByGrpcBatchQuery(List<NodeDTO> nodeList) {
         Set<String> nodeIdSet = nodeList.stream().map(NodeDTO::getNodeId).collect(Collectors.toSet());
-        nodeIdSet.forEach(nodeId -> {
-
-            DomainOuterClass.BatchQueryDomainRequest domainIds =
-                    DomainOuterClass.BatchQueryDomainRequest.newBuilder().addDomainIds(nodeId).build();
-            DomainOuterClass.BatchQueryDomainResponse domainStatusResponse = kusciaGrpcClientAdapter.batchQueryDomain(domainIds);
-
-            if (domainStatusResponse.getStatus().getCode() == 0) {
-
-                List<DomainOuterClass.Domain> domainsList = domainStatusResponse.getData().getDomainsList();
-                Map<String, List<DomainOuterClass.NodeStatus>> domainId2StatusListMap = domainsList.stream().collect(Collectors.toMap(DomainOuterClass.Domain::getDomainId, DomainOuterClass.Domain::getNodeStatusesList));
-
-                nodeList.forEach(node -> {
-                    List<DomainOuterClass.NodeStatus> nodeStatusList = domainId2StatusListMap.getOrDefault(node.getNodeId(), Collections.emptyList());
-                    List<NodeInstanceDTO> nodeInstanceDTOList = nodeStatusList.stream().map(NodeInstanceDTO::formDomainNodeStatus).toList();
-
-                    nodeInstanceDTOList.forEach(s -> {
-                        if (Objects.equals(s.getStatus(), DomainConstants.DomainStatusEnum.Ready.name())) {
-                            node.setNodeStatus(s.getStatus());
-                        }
-                    });
-                });
+        Map<String, DomainOuterClass.Domain> domains = domainStatusCache.get(null, nodeIdSet);
+        nodeList.forEach(node -> {
+            DomainOuterClass.Domain domain = domains.get(node.getNodeId());
+            if (domain == null) {
+                return;
             }
-
+            List<NodeInstanceDTO> nodeInstanceDTOList = domain.getNodeStatusesList().stream().map(NodeInstanceDTO::formDomainNodeStatus).toList();
+            nodeInstanceDTOList.forEach(s -> {
+                if (Objects.equals(s.getStatus(), DomainConstants.DomainStatusEnum.Ready.name())) {
+                    node.setNodeStatus(s.getStatus());
+                }
+            });
         });
         return nodeList;
 
@@ -766,7 +817,9 @@ public class NodeManager extends AbstractNodeManager {
         List<Integer> teeModes = new ArrayList<>();
         teeModes.add(DomainConstants.DomainModeEnum.tee.code);
         teeModes.add(DomainConstants.DomainModeEnum.teeAndMpc.code);
-        return nodeRepository.findByModeIn(teeModes).stream().map(this::fillByGrpcDomainQuery).collect(Collectors.toList());
+        List<NodeDO> nodeDOs = nodeRepository.findByModeIn(teeModes);
+        domainStatusCache.get(null, nodeDOs.stream().map(NodeDO::getNodeId).collect(Collectors.toSet()));
+        return nodeDOs.stream().map(nodeDO -> fillByGrpcDomainQuery(nodeDO, true)).collect(Collectors.toList());
     }
 
     @Override
@@ -802,7 +855,7 @@ public class NodeManager extends AbstractNodeManager {
                 //old version, reinstall,should create new inst
                 instId = createInst(instName);
             }
-            nodeRepository.deleteAuthentic(nodeId);
+            deleteAuthentic(nodeId);
         } else {
             //new version,install a new node,create inst
             log.info("instId create,instName={}", instName);
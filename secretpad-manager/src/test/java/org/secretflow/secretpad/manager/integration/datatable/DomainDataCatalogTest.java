@@ -0,0 +1,139 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.manager.integration.datatable;
+
+import org.secretflow.secretpad.common.exception.SecretpadException;
+import org.secretflow.secretpad.manager.integration.model.DatatableDTO;
+import org.secretflow.secretpad.manager.integration.model.DatatableListDTO;
+import org.secretflow.secretpad.manager.integration.model.DatatablePageKey;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * keyset pages and incremental refresh of the datatable catalog
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+public class DomainDataCatalogTest {
+
+    @Test
+    public void pageThroughWithTokens() {
+        List<DatatableDTO> listing = listing(25);
+        DomainDataCatalog catalog = new DomainDataCatalog(nodeId -> listing);
+
+        List<String> names = new ArrayList<>();
+        DatatablePageKey after = null;
+        int pages = 0;
+        do {
+            DatatableListDTO page = catalog.page("alice", after, 0, 10, null, null, null);
+            Assertions.assertEquals(25, page.getTotalDatatableNums());
+            page.getDatatableDTOList().forEach(d -> names.add(d.getDatatableName()));
+            after = DatatablePageKey.decode(page.getNextPageToken());
+            pages++;
+        } while (after != null);
+
+        Assertions.assertEquals(3, pages);
+        Assertions.assertEquals(25, names.size());
+        Assertions.assertEquals(names.stream().sorted().toList(), names);
+        // page number paging returns the same datatables
+        Assertions.assertEquals(names.subList(10, 20), catalog.page("alice", null, 10, 10, null, null, null)
+                .getDatatableDTOList().stream().map(DatatableDTO::getDatatableName).toList());
+    }
+
+    @Test
+    public void filterByIndexes() {
+        DomainDataCatalog catalog = new DomainDataCatalog(nodeId -> listing(25));
+
+        DatatableListDTO available = catalog.page("alice", null, 0, 5, "available", null, null);
+        Assertions.assertEquals(13, available.getTotalDatatableNums());
+        Assertions.assertTrue(available.getDatatableDTOList().stream().allMatch(d -> "Available".equals(d.getStatus())));
+        Assertions.assertNotNull(available.getNextPageToken());
+
+        DatatableListDTO http = catalog.page("alice", null, 0, 0, "Unavailable", null, List.of("HTTP"));
+        Assertions.assertEquals(http.getDatatableDTOList().size(), http.getTotalDatatableNums());
+        Assertions.assertTrue(http.getDatatableDTOList().stream().allMatch(d -> "HTTP".equals(d.getDatasourceType()) && "Unavailable".equals(d.getStatus())));
+        Assertions.assertNull(http.getNextPageToken());
+
+        DatatableListDTO named = catalog.page("alice", null, 0, 10, null, "table-1", null);
+        // table-1 and table-10 .. table-19
+        Assertions.assertEquals(11, named.getTotalDatatableNums());
+        Assertions.assertEquals(10, named.getDatatableDTOList().size());
+    }
+
+    @Test
+    public void refreshAppliesListingDiff() {
+        List<DatatableDTO> listing = listing(3);
+        AtomicInteger loads = new AtomicInteger();
+        DomainDataCatalog catalog = new DomainDataCatalog(nodeId -> {
+            loads.incrementAndGet();
+            return new ArrayList<>(listing);
+        });
+        catalog.setMaxStalenessMillis(60000);
+
+        Assertions.assertEquals(2, catalog.page("alice", null, 0, 0, "available", null, null).getTotalDatatableNums());
+        // table-1 turns available, table-0 is deleted and table-7 is created
+        DatatableDTO changed = datatable(1);
+        changed.setStatus("Available");
+        listing.set(1, changed);
+        listing.remove(2);
+        listing.add(datatable(7));
+        // fresh catalog is served without listing the node again
+        Assertions.assertEquals(2, catalog.page("alice", null, 0, 0, "available", null, null).getTotalDatatableNums());
+        Assertions.assertEquals(1, loads.get());
+
+        catalog.evict("alice");
+        DatatableListDTO all = catalog.page("alice", null, 0, 0, null, null, null);
+        Assertions.assertEquals(2, loads.get());
+        Assertions.assertEquals(List.of("table-1", "table-2", "table-7"), all.getDatatableDTOList().stream().map(DatatableDTO::getDatatableName).toList());
+        Assertions.assertEquals(2, catalog.page("alice", null, 0, 0, "available", null, null).getTotalDatatableNums());
+
+        catalog.remove("alice", "id-1");
+        Assertions.assertEquals(1, catalog.page("alice", null, 0, 0, "available", null, null).getTotalDatatableNums());
+    }
+
+    @Test
+    public void invalidPageToken() {
+        Assertions.assertNull(DatatablePageKey.decode(""));
+        Assertions.assertThrows(SecretpadException.class, () -> DatatablePageKey.decode("not a token"));
+        DatatablePageKey key = DatatablePageKey.of(datatable(3));
+        Assertions.assertEquals(key, DatatablePageKey.decode(key.encode()));
+    }
+
+    private List<DatatableDTO> listing(int n) {
+        List<DatatableDTO> listing = new ArrayList<>(n);
+        for (int i = n - 1; i >= 0; i--) {
+            listing.add(datatable(i));
+        }
+        return listing;
+    }
+
+    private DatatableDTO datatable(int i) {
+        return DatatableDTO.builder()
+                .nodeId("alice")
+                .datatableId("id-" + i)
+                .datatableName("table-" + i)
+                .status(i % 2 == 0 ? "Available" : "Unavailable")
+                .datasourceType(i % 3 == 0 ? "HTTP" : "OSS")
+                .build();
+    }
+}
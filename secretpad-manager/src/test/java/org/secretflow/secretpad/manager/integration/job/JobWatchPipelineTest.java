@@ -0,0 +1,185 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.manager.integration.job;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.secretflow.v1alpha1.kusciaapi.Job;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * per job order and coalescing of watched job events
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+public class JobWatchPipelineTest {
+
+    @Test
+    public void coalesceQueuedEventsOfOneJob() {
+        List<Runnable> tasks = new ArrayList<>();
+        JobWatchPipeline pipeline = buildPipeline(tasks::add);
+        List<String> handled = new ArrayList<>();
+        Function<Job.WatchJobEventResponse, Runnable> handler = e -> {
+            handled.add(e.getObject().getJobId() + ":" + e.getObject().getStatus().getState());
+            return null;
+        };
+
+        pipeline.submit("alice", buildEvent("job-1", "Pending"), handler);
+        pipeline.submit("alice", buildEvent("job-1", "Running"), handler);
+        pipeline.submit("alice", buildEvent("job-1", "Succeeded"), handler);
+        Assertions.assertEquals(1, pipeline.depth());
+        // one drain task is scheduled however many events are queued
+        Assertions.assertEquals(1, tasks.size());
+
+        tasks.remove(0).run();
+        Assertions.assertEquals(List.of("job-1:Succeeded"), handled);
+        Assertions.assertEquals(0, pipeline.depth());
+        Assertions.assertTrue(tasks.isEmpty());
+    }
+
+    @Test
+    public void keepOrderPerJob() throws InterruptedException {
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        JobWatchPipeline pipeline = buildPipeline(executorService);
+        Map<String, Queue<Integer>> handled = new HashMap<>();
+        int jobs = 20;
+        int events = 200;
+        for (int j = 0; j < jobs; j++) {
+            handled.put("job-" + j, new ConcurrentLinkedQueue<>());
+        }
+        CountDownLatch last = new CountDownLatch(jobs);
+        Function<Job.WatchJobEventResponse, Runnable> handler = e -> {
+            int state = Integer.parseInt(e.getObject().getStatus().getState());
+            handled.get(e.getObject().getJobId()).add(state);
+            if (state == events - 1) {
+                last.countDown();
+            }
+            return null;
+        };
+
+        for (int i = 0; i < events; i++) {
+            for (int j = 0; j < jobs; j++) {
+                pipeline.submit("alice", buildEvent("job-" + j, String.valueOf(i)), handler);
+            }
+        }
+        Assertions.assertTrue(last.await(10, TimeUnit.SECONDS));
+        executorService.shutdown();
+        handled.forEach((jobId, states) -> {
+            List<Integer> list = new ArrayList<>(states);
+            for (int i = 1; i < list.size(); i++) {
+                Assertions.assertTrue(list.get(i - 1) < list.get(i), jobId + " handled out of order " + list);
+            }
+            Assertions.assertEquals(events - 1, list.get(list.size() - 1));
+        });
+    }
+
+    @Test
+    public void failedEventDoesNotBlockLane() {
+        List<Runnable> tasks = new ArrayList<>();
+        JobWatchPipeline pipeline = buildPipeline(tasks::add);
+        pipeline.setLaneCount(1);
+        List<String> handled = new ArrayList<>();
+        Function<Job.WatchJobEventResponse, Runnable> handler = e -> {
+            if ("job-1".equals(e.getObject().getJobId())) {
+                throw new IllegalStateException("job not exist");
+            }
+            handled.add(e.getObject().getJobId());
+            return null;
+        };
+
+        pipeline.submit("alice", buildEvent("job-1", "Running"), handler);
+        pipeline.submit("alice", buildEvent("job-2", "Running"), handler);
+        tasks.remove(0).run();
+        Assertions.assertEquals(List.of("job-2"), handled);
+    }
+
+    @Test
+    public void savesOfPollShareOneTransaction() {
+        List<Runnable> tasks = new ArrayList<>();
+        JobWatchPipeline pipeline = buildPipeline(tasks::add);
+        pipeline.setLaneCount(1);
+        PlatformTransactionManager transactionManager = Mockito.mock(PlatformTransactionManager.class);
+        Mockito.when(transactionManager.getTransaction(Mockito.any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        pipeline.setTransactionManager(transactionManager);
+        List<String> saved = new ArrayList<>();
+
+        for (int j = 0; j < 5; j++) {
+            pipeline.submit("alice", buildEvent("job-" + j, "Running"), e -> () -> saved.add(e.getObject().getJobId()));
+        }
+        tasks.remove(0).run();
+        Assertions.assertEquals(5, saved.size());
+        Mockito.verify(transactionManager, Mockito.times(1)).getTransaction(Mockito.any());
+        Mockito.verify(transactionManager, Mockito.times(1)).commit(Mockito.any());
+    }
+
+    @Test
+    public void failedSaveIsRetriedOneByOne() {
+        List<Runnable> tasks = new ArrayList<>();
+        JobWatchPipeline pipeline = buildPipeline(tasks::add);
+        pipeline.setLaneCount(1);
+        PlatformTransactionManager transactionManager = Mockito.mock(PlatformTransactionManager.class);
+        Mockito.when(transactionManager.getTransaction(Mockito.any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        pipeline.setTransactionManager(transactionManager);
+        List<String> saved = new ArrayList<>();
+        Function<Job.WatchJobEventResponse, Runnable> handler = e -> () -> {
+            if ("job-1".equals(e.getObject().getJobId())) {
+                throw new IllegalStateException("row locked");
+            }
+            saved.add(e.getObject().getJobId());
+        };
+
+        pipeline.submit("alice", buildEvent("job-1", "Running"), handler);
+        pipeline.submit("alice", buildEvent("job-2", "Running"), handler);
+        tasks.remove(0).run();
+        // the batch rolled back at job-1, job-2 is then saved on its own
+        Assertions.assertEquals(List.of("job-2"), saved);
+        Mockito.verify(transactionManager, Mockito.times(3)).getTransaction(Mockito.any());
+        Mockito.verify(transactionManager, Mockito.times(1)).commit(Mockito.any());
+        Mockito.verify(transactionManager, Mockito.times(2)).rollback(Mockito.any());
+    }
+
+    private JobWatchPipeline buildPipeline(Executor executor) {
+        JobWatchPipeline pipeline = new JobWatchPipeline();
+        pipeline.setExecutor(executor);
+        pipeline.setMeterRegistry(new SimpleMeterRegistry());
+        pipeline.setLaneCount(4);
+        pipeline.setBatchSize(8);
+        return pipeline;
+    }
+
+    private Job.WatchJobEventResponse buildEvent(String jobId, String state) {
+        return Job.WatchJobEventResponse.newBuilder()
+                .setType(Job.EventType.MODIFIED)
+                .setObject(Job.JobStatus.newBuilder()
+                        .setJobId(jobId)
+                        .setStatus(Job.JobStatusDetail.newBuilder().setState(state)))
+                .build();
+    }
+}
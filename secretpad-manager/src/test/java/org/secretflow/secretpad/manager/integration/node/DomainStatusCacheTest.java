@@ -0,0 +1,214 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.manager.integration.node;
+
+import org.secretflow.secretpad.kuscia.v1alpha1.service.impl.KusciaGrpcClientAdapter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.secretflow.v1alpha1.common.Common;
+import org.secretflow.v1alpha1.kusciaapi.DomainOuterClass;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * one batch query per channel regardless of the node count
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+public class DomainStatusCacheTest {
+
+    private static final Set<String> MISSING = Set.of("missing");
+
+    @Test
+    public void listingCostsOneBatchPerChannel() {
+        KusciaGrpcClientAdapter adapter = mockAdapter();
+        DomainStatusCache cache = new DomainStatusCache(adapter);
+        List<String> nodeIds = nodeIds(60);
+
+        Map<String, DomainOuterClass.Domain> domains = cache.get(null, nodeIds);
+        Assertions.assertEquals(60, domains.size());
+        Assertions.assertEquals("Ready", domains.get("node7").getNodeStatuses(0).getStatus());
+        verify(adapter, times(1)).batchQueryDomain(any());
+
+        // fresh entries are served without rpc
+        cache.get(null, nodeIds);
+        cache.get(null, "node7");
+        verify(adapter, times(1)).batchQueryDomain(any());
+        verify(adapter, never()).queryDomain(any());
+    }
+
+    @Test
+    public void staleEntriesAreReloaded() {
+        KusciaGrpcClientAdapter adapter = mockAdapter();
+        DomainStatusCache cache = new DomainStatusCache(adapter);
+        cache.setMaxStalenessMillis(0);
+
+        cache.get(null, nodeIds(3));
+        cache.get(null, nodeIds(3));
+        verify(adapter, times(2)).batchQueryDomain(any());
+
+        cache.setMaxStalenessMillis(60000);
+        cache.invalidate("node1");
+        cache.get(null, nodeIds(3));
+        verify(adapter, times(3)).batchQueryDomain(any());
+        verify(adapter, times(1)).batchQueryDomain(Mockito.argThat((DomainOuterClass.BatchQueryDomainRequest r) -> r.getDomainIdsCount() == 1));
+    }
+
+    @Test
+    public void missingDomainFallsBackOneByOne() {
+        KusciaGrpcClientAdapter adapter = mockAdapter();
+        DomainStatusCache cache = new DomainStatusCache(adapter);
+        List<String> nodeIds = nodeIds(3);
+        nodeIds.add("missing");
+
+        Map<String, DomainOuterClass.Domain> domains = cache.get(null, nodeIds);
+        Assertions.assertEquals(3, domains.size());
+        Assertions.assertFalse(domains.containsKey("missing"));
+        // the failed batch and then one query per domain
+        verify(adapter, times(5)).batchQueryDomain(any());
+
+        // the known missing domain no longer fails the batch of the others
+        cache.setMaxStalenessMillis(0);
+        cache.get(null, nodeIds);
+        verify(adapter, times(7)).batchQueryDomain(any());
+    }
+
+    @Test
+    public void transientErrorKeepsCachedEntry() {
+        KusciaGrpcClientAdapter adapter = mockAdapter();
+        DomainStatusCache cache = new DomainStatusCache(adapter);
+        Assertions.assertNotNull(cache.get(null, "node0"));
+        cache.setMaxStalenessMillis(0);
+
+        doThrow(new IllegalStateException("unavailable")).when(adapter).batchQueryDomain(any());
+        Assertions.assertEquals("Ready", cache.get(null, "node0").getNodeStatuses(0).getStatus());
+        doReturn(DomainOuterClass.BatchQueryDomainResponse.newBuilder()
+                .setStatus(Common.Status.newBuilder().setCode(11101).setMessage("unexpected")).build()).when(adapter).batchQueryDomain(any());
+        Assertions.assertEquals("Ready", cache.get(null, "node0").getNodeStatuses(0).getStatus());
+
+        // a domain which could not be queried is not known as missing, the next read queries it again
+        Assertions.assertNull(cache.get(null, "node1"));
+        Assertions.assertNull(cache.get(null, "node1"));
+        verify(adapter, times(2)).batchQueryDomain(Mockito.argThat((DomainOuterClass.BatchQueryDomainRequest r) -> r.getDomainIds(0).equals("node1")));
+    }
+
+    @Test
+    public void deployTokensComeFromQueryDomain() {
+        KusciaGrpcClientAdapter adapter = mockAdapter();
+        when(adapter.queryDomain(any())).thenAnswer(invocation -> queryDomainResponse(invocation.getArgument(0), "used"));
+        DomainStatusCache cache = new DomainStatusCache(adapter);
+
+        // the batch carries no tokens, the cached domain does not pretend to have any
+        Assertions.assertEquals("Ready", cache.get(null, "node0").getNodeStatuses(0).getStatus());
+        Assertions.assertEquals("used", cache.getDeployTokens(null, "node0").get(0).getState());
+        cache.getDeployTokens(null, "node0");
+        verify(adapter, times(1)).queryDomain(any());
+
+        // tokens read lately are reloaded by the refresh, not by the read
+        cache.setMaxStalenessMillis(0);
+        cache.setRefreshIntervalMillis(0);
+        doAnswer(invocation -> queryDomainResponse(invocation.getArgument(0), "unused")).when(adapter).queryDomain(any());
+        Assertions.assertEquals("used", cache.getDeployTokens(null, "node0").get(0).getState());
+        verify(adapter, times(1)).queryDomain(any());
+        cache.refresh();
+        Assertions.assertEquals("unused", cache.getDeployTokens(null, "node0").get(0).getState());
+        verify(adapter, times(2)).queryDomain(any());
+    }
+
+    @Test
+    public void listingPastStalenessCostsNoTokenQuery() {
+        KusciaGrpcClientAdapter adapter = mockAdapter();
+        when(adapter.queryDomain(any())).thenAnswer(invocation -> queryDomainResponse(invocation.getArgument(0), "used"));
+        DomainStatusCache cache = new DomainStatusCache(adapter);
+        List<String> nodeIds = nodeIds(20);
+
+        nodeIds.forEach(nodeId -> cache.getDeployTokens(null, nodeId));
+        verify(adapter, times(20)).queryDomain(any());
+
+        // every entry is past the staleness window, the listing is still served from memory
+        cache.setMaxStalenessMillis(0);
+        cache.get(null, nodeIds);
+        nodeIds.forEach(nodeId -> cache.getDeployTokens(null, nodeId));
+        verify(adapter, times(20)).queryDomain(any());
+        verify(adapter, times(1)).batchQueryDomain(any());
+    }
+
+    @Test
+    public void putKeepsOnlyBatchFields() {
+        KusciaGrpcClientAdapter adapter = mockAdapter();
+        DomainStatusCache cache = new DomainStatusCache(adapter);
+        cache.put(null, "node0", queryDomainResponse(DomainOuterClass.QueryDomainRequest.newBuilder().setDomainId("node0").build(), "used"));
+
+        DomainOuterClass.Domain domain = cache.get(null, "node0");
+        Assertions.assertEquals("node0", domain.getDomainId());
+        Assertions.assertEquals("Ready", domain.getNodeStatuses(0).getStatus());
+        Assertions.assertEquals("t", cache.getDeployTokens(null, "node0").get(0).getToken());
+        verify(adapter, never()).batchQueryDomain(any());
+        verify(adapter, never()).queryDomain(any());
+
+        // an error response does not drop the domain, a missing domain does
+        cache.put(null, "node0", DomainOuterClass.QueryDomainResponse.newBuilder()
+                .setStatus(Common.Status.newBuilder().setCode(11101)).build());
+        Assertions.assertNotNull(cache.get(null, "node0"));
+        cache.put(null, "node0", DomainOuterClass.QueryDomainResponse.newBuilder()
+                .setStatus(Common.Status.newBuilder().setCode(11305)).build());
+        Assertions.assertNull(cache.get(null, "node0"));
+    }
+
+    private DomainOuterClass.QueryDomainResponse queryDomainResponse(DomainOuterClass.QueryDomainRequest request, String tokenState) {
+        return DomainOuterClass.QueryDomainResponse.newBuilder()
+                .setStatus(Common.Status.newBuilder().setCode(0))
+                .setData(DomainOuterClass.QueryDomainResponseData.newBuilder().setDomainId(request.getDomainId())
+                        .addNodeStatuses(DomainOuterClass.NodeStatus.newBuilder().setStatus("Ready"))
+                        .addDeployTokenStatuses(DomainOuterClass.DeployTokenStatus.newBuilder().setToken("t").setState(tokenState)))
+                .build();
+    }
+
+    private KusciaGrpcClientAdapter mockAdapter() {
+        KusciaGrpcClientAdapter adapter = mock(KusciaGrpcClientAdapter.class);
+        when(adapter.batchQueryDomain(any())).thenAnswer(invocation -> {
+            DomainOuterClass.BatchQueryDomainRequest request = invocation.getArgument(0);
+            if (request.getDomainIdsList().stream().anyMatch(MISSING::contains)) {
+                return DomainOuterClass.BatchQueryDomainResponse.newBuilder()
+                        .setStatus(Common.Status.newBuilder().setCode(11305).setMessage("domain not exists")).build();
+            }
+            DomainOuterClass.BatchQueryDomainResponseData.Builder data = DomainOuterClass.BatchQueryDomainResponseData.newBuilder();
+            request.getDomainIdsList().forEach(domainId -> data.addDomains(DomainOuterClass.Domain.newBuilder().setDomainId(domainId)
+                    .addNodeStatuses(DomainOuterClass.NodeStatus.newBuilder().setStatus("Ready"))));
+            return DomainOuterClass.BatchQueryDomainResponse.newBuilder()
+                    .setStatus(Common.Status.newBuilder().setCode(0)).setData(data).build();
+        });
+        return adapter;
+    }
+
+    private List<String> nodeIds(int n) {
+        List<String> nodeIds = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            nodeIds.add("node" + i);
+        }
+        return nodeIds;
+    }
+}
@@ -43,6 +43,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.util.ReflectionTestUtils.invokeMethod;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
 
 /**
  * @author beiwei
@@ -100,12 +101,13 @@ class NodeManagerTest {
         nodeManager.initialNode("testNodeId", "testInstName");
     }
 
-    private DomainOuterClass.QueryDomainResponse buildQueryDomainResponse(Integer code) {
-        return DomainOuterClass.QueryDomainResponse.newBuilder()
-                .setStatus(Common.Status.newBuilder().setCode(code)
-                        .build()).setData(DomainOuterClass.QueryDomainResponseData.newBuilder()
-                        .addNodeStatuses(DomainOuterClass.NodeStatus.newBuilder().setStatus(DomainConstants.DomainStatusEnum.Ready.name()).build())
-                        .build()).build();
+    private DomainOuterClass.BatchQueryDomainResponse buildBatchQueryDomainResponse(DomainOuterClass.BatchQueryDomainRequest request) {
+        DomainOuterClass.BatchQueryDomainResponseData.Builder data = DomainOuterClass.BatchQueryDomainResponseData.newBuilder();
+        request.getDomainIdsList().forEach(domainId -> data.addDomains(DomainOuterClass.Domain.newBuilder().setDomainId(domainId)
+                .addNodeStatuses(DomainOuterClass.NodeStatus.newBuilder().setStatus(DomainConstants.DomainStatusEnum.Ready.name()).build())
+                .build()));
+        return DomainOuterClass.BatchQueryDomainResponse.newBuilder()
+                .setStatus(Common.Status.newBuilder().setCode(0).build()).setData(data).build();
     }
 
     @Test
@@ -127,8 +129,8 @@ class NodeManagerTest {
         when(nodeRepository.findByInstId(anyString())).thenReturn(nodeDOS);
         when(nodeRouteRepository.findBySrcNodeIdOrDstNodeId(anyString())).thenReturn(new HashSet<>());
         when(kusciaGrpcClientAdapter.isDomainRegistered(anyString())).thenReturn(true);
-        DomainOuterClass.QueryDomainResponse queryDomainResponse = buildQueryDomainResponse(0);
-        when(kusciaGrpcClientAdapter.queryDomain(Mockito.any(), Mockito.any())).thenReturn(queryDomainResponse);
+        when(kusciaGrpcClientAdapter.batchQueryDomain(Mockito.any(), anyString())).thenAnswer(invocation -> buildBatchQueryDomainResponse(invocation.getArgument(0)));
+        setField(nodeManager, "domainStatusCache", new DomainStatusCache(kusciaGrpcClientAdapter));
 
         List<String> result = nodeManager.listReadyNodeByIds("inst1", Arrays.asList("node1", "node2"));
         assertNotNull(result);
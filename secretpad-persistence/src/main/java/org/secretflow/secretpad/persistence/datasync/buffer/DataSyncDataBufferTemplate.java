@@ -21,6 +21,7 @@ import org.secretflow.secretpad.persistence.datasync.listener.EntityChangeListen
 import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -43,6 +44,11 @@ public abstract class DataSyncDataBufferTemplate {
     public abstract EntityChangeListener.DbChangeEvent<BaseAggregationRoot> peek(String nodeId) throws InterruptedException;
 
 
+    /**
+     * view up to maxSize data at first of buffer without removing them, remove them by commit
+     */
+    public abstract List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> peek(String nodeId, int maxSize);
+
     /**
      * pop data at first of buffer
      */
@@ -54,4 +60,22 @@ public abstract class DataSyncDataBufferTemplate {
 
     public abstract void endurance(String nodeId) throws IOException;
 
+    /**
+     * block the producer while the node buffer is full
+     *
+     * @return false if the buffer is still full when the wait times out
+     */
+    public boolean awaitCapacity(String nodeId) throws InterruptedException {
+        return true;
+    }
+
+    /**
+     * count a rejected delivery of the event, the event stays in buffer
+     *
+     * @return failed deliveries of the event so far
+     */
+    public int fail(String nodeId, EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) {
+        return 1;
+    }
+
 }
\ No newline at end of file
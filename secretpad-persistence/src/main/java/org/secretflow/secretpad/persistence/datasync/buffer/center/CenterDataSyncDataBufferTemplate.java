@@ -22,6 +22,9 @@ import org.secretflow.secretpad.persistence.datasync.listener.EntityChangeListen
 import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 
 /**
  * @author yutu
@@ -48,6 +51,16 @@ public class CenterDataSyncDataBufferTemplate extends DataSyncDataBufferTemplate
         return QUEUE.take();
     }
 
+    @Override
+    public List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> peek(String nodeId, int maxSize) {
+        List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> events = new ArrayList<>();
+        Iterator<EntityChangeListener.DbChangeEvent> iterator = QUEUE.iterator();
+        while (iterator.hasNext() && events.size() < maxSize) {
+            events.add(iterator.next());
+        }
+        return events;
+    }
+
     /**
      * pop data at first of buffer
      *
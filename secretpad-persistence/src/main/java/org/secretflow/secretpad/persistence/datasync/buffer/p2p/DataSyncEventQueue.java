@@ -0,0 +1,181 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.persistence.datasync.buffer.p2p;
+
+import org.secretflow.secretpad.persistence.datasync.listener.EntityChangeListener;
+import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
+import org.secretflow.secretpad.persistence.model.DbChangeAction;
+
+import lombok.AllArgsConstructor;
+import org.springframework.util.ObjectUtils;
+
+import java.util.*;
+
+/**
+ * send queue of one node which keeps at most one pending state per entity.
+ * <p>
+ * An entity keeps the position of its first pending event, later create or update events of the same
+ * dType and id overwrite that slot in place, so pushing is O(1) and the order between entities is kept.
+ * A remove ends the chain, a change after it takes a new slot.
+ * <p>
+ * Not thread safe, callers synchronize on the queue.
+ *
+ * @author yutu
+ * @date 2024/12/18
+ */
+class DataSyncEventQueue {
+
+    /**
+     * slot sequence -> slot, in send order
+     */
+    private final LinkedHashMap<Long, Slot> slots = new LinkedHashMap<>();
+    /**
+     * dType and id -> newest queued slot of the entity
+     */
+    private final Map<String, Slot> index = new HashMap<>();
+    /**
+     * queued or polled event -> its slot, keyed by identity because events are mutable
+     */
+    private final Map<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>, Slot> events = new IdentityHashMap<>();
+    private long sequence;
+    private long pushed;
+    private long coalesced;
+
+    /**
+     * @return the queued event which a new event of the same entity would overwrite, null if there is none
+     */
+    EntityChangeListener.DbChangeEvent<BaseAggregationRoot> pending(EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) {
+        String key = key(event);
+        Slot slot = key == null ? null : index.get(key);
+        if (slot == null || DbChangeAction.REMOVE.val.equals(slot.event.getAction())) {
+            return null;
+        }
+        return slot.event;
+    }
+
+    /**
+     * queue the event, or overwrite the pending event of the same entity
+     *
+     * @return log offset of the overwritten event, null if the event took a new slot
+     */
+    Long offer(EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event, long offset) {
+        pushed++;
+        String key = key(event);
+        Slot slot = key == null ? null : index.get(key);
+        if (slot == null || DbChangeAction.REMOVE.val.equals(slot.event.getAction())) {
+            slot = new Slot(sequence++, key, event, offset, 0);
+            slots.put(slot.sequence, slot);
+            if (key != null) {
+                index.put(key, slot);
+            }
+            events.put(event, slot);
+            return null;
+        }
+        coalesced++;
+        // an overwritten event which is in flight commits as a no-op, its latest state is sent from the slot
+        events.remove(slot.event);
+        Long superseded = slot.offset;
+        slot.event = event;
+        slot.offset = offset;
+        slot.attempts = 0;
+        events.put(event, slot);
+        return superseded;
+    }
+
+    EntityChangeListener.DbChangeEvent<BaseAggregationRoot> peek() {
+        Iterator<Slot> iterator = slots.values().iterator();
+        return iterator.hasNext() ? iterator.next().event : null;
+    }
+
+    List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> peek(int maxSize) {
+        List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> result = new ArrayList<>(Math.min(maxSize, slots.size()));
+        Iterator<Slot> iterator = slots.values().iterator();
+        while (iterator.hasNext() && result.size() < maxSize) {
+            result.add(iterator.next().event);
+        }
+        return result;
+    }
+
+    /**
+     * detach the head event, it keeps its log offset until it is committed
+     */
+    EntityChangeListener.DbChangeEvent<BaseAggregationRoot> poll() {
+        Iterator<Slot> iterator = slots.values().iterator();
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        Slot slot = iterator.next();
+        iterator.remove();
+        unindex(slot);
+        return slot.event;
+    }
+
+    /**
+     * @return log offset of the event, null if it was overwritten or already committed
+     */
+    Long commit(EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) {
+        Slot slot = events.remove(event);
+        if (slot == null) {
+            return null;
+        }
+        slots.remove(slot.sequence);
+        unindex(slot);
+        return slot.offset;
+    }
+
+    /**
+     * @return failed deliveries of the event, 0 if it is no longer queued. A newer state of the entity starts from 0
+     */
+    int fail(EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) {
+        Slot slot = events.get(event);
+        return slot == null ? 0 : ++slot.attempts;
+    }
+
+    int size() {
+        return slots.size();
+    }
+
+    /**
+     * share of pushed events which were folded into a pending event of the same entity
+     */
+    double coalescingRatio() {
+        return pushed == 0 ? 0 : (double) coalesced / pushed;
+    }
+
+    private void unindex(Slot slot) {
+        if (slot.key != null && index.get(slot.key) == slot) {
+            index.remove(slot.key);
+        }
+    }
+
+    private static String key(EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) {
+        BaseAggregationRoot source = event.getSource();
+        if (source == null || ObjectUtils.isEmpty(source.getId())) {
+            return null;
+        }
+        return event.getDType() + "#" + source.getId();
+    }
+
+    @AllArgsConstructor
+    private static class Slot {
+        private final long sequence;
+        private final String key;
+        private EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event;
+        private long offset;
+        private int attempts;
+    }
+}
@@ -0,0 +1,397 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.persistence.datasync.buffer.p2p;
+
+import org.secretflow.secretpad.persistence.datasync.listener.EntityChangeListener;
+import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Segmented append-only log of the data sync events pending for one peer.
+ * <p>
+ * Every pushed event is appended once as an APPEND record carrying a monotonically increasing offset,
+ * every acknowledged (or coalesced) event is recorded as a small COMMIT record of its offset.
+ * Segments are only deleted from the head once every event in them is committed, and {@link #compact(long)}
+ * rewrites the surviving events of sealed segments into one segment when an old event pins the head.
+ * <p>
+ * Record layout: [int payloadLength][byte type][long offset][int crc32(payload)][payload]
+ *
+ * @author yutu
+ * @date 2024/12/16
+ */
+@Slf4j
+public class DataSyncWriteAheadLog implements Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String COMPACT_SUFFIX = ".compact";
+    private static final byte APPEND = 1;
+    private static final byte COMMIT = 2;
+    private static final int HEADER_BYTES = Integer.BYTES + Byte.BYTES + Long.BYTES + Integer.BYTES;
+    private static final int MAX_PAYLOAD_BYTES = 256 * 1024 * 1024;
+
+    private final Path dir;
+    private final long segmentBytes;
+    /**
+     * segment sequence -> segment, sequence order is replay order
+     */
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    /**
+     * live (not committed) offset -> segment sequence
+     */
+    private final TreeMap<Long, Long> live = new TreeMap<>();
+    private Segment active;
+    private long nextOffset;
+    private boolean dirty;
+
+    private DataSyncWriteAheadLog(Path dir, long segmentBytes) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * open the log in dir, replay all segments and return the events which are not committed yet, ordered by offset
+     *
+     * @param dir          log directory of one peer
+     * @param segmentBytes roll to a new segment once the active one exceeds this size
+     * @param replayed     receive the live events in push order
+     * @return opened log
+     */
+    public static DataSyncWriteAheadLog open(Path dir, long segmentBytes, List<Entry> replayed) throws IOException {
+        Files.createDirectories(dir);
+        DataSyncWriteAheadLog wal = new DataSyncWriteAheadLog(dir, segmentBytes);
+        wal.replay(replayed);
+        return wal;
+    }
+
+    /**
+     * append event and return its offset, the record is durable after the next {@link #flush()}
+     */
+    public synchronized long append(EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) throws IOException {
+        byte[] payload = serialize(event);
+        if (active.size >= segmentBytes) {
+            roll(active.seq + 1);
+        }
+        long offset = nextOffset++;
+        write(active, APPEND, offset, payload);
+        live.put(offset, active.seq);
+        active.live++;
+        return offset;
+    }
+
+    /**
+     * mark offset as committed, the event will not be replayed any more
+     */
+    public synchronized void commit(long offset) throws IOException {
+        Long seq = live.remove(offset);
+        if (seq == null) {
+            return;
+        }
+        write(active, COMMIT, offset, new byte[0]);
+        Segment segment = segments.get(seq);
+        if (segment != null) {
+            segment.live--;
+        }
+        truncateHead();
+    }
+
+    /**
+     * fsync pending records, appends and commits between two flushes share one fsync
+     */
+    public synchronized void flush() throws IOException {
+        if (dirty && active.channel != null) {
+            active.channel.force(false);
+            dirty = false;
+        }
+    }
+
+    /**
+     * rewrite the live events of all sealed segments into one segment,
+     * which is worth it when an old uncommitted event keeps a long tail of committed segments on disk
+     *
+     * @param minSealedBytes only compact when sealed segments take at least this many bytes
+     * @return true if compacted
+     */
+    public synchronized boolean compact(long minSealedBytes) throws IOException {
+        long sealedBytes = segments.headMap(active.seq).values().stream().mapToLong(s -> s.size).sum();
+        if (sealedBytes < minSealedBytes) {
+            return false;
+        }
+        long sealedSeq = active.seq;
+        long compactedSeq = sealedSeq + 1;
+        roll(compactedSeq + 1);
+        Path tmp = dir.resolve(segmentName(compactedSeq) + COMPACT_SUFFIX);
+        Segment compacted = new Segment(compactedSeq, dir.resolve(segmentName(compactedSeq)));
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Segment segment : segments.headMap(compactedSeq).values()) {
+                compacted.size += copyLive(segment, out, compacted);
+            }
+            out.force(true);
+        }
+        Files.move(tmp, compacted.path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        Iterator<Segment> iterator = segments.headMap(compactedSeq).values().iterator();
+        while (iterator.hasNext()) {
+            Files.deleteIfExists(iterator.next().path);
+            iterator.remove();
+        }
+        segments.put(compactedSeq, compacted);
+        live.replaceAll((offset, seq) -> seq < compactedSeq ? compactedSeq : seq);
+        truncateHead();
+        log.info("data sync wal {} compacted {} bytes into {} live events", dir, sealedBytes, compacted.live);
+        return true;
+    }
+
+    public synchronized int liveSize() {
+        return live.size();
+    }
+
+    public synchronized int segmentSize() {
+        return segments.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        if (active != null && active.channel != null) {
+            active.channel.close();
+            active.channel = null;
+        }
+    }
+
+    private void replay(List<Entry> replayed) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(path -> {
+                String name = path.getFileName().toString();
+                if (name.endsWith(COMPACT_SUFFIX)) {
+                    // a compaction crashed before the rename, the source segments are still there
+                    path.toFile().delete();
+                } else if (name.endsWith(SEGMENT_SUFFIX)) {
+                    long seq = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                    segments.put(seq, new Segment(seq, path));
+                }
+            });
+        }
+        Map<Long, byte[]> payloads = new HashMap<>();
+        long maxOffset = -1;
+        for (Segment segment : segments.values()) {
+            maxOffset = Math.max(maxOffset, readSegment(segment, segment == segments.lastEntry().getValue(), payloads));
+        }
+        nextOffset = maxOffset + 1;
+        for (Map.Entry<Long, Long> entry : live.entrySet()) {
+            EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event = deserialize(payloads.get(entry.getKey()));
+            if (event != null) {
+                replayed.add(new Entry(entry.getKey(), event));
+            }
+        }
+        if (segments.isEmpty()) {
+            roll(0);
+        } else {
+            Segment last = segments.lastEntry().getValue();
+            last.channel = FileChannel.open(last.path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            active = last;
+        }
+        truncateHead();
+        log.info("data sync wal {} replayed {} segments, {} live events", dir, segments.size(), live.size());
+    }
+
+    /**
+     * @return max offset in segment
+     */
+    private long readSegment(Segment segment, boolean tail, Map<Long, byte[]> payloads) throws IOException {
+        long maxOffset = -1;
+        long position = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment.path)))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                try {
+                    if (length < 0 || length > MAX_PAYLOAD_BYTES) {
+                        throw new IOException("bad record length " + length);
+                    }
+                    byte type = in.readByte();
+                    long offset = in.readLong();
+                    int crc = in.readInt();
+                    byte[] payload = new byte[length];
+                    in.readFully(payload);
+                    if (crc != crc32(payload)) {
+                        throw new IOException("bad record crc at " + position);
+                    }
+                    maxOffset = Math.max(maxOffset, offset);
+                    if (type == APPEND) {
+                        payloads.put(offset, payload);
+                        Long previous = live.put(offset, segment.seq);
+                        if (previous != null && segments.containsKey(previous)) {
+                            segments.get(previous).live--;
+                        }
+                        segment.live++;
+                    } else if (type == COMMIT) {
+                        payloads.remove(offset);
+                        Long seq = live.remove(offset);
+                        if (seq != null && segments.containsKey(seq)) {
+                            segments.get(seq).live--;
+                        }
+                    }
+                    position += HEADER_BYTES + length;
+                } catch (IOException e) {
+                    log.warn("data sync wal {} torn record at {}, {}", segment.path, position, e.getMessage());
+                    break;
+                }
+            }
+        }
+        segment.size = position;
+        if (tail && Files.size(segment.path) > position) {
+            // drop a partially written tail so that new records are appended after the last good one
+            try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.WRITE)) {
+                channel.truncate(position);
+            }
+        }
+        return maxOffset;
+    }
+
+    private long copyLive(Segment segment, FileChannel out, Segment compacted) throws IOException {
+        long written = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment.path)))) {
+            long position = 0;
+            while (position < segment.size) {
+                int length = in.readInt();
+                byte type = in.readByte();
+                long offset = in.readLong();
+                int crc = in.readInt();
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                position += HEADER_BYTES + length;
+                // after a crashed compaction the same offset may exist twice, only copy the owning record
+                if (type == APPEND && Objects.equals(live.get(offset), segment.seq)) {
+                    ByteBuffer buffer = record(APPEND, offset, payload, crc);
+                    while (buffer.hasRemaining()) {
+                        written += out.write(buffer);
+                    }
+                    compacted.live++;
+                }
+            }
+        }
+        return written;
+    }
+
+    /**
+     * drop head segments without live events, commit records in them only refer to themselves or older segments
+     */
+    private void truncateHead() throws IOException {
+        while (segments.size() > 1) {
+            Segment head = segments.firstEntry().getValue();
+            if (head == active || head.live > 0) {
+                return;
+            }
+            Files.deleteIfExists(head.path);
+            segments.pollFirstEntry();
+            log.debug("data sync wal {} drop segment {}", dir, head.path);
+        }
+    }
+
+    private void roll(long seq) throws IOException {
+        if (active != null && active.channel != null) {
+            active.channel.force(false);
+            active.channel.close();
+            active.channel = null;
+        }
+        Segment segment = new Segment(seq, dir.resolve(segmentName(seq)));
+        segment.channel = FileChannel.open(segment.path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segments.put(seq, segment);
+        active = segment;
+        dirty = false;
+    }
+
+    private void write(Segment segment, byte type, long offset, byte[] payload) throws IOException {
+        ByteBuffer buffer = record(type, offset, payload, crc32(payload));
+        while (buffer.hasRemaining()) {
+            segment.size += segment.channel.write(buffer);
+        }
+        dirty = true;
+    }
+
+    private static ByteBuffer record(byte type, long offset, byte[] payload, int crc) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        buffer.putInt(payload.length).put(type).putLong(offset).putInt(crc).put(payload);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static int crc32(byte[] payload) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(payload);
+        return (int) crc32.getValue();
+    }
+
+    private static String segmentName(long seq) {
+        return String.format("%020d%s", seq, SEGMENT_SUFFIX);
+    }
+
+    private static byte[] serialize(EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (ObjectOutputStream os = new ObjectOutputStream(bytes)) {
+            os.writeObject(event);
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static EntityChangeListener.DbChangeEvent<BaseAggregationRoot> deserialize(byte[] payload) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+            return (EntityChangeListener.DbChangeEvent<BaseAggregationRoot>) in.readObject();
+        } catch (Exception e) {
+            log.error("data sync wal deserialize event error", e);
+            return null;
+        }
+    }
+
+    /**
+     * replayed event with its offset
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+        private final long offset;
+        private final EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event;
+    }
+
+    private static final class Segment {
+        private final long seq;
+        private final Path path;
+        private long size;
+        private int live;
+        private FileChannel channel;
+
+        private Segment(long seq, Path path) {
+            this.seq = seq;
+            this.path = path;
+        }
+    }
+}
@@ -24,20 +24,26 @@ import org.secretflow.secretpad.persistence.datasync.producer.p2p.P2pDataSyncPro
 import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
 import org.secretflow.secretpad.persistence.model.DbChangeAction;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.compress.utils.IOUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.util.CollectionUtils;
-import org.springframework.util.ObjectUtils;
 import org.springframework.util.ResourceUtils;
 
 import java.io.*;
-import java.util.Iterator;
-import java.util.List;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author yutu
@@ -47,14 +53,37 @@ import java.util.List;
 @RequiredArgsConstructor
 public class P2PDataSyncDataBufferTemplate extends DataSyncDataBufferTemplate {
 
-    private final Object lock = new Object();
+    private static final String WAL_SUFFIX = ".wal";
     private final ApplicationEventPublisher applicationEventPublisher;
+    /**
+     * nodeId -> append only log of the node queue
+     */
+    private final Map<String, DataSyncWriteAheadLog> walMap = new ConcurrentHashMap<>();
+    /**
+     * nodeId -> coalescing send queue, the queue is also the per node monitor which keeps queue and log in the same order
+     */
+    private final Map<String, DataSyncEventQueue> queueMap = new ConcurrentHashMap<>();
     @Value("${secretpad.sync-path:./config/sync/}")
     @Setter
     private String syncPath;
+    @Value("${secretpad.datasync.wal.segment-bytes:16777216}")
+    @Setter
+    private long segmentBytes = 16 * 1024 * 1024;
+    @Value("${secretpad.datasync.wal.compact-bytes:67108864}")
+    @Setter
+    private long compactBytes = 64 * 1024 * 1024;
+    @Value("${secretpad.datasync.backpressure.queue-depth:10000}")
+    @Setter
+    private int maxQueueDepth = 10000;
+    @Value("${secretpad.datasync.backpressure.max-wait-ms:2000}")
+    @Setter
+    private long maxWaitMillis = 2000;
+    @Resource
+    @Setter
+    private MeterRegistry meterRegistry;
 
     /**
-     * push data at end of buffer
+     * push data at end of buffer, or fold it into the pending event of the same entity
      *
      * @param event
      */
@@ -70,27 +99,24 @@ public class P2PDataSyncDataBufferTemplate extends DataSyncDataBufferTemplate {
             }
             event.setDstNode(nodeId);
             log.debug("p2pDayaSyncDataBufferTemplate push data {} {}", nodeId, event);
-            UniqueLinkedBlockingQueue<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> queue = QUEUE_MAP.getOrDefault(nodeId, new UniqueLinkedBlockingQueue<>());
-            Iterator<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> iterator = queue.iterator();
-            while (iterator.hasNext()) {
-                EntityChangeListener.DbChangeEvent<BaseAggregationRoot> next = iterator.next();
-                BaseAggregationRoot nextSource = next.getSource();
-                BaseAggregationRoot eventSource = event.getSource();
-                if (ObjectUtils.isEmpty(nextSource.getId()) || ObjectUtils.isEmpty(eventSource.getId())) {
-                    continue;
+            DataSyncWriteAheadLog wal = wal(nodeId);
+            DataSyncEventQueue queue = queue(nodeId);
+            boolean coalesced;
+            synchronized (queue) {
+                EntityChangeListener.DbChangeEvent<BaseAggregationRoot> pending = queue.pending(event);
+                if (pending == event) {
+                    return;
                 }
-                if (next.getAction().equals(DbChangeAction.UPDATE.val) && next.getDType().equals(event.getDType()) && nextSource.getId().equals(eventSource.getId())) {
-                    iterator.remove();
-                    log.debug("data sync queue remove some update db action {}", iterator);
+                EntityChangeListener.DbChangeEvent<BaseAggregationRoot> latest = coalesce(nodeId, pending, event);
+                try {
+                    commitLog(wal, queue.offer(latest, wal.append(latest)));
+                } catch (IOException e) {
+                    log.error("p2pDayaSyncDataBufferTemplate append wal error", e);
+                    return;
                 }
+                coalesced = pending != null;
             }
-            try {
-                queue.put(event);
-            } catch (InterruptedException e) {
-                log.error("p2pDayaSyncDataBufferTemplate push data error", e);
-            }
-            QUEUE_MAP.put(nodeId, queue);
-            endurance(nodeId);
+            recordMetrics(nodeId, coalesced);
             applicationEventPublisher.publishEvent(new P2pDataSyncSendEvent(this, nodeId));
         });
     }
@@ -100,9 +126,24 @@ public class P2PDataSyncDataBufferTemplate extends DataSyncDataBufferTemplate {
      */
     @Override
     public EntityChangeListener.DbChangeEvent<BaseAggregationRoot> peek(String nodeId) throws InterruptedException {
-        UniqueLinkedBlockingQueue<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> queue =
-                QUEUE_MAP.getOrDefault(nodeId, null);
-        return ObjectUtils.isEmpty(queue) ? null : queue.peek();
+        DataSyncEventQueue queue = queueMap.get(nodeId);
+        if (queue == null) {
+            return null;
+        }
+        synchronized (queue) {
+            return queue.peek();
+        }
+    }
+
+    @Override
+    public List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> peek(String nodeId, int maxSize) {
+        DataSyncEventQueue queue = queueMap.get(nodeId);
+        if (queue == null) {
+            return Collections.emptyList();
+        }
+        synchronized (queue) {
+            return queue.peek(maxSize);
+        }
     }
 
     /**
@@ -112,40 +153,106 @@ public class P2PDataSyncDataBufferTemplate extends DataSyncDataBufferTemplate {
      */
     @Override
     public EntityChangeListener.DbChangeEvent<BaseAggregationRoot> poll(String nodeId) throws InterruptedException {
-        UniqueLinkedBlockingQueue<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> queue =
-                QUEUE_MAP.getOrDefault(nodeId, null);
-        return ObjectUtils.isEmpty(queue) ? null : queue.poll();
+        DataSyncEventQueue queue = queueMap.get(nodeId);
+        if (queue == null) {
+            return null;
+        }
+        synchronized (queue) {
+            EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event = queue.poll();
+            release(queue);
+            return event;
+        }
     }
 
     @Override
     public int size(String nodeId) {
-        UniqueLinkedBlockingQueue<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> queue =
-                QUEUE_MAP.getOrDefault(nodeId, null);
-        return ObjectUtils.isEmpty(queue) ? 0 : queue.size();
+        DataSyncEventQueue queue = queueMap.get(nodeId);
+        if (queue == null) {
+            return 0;
+        }
+        synchronized (queue) {
+            return queue.size();
+        }
     }
 
+    /**
+     * the event is polled before it is sent, so it stays in the log until it is committed here
+     */
     @Override
     public void commit(String nodeId, EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) {
-        UniqueLinkedBlockingQueue<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> queue =
-                QUEUE_MAP.getOrDefault(nodeId, null);
-        queue.remove(event);
-        endurance(nodeId);
+        DataSyncEventQueue queue = queue(nodeId);
+        synchronized (queue) {
+            commitLog(wal(nodeId), queue.commit(event));
+            release(queue);
+        }
         log.info("{} commit {}", nodeId, event);
     }
 
     @Override
-    public void endurance(String nodeId) {
-        UniqueLinkedBlockingQueue<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> queue =
-                QUEUE_MAP.getOrDefault(nodeId, null);
-        synchronized (lock) {
-            if (queue != null) {
-                try {
-                    serializableWrite(nodeId, queue);
-                } catch (Exception e) {
-                    log.error("serializableWrite error", e);
+    public int fail(String nodeId, EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) {
+        DataSyncEventQueue queue = queue(nodeId);
+        synchronized (queue) {
+            return queue.fail(event);
+        }
+    }
+
+    /**
+     * wait until the node queue is below maxQueueDepth, events are never dropped so a timeout only stops the wait
+     */
+    @Override
+    public boolean awaitCapacity(String nodeId) throws InterruptedException {
+        DataSyncEventQueue queue = queueMap.get(nodeId);
+        if (queue == null) {
+            return true;
+        }
+        long deadline = System.currentTimeMillis() + maxWaitMillis;
+        synchronized (queue) {
+            while (queue.size() >= maxQueueDepth) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    if (meterRegistry != null) {
+                        meterRegistry.counter("p2p.data.sync.buffer.backpressure.timeout", Tags.of("target", nodeId)).increment();
+                    }
+                    return false;
                 }
+                queue.wait(wait);
             }
         }
+        return true;
+    }
+
+    /**
+     * fsync the node log
+     */
+    @Override
+    public void endurance(String nodeId) {
+        DataSyncWriteAheadLog wal = walMap.get(nodeId);
+        if (wal != null) {
+            try {
+                wal.flush();
+            } catch (IOException e) {
+                log.error("data sync wal flush error {}", nodeId, e);
+            }
+        }
+    }
+
+    /**
+     * batch fsync, all records written since the last run share one fsync per node
+     */
+    @Scheduled(initialDelay = 1000, fixedDelayString = "${secretpad.datasync.wal.flush-interval-ms:200}")
+    public void flush() {
+        walMap.keySet().forEach(this::endurance);
+    }
+
+    @Scheduled(initialDelay = 60000, fixedDelayString = "${secretpad.datasync.wal.compact-interval-ms:60000}")
+    public void compact() {
+        walMap.forEach((nodeId, wal) -> {
+            try {
+                wal.compact(compactBytes);
+            } catch (IOException e) {
+                log.error("data sync wal compact error {}", nodeId, e);
+            }
+        });
     }
 
     @PostConstruct
@@ -155,30 +262,147 @@ public class P2PDataSyncDataBufferTemplate extends DataSyncDataBufferTemplate {
         if (files == null) {
             return;
         }
+        Set<String> nodeIds = new LinkedHashSet<>();
         for (File f : files) {
-            if (f.isFile()) {
-                String nodeId = f.getName();
-                QUEUE_MAP.put(nodeId, serializableRead(nodeId));
-                applicationEventPublisher.publishEvent(new P2pDataSyncSendEvent(this, nodeId));
+            String name = f.getName();
+            if (f.isDirectory() && name.endsWith(WAL_SUFFIX)) {
+                String nodeId = name.substring(0, name.length() - WAL_SUFFIX.length());
+                wal(nodeId);
+                nodeIds.add(nodeId);
+            } else if (f.isFile()) {
+                migrate(name);
+                nodeIds.add(name);
             }
         }
+        nodeIds.forEach(nodeId -> applicationEventPublisher.publishEvent(new P2pDataSyncSendEvent(this, nodeId)));
     }
 
-    public void serializableWrite(String nodeId, UniqueLinkedBlockingQueue queue) throws IOException {
-        log.info("serializableWrite ---{}", queue.size());
-        ObjectOutputStream os = null;
-        File file = ResourceUtils.getFile(syncPath + nodeId);
-        if (!file.exists() && file.getParentFile().mkdirs() && !file.createNewFile()) {
-            log.error("create serializableWrite file error");
+    @PreDestroy
+    public void close() {
+        walMap.forEach((nodeId, wal) -> {
+            try {
+                wal.close();
+            } catch (IOException e) {
+                log.error("data sync wal close error {}", nodeId, e);
+            }
+        });
+    }
+
+    /**
+     * move a queue written by the old whole-queue serialization into the node log
+     */
+    private void migrate(String nodeId) throws IOException {
+        UniqueLinkedBlockingQueue<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> legacy = serializableRead(nodeId);
+        DataSyncWriteAheadLog wal = wal(nodeId);
+        if (legacy != null) {
+            DataSyncEventQueue queue = queue(nodeId);
+            synchronized (queue) {
+                for (EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event : legacy) {
+                    EntityChangeListener.DbChangeEvent<BaseAggregationRoot> latest = coalesce(nodeId, queue.pending(event), event);
+                    commitLog(wal, queue.offer(latest, wal.append(latest)));
+                }
+            }
+            wal.flush();
         }
+        ResourceUtils.getFile(syncPath + nodeId).delete();
+        log.info("data sync migrate {} legacy events of {} into wal", legacy == null ? 0 : legacy.size(), nodeId);
+    }
+
+    private DataSyncWriteAheadLog wal(String nodeId) {
+        return walMap.computeIfAbsent(nodeId, this::openWal);
+    }
+
+    private DataSyncWriteAheadLog openWal(String nodeId) {
+        List<DataSyncWriteAheadLog.Entry> replayed = new ArrayList<>();
+        DataSyncWriteAheadLog wal;
         try {
-            os = new ObjectOutputStream(new FileOutputStream(file));
-            os.writeObject(queue);
-        } finally {
-            IOUtils.closeQuietly(os);
+            Path dir = ResourceUtils.getFile(syncPath).toPath().resolve(nodeId + WAL_SUFFIX);
+            wal = DataSyncWriteAheadLog.open(dir, segmentBytes, replayed);
+        } catch (IOException e) {
+            throw new UncheckedIOException("open data sync wal error " + nodeId, e);
+        }
+        if (!replayed.isEmpty()) {
+            DataSyncEventQueue queue = queue(nodeId);
+            synchronized (queue) {
+                for (DataSyncWriteAheadLog.Entry entry : replayed) {
+                    // a crash between append and commit leaves the overwritten event in the log, fold it again
+                    commitLog(wal, queue.offer(entry.getEvent(), entry.getOffset()));
+                }
+            }
+            log.info("data sync replay {} events of {}", replayed.size(), nodeId);
+        }
+        return wal;
+    }
+
+    private DataSyncEventQueue queue(String nodeId) {
+        return queueMap.computeIfAbsent(nodeId, k -> {
+            DataSyncEventQueue queue = new DataSyncEventQueue();
+            if (meterRegistry != null) {
+                Gauge.builder("p2p.data.sync.buffer.size", queue, q -> {
+                            synchronized (q) {
+                                return q.size();
+                            }
+                        })
+                        .tags(Tags.of("target", k))
+                        .register(meterRegistry);
+                Gauge.builder("p2p.data.sync.buffer.coalescing.ratio", queue, q -> {
+                            synchronized (q) {
+                                return q.coalescingRatio();
+                            }
+                        })
+                        .tags(Tags.of("target", k))
+                        .register(meterRegistry);
+            }
+            return queue;
+        });
+    }
+
+    /**
+     * a create followed by updates is still a create for the peer, the shared event is copied so other nodes keep its action
+     */
+    private EntityChangeListener.DbChangeEvent<BaseAggregationRoot> coalesce(String nodeId,
+                                                                          EntityChangeListener.DbChangeEvent<BaseAggregationRoot> pending,
+                                                                          EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) {
+        if (pending == null || !DbChangeAction.CREATE.val.equals(pending.getAction()) || !DbChangeAction.UPDATE.val.equals(event.getAction())) {
+            return event;
         }
+        return new EntityChangeListener.DbChangeEvent<>(nodeId, DbChangeAction.CREATE.val, event.getDType(), event.getProjectId(), event.getNodeIds(), event.getSource());
     }
 
+    private void release(DataSyncEventQueue queue) {
+        if (queue.size() < maxQueueDepth) {
+            queue.notifyAll();
+        }
+    }
+
+    private void recordMetrics(String nodeId, boolean coalesced) {
+        if (meterRegistry == null) {
+            return;
+        }
+        try {
+            meterRegistry.counter("p2p.data.sync.buffer.pushed", Tags.of("target", nodeId)).increment();
+            if (coalesced) {
+                meterRegistry.counter("p2p.data.sync.buffer.coalesced", Tags.of("target", nodeId)).increment();
+            }
+        } catch (Exception e) {
+            log.error("recordMetrics error", e);
+        }
+    }
+
+    private void commitLog(DataSyncWriteAheadLog wal, Long offset) {
+        if (offset == null) {
+            return;
+        }
+        try {
+            wal.commit(offset);
+        } catch (IOException e) {
+            log.error("data sync wal commit error {}", offset, e);
+        }
+    }
+
+    /**
+     * read the queue written by the old whole-queue serialization, only used to migrate it
+     */
     public UniqueLinkedBlockingQueue serializableRead(String nodeId) throws IOException {
         ObjectInputStream in = null;
         UniqueLinkedBlockingQueue queue = new UniqueLinkedBlockingQueue();
@@ -198,4 +422,4 @@ public class P2PDataSyncDataBufferTemplate extends DataSyncDataBufferTemplate {
         return queue;
     }
 
-}
\ No newline at end of file
+}
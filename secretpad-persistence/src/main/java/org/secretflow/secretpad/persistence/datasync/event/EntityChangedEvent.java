@@ -0,0 +1,66 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.persistence.datasync.event;
+
+import org.secretflow.secretpad.persistence.entity.*;
+import org.secretflow.secretpad.persistence.model.DbChangeAction;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Set;
+
+/**
+ * EntityChangedEvent
+ * <p>
+ * Published for the entities written which in process state follows, both by local changes and by consumed sync data,
+ * so that the state can follow them without polling. Add the type to {@link #WATCHED_TYPES} when listening to a new one,
+ * other writes publish nothing and register no transaction synchronization.
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+@Getter
+@SuppressWarnings(value = {"rawtypes"})
+public class EntityChangedEvent extends ApplicationEvent {
+
+    /**
+     * entity types listened to by the vote state machine, the auth decision and token session caches and the graph status view
+     */
+    private static final Set<Class<?>> WATCHED_TYPES = Set.of(VoteRequestDO.class, VoteInviteDO.class,
+            ProjectDO.class, ProjectNodeDO.class, ProjectInstDO.class, NodeDO.class, TokensDO.class,
+            ProjectJobDO.class, ProjectTaskDO.class);
+
+    private final DbChangeAction action;
+
+    public EntityChangedEvent(BaseAggregationRoot source, DbChangeAction action) {
+        super(source);
+        this.action = action;
+    }
+
+    public BaseAggregationRoot getEntity() {
+        return (BaseAggregationRoot) getSource();
+    }
+
+    /**
+     * @param entity entity written
+     * @return whether a change of the entity is listened to
+     */
+    public static boolean isWatched(Object entity) {
+        return entity != null && WATCHED_TYPES.contains(entity.getClass());
+    }
+}
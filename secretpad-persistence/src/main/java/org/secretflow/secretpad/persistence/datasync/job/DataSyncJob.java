@@ -18,21 +18,30 @@ package org.secretflow.secretpad.persistence.datasync.job;
 
 import org.secretflow.secretpad.persistence.datasync.event.P2pDataSyncSendEvent;
 import org.secretflow.secretpad.persistence.datasync.rest.DataSyncRestTemplate;
+import org.secretflow.secretpad.persistence.datasync.retry.DataSyncCircuitBreaker;
 
 import jakarta.annotation.Resource;
+import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Lazy;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * data sync job
+ * data sync job, every node has one drain loop which runs on dataSyncPeerThreadPool while the node has work,
+ * the pool size is the cap of nodes sending at the same time. One run sends at most maxRequestsPerRun requests and then goes
+ * to the tail of the pool queue if the node still has events, so a busy node does not hold a thread while others wait.
+ * A node parked by dataSyncCircuitBreaker gives its thread back and is woken by wakeParked when the park time is over
  *
  * @author yutu
  * @date 2023/12/11
@@ -42,11 +51,21 @@ import java.util.concurrent.ConcurrentHashMap;
 @ConditionalOnProperty(prefix = "secretpad.datasync", value = "p2p", matchIfMissing = false, havingValue = "true")
 public class DataSyncJob implements ApplicationListener<P2pDataSyncSendEvent> {
 
-    private static final Map<String, String> NODE_WORK_THREAD_NAME = new ConcurrentHashMap<>();
+    private final Map<String, NodeWorker> workers = new ConcurrentHashMap<>();
     @Lazy
     @Resource
     @Setter
     private DataSyncRestTemplate dataSyncRestTemplate;
+    @Lazy
+    @Resource(name = "dataSyncPeerThreadPool")
+    @Setter
+    private ThreadPoolTaskExecutor dataSyncPeerThreadPool;
+    @Resource
+    @Setter
+    private DataSyncCircuitBreaker dataSyncCircuitBreaker = new DataSyncCircuitBreaker();
+    @Value("${secretpad.datasync.max-requests-per-run:16}")
+    @Setter
+    private int maxRequestsPerRun = 16;
 
     /**
      * Perform data synchronization tasks
@@ -60,7 +79,7 @@ public class DataSyncJob implements ApplicationListener<P2pDataSyncSendEvent> {
         // If the target node is included in the collection of available nodes
         log.debug("{} start", threadName);
         // Send a data synchronization request to the destination node
-        dataSyncRestTemplate.send(node);
+        dataSyncRestTemplate.send(node, maxRequestsPerRun);
     }
 
     /**
@@ -68,22 +87,83 @@ public class DataSyncJob implements ApplicationListener<P2pDataSyncSendEvent> {
      *
      * @param event the event to respond to
      */
-    @Async("dataSyncThreadPool")
     @Override
     public void onApplicationEvent(P2pDataSyncSendEvent event) {
         String node = event.getNode();
-        try {
-            log.debug("start data sync to {}", node);
-            if (NODE_WORK_THREAD_NAME.containsKey(node)) {
-                log.info("{} is working now {}, skip it", node, NODE_WORK_THREAD_NAME.get(node));
+        log.debug("start data sync to {}", node);
+        workers.computeIfAbsent(node, NodeWorker::new).signal();
+    }
+
+    /**
+     * resume parked nodes whose park time is over
+     */
+    @Scheduled(fixedDelayString = "${secretpad.datasync.backoff.tick-ms:1000}")
+    public void wakeParked() {
+        workers.forEach((node, worker) -> {
+            if (worker.parked && dataSyncCircuitBreaker.allow(node)) {
+                log.debug("dataSyncJob {} wake up", node);
+                worker.parked = false;
+                worker.signal();
+            }
+        });
+    }
+
+    /**
+     * drain loop of one node, a signal which arrives while the loop is sending or events left by a bounded run
+     * make it run one more round, so no push is left in the buffer without a loop to send it
+     */
+    @RequiredArgsConstructor
+    private class NodeWorker implements Runnable {
+        private final String node;
+        private final AtomicBoolean signalled = new AtomicBoolean();
+        private final AtomicBoolean running = new AtomicBoolean();
+        private volatile boolean parked;
+
+        void signal() {
+            signalled.set(true);
+            if (running.compareAndSet(false, true)) {
+                schedule();
+            }
+        }
+
+        @Override
+        public void run() {
+            if (signalled.getAndSet(false)) {
+                try {
+                    work(node);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    log.warn("dataSyncJob {} interrupted", node);
+                } catch (Exception e) {
+                    log.error("dataSyncJob work error", e);
+                }
+            }
+            if (dataSyncCircuitBreaker.parkedMillis(node) > 0) {
+                // events are left in buffer, wakeParked signals the node again, a push meanwhile only finds it parked
+                parked = true;
+                running.set(false);
                 return;
             }
-            NODE_WORK_THREAD_NAME.put(node, Thread.currentThread().getName());
-            work(node);
-        } catch (Exception e) {
-            log.error("dataSyncJob work error", e);
-        } finally {
-            NODE_WORK_THREAD_NAME.remove(node);
+            if (signalled.get() || dataSyncRestTemplate.pending(node)) {
+                signalled.set(true);
+                // go to the tail of the pool queue, nodes waiting for a thread run first
+                schedule();
+                return;
+            }
+            running.set(false);
+            // a signal between the check above and the release is picked up here
+            if (signalled.get() && running.compareAndSet(false, true)) {
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            try {
+                dataSyncPeerThreadPool.execute(this);
+            } catch (RejectedExecutionException e) {
+                running.set(false);
+                log.warn("dataSyncJob {} rejected, pool is shut down", node);
+            }
         }
     }
-}
\ No newline at end of file
+}
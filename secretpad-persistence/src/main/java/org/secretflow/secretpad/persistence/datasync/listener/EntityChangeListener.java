@@ -18,6 +18,7 @@ package org.secretflow.secretpad.persistence.datasync.listener;
 
 import org.secretflow.secretpad.common.util.DataSyncConsumerContext;
 import org.secretflow.secretpad.common.util.SpringContextUtil;
+import org.secretflow.secretpad.persistence.datasync.event.EntityChangedEvent;
 import org.secretflow.secretpad.persistence.datasync.producer.AbstractDataSyncProducerTemplate;
 import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
 import org.secretflow.secretpad.persistence.entity.ProjectNodesInfo;
@@ -58,6 +59,9 @@ public class EntityChangeListener {
             log.debug("************************ EntityChangeListener postUpdate {}", o.getClass().getName());
             dataSyncProducerTemplate.push(DbChangeEvent.of(DbChangeAction.UPDATE, o));
         }
+        if (EntityChangedEvent.isWatched(o)) {
+            SpringContextUtil.publishEvent(new EntityChangedEvent(o, DbChangeAction.UPDATE));
+        }
     }
 
     @PostRemove
@@ -67,6 +71,9 @@ public class EntityChangeListener {
             log.debug("************************ EntityChangeListener postRemove {}", o.getClass().getName());
             dataSyncProducerTemplate.push(DbChangeEvent.of(DbChangeAction.REMOVE, o));
         }
+        if (EntityChangedEvent.isWatched(o)) {
+            SpringContextUtil.publishEvent(new EntityChangedEvent(o, DbChangeAction.REMOVE));
+        }
     }
 
     @PostPersist
@@ -76,6 +83,9 @@ public class EntityChangeListener {
             log.debug("************************ EntityChangeListener postCreate {}", o.getClass().getName());
             dataSyncProducerTemplate.push(DbChangeEvent.of(DbChangeAction.CREATE, o));
         }
+        if (EntityChangedEvent.isWatched(o)) {
+            SpringContextUtil.publishEvent(new EntityChangedEvent(o, DbChangeAction.CREATE));
+        }
     }
 
     private void loadAbstractDataSyncProducerTemplate() {
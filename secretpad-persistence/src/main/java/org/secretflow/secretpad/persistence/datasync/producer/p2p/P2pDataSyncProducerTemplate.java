@@ -87,13 +87,40 @@ public class P2pDataSyncProducerTemplate extends AbstractDataSyncProducerTemplat
             log.debug("after paddingNodes data:{} action:{} projectId: {} nodeIds: {}", event.getDType(), event.getAction(), event.getProjectId(), event.getNodeIds());
             if (PlatformTypeEnum.valueOf(platformType).equals(PlatformTypeEnum.AUTONOMY) && !filter(event)) {
                 log.debug("start to push");
+                boolean interrupted = !awaitCapacity(event);
                 dataSyncDataBufferTemplate.push(event);
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
             }
         } catch (Exception e) {
             log.error("P2pDataSyncProducerTemplate push error", e);
         }
     }
 
+    /**
+     * slow down producers while a target node buffer is full
+     *
+     * @return false if the wait was interrupted, the flag is restored after the push because an interrupt closes the log channel
+     */
+    private boolean awaitCapacity(EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) {
+        List<String> targets = event.getNodeIds();
+        if (targets == null) {
+            return true;
+        }
+        try {
+            for (String nodeId : targets) {
+                if (!nodeId.equals(instId) && !dataSyncDataBufferTemplate.awaitCapacity(nodeId)) {
+                    log.warn("data sync buffer of {} is still full, push anyway {}", nodeId, event.getDType());
+                }
+            }
+        } catch (InterruptedException e) {
+            log.warn("P2pDataSyncProducerTemplate wait for buffer interrupted, push anyway");
+            return false;
+        }
+        return true;
+    }
+
     private boolean filterProjectGraphDomainDatasourceDO(EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) {
         ProjectGraphDomainDatasourceDO source = (ProjectGraphDomainDatasourceDO) event.getSource();
         String nodeId = source.getUpk().getDomainId();
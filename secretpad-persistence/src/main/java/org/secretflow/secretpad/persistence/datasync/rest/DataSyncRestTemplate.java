@@ -47,7 +47,21 @@ public abstract class DataSyncRestTemplate {
     @Setter
     protected MeterRegistry meterRegistry;
 
-    public abstract EntityChangeListener.DbChangeEvent<BaseAggregationRoot> send(String node) throws InterruptedException;
+    public EntityChangeListener.DbChangeEvent<BaseAggregationRoot> send(String node) throws InterruptedException {
+        return send(node, Integer.MAX_VALUE);
+    }
+
+    /**
+     * send at most maxRequests requests to node, events which are not sent stay in buffer
+     */
+    public abstract EntityChangeListener.DbChangeEvent<BaseAggregationRoot> send(String node, int maxRequests) throws InterruptedException;
+
+    /**
+     * @return whether node still has events in buffer
+     */
+    public boolean pending(String node) {
+        return dataSyncDataBufferTemplate.size(node) > 0;
+    }
 
     public abstract void onError(String node, EntityChangeListener.DbChangeEvent<BaseAggregationRoot> syncDataDTO);
 
@@ -17,15 +17,20 @@
 package org.secretflow.secretpad.persistence.datasync.rest.p2p;
 
 import org.secretflow.secretpad.common.dto.SecretPadResponse;
+import org.secretflow.secretpad.common.dto.SyncDataResultDTO;
+import org.secretflow.secretpad.common.util.SyncDataCodec;
 import org.secretflow.secretpad.persistence.datasync.listener.EntityChangeListener;
 import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.service.annotation.HttpExchange;
 import org.springframework.web.service.annotation.PostExchange;
 
+import java.util.List;
+
 /**
  * @author yutu
  * @date 2023/12/10
@@ -35,4 +40,17 @@ import org.springframework.web.service.annotation.PostExchange;
 public interface P2pDataSyncRestService {
     @PostExchange("/api/v1alpha1/data/sync")
     SecretPadResponse<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> sync(@RequestHeader("kuscia-origin-source") String node, @RequestHeader("host") String nodeId, @RequestBody String p);
+
+    /**
+     * sync an ordered json array of SyncDataDTO in one round trip, items are applied in order until the first failure
+     */
+    @PostExchange("/api/v1alpha1/data/sync/batch")
+    SecretPadResponse<List<SyncDataResultDTO>> syncBatch(@RequestHeader("kuscia-origin-source") String node, @RequestHeader("host") String nodeId, @RequestBody String p);
+
+    /**
+     * same as syncBatch with the items framed by SyncDataCodec, contentEncoding is gzip or identity
+     */
+    @PostExchange(url = "/api/v1alpha1/data/sync/batch/binary", contentType = SyncDataCodec.MEDIA_TYPE)
+    SecretPadResponse<List<SyncDataResultDTO>> syncBatchBinary(@RequestHeader("kuscia-origin-source") String node, @RequestHeader("host") String nodeId,
+                                                               @RequestHeader(HttpHeaders.CONTENT_ENCODING) String contentEncoding, @RequestBody byte[] p);
 }
\ No newline at end of file
@@ -18,20 +18,38 @@ package org.secretflow.secretpad.persistence.datasync.rest.p2p;
 
 import org.secretflow.secretpad.common.dto.SecretPadResponse;
 import org.secretflow.secretpad.common.dto.SyncDataDTO;
+import org.secretflow.secretpad.common.dto.SyncDataResultDTO;
+import org.secretflow.secretpad.common.util.SyncDataCodec;
 import org.secretflow.secretpad.persistence.datasync.listener.EntityChangeListener;
 import org.secretflow.secretpad.persistence.datasync.rest.DataSyncRestTemplate;
+import org.secretflow.secretpad.persistence.datasync.retry.DataSyncCircuitBreaker;
+import org.secretflow.secretpad.persistence.datasync.retry.DataSyncRetryTemplate;
+import org.secretflow.secretpad.persistence.datasync.retry.impl.TryDataSyncRetry;
 import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
+import org.secretflow.secretpad.persistence.entity.DataSyncDeadLetterDO;
+import org.secretflow.secretpad.persistence.repository.DataSyncDeadLetterRepository;
 
 import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.Resource;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.CollectionUtils;
 import org.springframework.util.ObjectUtils;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 
+import java.nio.charset.StandardCharsets;
+import java.io.ByteArrayOutputStream;
 import java.time.Duration;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author yutu
@@ -41,24 +59,195 @@ import java.util.concurrent.atomic.AtomicInteger;
 @RequiredArgsConstructor
 public class P2pDataSyncRestTemplate extends DataSyncRestTemplate {
 
-    Map<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>, AtomicInteger> retryTimes = new ConcurrentHashMap<>();
-    static final int MAX_RETRY_TIMES = 3;
+    private static final int MAX_REASON_LENGTH = 512;
 
+    Set<String> batchUnsupportedNodes = ConcurrentHashMap.newKeySet();
+    Set<String> binaryUnsupportedNodes = ConcurrentHashMap.newKeySet();
+    @Value("${secretpad.datasync.batch.max-size:100}")
+    @Setter
+    private int batchMaxSize = 100;
+    @Value("${secretpad.datasync.batch.max-bytes:1048576}")
+    @Setter
+    private int batchMaxBytes = 1024 * 1024;
+    /**
+     * smile: send batches framed by SyncDataCodec to peers which have the binary endpoint, json: always send json
+     */
+    @Value("${secretpad.datasync.batch.encoding:smile}")
+    @Setter
+    private String batchEncoding = "smile";
+    /**
+     * gzip binary batches of at least this many bytes, a negative value disables compression
+     */
+    @Value("${secretpad.datasync.batch.compress-min-bytes:4096}")
+    @Setter
+    private int compressMinBytes = 4096;
+    @Resource
+    @Setter
+    private DataSyncCircuitBreaker dataSyncCircuitBreaker = new DataSyncCircuitBreaker();
+    @Resource
+    @Setter
+    private DataSyncRetryTemplate dataSyncRetryTemplate = new TryDataSyncRetry();
+    @Resource
+    @Setter
+    private DataSyncDeadLetterRepository dataSyncDeadLetterRepository;
+
+    /**
+     * send the node buffer in batches of up to batchMaxSize events or batchMaxBytes bytes per request,
+     * events stay in the buffer until the peer acknowledges them and only the acknowledged prefix is committed.
+     * A failed request parks the node in dataSyncCircuitBreaker and returns, the head event is sent again when the park time is over.
+     * At most maxRequests requests are sent, the rest of the buffer is left for the next call
+     */
     @Override
-    public EntityChangeListener.DbChangeEvent<BaseAggregationRoot> send(String node) throws InterruptedException {
+    public EntityChangeListener.DbChangeEvent<BaseAggregationRoot> send(String node, int maxRequests) throws InterruptedException {
+        if (!dataSyncCircuitBreaker.allow(node)) {
+            log.debug("data sync {} is parked for {}ms", node, dataSyncCircuitBreaker.parkedMillis(node));
+            return null;
+        }
+        if (batchUnsupportedNodes.contains(node)) {
+            return sendOneByOne(node, maxRequests);
+        }
         int size = dataSyncDataBufferTemplate.size(node);
         EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event = null;
-        while (size > 0) {
+        int requests = 0;
+        while (size > 0 && requests++ < maxRequests) {
+            long startTime = System.currentTimeMillis();
+            List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> window = dataSyncDataBufferTemplate.peek(node, batchMaxSize);
+            if (CollectionUtils.isEmpty(window)) {
+                log.warn("data sync end to send {}, now size {} batch is empty", node, size);
+                return event;
+            }
+            boolean binary = "smile".equals(batchEncoding) && !binaryUnsupportedNodes.contains(node);
+            List<byte[]> items = new ArrayList<>(window.size());
+            int bytes = 0;
+            for (EntityChangeListener.DbChangeEvent<BaseAggregationRoot> e : window) {
+                SyncDataDTO<Object> syncDataDTO = toSyncDataDTO(e);
+                byte[] item = binary ? SyncDataCodec.encode(syncDataDTO) : syncDataDTO.toJson().getBytes(StandardCharsets.UTF_8);
+                if (!items.isEmpty() && bytes + item.length > batchMaxBytes) {
+                    break;
+                }
+                items.add(item);
+                bytes += item.length;
+            }
+            int count = items.size();
+            List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> batch = window.subList(0, count);
+            event = batch.get(count - 1);
+            String routeId = "";
+            try {
+                routeId = p2pPaddingNodeService.turnInstToRouteId(node);
+                SecretPadResponse<List<SyncDataResultDTO>> syncResp = binary
+                        ? syncBatchBinary(node, routeId, items, bytes)
+                        : syncBatchJson(node, routeId, items, bytes);
+                if (0 == syncResp.getStatus().getCode()) {
+                    int acked = commitAcknowledged(node, batch, syncResp.getData());
+                    recordBatchMetrics(routeId, System.currentTimeMillis() - startTime, acked == count ? "success" : "partial", count, size);
+                    if (acked < count && !dataSyncCircuitBreaker.allow(node)) {
+                        return event;
+                    }
+                } else {
+                    log.error("P2pDataSyncRestTemplate send batch error,{} {}", syncResp.getStatus().getCode(), syncResp.getStatus().getMsg());
+                    onError(node, batch.get(0), syncResp.getStatus().getMsg());
+                    recordBatchMetrics(routeId, System.currentTimeMillis() - startTime, syncResp.getStatus().getMsg(), count, size);
+                    if (!dataSyncCircuitBreaker.allow(node)) {
+                        return event;
+                    }
+                }
+            } catch (Exception e) {
+                int status = httpStatus(e);
+                if (binary && (status == HttpStatus.NOT_FOUND.value() || status == HttpStatus.UNSUPPORTED_MEDIA_TYPE.value())) {
+                    log.warn("P2pDataSyncRestTemplate {} does not support binary sync, fall back to json", node);
+                    binaryUnsupportedNodes.add(node);
+                    continue;
+                }
+                if (status == HttpStatus.NOT_FOUND.value()) {
+                    log.warn("P2pDataSyncRestTemplate {} does not support batch sync, fall back to one by one", node);
+                    batchUnsupportedNodes.add(node);
+                    return sendOneByOne(node, maxRequests - requests);
+                }
+                log.error("P2pDataSyncRestTemplate send batch error", e);
+                // the peer is unreachable, nothing was applied so every event stays in buffer
+                dataSyncCircuitBreaker.onFailure(node);
+                recordBatchMetrics(routeId, System.currentTimeMillis() - startTime, ObjectUtils.isEmpty(e.getMessage()) ? e.getClass().getName() : e.getMessage(), count, size);
+                return event;
+            }
+            size = dataSyncDataBufferTemplate.size(node);
+            log.debug("data sync end to send batch {}, now size {}", node, size);
+        }
+        return event;
+    }
+
+    /**
+     * @return http status of the error response the exception was raised for, 0 if it was not raised for a response
+     */
+    private static int httpStatus(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof WebClientResponseException responseException) {
+                return responseException.getStatusCode().value();
+            }
+            if (t instanceof RestClientResponseException responseException) {
+                return responseException.getStatusCode().value();
+            }
+        }
+        return 0;
+    }
+
+    private SecretPadResponse<List<SyncDataResultDTO>> syncBatchJson(String node, String routeId, List<byte[]> items, int bytes) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(bytes + items.size() + 1);
+        body.write('[');
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) {
+                body.write(',');
+            }
+            body.writeBytes(items.get(i));
+        }
+        body.write(']');
+        log.info("P2pDataSyncRestTemplate send batch, routeId:{} instId:{} count:{} bytes:{}", routeId, node, items.size(), body.size());
+        recordWireBytes(routeId, "json", body.size());
+        return p2pDataSyncRestService.syncBatch(node, "secretpad." + routeId + ".svc", body.toString(StandardCharsets.UTF_8));
+    }
+
+    private SecretPadResponse<List<SyncDataResultDTO>> syncBatchBinary(String node, String routeId, List<byte[]> items, int bytes) {
+        boolean gzip = compressMinBytes >= 0 && bytes >= compressMinBytes;
+        byte[] body = SyncDataCodec.frame(items, gzip);
+        String contentEncoding = gzip ? SyncDataCodec.GZIP : SyncDataCodec.IDENTITY;
+        log.info("P2pDataSyncRestTemplate send binary batch, routeId:{} instId:{} count:{} bytes:{} {}:{}", routeId, node, items.size(), bytes, contentEncoding, body.length);
+        recordWireBytes(routeId, gzip ? "smile+gzip" : "smile", body.length);
+        return p2pDataSyncRestService.syncBatchBinary(node, "secretpad." + routeId + ".svc", contentEncoding, body);
+    }
+
+    /**
+     * commit the acknowledged prefix of batch, the first failed item goes to onError and the rest stay in buffer behind it
+     *
+     * @return acknowledged count
+     */
+    private int commitAcknowledged(String node, List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> batch, List<SyncDataResultDTO> results) {
+        int acked = 0;
+        List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> events = List.copyOf(batch);
+        for (int i = 0; i < events.size(); i++) {
+            SyncDataResultDTO result = results != null && i < results.size() ? results.get(i) : null;
+            if (result != null && result.success()) {
+                onSuccess(node, events.get(i));
+                acked++;
+                continue;
+            }
+            log.error("P2pDataSyncRestTemplate send batch item {} error, {}", i, result);
+            onError(node, events.get(i), result == null ? "no result" : result.getMsg());
+            break;
+        }
+        return acked;
+    }
+
+    private EntityChangeListener.DbChangeEvent<BaseAggregationRoot> sendOneByOne(String node, int maxRequests) throws InterruptedException {
+        int size = dataSyncDataBufferTemplate.size(node);
+        EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event = null;
+        int requests = 0;
+        while (size > 0 && requests++ < maxRequests) {
             long startTime = System.currentTimeMillis();
             log.debug("data sync start to send {}, now size {}", node, size);
-            event = dataSyncDataBufferTemplate.poll(node);
+            event = dataSyncDataBufferTemplate.peek(node);
             if (!ObjectUtils.isEmpty(event)) {
                 SecretPadResponse<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> syncResp;
                 String routeId = "";
-                SyncDataDTO<Object> syncDataDTO = SyncDataDTO.builder()
-                        .tableName(event.getDType())
-                        .action(event.getAction())
-                        .data(event.getSource()).build();
+                SyncDataDTO<Object> syncDataDTO = toSyncDataDTO(event);
                 try {
                     routeId = p2pPaddingNodeService.turnInstToRouteId(node);
                     log.info("P2pDataSyncRestTemplate send, routeId:{} instId:{}", routeId, node);
@@ -71,15 +260,19 @@ public class P2pDataSyncRestTemplate extends DataSyncRestTemplate {
                         log.error("P2pDataSyncRestTemplate send error,{} {}"
                                 , syncResp.getStatus().getCode()
                                 , syncResp.getStatus().getMsg());
-                        onError(node, event);
+                        onError(node, event, syncResp.getStatus().getMsg());
                         long duration = System.currentTimeMillis() - startTime;
                         recordMetrics(routeId, syncDataDTO.getTableName(), duration, syncResp.getStatus().getMsg(), size);
+                        if (!dataSyncCircuitBreaker.allow(node)) {
+                            return event;
+                        }
                     }
                 } catch (Exception e) {
                     log.error("P2pDataSyncRestTemplate send error", e);
-                    onError(node, event);
+                    dataSyncCircuitBreaker.onFailure(node);
                     long duration = System.currentTimeMillis() - startTime;
                     recordMetrics(routeId, syncDataDTO.getTableName(), duration, ObjectUtils.isEmpty(e.getMessage()) ? e.getClass().getName() : e.getMessage(), size);
+                    return event;
                 }
                 size = dataSyncDataBufferTemplate.size(node);
                 log.debug("data sync end to send {}, now size {}", node, size);
@@ -93,28 +286,86 @@ public class P2pDataSyncRestTemplate extends DataSyncRestTemplate {
 
     @Override
     public void onError(String node, EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) {
-        if (retryTimes.containsKey(event)) {
-            retryTimes.get(event).incrementAndGet();
-        } else {
-            retryTimes.put(event, new AtomicInteger(0));
+        onError(node, event, "rejected by peer");
+    }
+
+    /**
+     * the peer rejected the event, it stays at the head of the buffer so later events of the node are not sent before it.
+     * Each rejection parks the node, once the attempts of dataSyncRetryTemplate are used up the event moves to the dead letter table
+     */
+    private void onError(String node, EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event, String reason) {
+        int attempts = dataSyncDataBufferTemplate.fail(node, event);
+        int maxAttempts = Math.max(1, dataSyncRetryTemplate.retry(node, event));
+        if (attempts < maxAttempts) {
+            log.warn("data sync send error, attempt {} of {}", attempts, maxAttempts);
+            dataSyncCircuitBreaker.onFailure(node);
+            return;
+        }
+        log.error("data sync send error, attempt {} of {}, move it to dead letter", attempts, maxAttempts);
+        if (!deadLetter(node, event, reason, attempts)) {
+            dataSyncCircuitBreaker.onFailure(node);
+            return;
+        }
+        dataSyncDataBufferTemplate.commit(node, event);
+    }
+
+    private boolean deadLetter(String node, EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event, String reason, int attempts) {
+        if (dataSyncDeadLetterRepository == null) {
+            log.error("data sync dead letter is not available, drop {}", event);
+            return true;
         }
-        int i = retryTimes.get(event).get();
-        if (i < MAX_RETRY_TIMES) {
-            log.warn("data sync send error, retry {} times", i);
-            dataSyncDataBufferTemplate.commit(node, event);
-            dataSyncDataBufferTemplate.push(event);
-        } else {
-            log.error("data sync send error, retry {} times, remove it", i);
-            dataSyncDataBufferTemplate.commit(node, event);
-            retryTimes.remove(event);
+        try {
+            dataSyncDeadLetterRepository.save(DataSyncDeadLetterDO.builder()
+                    .nodeId(node)
+                    .tableName(event.getDType())
+                    .action(event.getAction())
+                    .payload(toSyncDataDTO(event).toJson())
+                    .reason(StringUtils.abbreviate(reason, MAX_REASON_LENGTH))
+                    .attempts(attempts)
+                    .build());
+            meterRegistry.counter("p2p.data.sync.dead.letter", Tags.of("target", node)).increment();
+            return true;
+        } catch (Exception e) {
+            // keep the event in buffer, it is tried again after the park time
+            log.error("data sync save dead letter error {}", event, e);
+            return false;
         }
     }
 
     @Override
     public void onSuccess(String node, EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) {
+        dataSyncCircuitBreaker.onSuccess(node);
         dataSyncDataBufferTemplate.commit(node, event);
     }
 
+    private SyncDataDTO<Object> toSyncDataDTO(EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) {
+        return SyncDataDTO.builder()
+                .tableName(event.getDType())
+                .action(event.getAction())
+                .data(event.getSource()).build();
+    }
+
+    private void recordBatchMetrics(String target, long duration, String status, int count, int size) {
+        log.info("recordBatchMetrics target:{}, duration:{}, status:{}, count:{}, size:{}", target, duration, status, count, size);
+        try {
+            Timer.builder("p2p.data.sync.batch.duration")
+                    .tags(Tags.of("target", String.valueOf(target), "status", String.valueOf(status)))
+                    .register(meterRegistry)
+                    .record(Duration.ofMillis(duration));
+            meterRegistry.counter("p2p.data.sync.batch.events", Tags.of("target", String.valueOf(target))).increment(count);
+        } catch (Exception e) {
+            log.error("recordBatchMetrics error", e);
+        }
+    }
+
+    private void recordWireBytes(String target, String encoding, int bytes) {
+        try {
+            meterRegistry.counter("p2p.data.sync.batch.bytes", Tags.of("target", String.valueOf(target), "encoding", encoding)).increment(bytes);
+        } catch (Exception e) {
+            log.error("recordWireBytes error", e);
+        }
+    }
+
     private void recordMetrics(String target, String tableName, long duration, String status, int size) {
         log.info("recordMetrics target:{}, tableName:{}, duration:{}, status:{}, size:{}", target, tableName, duration, status, size);
         try {
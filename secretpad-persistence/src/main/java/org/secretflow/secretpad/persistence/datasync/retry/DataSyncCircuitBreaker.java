@@ -0,0 +1,106 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.persistence.datasync.retry;
+
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * per node exponential backoff with jitter.
+ * <p>
+ * Every consecutive failure parks the node queue for a random delay in [d/2, d], d = min(maxDelay, baseDelay * 2^(failures-1)).
+ * After failureThreshold consecutive failures the circuit is open and the node is treated as unreachable.
+ * When the park time is over one send goes through as a probe, its success closes the circuit.
+ *
+ * @author yutu
+ * @date 2024/12/19
+ */
+@Slf4j
+public class DataSyncCircuitBreaker {
+
+    private final Map<String, NodeState> states = new ConcurrentHashMap<>();
+    @Value("${secretpad.datasync.backoff.base-delay-ms:1000}")
+    @Setter
+    private long baseDelayMillis = 1000;
+    @Value("${secretpad.datasync.backoff.max-delay-ms:300000}")
+    @Setter
+    private long maxDelayMillis = 300000;
+    @Value("${secretpad.datasync.backoff.failure-threshold:3}")
+    @Setter
+    private int failureThreshold = 3;
+
+    /**
+     * @return true if the node may be sent to now
+     */
+    public boolean allow(String node) {
+        return parkedMillis(node) == 0;
+    }
+
+    /**
+     * @return millis until the node may be sent to again, 0 if it may be sent to now
+     */
+    public long parkedMillis(String node) {
+        NodeState state = states.get(node);
+        if (state == null) {
+            return 0;
+        }
+        return Math.max(0, state.parkedUntil - System.currentTimeMillis());
+    }
+
+    public boolean isOpen(String node) {
+        NodeState state = states.get(node);
+        return state != null && state.failures >= failureThreshold;
+    }
+
+    public void onSuccess(String node) {
+        NodeState state = states.remove(node);
+        if (state != null && state.failures >= failureThreshold) {
+            log.info("data sync circuit of {} closed after {} failures", node, state.failures);
+        }
+    }
+
+    /**
+     * @return millis the node is parked for
+     */
+    public long onFailure(String node) {
+        NodeState state = states.computeIfAbsent(node, k -> new NodeState());
+        synchronized (state) {
+            state.failures++;
+            long delay = maxDelayMillis;
+            if (state.failures - 1 < Long.numberOfLeadingZeros(baseDelayMillis) - 1) {
+                delay = Math.min(maxDelayMillis, baseDelayMillis << (state.failures - 1));
+            }
+            delay = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+            state.parkedUntil = System.currentTimeMillis() + delay;
+            if (state.failures == failureThreshold) {
+                log.warn("data sync circuit of {} opened after {} failures", node, state.failures);
+            }
+            log.info("data sync {} parked {}ms, failures {}", node, delay, state.failures);
+            return delay;
+        }
+    }
+
+    private static class NodeState {
+        private volatile int failures;
+        private volatile long parkedUntil;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * center data change which was sent to edges, the id is the change sequence used as sse event id
+ *
+ * @author yutu
+ * @date 2024/12/21
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "data_sync_change_log")
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class DataSyncChangeLogDO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 6203981457721036413L;
+    /**
+     * change sequence, increases monotonically
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", unique = true, insertable = false, updatable = false)
+    private Long id;
+    /**
+     * entity class name
+     */
+    @Column(name = "table_name", nullable = false, length = 256)
+    private String tableName;
+    /**
+     * create, update or remove
+     */
+    @Column(name = "action", nullable = false, length = 16)
+    private String action;
+    /**
+     * comma separated nodes the change is sent to, null for every node
+     */
+    @Column(name = "node_ids")
+    private String nodeIds;
+    /**
+     * entity json
+     */
+    @Column(name = "payload", nullable = false)
+    private String payload;
+    /**
+     * change time
+     */
+    @CreatedDate
+    @Column(name = "gmt_create", nullable = false, insertable = false, updatable = false)
+    private LocalDateTime gmtCreate;
+}
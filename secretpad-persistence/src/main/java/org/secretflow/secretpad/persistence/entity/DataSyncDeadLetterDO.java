@@ -0,0 +1,87 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * p2p data sync event which the peer rejected after all retries, kept to be replayed
+ *
+ * @author yutu
+ * @date 2024/12/19
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "data_sync_dead_letter")
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class DataSyncDeadLetterDO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 3187264017346512903L;
+    /**
+     * The id of the database is automatically added
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", unique = true, insertable = false, updatable = false)
+    private Long id;
+    /**
+     * target node id
+     */
+    @Column(name = "node_id", nullable = false, length = 64)
+    private String nodeId;
+    /**
+     * entity class name
+     */
+    @Column(name = "table_name", nullable = false, length = 256)
+    private String tableName;
+    /**
+     * create, update or remove
+     */
+    @Column(name = "action", nullable = false, length = 16)
+    private String action;
+    /**
+     * SyncDataDTO json which was sent to the peer
+     */
+    @Column(name = "payload", nullable = false)
+    private String payload;
+    /**
+     * last error
+     */
+    @Column(name = "reason", length = 512)
+    private String reason;
+    /**
+     * failed deliveries
+     */
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+    /**
+     * dead letter time
+     */
+    @CreatedDate
+    @Column(name = "gmt_create", nullable = false, insertable = false, updatable = false)
+    private LocalDateTime gmtCreate;
+}
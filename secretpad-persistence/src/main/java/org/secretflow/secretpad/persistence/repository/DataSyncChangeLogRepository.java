@@ -0,0 +1,49 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.persistence.repository;
+
+import org.secretflow.secretpad.persistence.entity.DataSyncChangeLogDO;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * @author yutu
+ * @date 2024/12/21
+ */
+@Repository
+public interface DataSyncChangeLogRepository extends BaseRepository<DataSyncChangeLogDO, Long> {
+
+    List<DataSyncChangeLogDO> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query("select min(d.id) from DataSyncChangeLogDO d")
+    Long findMinId();
+
+    @Query("select max(d.id) from DataSyncChangeLogDO d")
+    Long findMaxId();
+
+    @Query("delete from DataSyncChangeLogDO d where d.id <= :id")
+    @Modifying
+    @Transactional
+    int deleteByIdLessThanEqual(@Param("id") Long id);
+}
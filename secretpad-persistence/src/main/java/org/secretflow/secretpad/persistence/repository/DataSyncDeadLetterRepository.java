@@ -0,0 +1,33 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.persistence.repository;
+
+import org.secretflow.secretpad.persistence.entity.DataSyncDeadLetterDO;
+
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * @author yutu
+ * @date 2024/12/19
+ */
+@Repository
+public interface DataSyncDeadLetterRepository extends BaseRepository<DataSyncDeadLetterDO, Long> {
+
+    List<DataSyncDeadLetterDO> findByNodeIdOrderByIdAsc(String nodeId);
+}
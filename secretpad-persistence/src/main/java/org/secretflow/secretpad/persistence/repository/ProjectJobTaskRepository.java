@@ -25,6 +25,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -46,6 +47,16 @@ public interface ProjectJobTaskRepository extends BaseRepository<ProjectTaskDO,
     @Query(value = "select t.* from project_job_task t join main.project_job j on t.job_id=j.job_id where t.project_id=:projectId and t.graph_node_id=:graphNodeId order by t.id desc limit 1", nativeQuery = true)
     Optional<ProjectTaskDO> findLatestTasks(@Param("projectId") String projectId, @Param("graphNodeId") String graphNodeId);
 
+    /**
+     * Query the latest project job task of each graph node in one statement
+     *
+     * @param projectId    target projectId
+     * @param graphNodeIds target graphNodeIds
+     * @return the latest project job task of each graph node which has one
+     */
+    @Query(value = "select t.* from project_job_task t where t.id in (select max(t2.id) from project_job_task t2 join project_job j on t2.job_id=j.job_id where t2.project_id=:projectId and t2.graph_node_id in (:graphNodeIds) group by t2.graph_node_id)", nativeQuery = true)
+    List<ProjectTaskDO> findLatestTasksOfGraphNodes(@Param("projectId") String projectId, @Param("graphNodeIds") Collection<String> graphNodeIds);
+
     /**
      * Query the latest project job task result by projectId and graphNodeId
      *
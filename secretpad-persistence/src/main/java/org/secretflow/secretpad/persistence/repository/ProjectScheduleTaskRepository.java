@@ -24,6 +24,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -38,6 +39,8 @@ public interface ProjectScheduleTaskRepository extends BaseRepository<ProjectSch
 
     List<ProjectScheduleTaskDO> findByScheduleIdAndStatus(String scheduleId, ScheduledStatus status);
 
+    boolean existsByScheduleIdAndScheduleTaskExpectStartTime(String scheduleId, LocalDateTime scheduleTaskExpectStartTime);
+
     @Modifying
     @Transactional
     @Query(value = "update project_schedule_task  set status = :status where schedule_task_id = :scheduleTaskId and is_deleted = 0",
@@ -23,6 +23,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 /**
@@ -42,6 +43,17 @@ public interface UserTokensRepository extends BaseRepository<TokensDO, String> {
     @Query("from TokensDO td where td.token=:token")
     Optional<TokensDO> findByToken(@Param("token") String token);
 
+    /**
+     * Move the last use time of a token forward, an earlier time is ignored
+     *
+     * @param token    user token
+     * @param gmtToken the time when user used the token
+     */
+    @Transactional
+    @Modifying
+    @Query("update TokensDO td set td.gmtToken=:gmtToken where td.token=:token and td.gmtToken<:gmtToken")
+    void updateGmtToken(@Param("token") String token, @Param("gmtToken") LocalDateTime gmtToken);
+
     /**
      * When a user is logged out, the token record of the user is deleted
      *
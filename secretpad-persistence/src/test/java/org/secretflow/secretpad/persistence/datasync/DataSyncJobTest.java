@@ -36,6 +36,8 @@ import org.secretflow.secretpad.persistence.repository.ProjectInstRepository;
 import org.secretflow.secretpad.persistence.repository.VoteRequestRepository;
 
 import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
@@ -43,10 +45,17 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.cache.CacheManager;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author yutu
@@ -77,16 +86,96 @@ public class DataSyncJobTest {
     @Mock
     private P2pDataSyncRestService p2pDataSyncRestService;
 
+    private final ThreadPoolTaskExecutor dataSyncPeerThreadPool = new ThreadPoolTaskExecutor();
+
+    @AfterEach
+    void shutdown() {
+        // wait for the node drain loops so the mocks are used inside the test
+        dataSyncPeerThreadPool.shutdown();
+    }
+
+    private DataSyncJob buildDataSyncJob() {
+        dataSyncPeerThreadPool.setWaitForTasksToCompleteOnShutdown(true);
+        dataSyncPeerThreadPool.setAwaitTerminationSeconds(10);
+        dataSyncPeerThreadPool.initialize();
+        DataSyncJob dataSyncJob = new DataSyncJob();
+        dataSyncJob.setDataSyncPeerThreadPool(dataSyncPeerThreadPool);
+        return dataSyncJob;
+    }
+
     @Test
     void testDataSyncJobWithNoEvent() {
         DataSyncRestTemplate dataSyncRestTemplate = new P2pDataSyncRestTemplate();
         P2PDataSyncDataBufferTemplate dataSyncDataBufferTemplate = new P2PDataSyncDataBufferTemplate(applicationEventPublisher);
         dataSyncRestTemplate.setDataSyncDataBufferTemplate(dataSyncDataBufferTemplate);
-        DataSyncJob dataSyncJob = new DataSyncJob();
+        DataSyncJob dataSyncJob = buildDataSyncJob();
         dataSyncJob.setDataSyncRestTemplate(dataSyncRestTemplate);
         dataSyncJob.onApplicationEvent(new P2pDataSyncSendEvent(this, "alice"));
     }
 
+    @Test
+    void testDataSyncJobSignalWhileSending() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch secondRound = new CountDownLatch(1);
+        AtomicInteger rounds = new AtomicInteger();
+        DataSyncRestTemplate dataSyncRestTemplate = Mockito.mock(DataSyncRestTemplate.class);
+        Mockito.when(dataSyncRestTemplate.send(Mockito.eq("alice"), Mockito.anyInt())).thenAnswer(invocation -> {
+            if (rounds.incrementAndGet() == 1) {
+                sending.countDown();
+                release.await();
+            } else {
+                secondRound.countDown();
+            }
+            return null;
+        });
+        DataSyncJob dataSyncJob = buildDataSyncJob();
+        dataSyncJob.setDataSyncRestTemplate(dataSyncRestTemplate);
+        dataSyncJob.onApplicationEvent(new P2pDataSyncSendEvent(this, "alice"));
+        Assertions.assertTrue(sending.await(5, TimeUnit.SECONDS));
+        // pushes while the loop is sending are not dropped, they fold into one more round
+        dataSyncJob.onApplicationEvent(new P2pDataSyncSendEvent(this, "alice"));
+        dataSyncJob.onApplicationEvent(new P2pDataSyncSendEvent(this, "alice"));
+        release.countDown();
+        Assertions.assertTrue(secondRound.await(5, TimeUnit.SECONDS));
+        dataSyncPeerThreadPool.shutdown();
+        Assertions.assertEquals(2, rounds.get());
+    }
+
+    @Test
+    void testDataSyncJobBusyNodeYields() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(4);
+        List<String> sent = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger aliceRuns = new AtomicInteger();
+        DataSyncRestTemplate dataSyncRestTemplate = Mockito.mock(DataSyncRestTemplate.class);
+        Mockito.when(dataSyncRestTemplate.send(Mockito.anyString(), Mockito.eq(2))).thenAnswer(invocation -> {
+            String node = invocation.getArgument(0);
+            sent.add(node);
+            if (sent.size() == 1) {
+                sending.countDown();
+                release.await();
+            }
+            done.countDown();
+            return null;
+        });
+        // alice has events left after her first two runs
+        Mockito.when(dataSyncRestTemplate.pending(Mockito.anyString()))
+                .thenAnswer(invocation -> "alice".equals(invocation.getArgument(0)) && aliceRuns.incrementAndGet() < 3);
+        DataSyncJob dataSyncJob = buildDataSyncJob();
+        dataSyncJob.setDataSyncRestTemplate(dataSyncRestTemplate);
+        dataSyncJob.setMaxRequestsPerRun(2);
+        dataSyncJob.onApplicationEvent(new P2pDataSyncSendEvent(this, "alice"));
+        Assertions.assertTrue(sending.await(5, TimeUnit.SECONDS));
+        dataSyncJob.onApplicationEvent(new P2pDataSyncSendEvent(this, "bob"));
+        release.countDown();
+        Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+        dataSyncPeerThreadPool.shutdown();
+        // the pool has one thread, bob runs between the bounded runs of alice
+        Assertions.assertEquals(List.of("alice", "bob", "alice", "alice"), sent);
+    }
+
     @Test
     void testDataSyncJobError() throws IOException {
         P2pDataSyncProducerTemplate.instId = "instId";
@@ -95,6 +184,9 @@ public class DataSyncJobTest {
         SecretPadResponse<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> error = new SecretPadResponse<>();
         error.setStatus(SecretPadResponse.SecretPadResponseStatus.builder().code(500).build());
         Mockito.when(p2pDataSyncRestService.sync(Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(success);
+        // peer without binary and batch endpoints, fall back to one by one
+        Mockito.when(p2pDataSyncRestService.syncBatchBinary(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any())).thenThrow(WebClientResponseException.create(HttpStatus.NOT_FOUND.value(), "Not Found", null, null, null));
+        Mockito.when(p2pDataSyncRestService.syncBatch(Mockito.any(), Mockito.any(), Mockito.any())).thenThrow(WebClientResponseException.create(HttpStatus.NOT_FOUND.value(), "Not Found", null, null, null));
 
         DataSyncRestTemplate dataSyncRestTemplate = new P2pDataSyncRestTemplate();
         P2PDataSyncDataBufferTemplate dataSyncDataBufferTemplate = new P2PDataSyncDataBufferTemplate(applicationEventPublisher);
@@ -172,7 +264,7 @@ public class DataSyncJobTest {
         dataSyncRestTemplate.setDataSyncDataBufferTemplate(dataSyncDataBufferTemplate);
         dataSyncRestTemplate.setP2pPaddingNodeService(p2pPaddingNodeService);
         dataSyncRestTemplate.setP2pDataSyncRestService(p2pDataSyncRestService);
-        DataSyncJob dataSyncJob = new DataSyncJob();
+        DataSyncJob dataSyncJob = buildDataSyncJob();
         dataSyncJob.setDataSyncRestTemplate(dataSyncRestTemplate);
         dataSyncJob.onApplicationEvent(new P2pDataSyncSendEvent(this, "alice"));
     }
@@ -185,6 +277,9 @@ public class DataSyncJobTest {
         SecretPadResponse<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> error = new SecretPadResponse<>();
         error.setStatus(SecretPadResponse.SecretPadResponseStatus.builder().code(500).build());
         Mockito.when(p2pDataSyncRestService.sync(Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(success);
+        // peer without binary and batch endpoints, fall back to one by one
+        Mockito.when(p2pDataSyncRestService.syncBatchBinary(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any())).thenThrow(WebClientResponseException.create(HttpStatus.NOT_FOUND.value(), "Not Found", null, null, null));
+        Mockito.when(p2pDataSyncRestService.syncBatch(Mockito.any(), Mockito.any(), Mockito.any())).thenThrow(WebClientResponseException.create(HttpStatus.NOT_FOUND.value(), "Not Found", null, null, null));
 
         DataSyncRestTemplate dataSyncRestTemplate = new P2pDataSyncRestTemplate();
         P2PDataSyncDataBufferTemplate dataSyncDataBufferTemplate = new P2PDataSyncDataBufferTemplate(applicationEventPublisher);
@@ -275,7 +370,7 @@ public class DataSyncJobTest {
         dataSyncRestTemplate.setDataSyncDataBufferTemplate(dataSyncDataBufferTemplate);
         dataSyncRestTemplate.setP2pPaddingNodeService(p2pPaddingNodeService);
         dataSyncRestTemplate.setP2pDataSyncRestService(p2pDataSyncRestService);
-        DataSyncJob dataSyncJob = new DataSyncJob();
+        DataSyncJob dataSyncJob = buildDataSyncJob();
         dataSyncJob.setDataSyncRestTemplate(dataSyncRestTemplate);
         dataSyncJob.onApplicationEvent(new P2pDataSyncSendEvent(this, "alice"));
     }
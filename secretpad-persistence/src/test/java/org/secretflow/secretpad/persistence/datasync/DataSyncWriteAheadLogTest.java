@@ -0,0 +1,130 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.persistence.datasync;
+
+import org.secretflow.secretpad.persistence.datasync.buffer.p2p.DataSyncWriteAheadLog;
+import org.secretflow.secretpad.persistence.datasync.listener.EntityChangeListener;
+import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
+import org.secretflow.secretpad.persistence.entity.ProjectDO;
+import org.secretflow.secretpad.persistence.model.DbChangeAction;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * @author yutu
+ * @date 2024/12/16
+ */
+class DataSyncWriteAheadLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replayLiveEventsInOrder() throws IOException {
+        List<DataSyncWriteAheadLog.Entry> replayed = new ArrayList<>();
+        DataSyncWriteAheadLog wal = DataSyncWriteAheadLog.open(dir, 1024, replayed);
+        Assertions.assertTrue(replayed.isEmpty());
+        long first = wal.append(buildEvent("p1"));
+        long second = wal.append(buildEvent("p2"));
+        wal.append(buildEvent("p3"));
+        wal.commit(second);
+        wal.commit(first);
+        wal.close();
+
+        wal = DataSyncWriteAheadLog.open(dir, 1024, replayed);
+        Assertions.assertEquals(1, replayed.size());
+        Assertions.assertEquals("p3", replayed.get(0).getEvent().getProjectId());
+        long next = wal.append(buildEvent("p4"));
+        Assertions.assertTrue(next > replayed.get(0).getOffset());
+        wal.close();
+    }
+
+    @Test
+    void dropCommittedHeadSegments() throws IOException {
+        DataSyncWriteAheadLog wal = DataSyncWriteAheadLog.open(dir, 256, new ArrayList<>());
+        List<Long> offsets = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            offsets.add(wal.append(buildEvent("p" + i)));
+        }
+        Assertions.assertTrue(wal.segmentSize() > 1);
+        for (Long offset : offsets) {
+            wal.commit(offset);
+        }
+        Assertions.assertEquals(0, wal.liveSize());
+        Assertions.assertEquals(1, wal.segmentSize());
+        wal.close();
+    }
+
+    @Test
+    void compactPinnedSegments() throws IOException {
+        DataSyncWriteAheadLog wal = DataSyncWriteAheadLog.open(dir, 256, new ArrayList<>());
+        wal.append(buildEvent("pinned"));
+        for (int i = 0; i < 20; i++) {
+            wal.commit(wal.append(buildEvent("p" + i)));
+        }
+        Assertions.assertTrue(wal.segmentSize() > 2);
+        Assertions.assertTrue(wal.compact(0));
+        Assertions.assertEquals(2, wal.segmentSize());
+        wal.close();
+
+        List<DataSyncWriteAheadLog.Entry> replayed = new ArrayList<>();
+        DataSyncWriteAheadLog.open(dir, 256, replayed).close();
+        Assertions.assertEquals(1, replayed.size());
+        Assertions.assertEquals("pinned", replayed.get(0).getEvent().getProjectId());
+    }
+
+    @Test
+    void ignoreTornTail() throws IOException {
+        DataSyncWriteAheadLog wal = DataSyncWriteAheadLog.open(dir, 1024 * 1024, new ArrayList<>());
+        wal.append(buildEvent("p1"));
+        wal.append(buildEvent("p2"));
+        wal.close();
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        List<DataSyncWriteAheadLog.Entry> replayed = new ArrayList<>();
+        wal = DataSyncWriteAheadLog.open(dir, 1024 * 1024, replayed);
+        Assertions.assertEquals(1, replayed.size());
+        wal.append(buildEvent("p3"));
+        wal.close();
+        replayed.clear();
+        DataSyncWriteAheadLog.open(dir, 1024 * 1024, replayed).close();
+        Assertions.assertEquals(2, replayed.size());
+    }
+
+    private EntityChangeListener.DbChangeEvent<BaseAggregationRoot> buildEvent(String projectId) {
+        ProjectDO projectDO = ProjectDO.builder().projectId(projectId).name(projectId).build();
+        EntityChangeListener.DbChangeEvent event = EntityChangeListener.DbChangeEvent.of(DbChangeAction.CREATE, projectDO);
+        return event;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.persistence.datasync;
+
+import org.secretflow.secretpad.persistence.datasync.buffer.p2p.P2PDataSyncDataBufferTemplate;
+import org.secretflow.secretpad.persistence.datasync.listener.EntityChangeListener;
+import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
+import org.secretflow.secretpad.persistence.entity.ProjectDO;
+import org.secretflow.secretpad.persistence.model.DbChangeAction;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * @author yutu
+ * @date 2024/12/18
+ */
+class P2PDataSyncDataBufferTemplateTest {
+
+    private static final String NODE = "coalesce";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void coalesceCreateUpdateChain() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        P2PDataSyncDataBufferTemplate buffer = buildBuffer(meterRegistry);
+        buffer.push(buildEvent(DbChangeAction.CREATE, 1L, "v1"));
+        buffer.push(buildEvent(DbChangeAction.CREATE, 2L, "v1"));
+        buffer.push(buildEvent(DbChangeAction.UPDATE, 1L, "v2"));
+        buffer.push(buildEvent(DbChangeAction.UPDATE, 1L, "v3"));
+
+        List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> events = buffer.peek(NODE, 10);
+        Assertions.assertEquals(2, events.size());
+        Assertions.assertEquals(DbChangeAction.CREATE.val, events.get(0).getAction());
+        Assertions.assertEquals("v3", ((ProjectDO) events.get(0).getSource()).getName());
+        Assertions.assertEquals(2L, events.get(1).getSource().getId());
+        Assertions.assertEquals(4, meterRegistry.get("p2p.data.sync.buffer.pushed").counter().count());
+        Assertions.assertEquals(2, meterRegistry.get("p2p.data.sync.buffer.coalesced").counter().count());
+        Assertions.assertEquals(0.5, meterRegistry.get("p2p.data.sync.buffer.coalescing.ratio").gauge().value());
+        buffer.close();
+
+        P2PDataSyncDataBufferTemplate replayed = buildBuffer(new SimpleMeterRegistry());
+        replayed.init();
+        events = replayed.peek(NODE, 10);
+        Assertions.assertEquals(2, events.size());
+        Assertions.assertEquals("v3", ((ProjectDO) events.get(0).getSource()).getName());
+        replayed.close();
+    }
+
+    @Test
+    void keepInFlightEventUntilLatestIsSent() throws Exception {
+        P2PDataSyncDataBufferTemplate buffer = buildBuffer(null);
+        buffer.push(buildEvent(DbChangeAction.CREATE, 1L, "v1"));
+        EntityChangeListener.DbChangeEvent<BaseAggregationRoot> inFlight = buffer.peek(NODE, 10).get(0);
+        buffer.push(buildEvent(DbChangeAction.UPDATE, 1L, "v2"));
+        // the overwritten event is acknowledged, its slot now holds the latest state which is still to send
+        buffer.commit(NODE, inFlight);
+        Assertions.assertEquals(1, buffer.size(NODE));
+        Assertions.assertEquals("v2", ((ProjectDO) buffer.peek(NODE).getSource()).getName());
+
+        buffer.push(buildEvent(DbChangeAction.REMOVE, 1L, "v2"));
+        buffer.push(buildEvent(DbChangeAction.CREATE, 1L, "v4"));
+        List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> events = buffer.peek(NODE, 10);
+        Assertions.assertEquals(2, events.size());
+        Assertions.assertEquals(DbChangeAction.REMOVE.val, events.get(0).getAction());
+        Assertions.assertEquals(DbChangeAction.CREATE.val, events.get(1).getAction());
+        buffer.close();
+    }
+
+    private P2PDataSyncDataBufferTemplate buildBuffer(SimpleMeterRegistry meterRegistry) {
+        P2PDataSyncDataBufferTemplate buffer = new P2PDataSyncDataBufferTemplate(Mockito.mock(ApplicationEventPublisher.class));
+        buffer.setSyncPath(dir.toString() + "/");
+        buffer.setMeterRegistry(meterRegistry);
+        return buffer;
+    }
+
+    private EntityChangeListener.DbChangeEvent<BaseAggregationRoot> buildEvent(DbChangeAction action, Long id, String name) {
+        ProjectDO projectDO = ProjectDO.builder().projectId("p" + id).name(name).build();
+        projectDO.setId(id);
+        EntityChangeListener.DbChangeEvent event = EntityChangeListener.DbChangeEvent.of(action, projectDO);
+        event.setNodeIds(List.of(NODE));
+        return event;
+    }
+}
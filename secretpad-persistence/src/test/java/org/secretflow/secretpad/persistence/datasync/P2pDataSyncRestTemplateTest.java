@@ -0,0 +1,253 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.persistence.datasync;
+
+import org.secretflow.secretpad.common.dto.SecretPadResponse;
+import org.secretflow.secretpad.common.dto.SyncDataResultDTO;
+import org.secretflow.secretpad.common.util.JsonUtils;
+import org.secretflow.secretpad.common.util.SyncDataCodec;
+import org.secretflow.secretpad.persistence.datasync.buffer.p2p.P2PDataSyncDataBufferTemplate;
+import org.secretflow.secretpad.persistence.datasync.listener.EntityChangeListener;
+import org.secretflow.secretpad.persistence.datasync.producer.p2p.P2pPaddingNodeServiceImpl;
+import org.secretflow.secretpad.persistence.datasync.rest.p2p.P2pDataSyncRestService;
+import org.secretflow.secretpad.persistence.datasync.rest.p2p.P2pDataSyncRestTemplate;
+import org.secretflow.secretpad.persistence.datasync.retry.DataSyncCircuitBreaker;
+import org.secretflow.secretpad.persistence.datasync.retry.impl.ThrowDataSyncRetry;
+import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
+import org.secretflow.secretpad.persistence.entity.DataSyncDeadLetterDO;
+import org.secretflow.secretpad.persistence.entity.ProjectDO;
+import org.secretflow.secretpad.persistence.model.DbChangeAction;
+import org.secretflow.secretpad.persistence.repository.DataSyncDeadLetterRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * batch sync against a mock peer which counts round trips
+ *
+ * @author yutu
+ * @date 2024/12/17
+ */
+class P2pDataSyncRestTemplateTest {
+
+    private static final int EVENTS = 50;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void batchSendCostsOneRoundTrip() throws InterruptedException {
+        MockPeer oneByOne = new MockPeer(-1);
+        sendAll("rtt-one-by-one", oneByOne, 1);
+        MockPeer batch = new MockPeer(-1);
+        sendAll("rtt-batch", batch, 100);
+
+        Assertions.assertEquals(EVENTS, oneByOne.calls.get());
+        Assertions.assertEquals(1, batch.calls.get());
+        Assertions.assertEquals(1, batch.binaryCalls.get());
+        Assertions.assertEquals(EVENTS, batch.applied.get());
+    }
+
+    @Test
+    void commitAcknowledgedPrefixOnly() throws InterruptedException {
+        MockPeer peer = new MockPeer(10);
+        sendAll("rtt-partial", peer, 100);
+        // first request acks 10 and fails the 11th, which stays at the head while the node is parked, the second request acks the rest
+        Assertions.assertEquals(2, peer.calls.get());
+        Assertions.assertEquals(EVENTS, peer.applied.get());
+    }
+
+    @Test
+    void fallBackToJsonWithoutBinaryEndpoint() throws InterruptedException {
+        MockPeer peer = new MockPeer(-1);
+        peer.binaryFailure = WebClientResponseException.create(HttpStatus.NOT_FOUND.value(), "Not Found", null, null, null);
+        sendAll("rtt-json", peer, 100);
+        Assertions.assertEquals(1, peer.calls.get());
+        Assertions.assertEquals(0, peer.binaryCalls.get());
+        Assertions.assertEquals(EVENTS, peer.applied.get());
+    }
+
+    @Test
+    void keepBinaryWhenErrorOnlyMentionsStatus() throws InterruptedException {
+        String node = "rtt-binary-error";
+        MockPeer peer = new MockPeer(-1);
+        // a failure whose message happens to contain 404 is not a missing endpoint
+        peer.binaryFailure = new IllegalStateException("project 404 not ready");
+        P2PDataSyncDataBufferTemplate buffer = buildBuffer(node);
+        DataSyncCircuitBreaker breaker = new DataSyncCircuitBreaker();
+        P2pDataSyncRestTemplate restTemplate = buildRestTemplate(node, buffer, peer, breaker);
+
+        restTemplate.send(node);
+        Assertions.assertEquals(0, peer.calls.get());
+        Assertions.assertEquals(EVENTS, buffer.size(node));
+        Assertions.assertTrue(breaker.parkedMillis(node) > 0);
+        buffer.close();
+    }
+
+    @Test
+    void unreachablePeerParksNode() throws InterruptedException {
+        String node = "rtt-unreachable";
+        MockPeer peer = new MockPeer(-1);
+        peer.unreachable = true;
+        P2PDataSyncDataBufferTemplate buffer = buildBuffer(node);
+        DataSyncCircuitBreaker breaker = new DataSyncCircuitBreaker();
+        P2pDataSyncRestTemplate restTemplate = buildRestTemplate(node, buffer, peer, breaker);
+
+        restTemplate.send(node);
+        restTemplate.send(node);
+        // the node is parked after the first failure, the second send does not reach the peer
+        Assertions.assertEquals(1, peer.calls.get());
+        Assertions.assertEquals(EVENTS, buffer.size(node));
+        Assertions.assertTrue(breaker.parkedMillis(node) > 0);
+        buffer.close();
+    }
+
+    @Test
+    void fastFailedEventGoesToDeadLetter() throws InterruptedException {
+        String node = "rtt-dead-letter";
+        MockPeer peer = new MockPeer(10);
+        P2PDataSyncDataBufferTemplate buffer = buildBuffer(node);
+        P2pDataSyncRestTemplate restTemplate = buildRestTemplate(node, buffer, peer, new DataSyncCircuitBreaker());
+        DataSyncDeadLetterRepository repository = Mockito.mock(DataSyncDeadLetterRepository.class);
+        restTemplate.setDataSyncDeadLetterRepository(repository);
+        restTemplate.setDataSyncRetryTemplate(new ThrowDataSyncRetry());
+
+        restTemplate.send(node);
+        Assertions.assertEquals(0, buffer.size(node));
+        Assertions.assertEquals(2, peer.calls.get());
+        Assertions.assertEquals(EVENTS - 1, peer.applied.get());
+        Mockito.verify(repository).save(Mockito.argThat((DataSyncDeadLetterDO d) -> node.equals(d.getNodeId()) && d.getAttempts() == 1));
+        buffer.close();
+    }
+
+    private void sendAll(String node, MockPeer peer, int batchMaxSize) throws InterruptedException {
+        P2PDataSyncDataBufferTemplate buffer = buildBuffer(node);
+        DataSyncCircuitBreaker breaker = new DataSyncCircuitBreaker();
+        breaker.setBaseDelayMillis(1);
+        P2pDataSyncRestTemplate restTemplate = buildRestTemplate(node, buffer, peer, breaker);
+        restTemplate.setBatchMaxSize(batchMaxSize);
+        restTemplate.send(node);
+        while (buffer.size(node) > 0) {
+            Thread.sleep(breaker.parkedMillis(node));
+            restTemplate.send(node);
+        }
+        buffer.close();
+    }
+
+    private P2PDataSyncDataBufferTemplate buildBuffer(String node) {
+        P2PDataSyncDataBufferTemplate buffer = new P2PDataSyncDataBufferTemplate(Mockito.mock(ApplicationEventPublisher.class));
+        buffer.setSyncPath(dir.toString() + "/");
+        for (int i = 0; i < EVENTS; i++) {
+            buffer.push(buildEvent(node, i));
+        }
+        return buffer;
+    }
+
+    private P2pDataSyncRestTemplate buildRestTemplate(String node, P2PDataSyncDataBufferTemplate buffer, MockPeer peer, DataSyncCircuitBreaker breaker) {
+        P2pPaddingNodeServiceImpl paddingNodeService = Mockito.mock(P2pPaddingNodeServiceImpl.class);
+        Mockito.when(paddingNodeService.turnInstToRouteId(node)).thenReturn(node);
+        P2pDataSyncRestTemplate restTemplate = new P2pDataSyncRestTemplate();
+        restTemplate.setDataSyncDataBufferTemplate(buffer);
+        restTemplate.setP2pPaddingNodeService(paddingNodeService);
+        restTemplate.setP2pDataSyncRestService(peer);
+        restTemplate.setMeterRegistry(new SimpleMeterRegistry());
+        restTemplate.setDataSyncCircuitBreaker(breaker);
+        return restTemplate;
+    }
+
+    private EntityChangeListener.DbChangeEvent<BaseAggregationRoot> buildEvent(String node, int i) {
+        ProjectDO projectDO = ProjectDO.builder().projectId(node + i).name(node + i).build();
+        projectDO.setId((long) i);
+        EntityChangeListener.DbChangeEvent event = EntityChangeListener.DbChangeEvent.of(DbChangeAction.CREATE, projectDO);
+        event.setNodeIds(List.of(node));
+        return event;
+    }
+
+    /**
+     * peer which counts one round trip per request and fails the item at failAt once, an unreachable peer fails every request
+     */
+    private static class MockPeer implements P2pDataSyncRestService {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger applied = new AtomicInteger();
+        private final AtomicInteger binaryCalls = new AtomicInteger();
+        private int failAt;
+        private boolean unreachable;
+        private RuntimeException binaryFailure;
+
+        private MockPeer(int failAt) {
+            this.failAt = failAt;
+        }
+
+        @Override
+        public SecretPadResponse<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> sync(String node, String nodeId, String p) {
+            roundTrip();
+            applied.incrementAndGet();
+            return SecretPadResponse.success();
+        }
+
+        @Override
+        public SecretPadResponse<List<SyncDataResultDTO>> syncBatch(String node, String nodeId, String p) {
+            roundTrip();
+            return apply(JsonUtils.parseObject(p).size());
+        }
+
+        @Override
+        public SecretPadResponse<List<SyncDataResultDTO>> syncBatchBinary(String node, String nodeId, String contentEncoding, byte[] p) {
+            if (binaryFailure != null) {
+                throw binaryFailure;
+            }
+            roundTrip();
+            binaryCalls.incrementAndGet();
+            return apply(SyncDataCodec.decode(p, contentEncoding).size());
+        }
+
+        private SecretPadResponse<List<SyncDataResultDTO>> apply(int size) {
+            List<SyncDataResultDTO> results = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                int code = SyncDataResultDTO.SUCCESS;
+                if (i == failAt) {
+                    code = SyncDataResultDTO.FAILED;
+                    failAt = -1;
+                } else if (!results.isEmpty() && !results.get(i - 1).success()) {
+                    code = SyncDataResultDTO.SKIPPED;
+                } else {
+                    applied.incrementAndGet();
+                }
+                results.add(SyncDataResultDTO.builder().index(i).code(code).build());
+            }
+            return SecretPadResponse.success(results);
+        }
+
+        private void roundTrip() {
+            calls.incrementAndGet();
+            if (unreachable) {
+                throw new IllegalStateException("connection refused");
+            }
+        }
+    }
+}
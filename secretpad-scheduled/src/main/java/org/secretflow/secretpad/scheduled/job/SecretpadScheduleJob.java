@@ -0,0 +1,135 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.scheduled.job;
+
+import org.secretflow.secretpad.common.constant.ScheduledConstants;
+import org.secretflow.secretpad.common.enums.ScheduledStatus;
+import org.secretflow.secretpad.common.util.CronUtils;
+import org.secretflow.secretpad.manager.integration.job.AbstractJobManager;
+import org.secretflow.secretpad.persistence.entity.ProjectScheduleDO;
+import org.secretflow.secretpad.persistence.entity.ProjectScheduleTaskDO;
+import org.secretflow.secretpad.persistence.repository.ProjectScheduleRepository;
+import org.secretflow.secretpad.persistence.repository.ProjectScheduleTaskRepository;
+import org.secretflow.secretpad.scheduled.event.ScheduledJobStartEvent;
+import org.secretflow.secretpad.scheduled.service.ISecretpadScheduledService;
+import org.secretflow.secretpad.scheduled.service.ScheduledTaskRenderer;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobExecutionContext;
+import org.secretflow.v1alpha1.kusciaapi.Job;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.quartz.QuartzJobBean;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Optional;
+
+/**
+ * SecretpadScheduleJob
+ * <p>
+ * The only quartz job of a schedule. When its trigger fires the task of the fire time is rendered and submitted, and
+ * the trigger is moved on to the next date of the schedule, so that a schedule keeps one trigger whatever its length.
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+@Slf4j
+@Component
+@DisallowConcurrentExecution
+public class SecretpadScheduleJob extends QuartzJobBean {
+
+    @Resource
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Resource
+    private AbstractJobManager jobManager;
+
+    @Resource
+    private ProjectScheduleRepository projectScheduleRepository;
+
+    @Resource
+    private ProjectScheduleTaskRepository projectScheduleTaskRepository;
+
+    @Resource
+    private ISecretpadScheduledService secretpadScheduledService;
+
+    @Resource
+    private ScheduledTaskRenderer scheduledTaskRenderer;
+
+    @Override
+    protected void executeInternal(JobExecutionContext context) {
+        String scheduleId = context.getJobDetail().getJobDataMap().getString(ScheduledConstants.SCHEDULED_ID_KEY);
+        Date fireTime = context.getScheduledFireTime();
+        log.info("SecretpadScheduleJob execute schedule:{} fire time:{}", scheduleId, fireTime);
+        Optional<ProjectScheduleDO> scheduleOptional = projectScheduleRepository.findById(scheduleId);
+        if (scheduleOptional.isEmpty()) {
+            log.info("SecretpadScheduleJob schedule:{} deleted, remove it", scheduleId);
+            secretpadScheduledService.rescheduleScheduler(scheduleId, null);
+            return;
+        }
+        ProjectScheduleDO schedule = scheduleOptional.get();
+        // a misfired trigger fires late, dates missed meanwhile are not caught up
+        Date now = new Date();
+        Date next = CronUtils.getNextMatchingDate(schedule.getCron(), fireTime.after(now) ? fireTime : now,
+                schedule.getRequest().getCron().getEndTime());
+        log.info("SecretpadScheduleJob schedule:{} next fire time:{}", scheduleId, next);
+        // an offline while the schedule was read pauses the trigger, a new trigger set now would bring the schedule back
+        if (!isUp(scheduleId)) {
+            log.info("SecretpadScheduleJob schedule:{} is no longer up, skip", scheduleId);
+            return;
+        }
+        secretpadScheduledService.rescheduleScheduler(scheduleId, next);
+
+        LocalDateTime expectStartTime = LocalDateTime.ofInstant(fireTime.toInstant(), ZoneId.systemDefault());
+        if (projectScheduleTaskRepository.existsByScheduleIdAndScheduleTaskExpectStartTime(scheduleId, expectStartTime)) {
+            log.info("SecretpadScheduleJob schedule:{} task of {} already rendered, skip", scheduleId, expectStartTime);
+            return;
+        }
+        submit(schedule, expectStartTime);
+        applicationEventPublisher.publishEvent(new ScheduledJobStartEvent(this, context));
+    }
+
+    private boolean isUp(String scheduleId) {
+        return projectScheduleRepository.findById(scheduleId).map(s -> s.getStatus() == ScheduledStatus.UP).orElse(false);
+    }
+
+    private void submit(ProjectScheduleDO schedule, LocalDateTime expectStartTime) {
+        ProjectScheduleTaskDO task = null;
+        try {
+            task = scheduledTaskRenderer.render(schedule, expectStartTime);
+            if (task.getStatus() != ScheduledStatus.TO_BE_RUN) {
+                log.info("SecretpadScheduleJob skip task:{} status:{}", task.getScheduleTaskId(), task.getStatus());
+                return;
+            }
+            Job.CreateJobRequest request = Job.CreateJobRequest.parseFrom(Base64.getDecoder().decode(task.getJobRequest()));
+            jobManager.createJob(request);
+            task.setScheduleTaskStartTime(LocalDateTime.now());
+            task.setStatus(ScheduledStatus.RUNNING);
+            projectScheduleTaskRepository.save(task);
+        } catch (Exception e) {
+            log.error("SecretpadScheduleJob execute schedule:{} error", schedule.getScheduleId(), e);
+            if (task != null) {
+                projectScheduleTaskRepository.updateStatus(task.getScheduleTaskId(), ScheduledStatus.FAILED.name());
+            }
+        }
+    }
+}
@@ -16,18 +16,29 @@
 
 package org.secretflow.secretpad.scheduled.service;
 
-import org.secretflow.secretpad.persistence.entity.ProjectScheduleTaskDO;
 import org.secretflow.secretpad.scheduled.model.ScheduledIdRequest;
 
+import java.util.Date;
+
 /**
  * @author yutu
  * @date 2024/08/21
  */
 public interface ISecretpadScheduledService {
     /**
-     * add scheduler
+     * add the single trigger of a schedule, its tasks are rendered when it fires
+     */
+    boolean addScheduler(String scheduleId, Date fireTime);
+
+    /**
+     * move the trigger of a schedule to the next fire time, a null fire time removes the schedule
+     */
+    boolean rescheduleScheduler(String scheduleId, Date fireTime);
+
+    /**
+     * delete scheduler
      */
-    boolean addScheduler(String name, String group, ProjectScheduleTaskDO data, String cron);
+    boolean deleteScheduler(String jobDetailGroup);
 
     /**
      * pause scheduler
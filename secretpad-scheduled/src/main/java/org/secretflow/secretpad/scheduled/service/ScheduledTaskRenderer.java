@@ -0,0 +1,40 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.scheduled.service;
+
+import org.secretflow.secretpad.persistence.entity.ProjectScheduleDO;
+import org.secretflow.secretpad.persistence.entity.ProjectScheduleTaskDO;
+
+import java.time.LocalDateTime;
+
+/**
+ * renders the task of a schedule when its trigger fires, implemented where graphs are rendered
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+public interface ScheduledTaskRenderer {
+
+    /**
+     * render the graph of a schedule for one expected start time and save the task and its job
+     *
+     * @param schedule        schedule
+     * @param expectStartTime expected start time of the task
+     * @return saved task, TO_BE_RUN with its job request or FAILED if the graph could not be rendered
+     */
+    ProjectScheduleTaskDO render(ProjectScheduleDO schedule, LocalDateTime expectStartTime);
+}
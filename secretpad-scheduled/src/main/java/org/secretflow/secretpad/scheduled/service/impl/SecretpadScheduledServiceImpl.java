@@ -19,8 +19,7 @@ package org.secretflow.secretpad.scheduled.service.impl;
 import org.secretflow.secretpad.common.constant.ScheduledConstants;
 import org.secretflow.secretpad.common.util.DateTimes;
 import org.secretflow.secretpad.common.util.UUIDUtils;
-import org.secretflow.secretpad.persistence.entity.ProjectScheduleTaskDO;
-import org.secretflow.secretpad.scheduled.job.SecretpadJob;
+import org.secretflow.secretpad.scheduled.job.SecretpadScheduleJob;
 import org.secretflow.secretpad.scheduled.model.ScheduledIdRequest;
 import org.secretflow.secretpad.scheduled.service.ISecretpadScheduledService;
 
@@ -31,9 +30,7 @@ import org.quartz.*;
 import org.quartz.impl.matchers.GroupMatcher;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Date;
 
 /**
@@ -49,31 +46,21 @@ public class SecretpadScheduledServiceImpl implements ISecretpadScheduledService
     private Scheduler scheduler;
 
     /**
-     * add scheduler
+     * add the single trigger of a schedule
      */
     @Override
-    public boolean addScheduler(String name, String group, ProjectScheduleTaskDO data, String cron) {
+    public boolean addScheduler(String scheduleId, Date fireTime) {
         try {
-            ZoneId zoneId = ZoneId.systemDefault();
-            JobKey jobKey = JobKey.jobKey(name, group);
+            JobKey jobKey = JobKey.jobKey(scheduleId, scheduleId);
             if (scheduler.checkExists(jobKey)) {
                 return true;
             }
-            LocalDateTime scheduleTaskExpectStartTime = data.getScheduleTaskExpectStartTime();
-            ZonedDateTime zonedDateTime = scheduleTaskExpectStartTime.atZone(zoneId);
-            JobDataMap jobDataMap = new JobDataMap();
-            jobDataMap.put(ScheduledConstants.SCHEDULED_TASK_DAG_JOB_KEY, data);
-            JobDetail jobDetail = JobBuilder.newJob(SecretpadJob.class)
-                    .withIdentity(name, group)
-                    .usingJobData(jobDataMap)
+            JobDetail jobDetail = JobBuilder.newJob(SecretpadScheduleJob.class)
+                    .withIdentity(jobKey)
+                    .usingJobData(ScheduledConstants.SCHEDULED_ID_KEY, scheduleId)
+                    .storeDurably()
                     .build();
-            Trigger trigger = TriggerBuilder.newTrigger()
-                    .withIdentity(name, group)
-                    .forJob(jobDetail)
-                    .withSchedule(CronScheduleBuilder.cronSchedule(cron))
-                    .startAt(Date.from(zonedDateTime.toInstant()))
-                    .build();
-            scheduler.scheduleJob(jobDetail, trigger);
+            scheduler.scheduleJob(jobDetail, scheduleTrigger(scheduleId, fireTime));
             return true;
         } catch (SchedulerException e) {
             log.error("addScheduler error", e);
@@ -81,6 +68,50 @@ public class SecretpadScheduledServiceImpl implements ISecretpadScheduledService
         }
     }
 
+    /**
+     * reschedule scheduler, the trigger fires once and is moved on by the job it fired
+     */
+    @Override
+    public boolean rescheduleScheduler(String scheduleId, Date fireTime) {
+        try {
+            if (fireTime == null) {
+                scheduler.deleteJob(JobKey.jobKey(scheduleId, scheduleId));
+                return true;
+            }
+            TriggerKey triggerKey = TriggerKey.triggerKey(scheduleId, scheduleId);
+            if (scheduler.rescheduleJob(triggerKey, scheduleTrigger(scheduleId, fireTime)) == null) {
+                scheduler.scheduleJob(scheduleTrigger(scheduleId, fireTime));
+            }
+            return true;
+        } catch (SchedulerException e) {
+            log.error("rescheduleScheduler error", e);
+            return false;
+        }
+    }
+
+    /**
+     * delete scheduler
+     */
+    @Override
+    public boolean deleteScheduler(String group) {
+        try {
+            scheduler.deleteJobs(new ArrayList<>(scheduler.getJobKeys(GroupMatcher.jobGroupEquals(group))));
+        } catch (SchedulerException e) {
+            log.error("deleteScheduler error", e);
+            return false;
+        }
+        return true;
+    }
+
+    private Trigger scheduleTrigger(String scheduleId, Date fireTime) {
+        return TriggerBuilder.newTrigger()
+                .withIdentity(scheduleId, scheduleId)
+                .forJob(scheduleId, scheduleId)
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule().withMisfireHandlingInstructionFireNow())
+                .startAt(fireTime)
+                .build();
+    }
+
     /**
      * pause scheduler
      */
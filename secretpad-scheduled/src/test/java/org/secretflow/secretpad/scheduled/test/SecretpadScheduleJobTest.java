@@ -0,0 +1,155 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.scheduled.test;
+
+import org.secretflow.secretpad.common.constant.ScheduledConstants;
+import org.secretflow.secretpad.common.enums.ScheduledStatus;
+import org.secretflow.secretpad.manager.integration.job.AbstractJobManager;
+import org.secretflow.secretpad.persistence.entity.ProjectScheduleDO;
+import org.secretflow.secretpad.persistence.entity.ProjectScheduleTaskDO;
+import org.secretflow.secretpad.persistence.model.ScheduledGraphCreateRequest;
+import org.secretflow.secretpad.persistence.repository.ProjectScheduleRepository;
+import org.secretflow.secretpad.persistence.repository.ProjectScheduleTaskRepository;
+import org.secretflow.secretpad.scheduled.event.ScheduledJobStartEvent;
+import org.secretflow.secretpad.scheduled.job.SecretpadScheduleJob;
+import org.secretflow.secretpad.scheduled.service.ISecretpadScheduledService;
+import org.secretflow.secretpad.scheduled.service.ScheduledTaskRenderer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerContext;
+import org.quartz.SchedulerException;
+import org.secretflow.v1alpha1.kusciaapi.Job;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * the fired trigger of a schedule is moved on only while the schedule is up
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+@ExtendWith(MockitoExtension.class)
+public class SecretpadScheduleJobTest {
+
+    private static final String SCHEDULE_ID = "s1";
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+    @Mock
+    private AbstractJobManager jobManager;
+    @Mock
+    private ProjectScheduleRepository projectScheduleRepository;
+    @Mock
+    private ProjectScheduleTaskRepository projectScheduleTaskRepository;
+    @Mock
+    private ISecretpadScheduledService secretpadScheduledService;
+    @Mock
+    private ScheduledTaskRenderer scheduledTaskRenderer;
+    @InjectMocks
+    private SecretpadScheduleJob job;
+
+    @Test
+    public void upScheduleIsMovedOnAndSubmitted() throws Exception {
+        ProjectScheduleDO schedule = buildSchedule(ScheduledStatus.UP);
+        Mockito.when(projectScheduleRepository.findById(SCHEDULE_ID)).thenReturn(Optional.of(schedule));
+        ProjectScheduleTaskDO task = new ProjectScheduleTaskDO();
+        task.setScheduleTaskId("t1");
+        task.setStatus(ScheduledStatus.TO_BE_RUN);
+        task.setJobRequest(Base64.getEncoder().encodeToString(Job.CreateJobRequest.newBuilder().setJobId("j1").build().toByteArray()));
+        Mockito.when(scheduledTaskRenderer.render(ArgumentMatchers.eq(schedule), ArgumentMatchers.any(LocalDateTime.class))).thenReturn(task);
+
+        job.execute(buildContext());
+
+        Mockito.verify(secretpadScheduledService).rescheduleScheduler(ArgumentMatchers.eq(SCHEDULE_ID), ArgumentMatchers.any(Date.class));
+        Mockito.verify(jobManager).createJob(ArgumentMatchers.argThat((Job.CreateJobRequest r) -> "j1".equals(r.getJobId())));
+        Mockito.verify(projectScheduleTaskRepository).save(task);
+        Assertions.assertEquals(ScheduledStatus.RUNNING, task.getStatus());
+        Mockito.verify(applicationEventPublisher).publishEvent(ArgumentMatchers.any(ScheduledJobStartEvent.class));
+    }
+
+    @Test
+    public void offlineBeforeRescheduleStopsTheSchedule() throws Exception {
+        // read up when the trigger fired, offline by the time the trigger would be moved on
+        Mockito.when(projectScheduleRepository.findById(SCHEDULE_ID))
+                .thenReturn(Optional.of(buildSchedule(ScheduledStatus.UP)), Optional.of(buildSchedule(ScheduledStatus.DOWN)));
+
+        job.execute(buildContext());
+
+        Mockito.verify(secretpadScheduledService, Mockito.never()).rescheduleScheduler(ArgumentMatchers.any(), ArgumentMatchers.any());
+        Mockito.verifyNoInteractions(scheduledTaskRenderer, jobManager);
+    }
+
+    @Test
+    public void deletedScheduleRemovesItsJob() throws Exception {
+        Mockito.when(projectScheduleRepository.findById(SCHEDULE_ID)).thenReturn(Optional.empty());
+
+        job.execute(buildContext());
+
+        Mockito.verify(secretpadScheduledService).rescheduleScheduler(SCHEDULE_ID, null);
+        Mockito.verifyNoInteractions(scheduledTaskRenderer, jobManager);
+    }
+
+    @Test
+    public void renderedTaskIsNotSubmittedTwice() throws Exception {
+        Mockito.when(projectScheduleRepository.findById(SCHEDULE_ID)).thenReturn(Optional.of(buildSchedule(ScheduledStatus.UP)));
+        Mockito.when(projectScheduleTaskRepository.existsByScheduleIdAndScheduleTaskExpectStartTime(ArgumentMatchers.eq(SCHEDULE_ID), ArgumentMatchers.any()))
+                .thenReturn(true);
+
+        job.execute(buildContext());
+
+        Mockito.verify(secretpadScheduledService).rescheduleScheduler(ArgumentMatchers.eq(SCHEDULE_ID), ArgumentMatchers.any(Date.class));
+        Mockito.verifyNoInteractions(scheduledTaskRenderer, jobManager);
+    }
+
+    private ProjectScheduleDO buildSchedule(ScheduledStatus status) {
+        ScheduledGraphCreateRequest request = ScheduledGraphCreateRequest.builder()
+                .cron(ScheduledGraphCreateRequest.Cron.builder().endTime("2099-12-31 23:59:59").build())
+                .build();
+        return ProjectScheduleDO.builder().scheduleId(SCHEDULE_ID).cron(List.of("0 0 12 * * ?")).request(request).status(status).build();
+    }
+
+    private JobExecutionContext buildContext() throws SchedulerException {
+        JobDataMap jobDataMap = new JobDataMap();
+        jobDataMap.put(ScheduledConstants.SCHEDULED_ID_KEY, SCHEDULE_ID);
+        JobDetail jobDetail = Mockito.mock(JobDetail.class);
+        Mockito.when(jobDetail.getJobDataMap()).thenReturn(jobDataMap);
+        Scheduler scheduler = Mockito.mock(Scheduler.class);
+        Mockito.when(scheduler.getContext()).thenReturn(new SchedulerContext());
+        JobExecutionContext context = Mockito.mock(JobExecutionContext.class);
+        Mockito.when(context.getScheduler()).thenReturn(scheduler);
+        Mockito.when(context.getMergedJobDataMap()).thenReturn(jobDataMap);
+        Mockito.when(context.getJobDetail()).thenReturn(jobDetail);
+        Mockito.lenient().when(context.getScheduledFireTime()).thenReturn(new Date());
+        return context;
+    }
+}
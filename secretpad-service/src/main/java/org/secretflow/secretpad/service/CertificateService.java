@@ -24,5 +24,11 @@ import org.secretflow.v1alpha1.kusciaapi.Certificate;
  */
 public interface CertificateService {
 
+    /**
+     * Signing key and cert chain of a node, reused within secretpad.vote.sign-key-cache.ttl-seconds
+     *
+     * @param nodeID node id
+     * @return key and cert chain
+     */
     Certificate.GenerateKeyCertsResponse generateCertByNodeID(String nodeID);
 }
@@ -16,6 +16,7 @@
 
 package org.secretflow.secretpad.service;
 
+import org.secretflow.secretpad.service.graph.ComponentCatalog;
 import org.secretflow.secretpad.service.model.component.ComponentVersion;
 import org.secretflow.secretpad.service.model.graph.CompListVO;
 import org.secretflow.secretpad.service.model.graph.ComponentKey;
@@ -36,6 +37,13 @@ import java.util.concurrent.ConcurrentHashMap;
 public interface ComponentService {
     Map<String, ComponentDef> SF_HIDE_COMPONENTS = new ConcurrentHashMap<>();
 
+    /**
+     * Current component catalog, built at startup and rebuilt when the component files change
+     *
+     * @return component catalog
+     */
+    ComponentCatalog catalog();
+
     /**
      * List components and build component list view object
      *
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service;
+
+import org.secretflow.secretpad.service.model.common.SecretPadPageResponse;
+import org.secretflow.secretpad.service.model.datasync.deadletter.DataSyncDeadLetterPageRequest;
+import org.secretflow.secretpad.service.model.datasync.deadletter.DataSyncDeadLetterVO;
+
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * p2p data sync events the peer rejected after all retries
+ *
+ * @author yutu
+ * @date 2024/12/19
+ */
+public interface DataSyncDeadLetterService {
+
+    /**
+     * query page
+     */
+    SecretPadPageResponse<DataSyncDeadLetterVO> queryPage(DataSyncDeadLetterPageRequest request, Pageable pageable);
+
+    /**
+     * push the recorded events to the sync buffer again in dead letter order and remove them from the dead letter table
+     *
+     * @return replayed count
+     */
+    int replay(List<Long> ids);
+
+    /**
+     * discard dead letters
+     */
+    void delete(List<Long> ids);
+}
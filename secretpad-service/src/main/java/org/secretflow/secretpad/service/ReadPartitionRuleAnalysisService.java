@@ -17,6 +17,7 @@
 package org.secretflow.secretpad.service;
 
 import org.secretflow.secretpad.common.enums.DataSourceTypeEnum;
+import org.secretflow.secretpad.service.graph.partition.PartitionRule;
 
 import java.util.Set;
 
@@ -39,4 +40,13 @@ public interface ReadPartitionRuleAnalysisService {
      */
     String readPartitionRuleAnalysis(String tableName, DataSourceTypeEnum type, String inputRule, String scheduleExpectStartDate, Set<String> partitionColumns);
 
+    /**
+     * compile read partition rule, compiled rules are cached by the rule text
+     *
+     * @param inputRule inputRule
+     * @return compiled rule
+     * @throws IllegalArgumentException if the rule is malformed
+     */
+    PartitionRule compileReadPartitionRule(String inputRule);
+
 }
\ No newline at end of file
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.auth;
+
+import org.secretflow.secretpad.common.constant.CacheConstants;
+import org.secretflow.secretpad.common.enums.DataResourceTypeEnum;
+import org.secretflow.secretpad.persistence.datasync.event.EntityChangedEvent;
+import org.secretflow.secretpad.persistence.entity.NodeDO;
+import org.secretflow.secretpad.persistence.entity.ProjectDO;
+import org.secretflow.secretpad.persistence.entity.ProjectInstDO;
+import org.secretflow.secretpad.persistence.entity.ProjectNodeDO;
+
+import jakarta.annotation.Resource;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Authorization decision cache
+ * <p>
+ * Data resource decisions are kept per resource, as a map of the owners checked on it to the decision, so that the
+ * repeated checks of a request and of the following requests do not read the project and node membership again. The
+ * cache is bounded by the auth_decision_cache entries. A resource leaves the cache as soon as its project, project
+ * members or node is written, by a local change or by consumed sync data.
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+@Slf4j
+@Component
+public class AuthDecisionCache {
+
+    /**
+     * moved on every eviction, a decision made before an eviction is not cached after it
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    @Resource
+    @Setter
+    private CacheManager cacheManager;
+
+    @Value("${secretpad.auth.decision-cache.enabled:true}")
+    @Setter
+    private boolean enabled = true;
+
+    /**
+     * @param resourceType type of the resource
+     * @param resourceId   resource id
+     * @param principal    owner the decision is made for
+     * @param decide       makes the decision on a cache miss
+     * @return true if the principal may access the resource
+     */
+    @SuppressWarnings("unchecked")
+    public boolean check(DataResourceTypeEnum resourceType, String resourceId, String principal, BooleanSupplier decide) {
+        if (!enabled || resourceId == null || principal == null) {
+            return decide.getAsBoolean();
+        }
+        String key = key(resourceType, resourceId);
+        Cache cache = cache();
+        // read before the cached decisions, so that an eviction after the read is seen below and the map is not put back
+        long before = generation.get();
+        HashMap<String, Boolean> decisions = cache.get(key, HashMap.class);
+        Boolean decision = decisions == null ? null : decisions.get(principal);
+        if (decision != null) {
+            return decision;
+        }
+        boolean allowed = decide.getAsBoolean();
+        HashMap<String, Boolean> updated = decisions == null ? new HashMap<>() : new HashMap<>(decisions);
+        updated.put(principal, allowed);
+        if (generation.get() == before) {
+            cache.put(key, updated);
+            if (generation.get() != before) {
+                // evicted while putting, the decision may be stale
+                cache.evict(key);
+            }
+        }
+        return allowed;
+    }
+
+    /**
+     * @param resourceType type of the resource
+     * @param resourceId   resource whose decisions are dropped
+     */
+    public void evict(DataResourceTypeEnum resourceType, String resourceId) {
+        if (resourceId == null) {
+            return;
+        }
+        generation.incrementAndGet();
+        cache().evict(key(resourceType, resourceId));
+        log.debug("auth decisions of {} {} evicted", resourceType, resourceId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.getEntity() instanceof ProjectDO || event.getEntity() instanceof ProjectNodeDO
+                || event.getEntity() instanceof ProjectInstDO) {
+            evict(DataResourceTypeEnum.PROJECT_ID, event.getEntity().getProjectId());
+        } else if (event.getEntity() instanceof NodeDO nodeDO) {
+            // the inst of a node decides who may access it
+            evict(DataResourceTypeEnum.NODE_ID, nodeDO.getNodeId());
+        }
+    }
+
+    private String key(DataResourceTypeEnum resourceType, String resourceId) {
+        return resourceType.name() + "/" + resourceId;
+    }
+
+    private Cache cache() {
+        return Objects.requireNonNull(cacheManager.getCache(CacheConstants.AUTH_DECISION_CACHE));
+    }
+}
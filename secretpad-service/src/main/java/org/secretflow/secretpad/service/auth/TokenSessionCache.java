@@ -0,0 +1,180 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.auth;
+
+import org.secretflow.secretpad.common.constant.CacheConstants;
+import org.secretflow.secretpad.common.util.DataSyncConsumerContext;
+import org.secretflow.secretpad.persistence.datasync.event.EntityChangedEvent;
+import org.secretflow.secretpad.persistence.entity.ProjectNodeDO;
+import org.secretflow.secretpad.persistence.entity.TokensDO;
+import org.secretflow.secretpad.persistence.model.DbChangeAction;
+import org.secretflow.secretpad.persistence.repository.ProjectNodeRepository;
+import org.secretflow.secretpad.persistence.repository.UserTokensRepository;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Token session cache
+ * <p>
+ * Tokens which passed the login check are kept in memory, so that a request is authenticated without a database read.
+ * The last use time of a token is moved forward in memory and written back in one batch every flush interval instead
+ * of on every request. A token removed from the database, by logout, password reset or consumed sync data, leaves the
+ * cache at once. The projects of a node are cached for the rpc requests of the node, until its project membership
+ * changes.
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+@Slf4j
+@Component
+public class TokenSessionCache {
+
+    /**
+     * last use time of tokens not written back yet
+     */
+    private final ConcurrentMap<String, LocalDateTime> touched = new ConcurrentHashMap<>();
+
+    @Resource
+    private CacheManager cacheManager;
+
+    @Resource
+    private UserTokensRepository userTokensRepository;
+
+    @Resource
+    private ProjectNodeRepository projectNodeRepository;
+
+    @Resource
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * @param token user token
+     * @return the token, from the cache if it was used lately
+     */
+    public Optional<TokensDO> get(String token) {
+        TokensDO cached = tokenCache().get(token, TokensDO.class);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return userTokensRepository.findByToken(token);
+    }
+
+    /**
+     * Record a use of a valid token, the token is cached and its use time is written back with the next flush
+     *
+     * @param tokensDO token which passed the login check
+     */
+    public void touch(TokensDO tokensDO) {
+        LocalDateTime now = LocalDateTime.now();
+        tokenCache().put(tokensDO.getToken(), TokensDO.builder()
+                .name(tokensDO.getName())
+                .token(tokensDO.getToken())
+                .gmtToken(now)
+                .sessionData(tokensDO.getSessionData())
+                .build());
+        touched.put(tokensDO.getToken(), now);
+    }
+
+    /**
+     * @param token user token to forget
+     */
+    public void evict(String token) {
+        tokenCache().evict(token);
+        touched.remove(token);
+    }
+
+    /**
+     * @param nodeId node id
+     * @return ids of the projects the node takes part in
+     */
+    @SuppressWarnings("unchecked")
+    public Set<String> projectIdsOfNode(String nodeId) {
+        Cache cache = nodeProjectsCache();
+        HashSet<String> projectIds = cache.get(nodeId, HashSet.class);
+        if (projectIds == null) {
+            projectIds = projectNodeRepository.findByNodeId(nodeId).stream()
+                    .map(t -> t.getUpk().getProjectId()).collect(Collectors.toCollection(HashSet::new));
+            cache.put(nodeId, projectIds);
+        }
+        return new HashSet<>(projectIds);
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.getEntity() instanceof TokensDO tokensDO) {
+            // the tokens written by this cache are not changed again, only the removed and the synced ones
+            if (event.getAction() == DbChangeAction.REMOVE || DataSyncConsumerContext.sync()) {
+                evict(tokensDO.getToken());
+            }
+        } else if (event.getEntity() instanceof ProjectNodeDO projectNodeDO) {
+            nodeProjectsCache().evict(projectNodeDO.getUpk().getNodeId());
+        }
+    }
+
+    /**
+     * write the last use times back in one transaction
+     */
+    @PreDestroy
+    @Scheduled(initialDelay = 5000, fixedDelayString = "${secretpad.auth.token-cache.flush-interval-ms:5000}")
+    public void flush() {
+        if (touched.isEmpty()) {
+            return;
+        }
+        Map<String, LocalDateTime> batch = new HashMap<>();
+        for (String token : touched.keySet()) {
+            LocalDateTime gmtToken = touched.remove(token);
+            if (gmtToken != null) {
+                batch.put(token, gmtToken);
+            }
+        }
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    batch.forEach(userTokensRepository::updateGmtToken));
+            log.debug("token use time written back for {} tokens", batch.size());
+        } catch (Exception e) {
+            log.warn("token use time write back failed for {} tokens, retry with next flush", batch.size(), e);
+            batch.forEach((token, gmtToken) -> touched.merge(token, gmtToken, (a, b) -> a.isAfter(b) ? a : b));
+        }
+    }
+
+    private Cache tokenCache() {
+        return Objects.requireNonNull(cacheManager.getCache(CacheConstants.TOKEN_SESSION_CACHE));
+    }
+
+    private Cache nodeProjectsCache() {
+        return Objects.requireNonNull(cacheManager.getCache(CacheConstants.NODE_PROJECTS_CACHE));
+    }
+}
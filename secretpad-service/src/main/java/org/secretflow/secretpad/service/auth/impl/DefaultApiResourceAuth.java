@@ -17,10 +17,12 @@
 package org.secretflow.secretpad.service.auth.impl;
 
 import org.secretflow.secretpad.common.constant.resource.ApiResourceCodeConstants;
+import org.secretflow.secretpad.common.enums.DataResourceTypeEnum;
 import org.secretflow.secretpad.common.enums.UserOwnerTypeEnum;
 import org.secretflow.secretpad.common.util.UserContext;
 import org.secretflow.secretpad.service.InstService;
 import org.secretflow.secretpad.service.auth.ApiResourceAuth;
+import org.secretflow.secretpad.service.auth.AuthDecisionCache;
 
 import jakarta.annotation.Resource;
 import org.springframework.stereotype.Service;
@@ -40,12 +42,17 @@ public class DefaultApiResourceAuth implements ApiResourceAuth {
     @Resource
     private InstService instService;
 
+    @Resource
+    private AuthDecisionCache authDecisionCache;
+
     @Override
     public boolean check(String resourceCode) {
         // Ignore for current platform manager
-        if (UserContext.getUser().getOwnerId().equals(UserContext.getUser().getPlatformNodeId())
+        String ownerId = UserContext.getUser().getOwnerId();
+        String platformNodeId = UserContext.getUser().getPlatformNodeId();
+        if (ownerId.equals(platformNodeId)
                 || (UserOwnerTypeEnum.P2P.equals(UserContext.getUser().getOwnerType())
-                && instService.checkNodeInInst(UserContext.getUser().getOwnerId(), UserContext.getUser().getPlatformNodeId()))) {
+                && authDecisionCache.check(DataResourceTypeEnum.NODE_ID, platformNodeId, ownerId, () -> instService.checkNodeInInst(ownerId, platformNodeId)))) {
             return true;
         }
         if (UserContext.getUser().containInterfaceResource(ApiResourceCodeConstants.ALL_INTERFACE_RESOURCE)) {
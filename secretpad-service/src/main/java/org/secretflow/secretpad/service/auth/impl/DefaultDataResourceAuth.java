@@ -19,6 +19,7 @@ package org.secretflow.secretpad.service.auth.impl;
 import org.secretflow.secretpad.common.enums.DataResourceTypeEnum;
 import org.secretflow.secretpad.common.enums.UserOwnerTypeEnum;
 import org.secretflow.secretpad.common.util.UserContext;
+import org.secretflow.secretpad.service.auth.AuthDecisionCache;
 import org.secretflow.secretpad.service.auth.DataResourceAuth;
 
 import jakarta.annotation.Resource;
@@ -41,6 +42,9 @@ public class DefaultDataResourceAuth implements DataResourceAuth {
     @Resource
     private DataResourceInstAuth dataResourceInstAuth;
 
+    @Resource
+    private AuthDecisionCache authDecisionCache;
+
     /**
      * @param resourceType resource type
      * @param resourceId   resource id
@@ -54,11 +58,13 @@ public class DefaultDataResourceAuth implements DataResourceAuth {
             return true;
         }
 
+        String ownerId = UserContext.getUser().getOwnerId();
         if (DataResourceTypeEnum.NODE_ID.equals(resourceType)) {
-            return StringUtils.equals(UserContext.getUser().getOwnerId(), resourceId) || dataResourceInstAuth.check(UserContext.getUser().getOwnerId(), resourceId);
+            return StringUtils.equals(ownerId, resourceId)
+                    || authDecisionCache.check(resourceType, resourceId, ownerId, () -> dataResourceInstAuth.check(ownerId, resourceId));
         }
         if (DataResourceTypeEnum.PROJECT_ID.equals(resourceType)) {
-            return dataResourceProjectAuth.check(resourceId);
+            return authDecisionCache.check(resourceType, resourceId, ownerId, () -> dataResourceProjectAuth.check(resourceId));
         }
         return false;
     }
@@ -31,6 +31,8 @@ import org.secretflow.secretpad.persistence.datasync.retry.impl.TryDataSyncRetry
 import org.secretflow.secretpad.persistence.model.DataSyncConfig;
 import org.secretflow.secretpad.persistence.repository.*;
 import org.secretflow.secretpad.service.listener.DbChangeEventListener;
+import org.secretflow.secretpad.service.sync.center.SseBroadcaster;
+import org.secretflow.secretpad.service.sync.center.SseChangeLog;
 
 import io.netty.channel.ChannelOption;
 import io.netty.handler.timeout.ReadTimeoutHandler;
@@ -50,9 +52,6 @@ import org.springframework.web.service.invoker.HttpServiceProxyFactory;
 import reactor.core.publisher.Mono;
 import reactor.netty.http.client.HttpClient;
 
-import java.util.concurrent.Executor;
-import java.util.concurrent.ThreadPoolExecutor;
-
 /**
  * @author yutu
  * @date 2023/12/14
@@ -66,6 +65,8 @@ public class EdgeDataSyncConfigurable {
     private String kusciaLiteGateway;
     @Value("${secretpad.datasync.retry:fastFailedPolicy}")
     private String retry;
+    @Value("${secretpad.datasync.sse.writer-threads:4}")
+    private int sseWriterThreads;
 
     @Bean("p2pPaddingNodeService")
     public PaddingNodeService p2pPaddingNodeServiceImpl(ProjectInstRepository projectInstRepository, ProjectApprovalConfigRepository projectApprovalConfigRepository, VoteRequestRepository voteRequestRepository, CacheManager cacheManager, NodeRepository nodeRepository) {
@@ -98,8 +99,9 @@ public class EdgeDataSyncConfigurable {
     }
 
     @Bean
-    public DbChangeEventListener dbChangeEventListener(ProjectNodeRepository projectNodeRepository, FeatureTableRepository featureTableRepository, DataSyncDataBufferTemplate dataSyncDataBufferTemplate) {
-        return new DbChangeEventListener(projectNodeRepository, featureTableRepository, dataSyncDataBufferTemplate);
+    public DbChangeEventListener dbChangeEventListener(ProjectNodeRepository projectNodeRepository, FeatureTableRepository featureTableRepository,
+                                                       DataSyncDataBufferTemplate dataSyncDataBufferTemplate, SseChangeLog sseChangeLog) {
+        return new DbChangeEventListener(projectNodeRepository, featureTableRepository, dataSyncDataBufferTemplate, sseChangeLog);
     }
 
     @Bean
@@ -127,14 +129,17 @@ public class EdgeDataSyncConfigurable {
         return proxyFactory.createClient(P2pDataSyncRestService.class);
     }
 
-    @Bean("dataSyncThreadPool")
-    public Executor dataSyncThreadPool() {
+    @Bean
+    public SseBroadcaster sseBroadcaster() {
+        return new SseBroadcaster();
+    }
+
+    @Bean("sseWriterThreadPool")
+    public ThreadPoolTaskExecutor sseWriterThreadPool() {
         ThreadPoolTaskExecutor threadPoolTaskExecutor = new ThreadPoolTaskExecutor();
-        threadPoolTaskExecutor.setCorePoolSize(11);
-        threadPoolTaskExecutor.setMaxPoolSize(20);
-        threadPoolTaskExecutor.setQueueCapacity(10);
-        threadPoolTaskExecutor.setThreadNamePrefix("DataSyncThreadPool-");
-        threadPoolTaskExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        threadPoolTaskExecutor.setCorePoolSize(sseWriterThreads);
+        threadPoolTaskExecutor.setMaxPoolSize(sseWriterThreads);
+        threadPoolTaskExecutor.setThreadNamePrefix("SseWriterThreadPool-");
         threadPoolTaskExecutor.initialize();
         return threadPoolTaskExecutor;
     }
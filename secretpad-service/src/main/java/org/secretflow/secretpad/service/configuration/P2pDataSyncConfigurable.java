@@ -27,6 +27,7 @@ import org.secretflow.secretpad.persistence.datasync.rest.DataSyncRestTemplate;
 import org.secretflow.secretpad.persistence.datasync.rest.p2p.P2pDataSyncRestService;
 import org.secretflow.secretpad.persistence.datasync.rest.p2p.P2pDataSyncRestTemplate;
 import org.secretflow.secretpad.persistence.datasync.rest.p2p.log.P2pRestLog;
+import org.secretflow.secretpad.persistence.datasync.retry.DataSyncCircuitBreaker;
 import org.secretflow.secretpad.persistence.datasync.retry.DataSyncRetryTemplate;
 import org.secretflow.secretpad.persistence.datasync.retry.impl.ThrowDataSyncRetry;
 import org.secretflow.secretpad.persistence.datasync.retry.impl.TryDataSyncRetry;
@@ -52,13 +53,8 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.support.WebClientAdapter;
 import org.springframework.web.service.invoker.HttpServiceProxyFactory;
-import reactor.core.publisher.Mono;
 import reactor.netty.http.client.HttpClient;
 
-import java.util.concurrent.Executor;
-import java.util.concurrent.ThreadPoolExecutor;
-
-
 /**
  * @author yutu
  * @date 2023/12/10
@@ -73,6 +69,9 @@ public class P2pDataSyncConfigurable {
     @Value("${secretpad.datasync.retry:fastFailedPolicy}")
     private String retry;
 
+    @Value("${secretpad.datasync.max-inflight-peers:8}")
+    private int maxInflightPeers;
+
     @Bean("p2pPaddingNodeService")
     public PaddingNodeService p2pPaddingNodeServiceImpl(ProjectInstRepository projectInstRepository, ProjectApprovalConfigRepository projectApprovalConfigRepository, VoteRequestRepository voteRequestRepository, CacheManager cacheManager, NodeRepository nodeRepository) {
         return new P2pPaddingNodeServiceImpl(projectInstRepository, projectApprovalConfigRepository, voteRequestRepository, cacheManager, nodeRepository);
@@ -91,6 +90,11 @@ public class P2pDataSyncConfigurable {
         return new ThrowDataSyncRetry();
     }
 
+    @Bean
+    public DataSyncCircuitBreaker dataSyncCircuitBreaker() {
+        return new DataSyncCircuitBreaker();
+    }
+
 
     @Bean
     public DataSyncRestTemplate dataSyncRestTemplate() {
@@ -127,7 +131,8 @@ public class P2pDataSyncConfigurable {
                 //error callback
                 .defaultStatusHandler(HttpStatusCode::isError, clientResponse -> {
                     log.info("p2pDataSyncRestService error,{}", clientResponse.statusCode().value());
-                    return Mono.error(new RuntimeException("p2pDataSyncRestService error " + clientResponse.statusCode().value()));
+                    // keep the status, the sync falls back to older endpoints on 404 and 415
+                    return clientResponse.createException();
                 }).build();
         HttpServiceProxyFactory proxyFactory
                 = HttpServiceProxyFactory.builderFor(
@@ -135,15 +140,18 @@ public class P2pDataSyncConfigurable {
         return proxyFactory.createClient(P2pDataSyncRestService.class);
     }
 
-    @Bean("dataSyncThreadPool")
-    public Executor dataSyncThreadPool() {
+    /**
+     * one thread per node sending at the same time, every node queues at most one drain task
+     */
+    @Bean("dataSyncPeerThreadPool")
+    public ThreadPoolTaskExecutor dataSyncPeerThreadPool() {
         ThreadPoolTaskExecutor threadPoolTaskExecutor = new ThreadPoolTaskExecutor();
-        threadPoolTaskExecutor.setCorePoolSize(11);
-        threadPoolTaskExecutor.setMaxPoolSize(20);
-        threadPoolTaskExecutor.setQueueCapacity(100);
-        threadPoolTaskExecutor.setThreadNamePrefix("DataSyncThreadPool-");
-        threadPoolTaskExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        threadPoolTaskExecutor.setCorePoolSize(maxInflightPeers);
+        threadPoolTaskExecutor.setMaxPoolSize(maxInflightPeers);
+        threadPoolTaskExecutor.setThreadNamePrefix("DataSyncPeerThreadPool-");
+        threadPoolTaskExecutor.setWaitForTasksToCompleteOnShutdown(true);
+        threadPoolTaskExecutor.setAwaitTerminationSeconds(10);
         threadPoolTaskExecutor.initialize();
         return threadPoolTaskExecutor;
     }
-}
\ No newline at end of file
+}
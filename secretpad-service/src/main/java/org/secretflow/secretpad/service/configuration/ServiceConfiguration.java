@@ -32,6 +32,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.util.CollectionUtils;
 
 import java.io.IOException;
@@ -84,6 +86,36 @@ public class ServiceConfiguration {
         return voteTypeHandlerMap;
     }
 
+    /**
+     * one thread advances the votes, so that the steps of one vote never overlap
+     */
+    @Bean("voteStateThreadPool")
+    @Profile(SKIP_TEST)
+    public ThreadPoolTaskExecutor voteStateThreadPool() {
+        ThreadPoolTaskExecutor threadPoolTaskExecutor = new ThreadPoolTaskExecutor();
+        threadPoolTaskExecutor.setCorePoolSize(1);
+        threadPoolTaskExecutor.setMaxPoolSize(1);
+        threadPoolTaskExecutor.setThreadNamePrefix("VoteStateThreadPool-");
+        threadPoolTaskExecutor.initialize();
+        return threadPoolTaskExecutor;
+    }
+
+    /**
+     * looks up the datatables of a job being rendered at the same time, the lookups run as the user of the render
+     */
+    @Bean("jobRenderThreadPool")
+    public ThreadPoolTaskExecutor jobRenderThreadPool(@Value("${secretpad.job.render.lookup-threads:8}") int lookupThreads,
+                                                      TaskDecorator logTaskDecorator) {
+        ThreadPoolTaskExecutor threadPoolTaskExecutor = new ThreadPoolTaskExecutor();
+        threadPoolTaskExecutor.setCorePoolSize(lookupThreads);
+        threadPoolTaskExecutor.setMaxPoolSize(lookupThreads);
+        threadPoolTaskExecutor.setAllowCoreThreadTimeOut(true);
+        threadPoolTaskExecutor.setThreadNamePrefix("JobRenderThreadPool-");
+        threadPoolTaskExecutor.setTaskDecorator(logTaskDecorator);
+        threadPoolTaskExecutor.initialize();
+        return threadPoolTaskExecutor;
+    }
+
     @Bean
     @Profile(SKIP_TEST)
     public ICloudLogService iCloudLogService(CloudLogServiceFactory cloudLogServiceFactory) {
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.graph;
+
+import org.secretflow.secretpad.common.util.FileUtils;
+import org.secretflow.secretpad.common.util.JsonUtils;
+import org.secretflow.secretpad.common.util.Sha256Utils;
+import org.secretflow.secretpad.service.constant.ComponentConstants;
+import org.secretflow.secretpad.service.model.graph.CompListVO;
+import org.secretflow.secretpad.service.model.graph.ComponentKey;
+import org.secretflow.secretpad.service.model.graph.ComponentSummaryDef;
+
+import com.secretflow.spec.v1.CompListDef;
+import com.secretflow.spec.v1.ComponentDef;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.CollectionUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Component catalog
+ * <p>
+ * The components, the component list view and the merged i18n table, built once from the component definitions and
+ * the i18n files and not changed afterwards. A new catalog is built when the definitions change. The list view and
+ * the i18n table carry an ETag of their content, so that clients can revalidate them instead of downloading them
+ * again.
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+@Slf4j
+@Getter
+public class ComponentCatalog {
+
+    private final Map<ComponentKey, ComponentDef> components;
+    /**
+     * Components which are hidden from the list, by name
+     */
+    private final Map<String, ComponentDef> hiddenComponents;
+    private final Map<String, CompListVO> componentList;
+    private final String componentListEtag;
+    /**
+     * Null if the i18n files could not be read, see i18nError
+     */
+    private final Map<String, Map<String, Object>> i18n;
+    private final String i18nEtag;
+    private final IOException i18nError;
+
+    private ComponentCatalog(Map<ComponentKey, ComponentDef> components, Map<String, ComponentDef> hiddenComponents,
+                             Map<String, CompListVO> componentList, Map<String, Map<String, Object>> i18n, IOException i18nError) {
+        this.components = Collections.unmodifiableMap(components);
+        this.hiddenComponents = Collections.unmodifiableMap(hiddenComponents);
+        this.componentList = Collections.unmodifiableMap(componentList);
+        this.componentListEtag = etag(componentList);
+        this.i18n = i18n == null ? null : Collections.unmodifiableMap(i18n);
+        this.i18nEtag = i18n == null ? null : etag(i18n);
+        this.i18nError = i18nError;
+    }
+
+    /**
+     * @param compListDefs component definitions
+     * @param hide         hidden components, app/domain/name:version of components and app/key of i18n entries
+     * @param i18nDir      directory of the i18n files, one file per app
+     * @return catalog of the components
+     */
+    public static ComponentCatalog build(List<CompListDef> compListDefs, Collection<String> hide, File i18nDir) {
+        Set<String> hidden = hide == null ? Set.of() : new HashSet<>(hide);
+        Map<ComponentKey, ComponentDef> components = new HashMap<>();
+        Map<String, ComponentDef> hiddenComponents = new HashMap<>();
+        Map<String, CompListVO> componentList = new HashMap<>();
+        for (CompListDef compListDef : compListDefs) {
+            List<ComponentDef> comps = compListDef.getCompsList();
+            if (CollectionUtils.isEmpty(comps)) {
+                continue;
+            }
+            List<ComponentSummaryDef> summaries = new ArrayList<>();
+            for (ComponentDef componentDef : comps) {
+                components.put(new ComponentKey(compListDef.getName(), componentDef.getDomain(), componentDef.getName()), componentDef);
+                //secretflow/domain/name:version
+                String hideKey = compListDef.getName() + "/" + componentDef.getDomain() + "/" + componentDef.getName() + ":" + componentDef.getVersion();
+                if (hidden.contains(hideKey)) {
+                    log.info("hide {}", hideKey);
+                    hiddenComponents.put(componentDef.getName(), componentDef);
+                    continue;
+                }
+                summaries.add(ComponentSummaryDef.builder()
+                        .domain(componentDef.getDomain())
+                        .name(componentDef.getName())
+                        .version(componentDef.getVersion())
+                        .desc(componentDef.getDesc())
+                        .build());
+            }
+            componentList.put(compListDef.getName(), CompListVO.builder()
+                    .name(compListDef.getName())
+                    .version(compListDef.getVersion())
+                    .desc(compListDef.getDesc())
+                    .comps(Collections.unmodifiableList(summaries)).build());
+        }
+        componentList.remove(ComponentConstants.SECRETPAD);
+        componentList.remove(ComponentConstants.SCQL);
+
+        Map<String, Map<String, Object>> i18n = null;
+        IOException i18nError = null;
+        try {
+            i18n = loadI18n(i18nDir, hidden);
+        } catch (IOException e) {
+            log.error("read component i18n from {} failed", i18nDir, e);
+            i18nError = e;
+        }
+        return new ComponentCatalog(components, hiddenComponents, componentList, i18n, i18nError);
+    }
+
+    /**
+     * the secretpad entries are merged into every app and the scql entries into secretflow
+     */
+    private static Map<String, Map<String, Object>> loadI18n(File dir, Set<String> hidden) throws IOException {
+        Map<String, Map<String, Object>> config = new HashMap<>();
+        Map<String, Object> secretpad = new HashMap<>();
+        Map<String, Object> scql = new HashMap<>();
+        File[] files = dir == null ? null : dir.listFiles();
+        if (files == null) {
+            return config;
+        }
+        for (File file : files) {
+            String fileName = file.getName();
+            String app = fileName.substring(0, fileName.lastIndexOf('.'));
+            Map<String, Object> content = JsonUtils.toJavaMap(FileUtils.readFile2String(file), Object.class);
+            if (!CollectionUtils.isEmpty(content)) {
+                if (app.equals(ComponentConstants.SECRETPAD)) {
+                    secretpad = content;
+                } else if (app.equals(ComponentConstants.SCQL)) {
+                    scql = content;
+                } else {
+                    config.put(app, new HashMap<>(content));
+                }
+            }
+        }
+        for (Map<String, Object> content : config.values()) {
+            content.putAll(secretpad);
+        }
+        if (config.containsKey(ComponentConstants.SECRETFLOW)) {
+            config.get(ComponentConstants.SECRETFLOW).putAll(scql);
+        }
+        config.forEach((app, content) -> content.keySet().removeIf(key -> hidden.contains(app + "/" + key)));
+        config.replaceAll((app, content) -> Collections.unmodifiableMap(content));
+        return config;
+    }
+
+    private static String etag(Object content) {
+        return "\"" + Sha256Utils.hash(JsonUtils.toJSONString(content)) + "\"";
+    }
+
+    /**
+     * @return fingerprint of the files in the directories, it changes when a file is added, removed or written
+     */
+    public static String fingerprint(File... dirs) {
+        StringBuilder sb = new StringBuilder();
+        for (File dir : dirs) {
+            File[] files = dir.listFiles();
+            if (files == null) {
+                continue;
+            }
+            Arrays.sort(files);
+            for (File file : files) {
+                sb.append(file.getPath()).append('#').append(file.length()).append('#').append(file.lastModified()).append('\n');
+            }
+        }
+        return Sha256Utils.hash(sb.toString());
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.graph;
+
+import org.secretflow.secretpad.persistence.datasync.event.EntityChangedEvent;
+import org.secretflow.secretpad.persistence.entity.NodeDO;
+import org.secretflow.secretpad.persistence.entity.ProjectGraphDO;
+import org.secretflow.secretpad.persistence.entity.ProjectGraphNodeDO;
+import org.secretflow.secretpad.persistence.entity.ProjectJobDO;
+import org.secretflow.secretpad.persistence.entity.ProjectTaskDO;
+import org.secretflow.secretpad.persistence.model.GraphNodeTaskStatus;
+import org.secretflow.secretpad.persistence.projection.ProjectJobStatus;
+import org.secretflow.secretpad.persistence.repository.NodeRepository;
+import org.secretflow.secretpad.persistence.repository.ProjectJobRepository;
+import org.secretflow.secretpad.persistence.repository.ProjectJobTaskRepository;
+import org.secretflow.secretpad.service.model.graph.GraphNodeStatusVO;
+import org.secretflow.secretpad.service.model.graph.GraphStatus;
+import org.secretflow.secretpad.service.model.node.NodeSimpleInfo;
+
+import jakarta.annotation.Resource;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.CollectionUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Graph status view
+ * <p>
+ * The status of all nodes of a graph is read with one query for the latest tasks, one for the parties and one for the
+ * jobs. The result is kept per graph for ttl-ms, so that the canvas polls of a graph are served from memory. A task
+ * or job of the project which changes, by the job watch or by consumed sync data, drops the snapshots of the project
+ * once its transaction committed. Expired snapshots are dropped whenever a graph is loaded.
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+@Slf4j
+@Component
+public class GraphStatusView {
+
+    private final ConcurrentMap<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+    /**
+     * changes of each project, a snapshot read while the project changed is not kept
+     */
+    private final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    @Resource
+    @Setter
+    private ProjectJobTaskRepository taskRepository;
+
+    @Resource
+    @Setter
+    private ProjectJobRepository jobRepository;
+
+    @Resource
+    @Setter
+    private NodeRepository nodeRepository;
+
+    @Value("${secretpad.graph.status-cache.ttl-ms:5000}")
+    @Setter
+    private long ttlMillis = 5000;
+
+    /**
+     * @param graphDO target graph data object
+     * @return latest task status of every node of the graph
+     */
+    public GraphStatus get(ProjectGraphDO graphDO) {
+        String projectId = graphDO.getUpk().getProjectId();
+        String key = projectId + "/" + graphDO.getUpk().getGraphId();
+        List<String> graphNodeIds = CollectionUtils.isEmpty(graphDO.getNodes()) ? List.of()
+                : graphDO.getNodes().stream().map(ProjectGraphNodeDO::getUpk).map(ProjectGraphNodeDO.UPK::getGraphNodeId).toList();
+        Set<String> nodeIdSet = new HashSet<>(graphNodeIds);
+        Snapshot snapshot = snapshots.get(key);
+        if (snapshot == null || snapshot.expireAt < System.currentTimeMillis() || !snapshot.graphNodeIds.equals(nodeIdSet)) {
+            long now = System.currentTimeMillis();
+            snapshots.values().removeIf(s -> s.expireAt < now);
+            AtomicLong version = versions.computeIfAbsent(projectId, k -> new AtomicLong());
+            long before = version.get();
+            Snapshot loaded = load(projectId, nodeIdSet);
+            // checked under the lock of the key, a change counted after it removes the snapshot put here
+            snapshots.compute(key, (k, old) -> ttlMillis > 0 && version.get() == before ? loaded : null);
+            snapshot = loaded;
+        }
+        return snapshot.toStatus(graphNodeIds);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.getEntity() instanceof ProjectTaskDO || event.getEntity() instanceof ProjectJobDO) {
+            String projectId = event.getEntity().getProjectId();
+            if (projectId == null) {
+                return;
+            }
+            versions.computeIfAbsent(projectId, k -> new AtomicLong()).incrementAndGet();
+            snapshots.keySet().removeIf(key -> key.startsWith(projectId + "/"));
+        }
+    }
+
+    private Snapshot load(String projectId, Set<String> graphNodeIds) {
+        if (graphNodeIds.isEmpty()) {
+            return new Snapshot(graphNodeIds, Map.of(), true, System.currentTimeMillis() + ttlMillis);
+        }
+        List<ProjectTaskDO> tasks = taskRepository.findLatestTasksOfGraphNodes(projectId, graphNodeIds);
+        Set<String> parties = tasks.stream().filter(t -> t.getParties() != null)
+                .flatMap(t -> t.getParties().stream()).collect(Collectors.toSet());
+        Map<String, NodeDO> nodes = parties.isEmpty() ? Map.of() : nodeRepository.findByNodeIdIn(parties).stream()
+                .collect(Collectors.toMap(NodeDO::getNodeId, Function.identity(), (a, b) -> a));
+        Map<String, GraphNodeStatusVO> nodeStatus = new HashMap<>();
+        List<String> jobIds = new ArrayList<>();
+        for (ProjectTaskDO task : tasks) {
+            GraphNodeStatusVO nodeStatusVO = new GraphNodeStatusVO();
+            nodeStatusVO.setGraphNodeId(task.getGraphNodeId());
+            nodeStatusVO.setStatus(task.getStatus());
+            nodeStatusVO.setTaskId(task.getUpk().getTaskId());
+            nodeStatusVO.setJobId(task.getUpk().getJobId());
+            nodeStatusVO.setParties(task.getParties() == null ? new ArrayList<>() : task.getParties().stream().map(nodes::get).filter(Objects::nonNull)
+                    .map(e -> NodeSimpleInfo.builder().nodeName(e.getName()).nodeId(e.getNodeId()).build()).collect(Collectors.toList()));
+            nodeStatusVO.setProgress(task.getExtraInfo().getProgress());
+            nodeStatus.put(task.getGraphNodeId(), nodeStatusVO);
+            jobIds.add(task.getUpk().getJobId());
+        }
+        boolean finished = true;
+        if (!jobIds.isEmpty()) {
+            for (ProjectJobStatus job : jobRepository.findStatusByJobIds(projectId, jobIds)) {
+                if (!job.isFinished()) {
+                    finished = false;
+                    break;
+                }
+            }
+        }
+        log.debug("graph status of project {} loaded, {} nodes {} tasks", projectId, graphNodeIds.size(), tasks.size());
+        return new Snapshot(graphNodeIds, nodeStatus, finished, System.currentTimeMillis() + ttlMillis);
+    }
+
+    private static class Snapshot {
+        private final Set<String> graphNodeIds;
+        private final Map<String, GraphNodeStatusVO> nodeStatus;
+        private final boolean finished;
+        private final long expireAt;
+
+        private Snapshot(Set<String> graphNodeIds, Map<String, GraphNodeStatusVO> nodeStatus, boolean finished, long expireAt) {
+            this.graphNodeIds = graphNodeIds;
+            this.nodeStatus = nodeStatus;
+            this.finished = finished;
+            this.expireAt = expireAt;
+        }
+
+        /**
+         * @return a copy in the order of the graph nodes, callers may change it
+         */
+        private GraphStatus toStatus(List<String> graphNodeIds) {
+            List<GraphNodeStatusVO> nodes = new ArrayList<>(graphNodeIds.size());
+            for (String graphNodeId : graphNodeIds) {
+                GraphNodeStatusVO cached = nodeStatus.get(graphNodeId);
+                GraphNodeStatusVO nodeStatusVO = new GraphNodeStatusVO();
+                nodeStatusVO.setGraphNodeId(graphNodeId);
+                nodeStatusVO.setStatus(GraphNodeTaskStatus.STAGING);
+                if (cached != null) {
+                    nodeStatusVO.setStatus(cached.getStatus());
+                    nodeStatusVO.setTaskId(cached.getTaskId());
+                    nodeStatusVO.setJobId(cached.getJobId());
+                    nodeStatusVO.setParties(new ArrayList<>(cached.getParties()));
+                    nodeStatusVO.setProgress(cached.getProgress());
+                }
+                nodes.add(nodeStatusVO);
+            }
+            return new GraphStatus(finished, nodes);
+        }
+    }
+}
@@ -19,7 +19,6 @@ package org.secretflow.secretpad.service.graph.chain;
 import org.secretflow.secretpad.common.errorcode.DatatableErrorCode;
 import org.secretflow.secretpad.common.errorcode.GraphErrorCode;
 import org.secretflow.secretpad.common.exception.SecretpadException;
-import org.secretflow.secretpad.common.util.JsonUtils;
 import org.secretflow.secretpad.manager.integration.datatable.AbstractDatatableManager;
 import org.secretflow.secretpad.manager.integration.model.DatatableDTO;
 import org.secretflow.secretpad.manager.integration.model.OdpsPartitionParam;
@@ -32,7 +31,6 @@ import org.secretflow.secretpad.service.EnvService;
 import org.secretflow.secretpad.service.constant.ComponentConstants;
 import org.secretflow.secretpad.service.graph.ComponentTools;
 import org.secretflow.secretpad.service.graph.DistDataVO;
-import org.secretflow.secretpad.service.graph.GraphBuilder;
 import org.secretflow.secretpad.service.graph.GraphContext;
 import org.secretflow.secretpad.service.graph.adapter.NodeDefAdapterFactory;
 import org.secretflow.secretpad.service.model.graph.GraphNodeInfo;
@@ -44,11 +42,15 @@ import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.secretflow.proto.pipeline.Pipeline;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.ObjectUtils;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -72,6 +74,8 @@ public class JobRenderHandler extends AbstractJobHandler<ProjectJob> {
     private NodeDefAdapterFactory nodeDefAdapterFactory;
     @Resource
     private EnvService envService;
+    @Resource(name = "jobRenderThreadPool")
+    private ThreadPoolTaskExecutor jobRenderThreadPool;
 
 
     /**
@@ -81,9 +85,10 @@ public class JobRenderHandler extends AbstractJobHandler<ProjectJob> {
      */
     @Override
     public void doHandler(ProjectJob job) {
-        ProjectJob newJob = JsonUtils.toJavaObject(JsonUtils.toJSONString(job), ProjectJob.class);
-        renderInputs(newJob);
-        renderOutputs(newJob);
+        ProjectJob newJob = job.copy();
+        JobRenderPlan plan = JobRenderPlan.of(newJob, componentService::isSecretpadComponent);
+        renderInputs(newJob, plan);
+        renderOutputs(newJob, plan);
         renderCustomizeSpec(newJob);
         pruneJob(newJob);
         if (next != null) {
@@ -92,15 +97,22 @@ public class JobRenderHandler extends AbstractJobHandler<ProjectJob> {
     }
 
     /**
-     * Render job inputs
+     * Render job inputs, the latest tasks of the dependencies are looked up and checked first,
+     * then the datatables read are looked up together
      *
-     * @param job target job
+     * @param job  target job
+     * @param plan render plan of the job
      */
-    void renderInputs(ProjectJob job) {
+    void renderInputs(ProjectJob job, JobRenderPlan plan) {
         String projectId = job.getProjectId();
-        GraphBuilder graphBuilder = new GraphBuilder(job.getFullNodes());
         List<ProjectJob.JobTask> jobTasks = job.getTasks();
-        List<String> selectedNodes = jobTasks.stream().map(task -> task.getNode().getGraphNodeId()).toList();
+        Set<String> selectedNodes = plan.getSelectedNodes();
+        Map<String, ProjectTaskDO> latestTasks = plan.getUnselectedDependencies().isEmpty() ? Map.of()
+                : taskRepository.findLatestTasksOfGraphNodes(projectId, plan.getUnselectedDependencies()).stream()
+                .collect(Collectors.toMap(ProjectTaskDO::getGraphNodeId, Function.identity(), (a, b) -> a));
+        checkDependenciesRun(job, plan, latestTasks);
+        Map<String, List<ProjectDatatableDO>> projectDatatables = new HashMap<>();
+        Map<DatatableDTO.NodeDatatableId, DatatableDTO> datatables = findDatatables(job, plan, projectDatatables);
         for (ProjectJob.JobTask task : jobTasks) {
             GraphNodeInfo graphNodeInfo = task.getNode();
             if (componentService.isSecretpadComponent(graphNodeInfo)) {
@@ -118,41 +130,22 @@ public class JobRenderHandler extends AbstractJobHandler<ProjectJob> {
 
             if (!CollectionUtils.isEmpty(inputs)) {
                 for (String input : inputs) {
-                    GraphNodeInfo dependencyGraphNode = graphBuilder.getNodeByInputId(input);
+                    GraphNodeInfo dependencyGraphNode = plan.getInputNodes().get(input);
                     String dependencyGraphNodeId = dependencyGraphNode.getGraphNodeId();
                     if (componentService.isSecretpadComponent(dependencyGraphNode)) {
-                        // dependency graph node is read data
-                        if (!selectedNodes.contains(dependencyGraphNodeId)) {
-                            // read data not exists in selectNodes, must have been run
-                            Optional<ProjectTaskDO> projectTaskDOOptional = taskRepository.findLatestTasks(projectId, dependencyGraphNodeId);
-                            if (projectTaskDOOptional.isEmpty()) {
-                                throw SecretpadException.of(GraphErrorCode.GRAPH_DEPENDENT_NODE_NOT_RUN, dependencyGraphNodeId);
-                            }
-                        }
-                        String datatableId = ComponentTools.getDataTableId(dependencyGraphNode);
+                        // dependency graph node is read data, checked to have been run if not exists in selectNodes
+                        String datatableId = plan.getReadDatatableIds().get(dependencyGraphNodeId);
                         /* read data  */
                         if (ComponentConstants.COMP_READ_DATA_DATATABLE_ID.equals(dependencyGraphNode.codeName)) {
-                            List<ProjectDatatableDO> datatableDOS = datatableRepository.findByDatableId(projectId, datatableId);
-                            if (CollectionUtils.isEmpty(datatableDOS)) {
-                                throw SecretpadException.of(DatatableErrorCode.DATATABLE_NOT_EXISTS);
-                            }
-                            Optional<DatatableDTO> datatableDTOOptional = Optional.empty();
-                            for (ProjectDatatableDO projectDatatableDO : datatableDOS) {
-                                // domain data grant query , in p2p should be one of project node in local inst
-                                String localNodeId = envService.findLocalNodeId(task);
-                                String nodeId = projectDatatableDO.getUpk().getNodeId();
-                                nodeId = StringUtils.isBlank(localNodeId) ? nodeId : localNodeId;
-                                log.warn("[JobRenderHandler] find datatable, nodeId:{}, datatableId:{}", nodeId, datatableId);
-                                datatableDTOOptional = datatableManager.findById(DatatableDTO.NodeDatatableId.from(nodeId, datatableId));
-                                if (datatableDTOOptional.isEmpty()) {
-                                    throw SecretpadException.of(DatatableErrorCode.DATATABLE_NOT_EXISTS, "nodeId=" + nodeId, "tableId=" + datatableId);
-                                }
-                                DistData distData = DistDataVO.fromDatatable(projectDatatableDO, datatableDTOOptional.get());
+                            DatatableDTO datatableDTO = null;
+                            for (ProjectDatatableDO projectDatatableDO : projectDatatables.get(datatableId)) {
+                                datatableDTO = datatables.get(datatableNodeId(task, projectDatatableDO));
+                                DistData distData = DistDataVO.fromDatatable(projectDatatableDO, datatableDTO);
                                 nodeDefBuilder.addInputs(distData);
                             }
 
                             String datatable_partition = ComponentTools.getDataTablePartition(dependencyGraphNode);
-                            OdpsPartitionParam partition = datatableDTOOptional.get().getPartition();
+                            OdpsPartitionParam partition = datatableDTO.getPartition();
                             Set<String> fieldNames = new HashSet<>();
                             if (org.apache.commons.lang3.ObjectUtils.isNotEmpty(partition)) {
                                 List<OdpsPartitionParam.Field> fields = partition.getFields();
@@ -162,7 +155,7 @@ public class JobRenderHandler extends AbstractJobHandler<ProjectJob> {
                             }
                             GraphContext.set(new HashMap<>(Map.of(datatableId, GraphContext.PartitionInfo.builder()
                                     .partitionColumns(fieldNames)
-                                    .tableName(datatableDTOOptional.get().getRelativeUri())
+                                    .tableName(datatableDTO.getRelativeUri())
                                     .readRule(datatable_partition)
                                     .build())));
                         }
@@ -180,11 +173,11 @@ public class JobRenderHandler extends AbstractJobHandler<ProjectJob> {
                             dependencies.add(JobUtils.genTaskId(job.getJobId(), dependencyGraphNodeId));
                         } else {
                             // dependency sf graph node not exists in selectNodes
-                            Optional<ProjectTaskDO> projectTaskDOOptional = taskRepository.findLatestTasks(projectId, dependencyGraphNodeId);
-                            if (projectTaskDOOptional.isEmpty()) {
+                            ProjectTaskDO latestTask = latestTasks.get(dependencyGraphNodeId);
+                            if (latestTask == null) {
                                 throw SecretpadException.of(DatatableErrorCode.DATATABLE_NOT_EXISTS);
                             }
-                            String jobId = projectTaskDOOptional.get().getUpk().getJobId();
+                            String jobId = latestTask.getUpk().getJobId();
                             String taskOutputId = JobUtils.genTaskOutputId(jobId, input);
                             newInputs.add(taskOutputId);
                         }
@@ -197,25 +190,111 @@ public class JobRenderHandler extends AbstractJobHandler<ProjectJob> {
         }
     }
 
+    /**
+     * Check the read data dependencies not exist in selectNodes have been run, before any datatable is looked up
+     *
+     * @param latestTasks latest task of each unselected dependency
+     */
+    private void checkDependenciesRun(ProjectJob job, JobRenderPlan plan, Map<String, ProjectTaskDO> latestTasks) {
+        for (ProjectJob.JobTask task : job.getTasks()) {
+            GraphNodeInfo graphNodeInfo = task.getNode();
+            if (componentService.isSecretpadComponent(graphNodeInfo) || CollectionUtils.isEmpty(graphNodeInfo.getInputs())) {
+                continue;
+            }
+            for (String input : graphNodeInfo.getInputs()) {
+                GraphNodeInfo dependencyGraphNode = plan.getInputNodes().get(input);
+                String dependencyGraphNodeId = dependencyGraphNode.getGraphNodeId();
+                if (componentService.isSecretpadComponent(dependencyGraphNode)
+                        && !plan.getSelectedNodes().contains(dependencyGraphNodeId)
+                        && !latestTasks.containsKey(dependencyGraphNodeId)) {
+                    throw SecretpadException.of(GraphErrorCode.GRAPH_DEPENDENT_NODE_NOT_RUN, dependencyGraphNodeId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Look up the datatables read by the job, each distinct datatable once and all of them at the same time
+     *
+     * @param projectDatatables filled with the project datatables of each datatable id read
+     * @return datatable of each node datatable id read
+     */
+    private Map<DatatableDTO.NodeDatatableId, DatatableDTO> findDatatables(ProjectJob job, JobRenderPlan plan,
+                                                                         Map<String, List<ProjectDatatableDO>> projectDatatables) {
+        Set<DatatableDTO.NodeDatatableId> nodeDatatableIds = new LinkedHashSet<>();
+        for (ProjectJob.JobTask task : job.getTasks()) {
+            GraphNodeInfo graphNodeInfo = task.getNode();
+            if (componentService.isSecretpadComponent(graphNodeInfo) || CollectionUtils.isEmpty(graphNodeInfo.getInputs())) {
+                continue;
+            }
+            for (String input : graphNodeInfo.getInputs()) {
+                GraphNodeInfo dependencyGraphNode = plan.getInputNodes().get(input);
+                if (!componentService.isSecretpadComponent(dependencyGraphNode)
+                        || !ComponentConstants.COMP_READ_DATA_DATATABLE_ID.equals(dependencyGraphNode.codeName)) {
+                    continue;
+                }
+                String datatableId = plan.getReadDatatableIds().get(dependencyGraphNode.getGraphNodeId());
+                List<ProjectDatatableDO> datatableDOS = projectDatatables.computeIfAbsent(datatableId,
+                        id -> datatableRepository.findByDatableId(job.getProjectId(), id));
+                if (CollectionUtils.isEmpty(datatableDOS)) {
+                    throw SecretpadException.of(DatatableErrorCode.DATATABLE_NOT_EXISTS);
+                }
+                for (ProjectDatatableDO projectDatatableDO : datatableDOS) {
+                    nodeDatatableIds.add(datatableNodeId(task, projectDatatableDO));
+                }
+            }
+        }
+        Map<DatatableDTO.NodeDatatableId, CompletableFuture<Optional<DatatableDTO>>> futures = new LinkedHashMap<>();
+        for (DatatableDTO.NodeDatatableId nodeDatatableId : nodeDatatableIds) {
+            log.info("[JobRenderHandler] find datatable, nodeId:{}, datatableId:{}", nodeDatatableId.getNodeId(), nodeDatatableId.getDatatableId());
+            futures.put(nodeDatatableId, CompletableFuture.supplyAsync(() -> datatableManager.findById(nodeDatatableId), jobRenderThreadPool));
+        }
+        Map<DatatableDTO.NodeDatatableId, DatatableDTO> datatables = new HashMap<>();
+        for (Map.Entry<DatatableDTO.NodeDatatableId, CompletableFuture<Optional<DatatableDTO>>> entry : futures.entrySet()) {
+            Optional<DatatableDTO> datatableDTOOptional;
+            try {
+                datatableDTOOptional = entry.getValue().join();
+            } catch (CompletionException e) {
+                futures.values().forEach(f -> f.cancel(false));
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+            if (datatableDTOOptional.isEmpty()) {
+                throw SecretpadException.of(DatatableErrorCode.DATATABLE_NOT_EXISTS, "nodeId=" + entry.getKey().getNodeId(), "tableId=" + entry.getKey().getDatatableId());
+            }
+            datatables.put(entry.getKey(), datatableDTOOptional.get());
+        }
+        return datatables;
+    }
+
+    /**
+     * domain data grant query , in p2p should be one of project node in local inst
+     */
+    private DatatableDTO.NodeDatatableId datatableNodeId(ProjectJob.JobTask task, ProjectDatatableDO projectDatatableDO) {
+        String localNodeId = envService.findLocalNodeId(task);
+        String nodeId = StringUtils.isBlank(localNodeId) ? projectDatatableDO.getUpk().getNodeId() : localNodeId;
+        return DatatableDTO.NodeDatatableId.from(nodeId, projectDatatableDO.getUpk().getDatatableId());
+    }
+
     /**
      * Render job outputs
      *
-     * @param job target job
+     * @param job  target job
+     * @param plan render plan of the job
      */
-    void renderOutputs(ProjectJob job) {
-        String jobId = job.getJobId();
+    void renderOutputs(ProjectJob job, JobRenderPlan plan) {
         List<ProjectJob.JobTask> tasks = job.getTasks();
         if (!CollectionUtils.isEmpty(tasks)) {
-            Map<String, String> outputMap = new HashMap<>();
+            Map<String, String> outputMap = plan.getOutputIds();
             for (ProjectJob.JobTask task : tasks) {
                 GraphNodeInfo graphNode = task.getNode();
                 List<String> outputs = graphNode.getOutputs();
                 if (!CollectionUtils.isEmpty(outputs)) {
                     List<String> newOuts = new ArrayList<>();
                     for (String output : outputs) {
-                        String newOutput = JobUtils.genTaskOutputId(jobId, output);
-                        outputMap.put(output, newOutput);
-                        newOuts.add(newOutput);
+                        newOuts.add(outputMap.get(output));
                     }
                     graphNode.setOutputs(newOuts);
                 }
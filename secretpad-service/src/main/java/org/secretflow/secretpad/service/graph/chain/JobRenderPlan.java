@@ -0,0 +1,110 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.graph.chain;
+
+import org.secretflow.secretpad.service.graph.ComponentTools;
+import org.secretflow.secretpad.service.graph.GraphBuilder;
+import org.secretflow.secretpad.service.model.graph.GraphNodeInfo;
+import org.secretflow.secretpad.service.model.graph.ProjectJob;
+import org.secretflow.secretpad.service.util.JobUtils;
+
+import lombok.Getter;
+import org.springframework.util.CollectionUtils;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Render plan of a job
+ * <p>
+ * Resolves every input of the selected tasks to the graph node producing it and every output to its task output id
+ * once, and lists the lookups rendering needs: the latest task of each dependency which is not run with the job and
+ * the datatable of each read data node. The render stages read the plan instead of walking the graph again, and the
+ * lookups are done together before rendering.
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+@Getter
+public class JobRenderPlan {
+
+    /**
+     * Graph node ids of the job tasks
+     */
+    private final Set<String> selectedNodes;
+    /**
+     * Input id to the graph node producing it
+     */
+    private final Map<String, GraphNodeInfo> inputNodes;
+    /**
+     * Dependencies which are not run with the job and must have been run before
+     */
+    private final Set<String> unselectedDependencies;
+    /**
+     * Read data dependency graph node id to its datatable id
+     */
+    private final Map<String, String> readDatatableIds;
+    /**
+     * Output id to task output id of the job
+     */
+    private final Map<String, String> outputIds;
+
+    private JobRenderPlan(Set<String> selectedNodes, Map<String, GraphNodeInfo> inputNodes, Set<String> unselectedDependencies,
+                          Map<String, String> readDatatableIds, Map<String, String> outputIds) {
+        this.selectedNodes = Collections.unmodifiableSet(selectedNodes);
+        this.inputNodes = Collections.unmodifiableMap(inputNodes);
+        this.unselectedDependencies = Collections.unmodifiableSet(unselectedDependencies);
+        this.readDatatableIds = Collections.unmodifiableMap(readDatatableIds);
+        this.outputIds = Collections.unmodifiableMap(outputIds);
+    }
+
+    /**
+     * @param job                  job before rendering
+     * @param isSecretpadComponent whether a graph node is run by secretpad instead of kuscia
+     * @return plan of the job
+     */
+    public static JobRenderPlan of(ProjectJob job, Predicate<GraphNodeInfo> isSecretpadComponent) {
+        GraphBuilder graphBuilder = new GraphBuilder(job.getFullNodes());
+        Set<String> selectedNodes = new HashSet<>();
+        job.getTasks().forEach(task -> selectedNodes.add(task.getNode().getGraphNodeId()));
+        Map<String, GraphNodeInfo> inputNodes = new HashMap<>();
+        Set<String> unselectedDependencies = new LinkedHashSet<>();
+        Map<String, String> readDatatableIds = new LinkedHashMap<>();
+        Map<String, String> outputIds = new HashMap<>();
+        for (ProjectJob.JobTask task : job.getTasks()) {
+            GraphNodeInfo node = task.getNode();
+            if (!CollectionUtils.isEmpty(node.getOutputs())) {
+                node.getOutputs().forEach(output -> outputIds.put(output, JobUtils.genTaskOutputId(job.getJobId(), output)));
+            }
+            if (isSecretpadComponent.test(node) || CollectionUtils.isEmpty(node.getInputs())) {
+                continue;
+            }
+            for (String input : node.getInputs()) {
+                GraphNodeInfo dependency = graphBuilder.getNodeByInputId(input);
+                inputNodes.put(input, dependency);
+                String dependencyId = dependency.getGraphNodeId();
+                if (!selectedNodes.contains(dependencyId)) {
+                    unselectedDependencies.add(dependencyId);
+                }
+                if (isSecretpadComponent.test(dependency) && !readDatatableIds.containsKey(dependencyId)) {
+                    readDatatableIds.put(dependencyId, ComponentTools.getDataTableId(dependency));
+                }
+            }
+        }
+        return new JobRenderPlan(selectedNodes, inputNodes, unselectedDependencies, readDatatableIds, outputIds);
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.graph.partition;
+
+import org.secretflow.secretpad.common.constant.PartitionConstants;
+
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Partition rule
+ * <p>
+ * The typed tree of a read partition rule, conditions on partition columns joined by and / or. A rule does not depend
+ * on the table or the schedule date, so that one compiled rule is rendered for every job which reads with it.
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+@Getter
+public class PartitionRule {
+
+    public static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final String text;
+    private final List<Condition> conditions;
+    /**
+     * connectors.get(i) joins conditions i and i + 1
+     */
+    private final List<Connector> connectors;
+
+    PartitionRule(String text, List<Condition> conditions, List<Connector> connectors) {
+        this.text = text;
+        this.conditions = List.copyOf(conditions);
+        this.connectors = List.copyOf(connectors);
+    }
+
+    /**
+     * @param partitionColumns partition columns of the table
+     * @throws IllegalArgumentException if a condition is not on a partition column
+     */
+    public void validate(Collection<String> partitionColumns) {
+        for (Condition condition : conditions) {
+            if (partitionColumns == null || !partitionColumns.contains(condition.getColumn())) {
+                throw new IllegalArgumentException(String.format("Invalid partition condition at %d, column %s is not a partition column",
+                        condition.getPosition(), condition.getColumn()));
+            }
+        }
+    }
+
+    /**
+     * Render the rule to the odps partition spec
+     *
+     * @param tableName table of max_pt
+     * @param date      date of ${yyyymmdd}, today if null
+     * @return partition spec
+     */
+    public String render(String tableName, LocalDate date) {
+        LocalDate baseDate = date == null ? LocalDate.now() : date;
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < conditions.size(); i++) {
+            if (i > 0) {
+                sb.append(' ').append(connectors.get(i - 1).keyword).append(' ');
+            }
+            Condition condition = conditions.get(i);
+            sb.append(condition.getColumn()).append(condition.getOperator().symbol);
+            condition.getValue().render(sb, tableName, baseDate);
+        }
+        return sb.toString();
+    }
+
+    public enum Connector {
+        AND("and"),
+        OR("or");
+
+        private final String keyword;
+
+        Connector(String keyword) {
+            this.keyword = keyword;
+        }
+    }
+
+    public enum Operator {
+        EQ("="),
+        NE("!="),
+        GE(">="),
+        LE("<="),
+        GT(">"),
+        LT("<");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+    }
+
+    @Getter
+    public static class Condition {
+        private final String column;
+        private final Operator operator;
+        private final Value value;
+        /**
+         * offset of the condition in the rule text
+         */
+        private final int position;
+
+        Condition(String column, Operator operator, Value value, int position) {
+            this.column = column;
+            this.operator = operator;
+            this.value = value;
+            this.position = position;
+        }
+    }
+
+    public interface Value {
+        void render(StringBuilder sb, String tableName, LocalDate date);
+    }
+
+    /**
+     * a word or a quoted string, written as it was
+     */
+    @Getter
+    public static class Literal implements Value {
+        private final String text;
+
+        Literal(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public void render(StringBuilder sb, String tableName, LocalDate date) {
+            sb.append(text);
+        }
+    }
+
+    /**
+     * maxpt, the latest partition of the table
+     */
+    public static class MaxPt implements Value {
+        static final MaxPt INSTANCE = new MaxPt();
+
+        @Override
+        public void render(StringBuilder sb, String tableName, LocalDate date) {
+            sb.append(PartitionConstants.ODPS_PARTITION_MAX_PT).append("('").append(tableName).append("')");
+        }
+    }
+
+    /**
+     * ${yyyymmdd}, ${yyyymmdd+n} or ${yyyymmdd-n}, the schedule date moved by n days
+     */
+    @Getter
+    public static class DateVariable implements Value {
+        private final int offsetDays;
+
+        DateVariable(int offsetDays) {
+            this.offsetDays = offsetDays;
+        }
+
+        @Override
+        public void render(StringBuilder sb, String tableName, LocalDate date) {
+            sb.append('\'').append(date.plusDays(offsetDays).format(DATE_FORMATTER)).append('\'');
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.graph.partition;
+
+import org.secretflow.secretpad.common.constant.PartitionConstants;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Partition rule parser
+ * <p>
+ * A recursive descent parser of the read partition rule grammar:
+ * <pre>
+ * rule      := condition (connector condition)*
+ * connector := AND | OR                          case insensitive
+ * condition := word operator value
+ * operator  := = | != | &gt;= | &lt;= | &gt; | &lt;
+ * value     := word | 'word' | maxpt | ${yyyymmdd} | ${yyyymmdd+n} | ${yyyymmdd-n}
+ * word      := [A-Za-z0-9_]+
+ * </pre>
+ * Errors name the offset in the rule text where the rule stops matching the grammar.
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+public class PartitionRuleParser {
+
+    private static final String DATE_VARIABLE = "yyyymmdd";
+
+    private final String text;
+    private int pos;
+
+    private PartitionRuleParser(String text) {
+        this.text = text;
+    }
+
+    /**
+     * @param text rule text
+     * @return compiled rule
+     * @throws IllegalArgumentException if the text is not a rule
+     */
+    public static PartitionRule parse(String text) {
+        return new PartitionRuleParser(text).rule();
+    }
+
+    private PartitionRule rule() {
+        List<PartitionRule.Condition> conditions = new ArrayList<>();
+        List<PartitionRule.Connector> connectors = new ArrayList<>();
+        conditions.add(condition());
+        skipSpaces();
+        while (pos < text.length()) {
+            int start = pos;
+            String keyword = word();
+            if ("and".equalsIgnoreCase(keyword)) {
+                connectors.add(PartitionRule.Connector.AND);
+            } else if ("or".equalsIgnoreCase(keyword)) {
+                connectors.add(PartitionRule.Connector.OR);
+            } else {
+                throw error(start, "expected and / or");
+            }
+            conditions.add(condition());
+            skipSpaces();
+        }
+        return new PartitionRule(text, conditions, connectors);
+    }
+
+    private PartitionRule.Condition condition() {
+        skipSpaces();
+        int start = pos;
+        String column = word();
+        if (column.isEmpty()) {
+            throw error(start, "expected partition column");
+        }
+        skipSpaces();
+        PartitionRule.Operator operator = operator();
+        skipSpaces();
+        return new PartitionRule.Condition(column, operator, value(), start);
+    }
+
+    private PartitionRule.Operator operator() {
+        if (text.startsWith("!=", pos)) {
+            pos += 2;
+            return PartitionRule.Operator.NE;
+        }
+        if (text.startsWith(">=", pos)) {
+            pos += 2;
+            return PartitionRule.Operator.GE;
+        }
+        if (text.startsWith("<=", pos)) {
+            pos += 2;
+            return PartitionRule.Operator.LE;
+        }
+        char c = pos < text.length() ? text.charAt(pos) : 0;
+        PartitionRule.Operator operator = switch (c) {
+            case '=' -> PartitionRule.Operator.EQ;
+            case '>' -> PartitionRule.Operator.GT;
+            case '<' -> PartitionRule.Operator.LT;
+            default -> throw error(pos, "expected =, !=, >=, <=, > or <");
+        };
+        pos++;
+        return operator;
+    }
+
+    private PartitionRule.Value value() {
+        int start = pos;
+        if (text.startsWith("${", pos)) {
+            return dateVariable();
+        }
+        if (pos < text.length() && text.charAt(pos) == '\'') {
+            pos++;
+            String content = word();
+            if (pos >= text.length() || text.charAt(pos) != '\'') {
+                throw error(pos, "expected closing ' of the value, only letters, digits and _ are allowed in a value");
+            }
+            pos++;
+            return new PartitionRule.Literal("'" + content + "'");
+        }
+        String word = word();
+        if (word.isEmpty()) {
+            throw error(start, "expected value");
+        }
+        return PartitionConstants.PARTITION_MAX_PT.equals(word) ? PartitionRule.MaxPt.INSTANCE : new PartitionRule.Literal(word);
+    }
+
+    private PartitionRule.Value dateVariable() {
+        int start = pos;
+        pos += 2;
+        if (!text.startsWith(DATE_VARIABLE, pos)) {
+            throw error(start, "unknown variable, expected ${yyyymmdd}");
+        }
+        pos += DATE_VARIABLE.length();
+        int offsetDays = 0;
+        if (pos < text.length() && (text.charAt(pos) == '+' || text.charAt(pos) == '-')) {
+            boolean minus = text.charAt(pos) == '-';
+            pos++;
+            int digitsStart = pos;
+            while (pos < text.length() && Character.isDigit(text.charAt(pos))) {
+                pos++;
+            }
+            if (pos == digitsStart || pos - digitsStart > 5) {
+                throw error(digitsStart, "expected days of ${yyyymmdd+n} or ${yyyymmdd-n}");
+            }
+            offsetDays = Integer.parseInt(text.substring(digitsStart, pos));
+            offsetDays = minus ? -offsetDays : offsetDays;
+        }
+        if (pos >= text.length() || text.charAt(pos) != '}') {
+            throw error(pos, "expected } of ${yyyymmdd}");
+        }
+        pos++;
+        return new PartitionRule.DateVariable(offsetDays);
+    }
+
+    private String word() {
+        int start = pos;
+        while (pos < text.length()) {
+            char c = text.charAt(pos);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_') {
+                pos++;
+            } else {
+                break;
+            }
+        }
+        return text.substring(start, pos);
+    }
+
+    private void skipSpaces() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private IllegalArgumentException error(int at, String expected) {
+        String found = at < text.length() ? "'" + text.charAt(at) + "'" : "end of rule";
+        return new IllegalArgumentException(String.format("Invalid partition rule at %d, %s but found %s: %s", at, expected, found, text));
+    }
+}
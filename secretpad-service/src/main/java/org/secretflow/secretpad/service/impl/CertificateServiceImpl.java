@@ -22,9 +22,14 @@ import org.secretflow.secretpad.kuscia.v1alpha1.service.impl.KusciaGrpcClientAda
 import org.secretflow.secretpad.service.CertificateService;
 
 import jakarta.annotation.Resource;
+import lombok.Setter;
 import org.secretflow.v1alpha1.kusciaapi.Certificate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * @author cml
  * @date 2023/11/15
@@ -33,11 +38,33 @@ import org.springframework.stereotype.Service;
 public class CertificateServiceImpl implements CertificateService {
 
 
+    /**
+     * signing keys by node, a vote is signed without a kuscia call while its key is fresh
+     */
+    private final ConcurrentMap<String, CachedKeyCerts> keyCerts = new ConcurrentHashMap<>();
+
     @Resource
     private KusciaGrpcClientAdapter kusciaGrpcClientAdapter;
 
+    @Value("${secretpad.vote.sign-key-cache.ttl-seconds:600}")
+    @Setter
+    private long signKeyCacheTtlSeconds;
+
     @Override
     public Certificate.GenerateKeyCertsResponse generateCertByNodeID(String nodeID) {
+        if (signKeyCacheTtlSeconds <= 0) {
+            return generateKeyCerts(nodeID);
+        }
+        long now = System.currentTimeMillis();
+        CachedKeyCerts cached = keyCerts.get(nodeID);
+        if (cached == null || cached.expiresAt <= now) {
+            cached = new CachedKeyCerts(generateKeyCerts(nodeID), now + signKeyCacheTtlSeconds * 1000);
+            keyCerts.put(nodeID, cached);
+        }
+        return cached.response;
+    }
+
+    private Certificate.GenerateKeyCertsResponse generateKeyCerts(String nodeID) {
         Certificate.GenerateKeyCertsResponse generateKeyCertsResponse =
                 kusciaGrpcClientAdapter.generateKeyCerts(Certificate.GenerateKeyCertsRequest.newBuilder().setCommonName("vote").setKeyType("PKCS#8").build(), nodeID);
         if (generateKeyCertsResponse.getStatus().getCode() != 0) {
@@ -46,4 +73,13 @@ public class CertificateServiceImpl implements CertificateService {
         return generateKeyCertsResponse;
     }
 
+    private static class CachedKeyCerts {
+        private final Certificate.GenerateKeyCertsResponse response;
+        private final long expiresAt;
+
+        private CachedKeyCerts(Certificate.GenerateKeyCertsResponse response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
 }
@@ -18,25 +18,27 @@ package org.secretflow.secretpad.service.impl;
 
 import org.secretflow.secretpad.common.errorcode.GraphErrorCode;
 import org.secretflow.secretpad.common.exception.SecretpadException;
-import org.secretflow.secretpad.common.util.FileUtils;
-import org.secretflow.secretpad.common.util.JsonUtils;
 import org.secretflow.secretpad.service.ComponentService;
 import org.secretflow.secretpad.service.configuration.ScqlConfig;
 import org.secretflow.secretpad.service.configuration.SecretFlowVersionConfig;
 import org.secretflow.secretpad.service.configuration.SecretpadComponentConfig;
 import org.secretflow.secretpad.service.constant.ComponentConstants;
+import org.secretflow.secretpad.service.factory.JsonProtobufSourceFactory;
+import org.secretflow.secretpad.service.graph.ComponentCatalog;
 import org.secretflow.secretpad.service.graph.ComponentTools;
 import org.secretflow.secretpad.service.model.component.ComponentVersion;
 import org.secretflow.secretpad.service.model.graph.CompListVO;
 import org.secretflow.secretpad.service.model.graph.ComponentKey;
-import org.secretflow.secretpad.service.model.graph.ComponentSummaryDef;
 import org.secretflow.secretpad.service.model.graph.GraphNodeInfo;
 import com.secretflow.spec.v1.CompListDef;
 import com.secretflow.spec.v1.ComponentDef;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.secretflow.proto.pipeline.Pipeline;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.ResourceUtils;
@@ -58,8 +60,17 @@ import static org.secretflow.secretpad.common.constant.DeployModeConstants.*;
 public class ComponentServiceImpl implements ComponentService {
 
     @Value("${component.i18n.location:./config/i18n}")
+    @Setter
     private String i18nLocation;
 
+    @Value("${component.spec.location:./config/components}")
+    @Setter
+    private String componentLocation;
+
+    @Value("${secretpad.component.catalog.hot-reload:false}")
+    @Setter
+    private boolean hotReload;
+
     @Resource
     private List<CompListDef> components;
 
@@ -72,40 +83,46 @@ public class ComponentServiceImpl implements ComponentService {
     @Resource
     private ScqlConfig scqlConfig;
 
+    private volatile ComponentCatalog catalog;
+    private volatile String fingerprint;
+
+    @PostConstruct
+    public void init() {
+        fingerprint = fingerprint();
+        catalog = buildCatalog(components);
+    }
+
+    /**
+     * Rebuild the catalog when the component or i18n files changed, only with hot-reload on. Requests keep reading the
+     * former catalog until the new one is built.
+     */
+    @Scheduled(initialDelayString = "${secretpad.component.catalog.reload-interval-ms:30000}", fixedDelayString = "${secretpad.component.catalog.reload-interval-ms:30000}")
+    public void reload() {
+        if (!hotReload) {
+            return;
+        }
+        String current = fingerprint();
+        if (current.equals(fingerprint)) {
+            return;
+        }
+        try {
+            List<CompListDef> compListDefs = new JsonProtobufSourceFactory(new String[]{componentLocation}).load();
+            catalog = buildCatalog(compListDefs);
+            fingerprint = current;
+            log.info("component catalog reloaded, {} components", catalog.getComponents().size());
+        } catch (IOException | RuntimeException e) {
+            log.error("reload component catalog from {} failed, keep the former one", componentLocation, e);
+        }
+    }
+
+    @Override
+    public ComponentCatalog catalog() {
+        return catalog;
+    }
+
     @Override
     public Map<String, CompListVO> listComponents() {
-        Map<String, CompListVO> resp = new HashMap<>();
-        components.forEach(compListDef -> {
-            List<ComponentDef> comps = compListDef.getCompsList();
-            if (!CollectionUtils.isEmpty(comps)) {
-                CompListVO compListVO = CompListVO.builder()
-                        .name(compListDef.getName())
-                        .version(compListDef.getVersion())
-                        .desc(compListDef.getDesc())
-                        .comps(new ArrayList<>()).build();
-                compListVO.getComps().addAll(comps.stream()
-                        .map(componentDef -> {
-                            //secretflow/domain/name:version
-                            String hide = compListDef.getName() + "/" + componentDef.getDomain() + "/" + componentDef.getName() + ":" + componentDef.getVersion();
-                            if (secretpadComponentConfig.getHide().contains(hide)) {
-                                log.info("hide {}", hide);
-                                SF_HIDE_COMPONENTS.put(componentDef.getName(), componentDef);
-                                return null;
-                            }
-                            return ComponentSummaryDef.builder()
-                                    .domain(componentDef.getDomain())
-                                    .name(componentDef.getName())
-                                    .version(componentDef.getVersion())
-                                    .desc(componentDef.getDesc())
-                                    .build();
-                        })
-                        .filter(Objects::nonNull).toList());
-                resp.put(compListVO.getName(), compListVO);
-            }
-        });
-        resp.remove(ComponentConstants.SECRETPAD);
-        resp.remove(ComponentConstants.SCQL);
-        return resp;
+        return catalog.getComponentList();
     }
 
     @Override
@@ -116,14 +133,14 @@ public class ComponentServiceImpl implements ComponentService {
     @Override
     public List<ComponentDef> batchGetComponent(List<ComponentKey> keys) {
         List<ComponentDef> result = new ArrayList<>();
-        Map<ComponentKey, ComponentDef> componentMap = new HashMap<>();
-        components.stream().filter(compListDef -> !CollectionUtils.isEmpty(compListDef.getCompsList())).forEach(compListDef -> compListDef.getCompsList().forEach(componentDef -> componentMap.put(new ComponentKey(compListDef.getName(), componentDef.getDomain(), componentDef.getName()), componentDef)));
         if (!CollectionUtils.isEmpty(keys)) {
+            Map<ComponentKey, ComponentDef> componentMap = catalog.getComponents();
             keys.forEach(key -> {
-                if (!componentMap.containsKey(key)) {
+                ComponentDef componentDef = componentMap.get(key);
+                if (componentDef == null) {
                     throw SecretpadException.of(GraphErrorCode.COMPONENT_NOT_EXISTS, key.toString());
                 }
-                result.add(componentMap.get(key));
+                result.add(componentDef);
             });
         }
         return result;
@@ -131,50 +148,38 @@ public class ComponentServiceImpl implements ComponentService {
 
     @Override
     public Object listComponentI18n() {
-        Map<String, Map<String, Object>> config = new HashMap<>();
-        Map<String, Object> secretpad = new HashMap<>();
-        Map<String, Object> scql = new HashMap<>();
+        ComponentCatalog current = catalog;
+        if (current.getI18n() == null) {
+            throw SecretpadException.of(GraphErrorCode.COMPONENT_18N_ERROR, current.getI18nError());
+        }
+        return current.getI18n();
+    }
+
+    private ComponentCatalog buildCatalog(List<CompListDef> compListDefs) {
+        File i18nDir;
         try {
-            File dir = ResourceUtils.getFile(i18nLocation);
-            File[] files = dir.listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    String fileName = file.getName();
-                    String app = fileName.substring(0, fileName.lastIndexOf('.'));
-                    String str = FileUtils.readFile2String(file);
-                    Map<String, Object> content = JsonUtils.toJavaMap(str, Object.class);
-                    if (!CollectionUtils.isEmpty(content)) {
-                        if (app.equals(ComponentConstants.SECRETPAD)) {
-                            secretpad = content;
-                        }else if (app.equals(ComponentConstants.SCQL)){
-                            scql = content;
-                        } else {
-                            config.put(app, content);
-                        }
-                    }
-                }
-                Map<String, Object> finalSecretpad = secretpad;
-                Map<String, Object> finalScql = scql;
-                config.keySet().forEach(k -> {
-                    config.get(k).putAll(finalSecretpad);
-                    config.get(ComponentConstants.SECRETFLOW).putAll(finalScql);
-                });
-            }
+            i18nDir = ResourceUtils.getFile(i18nLocation);
         } catch (IOException e) {
-            throw SecretpadException.of(GraphErrorCode.COMPONENT_18N_ERROR, e);
+            log.error("component i18n location {} not found", i18nLocation, e);
+            i18nDir = null;
         }
-        config.keySet().forEach(key -> {
-            Map<String, Object> map = config.get(key);
-            Iterator<Map.Entry<String, Object>> iterator = map.entrySet().iterator();
-            while (iterator.hasNext()) {
-                Map.Entry<String, Object> entry = iterator.next();
-                String hide = key + "/" + entry.getKey();
-                if (secretpadComponentConfig.getHide().contains(hide)) {
-                    iterator.remove();
-                }
+        ComponentCatalog built = ComponentCatalog.build(compListDefs, secretpadComponentConfig.getHide(), i18nDir);
+        // replace the hidden components in place, readers never see an empty map and components no longer hidden are dropped
+        SF_HIDE_COMPONENTS.putAll(built.getHiddenComponents());
+        SF_HIDE_COMPONENTS.keySet().retainAll(built.getHiddenComponents().keySet());
+        return built;
+    }
+
+    private String fingerprint() {
+        List<File> dirs = new ArrayList<>();
+        for (String location : new String[]{componentLocation, i18nLocation}) {
+            try {
+                dirs.add(ResourceUtils.getFile(location));
+            } catch (IOException e) {
+                log.debug("component location {} not found", location);
             }
-        });
-        return config;
+        }
+        return ComponentCatalog.fingerprint(dirs.toArray(new File[0]));
     }
 
     @Override
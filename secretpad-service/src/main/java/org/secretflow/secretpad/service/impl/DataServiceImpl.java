@@ -27,13 +27,16 @@ import org.secretflow.secretpad.common.errorcode.SystemErrorCode;
 import org.secretflow.secretpad.common.exception.SecretpadException;
 import org.secretflow.secretpad.common.util.*;
 import org.secretflow.secretpad.manager.integration.data.AbstractDataManager;
+import org.secretflow.secretpad.manager.integration.model.DatatableSchema;
 import org.secretflow.secretpad.manager.integration.model.NodeResultDTO;
 import org.secretflow.secretpad.manager.integration.node.AbstractNodeManager;
 import org.secretflow.secretpad.persistence.model.ResultKind;
 import org.secretflow.secretpad.service.DataService;
 import org.secretflow.secretpad.service.EnvService;
 import org.secretflow.secretpad.service.model.data.*;
+import org.secretflow.secretpad.service.util.ResultArchiveCache;
 
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -41,10 +44,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStream;
+import java.io.*;
 import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.List;
@@ -69,6 +69,10 @@ public class DataServiceImpl implements DataService {
 
     private final static String FILE_SEPETATOR = "/";
 
+    private final static int UPLOAD_BUFFER_SIZE = 1024 * 64;
+
+    private final static long UPLOAD_PROGRESS_BYTES = 1024L * 1024 * 64;
+
     @Autowired
     private AbstractDataManager dataManager;
 
@@ -78,6 +82,9 @@ public class DataServiceImpl implements DataService {
     @Autowired
     private EnvService envService;
 
+    @Autowired
+    private ResultArchiveCache resultArchiveCache;
+
     @Value("${secretpad.data.dir-path:/app/data/}")
     private String storeDir;
 
@@ -103,18 +110,29 @@ public class DataServiceImpl implements DataService {
             throw SecretpadException.of(DataErrorCode.FILE_EXISTS_ERROR);
         }
         createDirIfNotExist(dirPath);
-        try {
-            file.transferTo(target);
-            FileUtils.removeBOMFromFile(dirPath + randomFileName);
+        CsvStreamUtils.Summary summary;
+        long start = System.currentTimeMillis();
+        // one pass from the upload to the target: BOM strip, line endings, row count and header sniffing
+        try (InputStream in = file.getInputStream();
+             OutputStream out = new BufferedOutputStream(new FileOutputStream(target), UPLOAD_BUFFER_SIZE)) {
+            summary = CsvStreamUtils.ingest(in, out, read -> LOGGER.info("Upload {} to node {}: {} of {} bytes ingested",
+                    fileName, nodeId, read, file.getSize()), UPLOAD_PROGRESS_BYTES);
         } catch (IOException e) {
             LOGGER.error("IOException: {}", e.getMessage());
+            FileUtils.delFile(target.getPath());
             throw SecretpadException.of(SystemErrorCode.UNKNOWN_ERROR, e);
         }
+        LOGGER.info("Upload {} to node {} ingested as {}, {} rows and {} columns in {} ms", fileName, nodeId, randomFileName,
+                summary.getRows(), summary.getHeader().size(), System.currentTimeMillis() - start);
         return UploadDataResultVO.builder()
                 .name(fileName)
                 .realName(randomFileName)
                 .datasource(DEFAULT_DATASOURCE)
                 .datasourceType(DEFAULT_DATASOURCE_TYPE)
+                .columns(summary.getHeader())
+                .columnTypes(summary.getColumnTypes())
+                .delimiter(String.valueOf(summary.getDelimiter()))
+                .rowCount(summary.getRows())
                 .build();
     }
 
@@ -125,6 +143,7 @@ public class DataServiceImpl implements DataService {
             LOGGER.error("The nodeId is not the platform node id.");
             throw SecretpadException.of(NodeErrorCode.NODE_NOT_EXIST_ERROR);
         }
+        checkSchema(request);
         return dataManager.createData(
                 request.getNodeId(),
                 request.getName(),
@@ -166,45 +185,33 @@ public class DataServiceImpl implements DataService {
                 LOGGER.error("The result ralative uri file {} is not in the storeDir {}", filePath, dir);
                 throw SecretpadException.of(DataErrorCode.FILE_NOT_EXISTS_ERROR);
             }
-            String fileName = null;
-            int fileLength = 0;
-            InputStream inputStream = null;
+            DownloadInfo downloadInfo;
             if (f.isDirectory()) {
                 LOGGER.info("Download process got a dir to download, whose relative uri = {}", relativeUri);
-                CompressUtils.compress(filePath, dir, relativeUri);
-                fileName = relativeUri + ".tar.gz";
-                // since it is a new compressed file, add a suffix
-                inputStream = new FileInputStream(dir + fileName);
-                fileLength = (int) new File(dir + fileName).length();
+                downloadInfo = archive(request, relativeUri, CompressUtils.getFiles(filePath), filePath);
             } else {
                 ResultKind kind = ResultKind.fromDatatable(nodeResult.getResultKind());
                 switch (kind) {
                     case Model:
                     case Rule: {
                         //model and rule
-                        CompressUtils.compressTar(List.of(new File(filePath)), filePath, dir, relativeUri);
-                        // a new compressed file, add a suffix
-                        fileName = relativeUri + ".tar.gz";
-                        inputStream = new FileInputStream(dir + fileName);
-                        fileLength = (int) new File(dir + fileName).length();
+                        downloadInfo = archive(request, relativeUri, List.of(f), filePath);
                         break;
                     }
                     default: {
                         LOGGER.info("Download process got a  real csv file to download, whose relative uri = {}", relativeUri);
-                        fileName = relativeUri + ".csv";
                         // since the source file is already csv, there is no need to add a suffix, but the file name returned above is suffixed
-                        inputStream = new FileInputStream(dir + relativeUri);
-                        fileLength = inputStream.available();
+                        downloadInfo = DownloadInfo.builder()
+                                .fileName(relativeUri + ".csv")
+                                .fileLength(f.length())
+                                .file(f)
+                                .build();
                         break;
                     }
                 }
             }
             LOGGER.info("When download, the ralative uri = {}. the real file path = {}", relativeUri, filePath);
-            return DownloadInfo.builder()
-                    .fileName(fileName)
-                    .fileLength(fileLength)
-                    .inputStream(inputStream)
-                    .build();
+            return downloadInfo;
         } catch (IOException e) {
             LOGGER.error("IO exception: {}", e.getMessage());
             throw SecretpadException.of(SystemErrorCode.UNKNOWN_ERROR, e);
@@ -214,6 +221,26 @@ public class DataServiceImpl implements DataService {
         }
     }
 
+    /**
+     * Archive the files as tar.gz, streamed while they are compressed or from the archive cache
+     *
+     * @param request     download data request
+     * @param relativeUri result relative uri
+     * @param files       files to archive
+     * @param inPutPath   path removed in front of the entry names
+     * @return download information
+     */
+    private DownloadInfo archive(DownloadDataRequest request, String relativeUri, List<File> files, String inPutPath) throws IOException {
+        // a new compressed file, add a suffix
+        String fileName = relativeUri + ".tar.gz";
+        DownloadInfo.ContentWriter writer = out -> CompressUtils.writeTarGz(files, inPutPath, out);
+        File archive = resultArchiveCache.get(request.getNodeId() + FILE_SEPETATOR + request.getDomainDataId(), files, writer);
+        if (archive != null) {
+            return DownloadInfo.builder().fileName(fileName).fileLength(archive.length()).file(archive).build();
+        }
+        return DownloadInfo.builder().fileName(fileName).fileLength(-1).writer(writer).build();
+    }
+
     /**
      * Create directory if not exists
      *
@@ -277,6 +304,43 @@ public class DataServiceImpl implements DataService {
         }
     }
 
+    /**
+     * Check the declared schema against the header and the first rows of the uploaded file, only the head of the file
+     * is read. Files which are not uploaded to the store dir are left to kuscia
+     *
+     * @param request create data request
+     */
+    private void checkSchema(CreateDataRequest request) {
+        if (request.getDatatableSchema() == null || request.getDatatableSchema().isEmpty()
+                || StringUtils.isBlank(request.getRealName()) || StringUtils.containsAny(request.getRealName(), "/", "\\")) {
+            return;
+        }
+        File file = new File(storeDir + request.getNodeId() + FILE_SEPETATOR + request.getRealName());
+        if (!file.isFile()) {
+            return;
+        }
+        CsvStreamUtils.Summary summary;
+        try {
+            summary = CsvStreamUtils.sample(file);
+        } catch (IOException e) {
+            LOGGER.error("IOException: {}", e.getMessage());
+            throw SecretpadException.of(SystemErrorCode.UNKNOWN_ERROR, e);
+        }
+        List<String> missing = CsvStreamUtils.missingColumns(summary,
+                request.getDatatableSchema().stream().map(DatatableSchema::getFeatureName).toList());
+        if (!missing.isEmpty()) {
+            LOGGER.error("Columns {} of the schema are not in the header of {}", missing, request.getRealName());
+            throw SecretpadException.of(DataErrorCode.ILLEGAL_PARAMS_ERROR, "columns " + missing + " are not in the file header");
+        }
+        for (DatatableSchema schema : request.getDatatableSchema()) {
+            if (!CsvStreamUtils.fits(summary, schema.getFeatureName(), schema.getFeatureType(), request.getNullStrs())) {
+                LOGGER.error("Column {} of {} does not fit type {}", schema.getFeatureName(), request.getRealName(), schema.getFeatureType());
+                throw SecretpadException.of(DataErrorCode.ILLEGAL_PARAMS_ERROR,
+                        "column " + schema.getFeatureName() + " does not fit type " + schema.getFeatureType());
+            }
+        }
+    }
+
     /**
      * Valid relative Uri if illegal
      *
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.impl;
+
+import org.secretflow.secretpad.common.dto.SyncDataDTO;
+import org.secretflow.secretpad.common.errorcode.SystemErrorCode;
+import org.secretflow.secretpad.common.exception.SecretpadException;
+import org.secretflow.secretpad.common.util.JpaQueryHelper;
+import org.secretflow.secretpad.common.util.JsonUtils;
+import org.secretflow.secretpad.persistence.datasync.buffer.DataSyncDataBufferTemplate;
+import org.secretflow.secretpad.persistence.datasync.listener.EntityChangeListener;
+import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
+import org.secretflow.secretpad.persistence.entity.DataSyncDeadLetterDO;
+import org.secretflow.secretpad.persistence.model.DbChangeAction;
+import org.secretflow.secretpad.persistence.repository.DataSyncDeadLetterRepository;
+import org.secretflow.secretpad.service.DataSyncDeadLetterService;
+import org.secretflow.secretpad.service.model.common.SecretPadPageResponse;
+import org.secretflow.secretpad.service.model.datasync.deadletter.DataSyncDeadLetterPageRequest;
+import org.secretflow.secretpad.service.model.datasync.deadletter.DataSyncDeadLetterVO;
+
+import com.fasterxml.jackson.databind.JavaType;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * @author yutu
+ * @date 2024/12/19
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DataSyncDeadLetterServiceImpl implements DataSyncDeadLetterService {
+
+    private final DataSyncDeadLetterRepository dataSyncDeadLetterRepository;
+    /**
+     * only present when data sync is enabled
+     */
+    private final ObjectProvider<DataSyncDataBufferTemplate> dataSyncDataBufferTemplate;
+    private final EntityManager entityManager;
+
+    @Override
+    public SecretPadPageResponse<DataSyncDeadLetterVO> queryPage(DataSyncDeadLetterPageRequest request, Pageable pageable) {
+        Page<DataSyncDeadLetterDO> page = dataSyncDeadLetterRepository.findAll(
+                (root, criteriaQuery, criteriaBuilder) -> JpaQueryHelper.getPredicate(root, request, criteriaBuilder),
+                pageable);
+        if (page.isEmpty()) {
+            return SecretPadPageResponse.toPage(null, 0);
+        }
+        return SecretPadPageResponse.toPage(page.stream().map(DataSyncDeadLetterVO::from).toList(), page.getTotalElements());
+    }
+
+    /**
+     * the recorded payload only names the entity, its current state is pushed as an update, or the recorded state as a
+     * remove if the entity is gone. A newer pending change of the entity in buffer is folded with the current state
+     * instead of being overwritten by the recorded one.
+     */
+    @Override
+    public int replay(List<Long> ids) {
+        DataSyncDataBufferTemplate buffer = dataSyncDataBufferTemplate.getIfAvailable();
+        if (buffer == null) {
+            throw SecretpadException.of(SystemErrorCode.SYNC_ERROR, "data sync is not enabled");
+        }
+        List<DataSyncDeadLetterDO> deadLetters = new ArrayList<>(dataSyncDeadLetterRepository.findAllById(ids));
+        deadLetters.sort(Comparator.comparing(DataSyncDeadLetterDO::getId));
+        for (DataSyncDeadLetterDO deadLetter : deadLetters) {
+            buffer.push(toEvent(deadLetter));
+            dataSyncDeadLetterRepository.delete(deadLetter);
+            log.info("data sync dead letter {} replayed to {}", deadLetter.getId(), deadLetter.getNodeId());
+        }
+        return deadLetters.size();
+    }
+
+    @Override
+    public void delete(List<Long> ids) {
+        dataSyncDeadLetterRepository.deleteAllById(ids);
+    }
+
+    @SuppressWarnings("unchecked")
+    private EntityChangeListener.DbChangeEvent<BaseAggregationRoot> toEvent(DataSyncDeadLetterDO deadLetter) {
+        SyncDataDTO<BaseAggregationRoot> syncDataDTO;
+        try {
+            JavaType javaType = JsonUtils.makeJavaType(SyncDataDTO.class, Class.forName(deadLetter.getTableName()));
+            syncDataDTO = JsonUtils.toJavaObject(deadLetter.getPayload(), javaType);
+        } catch (ClassNotFoundException e) {
+            throw SecretpadException.of(SystemErrorCode.SYNC_ERROR, e, deadLetter.getTableName());
+        }
+        BaseAggregationRoot recorded = syncDataDTO.getData();
+        Object id = entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(recorded);
+        BaseAggregationRoot current = id == null ? null : entityManager.find(recorded.getClass(), id);
+        EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event = current == null
+                ? EntityChangeListener.DbChangeEvent.of(DbChangeAction.REMOVE, recorded)
+                : EntityChangeListener.DbChangeEvent.of(DbChangeAction.UPDATE, current);
+        event.setNodeIds(new ArrayList<>(List.of(deadLetter.getNodeId())));
+        return event;
+    }
+}
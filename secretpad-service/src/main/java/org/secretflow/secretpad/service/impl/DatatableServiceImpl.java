@@ -30,6 +30,7 @@ import org.secretflow.secretpad.manager.integration.datatablegrant.AbstractDatat
 import org.secretflow.secretpad.manager.integration.job.AbstractJobManager;
 import org.secretflow.secretpad.manager.integration.model.DatatableDTO;
 import org.secretflow.secretpad.manager.integration.model.DatatableListDTO;
+import org.secretflow.secretpad.manager.integration.model.DatatablePageKey;
 import org.secretflow.secretpad.manager.integration.model.NodeDTO;
 import org.secretflow.secretpad.manager.integration.node.NodeManager;
 import org.secretflow.secretpad.manager.integration.noderoute.AbstractNodeRouteManager;
@@ -65,6 +66,7 @@ import org.springframework.util.CollectionUtils;
 import javax.annotation.Resource;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -143,10 +145,17 @@ public class DatatableServiceImpl implements DatatableService {
             nodeIds.add(request.getOwnerId());
         }
 
+        // an empty page token starts token paging from the first page, an invalid one is refused before the nodes are listed
+        boolean byToken = request.getPageToken() != null;
+        DatatablePageKey.decode(request.getPageToken());
+        int pageSize = request.getPageSize();
+        // with a page token every node pages from the same key, otherwise every node lists up to the end of the requested page
+        int nodeLimit = byToken ? pageSize : pageSize * request.getPageNumber();
         List<DatatableNodeVO> datatableNodeVOList = new CopyOnWriteArrayList<>();
         AtomicInteger totalDatatableNum = new AtomicInteger();
+        AtomicBoolean moreOnNodes = new AtomicBoolean();
         List<CompletableFuture<Void>> futures = nodeIds.stream().map(nodeId -> CompletableFuture.supplyAsync(() -> {
-            ListDatatableRequest nodeRequest = createNodeRequest(request, nodeId);
+            ListDatatableRequest nodeRequest = createNodeRequest(request, nodeId, nodeLimit);
             return listDatatablesByNodeId(nodeRequest);
         }, kusciaApiFutureThreadPool).handle((datatableListVO, ex) -> {
             if (ex != null) {
@@ -163,6 +172,9 @@ public class DatatableServiceImpl implements DatatableService {
             }
 
             totalDatatableNum.addAndGet(datatableListVO.getTotalDatatableNums());
+            if (datatableListVO.getNextPageToken() != null) {
+                moreOnNodes.set(true);
+            }
             datatableListVO.getDatatableVOList().forEach(datatableVO -> {
                 datatableNodeVOList.add(DatatableNodeVO.builder()
                         .datatableVO(datatableVO)
@@ -188,18 +200,30 @@ public class DatatableServiceImpl implements DatatableService {
             throw SecretpadException.of(ConcurrentErrorCode.TASK_TIME_OUT_ERROR, e);
         }
 
-        List<DatatableNodeVO> rangeVOList = PageUtils.rangeList(datatableNodeVOList, request.getPageSize(), request.getPageNumber());
+        if (!byToken) {
+            // page number requests keep the node by node order
+            return AllDatatableListVO.builder()
+                    .datatableNodeVOList(PageUtils.rangeList(datatableNodeVOList, pageSize, request.getPageNumber()))
+                    .totalDatatableNums(totalDatatableNum.get())
+                    .build();
+        }
+        // merge the node pages in page key order, the same order every node pages in
+        List<DatatableNodeVO> mergedVOList = datatableNodeVOList.stream().sorted(Comparator.comparing(this::pageKeyOf)).toList();
+        List<DatatableNodeVO> rangeVOList = mergedVOList.subList(0, Math.min(pageSize, mergedVOList.size()));
+        boolean more = moreOnNodes.get() || mergedVOList.size() > nodeLimit;
+        String nextPageToken = more && !rangeVOList.isEmpty() ? pageKeyOf(rangeVOList.get(rangeVOList.size() - 1)).encode() : null;
 
         return AllDatatableListVO.builder()
                 .datatableNodeVOList(rangeVOList)
                 .totalDatatableNums(totalDatatableNum.get())
+                .nextPageToken(nextPageToken)
                 .build();
     }
 
     @Override
     public DatatableListVO listDatatablesByNodeId(ListDatatableRequest request) {
         LOGGER.info("List data table by nodeId = {}", request.getOwnerId());
-        DatatableListDTO dataTableListDTO = datatableManager.findByNodeId(request.getOwnerId(), request.getPageSize(), request.getPageNumber(), request.getStatusFilter(), request.getDatatableNameFilter(), request.getTypes());
+        DatatableListDTO dataTableListDTO = datatableManager.findByNodeId(request.getOwnerId(), request.getPageSize(), request.getPageNumber(), request.getPageToken(), request.getStatusFilter(), request.getDatatableNameFilter(), request.getTypes());
         LOGGER.info("Try get a map with datatableId: DatatableDTO");
         Map<Object, DatatableDTO> datatables = dataTableListDTO.getDatatableDTOList().stream().collect(Collectors.toMap(DatatableDTO::getDatatableId, Function.identity()));
         LOGGER.info("Try get auth project pairs with Map<DatatableID, List<Pair<ProjectDatatableDO, ProjectDO>>>");
@@ -225,7 +249,7 @@ public class DatatableServiceImpl implements DatatableService {
             DatatableDTO datatableDTO = datatables.get(it.getDatatableId());
             return DatatableVO.from(datatableDTO, authProjectVOList, managementDO);
         }).collect(Collectors.toList());
-        return DatatableListVO.builder().datatableVOList(datatableVOList).totalDatatableNums(dataTableListDTO.getTotalDatatableNums()).build();
+        return DatatableListVO.builder().datatableVOList(datatableVOList).totalDatatableNums(dataTableListDTO.getTotalDatatableNums()).nextPageToken(dataTableListDTO.getNextPageToken()).build();
     }
 
     @Override
@@ -240,6 +264,7 @@ public class DatatableServiceImpl implements DatatableService {
     public void deleteDatatable(DeleteDatatableRequest request) {
         LOGGER.info("Delete datatable with node id = {}, datatable id = {}", request.getNodeId(), request.getDatatableId());
         datatableHandlerMap.get(DataSourceTypeEnum.valueOf(request.getDatasourceType())).deleteDatatable(request);
+        datatableManager.evict(request.getNodeId());
     }
 
     @Override
@@ -332,7 +357,9 @@ public class DatatableServiceImpl implements DatatableService {
     public CreateDatatableVO createDataTable(CreateDatatableRequest createDatatableRequest) {
         verifyRate();
         verifyNodes(createDatatableRequest);
-        return datatableHandlerMap.get(DataSourceTypeEnum.valueOf(createDatatableRequest.getDatasourceType())).createDatatable(createDatatableRequest);
+        CreateDatatableVO createDatatableVO = datatableHandlerMap.get(DataSourceTypeEnum.valueOf(createDatatableRequest.getDatasourceType())).createDatatable(createDatatableRequest);
+        createDatatableRequest.getNodeIds().forEach(datatableManager::evict);
+        return createDatatableVO;
     }
 
     public void verifyNodes(CreateDatatableRequest createDatatableRequest) {
@@ -414,8 +441,13 @@ public class DatatableServiceImpl implements DatatableService {
     /**
      * query all then page
      */
-    private ListDatatableRequest createNodeRequest(ListDatatableRequest request, String nodeId) {
-        return ListDatatableRequest.builder().statusFilter(request.getStatusFilter()).datatableNameFilter(request.getDatatableNameFilter()).types(request.getTypes()).ownerId(nodeId).teeNodeId(request.getTeeNodeId()).build();
+    private ListDatatableRequest createNodeRequest(ListDatatableRequest request, String nodeId, int limit) {
+        return ListDatatableRequest.builder().pageSize(limit).pageNumber(1).pageToken(request.getPageToken()).statusFilter(request.getStatusFilter()).datatableNameFilter(request.getDatatableNameFilter()).types(request.getTypes()).ownerId(nodeId).teeNodeId(request.getTeeNodeId()).build();
+    }
+
+    private DatatablePageKey pageKeyOf(DatatableNodeVO datatableNodeVO) {
+        DatatableVO datatableVO = datatableNodeVO.getDatatableVO();
+        return new DatatablePageKey(StringUtils.defaultString(datatableVO.getDatatableName()), StringUtils.defaultString(datatableVO.getDatatableId()), StringUtils.defaultString(datatableNodeVO.getNodeId()));
     }
 
 
@@ -35,18 +35,18 @@ import org.secretflow.secretpad.manager.integration.noderoute.AbstractNodeRouteM
 import org.secretflow.secretpad.persistence.datasync.producer.p2p.P2pDataSyncProducerTemplate;
 import org.secretflow.secretpad.persistence.entity.*;
 import org.secretflow.secretpad.persistence.model.*;
-import org.secretflow.secretpad.persistence.projection.ProjectJobStatus;
 import org.secretflow.secretpad.persistence.repository.*;
 import org.secretflow.secretpad.service.ComponentService;
 import org.secretflow.secretpad.service.GraphService;
 import org.secretflow.secretpad.service.ProjectService;
+import org.secretflow.secretpad.service.ReadPartitionRuleAnalysisService;
 import org.secretflow.secretpad.service.constant.ComponentConstants;
 import org.secretflow.secretpad.service.enums.VoteTypeEnum;
 import org.secretflow.secretpad.service.graph.ComponentTools;
 import org.secretflow.secretpad.service.graph.GraphContext;
+import org.secretflow.secretpad.service.graph.GraphStatusView;
 import org.secretflow.secretpad.service.graph.JobChain;
 import org.secretflow.secretpad.service.model.graph.*;
-import org.secretflow.secretpad.service.model.node.NodeSimpleInfo;
 import org.secretflow.secretpad.service.model.project.GetProjectJobTaskOutputRequest;
 import org.secretflow.secretpad.service.model.project.StopProjectJobTaskRequest;
 import org.secretflow.secretpad.service.model.report.ScqlReport;
@@ -152,6 +152,10 @@ public class GraphServiceImpl implements GraphService {
     private ProjectModelPackRepository projectModelPackRepository;
     @Resource
     private ProjectScheduleJobRepository projectScheduleJobRepository;
+    @Resource
+    private GraphStatusView graphStatusView;
+    @Resource
+    private ReadPartitionRuleAnalysisService readPartitionRuleAnalysisService;
 
     @Override
     public Map<String, CompListVO> listComponents() {
@@ -243,6 +247,7 @@ public class GraphServiceImpl implements GraphService {
         }
         List<GraphNodeInfo> nodes = request.getNodes();
         if (nodes != null) {
+            checkPartitionRules(nodes);
             if (graphDO.getNodes() != null) {
                 graphDO.getNodes().clear();
             }
@@ -272,10 +277,32 @@ public class GraphServiceImpl implements GraphService {
             throw SecretpadException.of(GraphErrorCode.GRAPH_NODE_NOT_EXISTS);
         }
 
+        checkPartitionRules(List.of(request.getNode()));
         ProjectGraphNodeDO graphNodeDO = GraphNodeInfo.toDO(projectId, graphId, request.getNode());
         graphNodeRepository.save(graphNodeDO);
     }
 
+    /**
+     * compile the partition rules of the read data nodes, so that a malformed rule fails when the graph is saved
+     * instead of when a job reads with it
+     */
+    private void checkPartitionRules(List<GraphNodeInfo> nodes) {
+        for (GraphNodeInfo node : nodes) {
+            if (!ComponentConstants.COMP_READ_DATA_DATATABLE_ID.equals(node.getCodeName()) || node.getNodeDef() == null) {
+                continue;
+            }
+            String rule = ComponentTools.getDataTablePartition(node);
+            if (StringUtils.isEmpty(rule)) {
+                continue;
+            }
+            try {
+                readPartitionRuleAnalysisService.compileReadPartitionRule(rule);
+            } catch (IllegalArgumentException e) {
+                throw SecretpadException.of(GraphErrorCode.GRAPH_PARTITION_RULE_INVALID, e, node.getGraphNodeId() + ": " + e.getMessage());
+            }
+        }
+    }
+
     @Transactional
     @Override
     public GraphDetailVO getGraphDetail(GetGraphRequest request) {
@@ -742,53 +769,12 @@ public class GraphServiceImpl implements GraphService {
 
     /**
      * Find latest task status
-     * Todo: find latest task with one sql
      *
      * @param graphDO target graph data object
      * @return latest graph task status
      */
     public GraphStatus getLatestTaskStatus(ProjectGraphDO graphDO) {
-        String projectId = graphDO.getUpk().getProjectId();
-        List<ProjectGraphNodeDO> nodes = graphDO.getNodes();
-        GraphStatus graphStatus = new GraphStatus();
-        List<GraphNodeStatusVO> nodeStatus = new ArrayList<>();
-        List<String> jobIds = new ArrayList<>();
-        // find the latest task associated with graphNode
-        if (!CollectionUtils.isEmpty(nodes)) {
-            List<String> graphNodeIds = nodes.stream().map(node -> node.getUpk().getGraphNodeId()).toList();
-            for (String graphNodeId : graphNodeIds) {
-                GraphNodeStatusVO nodeStatusVO = new GraphNodeStatusVO();
-                nodeStatusVO.setGraphNodeId(graphNodeId);
-                Optional<ProjectTaskDO> taskDOOptional = taskRepository.findLatestTasks(projectId, graphNodeId);
-                GraphNodeTaskStatus status = GraphNodeTaskStatus.STAGING;
-                if (taskDOOptional.isPresent()) {
-                    status = taskDOOptional.get().getStatus();
-                    nodeStatusVO.setTaskId(taskDOOptional.get().getUpk().getTaskId());
-                    nodeStatusVO.setJobId(taskDOOptional.get().getUpk().getJobId());
-                    nodeStatusVO.setParties(nodeRepository.findByNodeIdIn(taskDOOptional.get().getParties()).stream().map(e -> NodeSimpleInfo.builder().nodeName(e.getName()).nodeId(e.getNodeId()).build()).collect(Collectors.toList()));
-                    nodeStatusVO.setProgress(taskDOOptional.get().getExtraInfo().getProgress());
-                    jobIds.add(taskDOOptional.get().getUpk().getJobId());
-                }
-                nodeStatusVO.setStatus(status);
-                nodeStatus.add(nodeStatusVO);
-            }
-        }
-
-        // resolve job status
-        boolean finished = true;
-        if (!CollectionUtils.isEmpty(jobIds)) {
-            List<ProjectJobStatus> jobStatuses = jobRepository.findStatusByJobIds(projectId, jobIds);
-            for (ProjectJobStatus job : jobStatuses) {
-                if (!job.isFinished()) {
-                    finished = false;
-                    break;
-                }
-            }
-        }
-
-        graphStatus.setNodes(nodeStatus);
-        graphStatus.setFinished(finished);
-        return graphStatus;
+        return graphStatusView.get(graphDO);
     }
 
 
@@ -40,6 +40,8 @@ import org.secretflow.secretpad.scheduled.model.ScheduledIdRequest;
 import org.secretflow.secretpad.scheduled.model.ScheduledInfoRequest;
 import org.secretflow.secretpad.scheduled.model.ScheduledOfflineRequest;
 import org.secretflow.secretpad.scheduled.service.ISecretpadScheduledService;
+import org.secretflow.secretpad.scheduled.service.ScheduledTaskRenderer;
+import org.secretflow.secretpad.service.EnvService;
 import org.secretflow.secretpad.service.GraphService;
 import org.secretflow.secretpad.service.ScheduledService;
 import org.secretflow.secretpad.service.graph.GraphContext;
@@ -73,6 +75,7 @@ import org.springframework.util.CollectionUtils;
 import org.springframework.util.ObjectUtils;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -83,7 +86,7 @@ import java.util.stream.Collectors;
  */
 @Slf4j
 @Service
-public class ScheduledServiceImpl implements ScheduledService {
+public class ScheduledServiceImpl implements ScheduledService, ScheduledTaskRenderer {
     @Resource
     @Setter
     private ISecretpadScheduledService secretpadScheduledService;
@@ -120,6 +123,9 @@ public class ScheduledServiceImpl implements ScheduledService {
     @Resource
     @Setter
     private AbstractJobManager jobManager;
+    @Resource
+    @Setter
+    private EnvService envService;
 
 
     /**
@@ -165,72 +171,96 @@ public class ScheduledServiceImpl implements ScheduledService {
         projectScheduleDO.setGraphId(scheduledGraphCreateRequest.getGraphId());
         projectScheduleDO.setCreateTime(LocalDateTime.now());
         projectScheduleRepository.save(projectScheduleDO);
-        Set<String> matchingDateSet = new HashSet<>();
 
         if (CollectionUtils.isEmpty(cronGroup)) {
             throw SecretpadException.of(ScheduledErrorCode.SCHEDULE_CREATE_ERROR, "no scheduling dates available");
         }
-        List<String> matchingAllDates = new ArrayList<>();
-        cronGroup.forEach(cronExpression -> {
-            matchingAllDates.addAll(CronUtils.getMatchingDates(cronExpression, cron.getStartTime(), cron.getEndTime()));
-        });
-        if (CollectionUtils.isEmpty(matchingAllDates)) {
+        Set<String> graphNodeIds = projectGraphDO.getNodes().stream().map(node -> node.getUpk().getGraphNodeId()).collect(Collectors.toSet());
+        if (!graphNodeIds.containsAll(scheduledGraphCreateRequest.getNodes())) {
+            throw SecretpadException.of(GraphErrorCode.GRAPH_NODE_NOT_EXISTS);
+        }
+        // only the first date is scheduled, the graph of each date is rendered when its trigger fires
+        Date firstFireTime = CronUtils.getFirstMatchingDate(cronGroup, cron.getStartTime(), cron.getEndTime());
+        if (firstFireTime == null) {
             throw SecretpadException.of(ScheduledErrorCode.SCHEDULE_CREATE_ERROR, "no scheduling dates available");
         }
-        cronGroup.forEach(cronExpression -> {
-            List<String> matchingDates = CronUtils.getMatchingDates(cronExpression, cron.getStartTime(), cron.getEndTime());
-            log.info("createScheduler, cronExpression:{}, matchingDates:{}", cronExpression, matchingDates);
-            matchingDates.forEach(date -> {
-                if (matchingDateSet.contains(date)) {
-                    log.warn("createScheduler, cronExpression:{}, matchingDates:{}, duplicate date:{} skip", cronExpression, matchingDates, date);
-                    return;
-                }
-                ProjectScheduleTaskDO projectScheduleTaskDO = new ProjectScheduleTaskDO();
-                projectScheduleTaskDO.setProjectId(scheduledGraphCreateRequest.getProjectId());
-                projectScheduleTaskDO.setGraphId(scheduledGraphCreateRequest.getGraphId());
-                projectScheduleTaskDO.setScheduleId(scheduledGraphCreateRequest.getScheduleId());
-                ScheduledIdRequest scheduledIdRequest = new ScheduledIdRequest();
-                scheduledIdRequest.setProjectId(scheduledGraphCreateRequest.getProjectId());
-                scheduledIdRequest.setGraphId(scheduledGraphCreateRequest.getGraphId());
-                projectScheduleTaskDO.setScheduleTaskId(secretpadScheduledService.buildSchedulerId(scheduledIdRequest));
-                projectScheduleTaskDO.setCron(cronExpression);
-                projectScheduleTaskDO.setOwner(UserContext.getUser().getOwnerId());
-                projectScheduleTaskDO.setCreator(UserContext.getUserName());
-                projectScheduleTaskDO.setScheduleTaskExpectStartTime(DateTimes.toLocalDateTime(date));
-
-                StartGraphRequest startGraphRequest = new StartGraphRequest();
-                startGraphRequest.setProjectId(scheduledGraphCreateRequest.getProjectId());
-                startGraphRequest.setGraphId(scheduledGraphCreateRequest.getGraphId());
-                startGraphRequest.setNodes(scheduledGraphCreateRequest.getNodes());
-
-                GraphContext.setIsScheduled(true);
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMdd");
-                GraphContext.setScheduleExpectStartDate(projectScheduleTaskDO.getScheduleTaskExpectStartTime().format(formatter));
-                graphService.startGraph(startGraphRequest);
-
-                ProjectScheduleJobDO projectScheduleJobDO = convertToProjectScheduleJobDO(GraphContext.getProjectJobDO());
-                projectScheduleJobDO.setScheduleTaskId(projectScheduleTaskDO.getScheduleTaskId());
-                projectScheduleJobDO.setOwner(UserContext.getUser().getOwnerId());
-                projectScheduleJobRepository.save(projectScheduleJobDO);
-                Job.CreateJobRequest request = GraphContext.getRequest();
-                if (ObjectUtils.isEmpty(request)) {
-                    log.error("convertToProjectScheduleJobDO, request is null");
-                    throw SecretpadException.of(ScheduledErrorCode.REQUEST_IS_NULL);
-                }
-                projectScheduleTaskDO.setJobRequest(Base64.getEncoder().encodeToString(request.toByteArray()));
-                projectScheduleTaskDO.setScheduleJobId(projectScheduleJobDO.getUpk().getJobId());
-                projectScheduleTaskRepository.save(projectScheduleTaskDO);
-                secretpadScheduledService.addScheduler(
-                        projectScheduleJobDO.getUpk().getJobId(),
-                        projectScheduleDO.getScheduleId(),
-                        projectScheduleTaskDO,
-                        cronExpression
-                );
-                GraphContext.remove();
-                matchingDateSet.add(date);
-            });
-        });
+        log.info("createScheduler, scheduleId:{}, cronGroup:{}, firstFireTime:{}", projectScheduleDO.getScheduleId(), cronGroup, firstFireTime);
+        if (!secretpadScheduledService.addScheduler(projectScheduleDO.getScheduleId(), firstFireTime)) {
+            throw SecretpadException.of(ScheduledErrorCode.SCHEDULE_CREATE_ERROR, "failed to add scheduler");
+        }
+    }
+
+    /**
+     * render the task of a schedule when its trigger fires, as the user who created the schedule
+     *
+     * @param schedule        schedule
+     * @param expectStartTime expected start time of the task
+     * @return saved task
+     */
+    @Override
+    public ProjectScheduleTaskDO render(ProjectScheduleDO schedule, LocalDateTime expectStartTime) {
+        log.info("render, scheduleId:{}, expectStartTime:{}", schedule.getScheduleId(), expectStartTime);
+        ProjectScheduleTaskDO projectScheduleTaskDO = new ProjectScheduleTaskDO();
+        projectScheduleTaskDO.setProjectId(schedule.getProjectId());
+        projectScheduleTaskDO.setGraphId(schedule.getGraphId());
+        projectScheduleTaskDO.setScheduleId(schedule.getScheduleId());
+        ScheduledIdRequest scheduledIdRequest = new ScheduledIdRequest();
+        scheduledIdRequest.setProjectId(schedule.getProjectId());
+        scheduledIdRequest.setGraphId(schedule.getGraphId());
+        projectScheduleTaskDO.setScheduleTaskId(secretpadScheduledService.buildSchedulerId(scheduledIdRequest));
+        projectScheduleTaskDO.setCron(CronUtils.getMatchingExpression(schedule.getCron(), Date.from(expectStartTime.atZone(ZoneId.systemDefault()).toInstant())));
+        projectScheduleTaskDO.setOwner(schedule.getOwner());
+        projectScheduleTaskDO.setCreator(schedule.getCreator());
+        projectScheduleTaskDO.setScheduleTaskExpectStartTime(expectStartTime);
+        UserContext.setBaseUser(UserContextDTO.builder()
+                .name(schedule.getCreator())
+                .ownerId(schedule.getOwner())
+                .platformType(envService.getPlatformType())
+                .platformNodeId(envService.getPlatformNodeId())
+                .build());
+        try {
+            renderJob(schedule, projectScheduleTaskDO);
+        } catch (Exception e) {
+            log.error("render, scheduleId:{}, expectStartTime:{} failed", schedule.getScheduleId(), expectStartTime, e);
+            projectScheduleTaskDO.setStatus(ScheduledStatus.FAILED);
+            projectScheduleTaskDO.setScheduleTaskEndTime(LocalDateTime.now());
+        } finally {
+            UserContext.remove();
+        }
+        return projectScheduleTaskRepository.save(projectScheduleTaskDO);
+    }
 
+    /**
+     * render the graph of a schedule into the job of a task
+     *
+     * @param schedule              schedule
+     * @param projectScheduleTaskDO task, gets the job request and job id
+     */
+    private void renderJob(ProjectScheduleDO schedule, ProjectScheduleTaskDO projectScheduleTaskDO) {
+        StartGraphRequest startGraphRequest = new StartGraphRequest();
+        startGraphRequest.setProjectId(schedule.getProjectId());
+        startGraphRequest.setGraphId(schedule.getGraphId());
+        startGraphRequest.setNodes(schedule.getRequest().getNodes());
+        try {
+            GraphContext.setIsScheduled(true);
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMdd");
+            GraphContext.setScheduleExpectStartDate(projectScheduleTaskDO.getScheduleTaskExpectStartTime().format(formatter));
+            graphService.startGraph(startGraphRequest);
+
+            ProjectScheduleJobDO projectScheduleJobDO = convertToProjectScheduleJobDO(GraphContext.getProjectJobDO());
+            projectScheduleJobDO.setScheduleTaskId(projectScheduleTaskDO.getScheduleTaskId());
+            projectScheduleJobDO.setOwner(projectScheduleTaskDO.getOwner());
+            projectScheduleJobRepository.save(projectScheduleJobDO);
+            Job.CreateJobRequest request = GraphContext.getRequest();
+            if (ObjectUtils.isEmpty(request)) {
+                log.error("convertToProjectScheduleJobDO, request is null");
+                throw SecretpadException.of(ScheduledErrorCode.REQUEST_IS_NULL);
+            }
+            projectScheduleTaskDO.setJobRequest(Base64.getEncoder().encodeToString(request.toByteArray()));
+            projectScheduleTaskDO.setScheduleJobId(projectScheduleJobDO.getUpk().getJobId());
+        } finally {
+            GraphContext.remove();
+        }
     }
 
     /**
@@ -294,6 +324,7 @@ public class ScheduledServiceImpl implements ScheduledService {
             throw SecretpadException.of(ScheduledErrorCode.SCHEDULE_UP_NOT_DEL);
         }
         projectScheduleRepository.deleteById(projectScheduleDO.getScheduleId());
+        secretpadScheduledService.deleteScheduler(projectScheduleDO.getScheduleId());
     }
 
     @Override
@@ -392,9 +423,14 @@ public class ScheduledServiceImpl implements ScheduledService {
                 if (allReRun != null && allReRun) {
                     throw SecretpadException.of(ScheduledErrorCode.PROJECT_JOB_RESTART_ERROR, " schedule task already performed a rerun of all");
                 }
-                Job.DeleteJobResponse deleteJobResponse = kusciaGrpcClientAdapter.deleteJob(Job.DeleteJobRequest.newBuilder().setJobId(projectScheduleTaskDO.getScheduleJobId()).build());
-                if (!(deleteJobResponse.getStatus().getCode() == KusciaAPIConstants.OK)) {
-                    throw SecretpadException.of(ScheduledErrorCode.PROJECT_JOB_RESTART_ERROR, deleteJobResponse.getStatus().getMessage());
+                if (StringUtils.isBlank(projectScheduleTaskDO.getJobRequest())) {
+                    // the graph failed to render when the task was due, there is no job to delete yet
+                    renderJob(checkProjectScheduleDO(scheduleId), projectScheduleTaskDO);
+                } else {
+                    Job.DeleteJobResponse deleteJobResponse = kusciaGrpcClientAdapter.deleteJob(Job.DeleteJobRequest.newBuilder().setJobId(projectScheduleTaskDO.getScheduleJobId()).build());
+                    if (!(deleteJobResponse.getStatus().getCode() == KusciaAPIConstants.OK)) {
+                        throw SecretpadException.of(ScheduledErrorCode.PROJECT_JOB_RESTART_ERROR, deleteJobResponse.getStatus().getMessage());
+                    }
                 }
                 Job.CreateJobRequest createJobRequest;
                 try {
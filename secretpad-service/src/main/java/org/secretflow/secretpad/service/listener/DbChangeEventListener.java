@@ -25,6 +25,7 @@ import org.secretflow.secretpad.persistence.entity.ProjectFeatureTableDO;
 import org.secretflow.secretpad.persistence.entity.ProjectNodesInfo;
 import org.secretflow.secretpad.persistence.repository.FeatureTableRepository;
 import org.secretflow.secretpad.persistence.repository.ProjectNodeRepository;
+import org.secretflow.secretpad.service.sync.center.SseChangeLog;
 import org.secretflow.secretpad.service.sync.center.SseSession;
 
 import lombok.RequiredArgsConstructor;
@@ -51,6 +52,7 @@ public class DbChangeEventListener {
     private final ProjectNodeRepository projectNodeRepository;
     private final FeatureTableRepository featureTableRepository;
     private final DataSyncDataBufferTemplate dataSyncDataBufferTemplate;
+    private final SseChangeLog sseChangeLog;
 
     private void sync(EntityChangeListener.DbChangeEvent event) {
         if (event.getSource() instanceof ProjectFeatureTableDO) {
@@ -62,11 +64,12 @@ public class DbChangeEventListener {
             ((ProjectFeatureTableDO) r).setFeatureTable(featureTableDOOptional.get());
         }
         if (event.getSource() instanceof NodeDO) {
+            Long sequence = sseChangeLog.append(event, null);
             log.info("*** get data sync , filter {} will be send", SseSession.sessionMap.keySet());
-            SseSession.sendAll(SyncDataDTO.builder()
+            sseChangeLog.dispatchLive(() -> SseSession.sendAll(sequence, SyncDataDTO.builder()
                     .tableName(event.getDType())
                     .action(event.getAction())
-                    .data(event.getSource()).build());
+                    .data(event.getSource()).build()));
             return;
         }
         List<String> nodeIds = event.getNodeIds();
@@ -81,14 +84,17 @@ public class DbChangeEventListener {
                 }
             }
         }
+        Long sequence = sseChangeLog.append(event, nodeIds);
         log.info("*** get data sync , filter {} will be send", nodeIds);
-        nodeIds.forEach(n -> {
+        List<String> targets = nodeIds;
+        // sessions still replaying get the change from the change log
+        sseChangeLog.dispatchLive(() -> targets.stream().filter(SseSession::isLive).forEach(n -> {
             List<SyncDataDTO> syncDataDTOList = SseSession.sessionTableMap.get(n);
             if (!CollectionUtils.isEmpty(syncDataDTOList)) {
                 syncDataDTOList.forEach(s -> {
                     if (s.getTableName().equals(event.getDType())) {
                         try {
-                            SseSession.send(n, SyncDataDTO.builder()
+                            SseSession.send(n, sequence, SyncDataDTO.builder()
                                     .tableName(event.getDType())
                                     .action(event.getAction())
                                     .data(event.getSource()).build());
@@ -100,7 +106,7 @@ public class DbChangeEventListener {
                     }
                 });
             }
-        });
+        }));
     }
 
     @Scheduled(initialDelay = 1000, fixedRate = 3000)
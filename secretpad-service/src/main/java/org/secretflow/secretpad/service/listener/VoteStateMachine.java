@@ -0,0 +1,111 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.listener;
+
+import org.secretflow.secretpad.common.constant.SystemConstants;
+import org.secretflow.secretpad.persistence.datasync.event.EntityChangedEvent;
+import org.secretflow.secretpad.persistence.entity.VoteInviteDO;
+import org.secretflow.secretpad.persistence.entity.VoteRequestDO;
+import org.secretflow.secretpad.persistence.model.DbChangeAction;
+import org.secretflow.secretpad.persistence.repository.VoteRequestRepository;
+import org.secretflow.secretpad.service.enums.VoteStatusEnum;
+import org.secretflow.secretpad.service.schedule.VoteInviteStatusMonitor;
+import org.secretflow.secretpad.service.schedule.VoteRequestStatusMonitor;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Vote state machine
+ * <p>
+ * A vote request is advanced when it or one of its invites is written, locally or by consumed sync data: it is signed
+ * while reviewed, its invites are tallied and its callback runs once it is approved or rejected. The steps run on one
+ * thread after the writing transaction commits, and a vote already waiting for its turn is not queued again. The
+ * monitors sweep slowly for anything an event missed.
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+@Slf4j
+@Component
+@Profile(SystemConstants.SKIP_TEST)
+public class VoteStateMachine {
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    @Resource
+    private VoteRequestRepository voteRequestRepository;
+
+    @Resource
+    private VoteRequestStatusMonitor voteRequestStatusMonitor;
+
+    @Resource
+    private VoteInviteStatusMonitor voteInviteStatusMonitor;
+
+    @Resource(name = "voteStateThreadPool")
+    private ThreadPoolTaskExecutor voteStateThreadPool;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.getAction() == DbChangeAction.REMOVE) {
+            return;
+        }
+        if (event.getEntity() instanceof VoteRequestDO voteRequestDO) {
+            submit(voteRequestDO.getVoteID());
+        } else if (event.getEntity() instanceof VoteInviteDO voteInviteDO) {
+            submit(voteInviteDO.getUpk().getVoteID());
+        }
+    }
+
+    private void submit(String voteID) {
+        if (voteID == null || !pending.add(voteID)) {
+            return;
+        }
+        voteStateThreadPool.execute(() -> {
+            // a write from here on is seen by the next run
+            pending.remove(voteID);
+            try {
+                advance(voteID);
+            } catch (Exception e) {
+                log.error("advance vote {} failed, left to the reconciliation sweep", voteID, e);
+            }
+        });
+    }
+
+    private void advance(String voteID) {
+        Optional<VoteRequestDO> voteRequestDO = voteRequestRepository.findByVoteID(voteID);
+        if (voteRequestDO.isEmpty()) {
+            return;
+        }
+        VoteRequestDO request = voteRequestDO.get();
+        log.debug("advance vote {} status {}", voteID, request.getStatus());
+        if (VoteStatusEnum.REVIEWING.getCode().equals(request.getStatus())) {
+            voteRequestStatusMonitor.advance(request);
+            voteInviteStatusMonitor.tally(request);
+        } else {
+            voteRequestStatusMonitor.advance(request);
+        }
+    }
+}
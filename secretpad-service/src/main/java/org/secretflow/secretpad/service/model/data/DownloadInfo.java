@@ -21,7 +21,9 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.io.InputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * Download information
@@ -41,11 +43,22 @@ public class DownloadInfo {
     private String fileName;
 
     /**
-     * File path
+     * File length, -1 if the content is streamed while it is produced
      */
     @Schema(description = "file length")
-    private int fileLength;
+    private long fileLength;
 
-    @Schema(description = "file byte array")
-    private InputStream inputStream;
-}
\ No newline at end of file
+    /**
+     * File to send as is, null if the content is streamed by the writer
+     */
+    @Schema(description = "file to send")
+    private File file;
+
+    @Schema(description = "writer of streamed content")
+    private ContentWriter writer;
+
+    @FunctionalInterface
+    public interface ContentWriter {
+        void writeTo(OutputStream outputStream) throws IOException;
+    }
+}
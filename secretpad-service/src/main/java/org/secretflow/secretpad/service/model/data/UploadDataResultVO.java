@@ -21,6 +21,8 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.List;
+
 /**
  * Upload data result view object
  *
@@ -52,5 +54,25 @@ public class UploadDataResultVO {
      */
     @Schema(description = "data source type")
     private String datasourceType;
+    /**
+     * Column names of the file header
+     */
+    @Schema(description = "column names of the file header")
+    private List<String> columns;
+    /**
+     * Column types sniffed from the first rows, int, float or str
+     */
+    @Schema(description = "column types sniffed from the first rows, int, float or str")
+    private List<String> columnTypes;
+    /**
+     * Column delimiter sniffed from the header
+     */
+    @Schema(description = "column delimiter sniffed from the header")
+    private String delimiter;
+    /**
+     * Data rows, header excluded
+     */
+    @Schema(description = "data rows, header excluded")
+    private Long rowCount;
 
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.model.datasync.deadletter;
+
+import org.secretflow.secretpad.common.util.DateTimes;
+import org.secretflow.secretpad.persistence.entity.DataSyncDeadLetterDO;
+
+import lombok.*;
+
+/**
+ * @author yutu
+ * @date 2024/12/19
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class DataSyncDeadLetterVO {
+
+    private Long id;
+
+    private String nodeId;
+
+    private String tableName;
+
+    private String action;
+
+    private String payload;
+
+    private String reason;
+
+    private Integer attempts;
+
+    private String gmtCreate;
+
+    public static DataSyncDeadLetterVO from(DataSyncDeadLetterDO deadLetterDO) {
+        return DataSyncDeadLetterVO.builder()
+                .id(deadLetterDO.getId())
+                .nodeId(deadLetterDO.getNodeId())
+                .tableName(deadLetterDO.getTableName())
+                .action(deadLetterDO.getAction())
+                .payload(deadLetterDO.getPayload())
+                .reason(deadLetterDO.getReason())
+                .attempts(deadLetterDO.getAttempts())
+                .gmtCreate(DateTimes.toRfc3339(deadLetterDO.getGmtCreate()))
+                .build();
+    }
+}
@@ -44,4 +44,9 @@ public class AllDatatableListVO {
      */
     @Schema(description = "the total count of datatable")
     Integer totalDatatableNums;
+    /**
+     * Token of the next page, null on the last page and for page number requests
+     */
+    @Schema(description = "next page token")
+    String nextPageToken;
 }
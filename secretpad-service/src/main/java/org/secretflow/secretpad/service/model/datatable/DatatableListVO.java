@@ -44,4 +44,9 @@ public class DatatableListVO {
      */
     @Schema(description = "the total count of datatable")
     Integer totalDatatableNums;
+    /**
+     * Token of the next page, null on the last page
+     */
+    @Schema(description = "next page token")
+    String nextPageToken;
 }
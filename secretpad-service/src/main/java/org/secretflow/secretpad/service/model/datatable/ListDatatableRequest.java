@@ -44,6 +44,14 @@ public class ListDatatableRequest {
      */
     @Schema(description = "page number")
     Integer pageNumber;
+    /**
+     * nextPageToken of the previous page, the page starts right after it and pageNumber is ignored.
+     * An empty token requests the first page. Token pages are sorted by datatable name, datatable id and node id,
+     * page number requests keep the node by node order
+     */
+    @Schema(description = "page token")
+    @Nullable
+    String pageToken;
     /**
      * Filter the list by nodeName
      */
@@ -133,6 +133,22 @@ public class GraphNodeInfo implements Serializable {
         return new ArrayList<>();
     }
 
+    /**
+     * @return a copy with its own input and output lists, the node def is shared as it is only ever replaced
+     */
+    public GraphNodeInfo copy() {
+        return GraphNodeInfo.builder()
+                .codeName(this.codeName)
+                .graphNodeId(this.graphNodeId)
+                .label(this.label)
+                .x(this.x)
+                .y(this.y)
+                .inputs(this.inputs == null ? null : new ArrayList<>(this.inputs))
+                .outputs(this.outputs == null ? null : new ArrayList<>(this.outputs))
+                .nodeDef(this.nodeDef)
+                .build();
+    }
+
     public GraphNodeInfo toGraphNodeInfo() {
         return GraphNodeInfo.builder()
                 .codeName(this.codeName)
@@ -122,6 +122,24 @@ public class ProjectJob implements Serializable {
         return jobBuilder.build();
     }
 
+    /**
+     * Copy the job structurally, the copy can be rendered without changing this job
+     *
+     * @return copy of the job
+     */
+    public ProjectJob copy() {
+        return ProjectJob.builder()
+                .projectId(projectId)
+                .graphId(graphId)
+                .name(name)
+                .jobId(jobId)
+                .fullNodes(fullNodes == null ? null : fullNodes.stream().map(GraphNodeInfo::copy).collect(Collectors.toList()))
+                .edges(edges == null ? null : new ArrayList<>(edges))
+                .tasks(tasks == null ? null : tasks.stream().map(JobTask::copy).collect(Collectors.toList()))
+                .maxParallelism(maxParallelism)
+                .build();
+    }
+
     /**
      * Build a new project job data object via project job
      *
@@ -176,6 +194,16 @@ public class ProjectJob implements Serializable {
          */
         private GraphNodeInfo node;
 
+        public JobTask copy() {
+            return JobTask.builder()
+                    .taskId(taskId)
+                    .parties(parties == null ? null : new ArrayList<>(parties))
+                    .status(status)
+                    .dependencies(dependencies == null ? null : new ArrayList<>(dependencies))
+                    .node(node == null ? null : node.copy())
+                    .build();
+        }
+
         public static ProjectTaskDO toDO(ProjectJob job, JobTask task) {
             return ProjectTaskDO.builder()
                     .upk(new ProjectTaskDO.UPK(job.getProjectId(), job.getJobId(), task.getTaskId()))
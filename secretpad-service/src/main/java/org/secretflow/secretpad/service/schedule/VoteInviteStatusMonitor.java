@@ -48,6 +48,7 @@ import org.springframework.util.CollectionUtils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -74,46 +75,61 @@ public class VoteInviteStatusMonitor {
     @Resource
     private EnvService envService;
 
-    @Scheduled(initialDelay = 6000, fixedDelay = 1000)
-    public void sync() {
+    /**
+     * reconciliation sweep, votes are tallied by {@link org.secretflow.secretpad.service.listener.VoteStateMachine} as
+     * invites change and this only picks up what an event missed
+     */
+    @Scheduled(initialDelayString = "${secretpad.vote.reconcile.initial-delay-ms:6000}", fixedDelayString = "${secretpad.vote.reconcile.interval-ms:60000}")
+    public synchronized void sync() {
         List<VoteRequestDO> voteRequestDOS = voteRequestRepository.findByStatus(VoteStatusEnum.REVIEWING.getCode());
         if (!CollectionUtils.isEmpty(voteRequestDOS)) {
-            voteRequestDOS.forEach(voteRequestDO -> {
-                String voteID = voteRequestDO.getVoteID();
-                List<VoteInviteDO> voteInviteDOS = voteInviteRepository.findByVoteID(voteID);
-                if (CollectionUtils.isEmpty(voteInviteDOS)) {
-                    LOGGER.debug("maybe voteInvite is embedded node!");
-                    return;
-                }
-                String type = voteRequestDO.getType();
-                List<String> executors = voteRequestDO.getExecutors();
-                if (CENTER_VOTE.contains(type)) {
-                    boolean teeNodeRoute = (StringUtils.equals(VoteTypeEnum.NODE_ROUTE.name(), type) && executors.contains("tee"));
-                    if (!teeNodeRoute) {
+            voteRequestDOS.forEach(this::tally);
+        }
+
+    }
+
+    /**
+     * tally the invites of a vote request under review, the request is saved only if its status changes
+     *
+     * @param voteRequestDO vote request
+     */
+    public synchronized void tally(VoteRequestDO voteRequestDO) {
+        String voteID = voteRequestDO.getVoteID();
+        List<VoteInviteDO> voteInviteDOS = voteInviteRepository.findByVoteID(voteID);
+        if (CollectionUtils.isEmpty(voteInviteDOS)) {
+            LOGGER.debug("maybe voteInvite is embedded node!");
+            return;
+        }
+        Integer status = voteRequestDO.getStatus();
+        String type = voteRequestDO.getType();
+        List<String> executors = voteRequestDO.getExecutors();
+        if (CENTER_VOTE.contains(type)) {
+            boolean teeNodeRoute = (StringUtils.equals(VoteTypeEnum.NODE_ROUTE.name(), type) && executors.contains("tee"));
+            if (!teeNodeRoute) {
+                verify(voteRequestDO, voteInviteDOS);
+            }
+        } else if (AUTONOMY_VOTE.contains(type)) {
+            String initiator = voteRequestDO.getInitiator();
+            //only initiator can calculate the vote in project create vote
+            List<String> nodeIds = nodeRepository.findByInstId(initiator).stream().map(NodeDO::getNodeId).toList();
+            if (InstServiceImpl.INST_ID.equals(initiator)) {
+                for (String executor : executors) {
+                    if (nodeIds.contains(executor)) {
                         verify(voteRequestDO, voteInviteDOS);
                     }
-                } else if (AUTONOMY_VOTE.contains(type)) {
-                    String initiator = voteRequestDO.getInitiator();
-                    //only initiator can calculate the vote in project create vote
-                    List<String> nodeIds = nodeRepository.findByInstId(initiator).stream().map(NodeDO::getNodeId).toList();
-                    if (InstServiceImpl.INST_ID.equals(initiator)) {
-                        for (String executor : executors) {
-                            if (nodeIds.contains(executor)) {
-                                verify(voteRequestDO, voteInviteDOS);
-                            }
-                        }
-                    }
-                }
-                if (voteInviteDOS.stream().anyMatch(e -> VoteStatusEnum.REJECTED.name().equals(e.getAction()))) {
-                    voteRequestDO.setStatus(VoteStatusEnum.REJECTED.getCode());
-                } else if (voteInviteDOS.stream().allMatch(e -> VoteStatusEnum.APPROVED.name().equals(e.getAction()))) {
-                    voteRequestDO.setStatus(VoteStatusEnum.APPROVED.getCode());
                 }
-                voteRequestRepository.save(voteRequestDO);
-                LOGGER.debug("{} monitor,voteID = {}", type, voteRequestDO.getVoteID());
-            });
+            }
         }
-
+        if (voteInviteDOS.stream().anyMatch(e -> VoteStatusEnum.REJECTED.name().equals(e.getAction()))) {
+            voteRequestDO.setStatus(VoteStatusEnum.REJECTED.getCode());
+        } else if (voteInviteDOS.stream().allMatch(e -> VoteStatusEnum.APPROVED.name().equals(e.getAction()))) {
+            voteRequestDO.setStatus(VoteStatusEnum.APPROVED.getCode());
+        }
+        // an unchanged request is not written again, every write is a change event of its own
+        if (!Objects.equals(status, voteRequestDO.getStatus())) {
+            voteRequestRepository.save(voteRequestDO);
+        }
+        LOGGER.debug("{} monitor,voteID = {}", type, voteRequestDO.getVoteID());
     }
 
     private void verify(VoteRequestDO voteRequestDO, List<VoteInviteDO> voteInviteDOS) {
@@ -70,8 +70,12 @@ public class VoteRequestStatusMonitor {
     @Resource
     private EnvService envService;
 
-    @Scheduled(initialDelay = 6000, fixedDelay = 1000)
-    public void sync() {
+    /**
+     * reconciliation sweep, votes are advanced by {@link org.secretflow.secretpad.service.listener.VoteStateMachine} as
+     * they change and this only picks up what an event missed
+     */
+    @Scheduled(initialDelayString = "${secretpad.vote.reconcile.initial-delay-ms:6000}", fixedDelayString = "${secretpad.vote.reconcile.interval-ms:60000}")
+    public synchronized void sync() {
         List<VoteRequestDO> maybeNotSigns = voteRequestRepository.findByStatusAndExecuteStatus(VoteStatusEnum.REVIEWING.getCode(), VoteExecuteEnum.COMMITTED.name());
         if (!envService.getPlatformType().equals(PlatformTypeEnum.AUTONOMY)) {
             sign(maybeNotSigns);
@@ -92,8 +96,29 @@ public class VoteRequestStatusMonitor {
 
     }
 
+    /**
+     * advance one vote request: sign it while it is reviewed, run its callback once it is decided
+     *
+     * @param voteRequestDO vote request
+     */
+    public synchronized void advance(VoteRequestDO voteRequestDO) {
+        if (!VoteExecuteEnum.COMMITTED.name().equals(voteRequestDO.getExecuteStatus())) {
+            return;
+        }
+        Integer status = voteRequestDO.getStatus();
+        if (VoteStatusEnum.REVIEWING.getCode().equals(status)) {
+            if (!envService.getPlatformType().equals(PlatformTypeEnum.AUTONOMY)) {
+                sign(List.of(voteRequestDO));
+            }
+        } else if (VoteStatusEnum.APPROVED.getCode().equals(status)) {
+            voteTypeHandlerMap.get(VoteTypeEnum.valueOf(voteRequestDO.getType())).doCallBackApproved(voteRequestDO);
+        } else if (VoteStatusEnum.REJECTED.getCode().equals(status)) {
+            voteTypeHandlerMap.get(VoteTypeEnum.valueOf(voteRequestDO.getType())).doCallBackRejected(voteRequestDO);
+        }
+    }
+
     //center  alice
-    public void sign(List<VoteRequestDO> maybeNotSigns) {
+    public synchronized void sign(List<VoteRequestDO> maybeNotSigns) {
         ArrayList<String> embedded = Lists.newArrayList("alice", "bob");
         if (!CollectionUtils.isEmpty(maybeNotSigns)) {
             for (VoteRequestDO voteRequestDO : maybeNotSigns) {
@@ -26,29 +26,29 @@ import org.secretflow.secretpad.persistence.entity.*;
 import org.secretflow.secretpad.persistence.model.DbChangeAction;
 import org.secretflow.secretpad.persistence.repository.*;
 import org.secretflow.secretpad.service.enums.VoteExecuteEnum;
+import org.secretflow.secretpad.service.sync.center.SseChangeLog;
 import org.secretflow.secretpad.service.sync.center.SseSession;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.Query;
 import jakarta.persistence.Table;
+import jakarta.persistence.criteria.*;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ObjectUtils;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.annotation.PostConstruct;
 import java.io.IOException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -61,6 +61,10 @@ import java.util.concurrent.ConcurrentHashMap;
 @RequiredArgsConstructor
 @SuppressWarnings("unchecked")
 public class JpaSyncDataService {
+    /**
+     * edge_data_sync_log row which keeps the change sequence the edge received last
+     */
+    private static final String CHANGE_SEQUENCE_LOG = "data_sync_change_log";
     @SuppressWarnings(value = {"rawtypes"})
     private static Map<String, BaseRepository> doAndRepository;
     private final EdgeDataSyncLogRepository edgeDataSyncLogRepository;
@@ -99,8 +103,12 @@ public class JpaSyncDataService {
     private final ProjectScheduleRepository projectScheduleRepository;
     private final ProjectScheduleJobRepository projectScheduleJobRepository;
     private final ProjectScheduleTaskRepository projectScheduleTaskRepository;
+    private final SseChangeLog sseChangeLog;
     @PersistenceContext
     private final EntityManager entityManager;
+    @Value("${secretpad.datasync.catch-up.page-size:500}")
+    @Setter
+    private int catchUpPageSize = 500;
 
     @PostConstruct
     public void init() {
@@ -197,12 +205,19 @@ public class JpaSyncDataService {
         return false;
     }
 
+    /**
+     * @return the watermark the edge received last for the table, the newest local create time if it has none
+     */
     public Object logTableLastUpdateTime(String tableName) {
         String name = getRealTableName(tableName);
         if ("node".equals(name)) {
             edgeDataSyncLogRepository.save(EdgeDataSyncLogDO.builder().lastUpdateTime("0").tableName(name).build());
             return "0";
         }
+        Optional<EdgeDataSyncLogDO> logged = edgeDataSyncLogRepository.findById(name);
+        if (logged.isPresent() && SyncWatermark.resumable(logged.get().getLastUpdateTime())) {
+            return logged.get().getLastUpdateTime();
+        }
         Query nativeQuery = entityManager.createNativeQuery("select max(gmt_create) from " + name, String.class);
         @SuppressWarnings(value = {"rawtypes"})
         List resultList = nativeQuery.getResultList();
@@ -217,73 +232,179 @@ public class JpaSyncDataService {
         return lastUpdateTime;
     }
 
+    /**
+     * record the catch up checkpoint of a table, the next connection resumes right after it
+     */
+    public void logTableWatermark(@SuppressWarnings(value = {"rawtypes"}) SyncDataDTO checkpoint) {
+        String name = getRealTableName(checkpoint.getTableName());
+        if ("node".equals(name)) {
+            return;
+        }
+        edgeDataSyncLogRepository.save(EdgeDataSyncLogDO.builder().lastUpdateTime(checkpoint.getLastUpdateTime()).tableName(name).build());
+    }
+
+    /**
+     * @return the change sequence the edge received last, 0 if it has none
+     */
+    public String lastChangeSequence() {
+        return edgeDataSyncLogRepository.findById(CHANGE_SEQUENCE_LOG).map(EdgeDataSyncLogDO::getLastUpdateTime).orElse("0");
+    }
+
+    public void logChangeSequence(String sequence) {
+        edgeDataSyncLogRepository.save(EdgeDataSyncLogDO.builder().lastUpdateTime(sequence).tableName(CHANGE_SEQUENCE_LOG).build());
+    }
+
+    /**
+     * bring a new session up to date, then let live changes through.
+     * <p>
+     * An edge which resumes by Last-Event-ID gets the changes after it from the change log. Any other edge, or one
+     * whose Last-Event-ID is no longer covered by the log, gets a full resync: every row it has missed is streamed
+     * table by table in (gmt_modified, id) pages, followed by the changes logged since the resync started.
+     * <p>
+     * Only one page is held at a time, the scan waits while the session outbox is full,
+     * and it stops as soon as the session is closed or replaced by a new connection.
+     * A checkpoint is sent after each page so that the edge resumes from there next time.
+     */
     @Async
-    public void syncByLastUpdateTime(String nodeId) {
+    public void syncByLastUpdateTime(String nodeId, String lastEventId) {
         @SuppressWarnings(value = {"rawtypes"})
         List<SyncDataDTO> syncDataDTOList = SseSession.sessionTableMap.get(nodeId);
-        if (!CollectionUtils.isEmpty(syncDataDTOList)) {
-            syncDataDTOList.forEach(s -> {
-                String tableName = s.getTableName();
-                String lastUpdateTime = s.getLastUpdateTime();
-                List<ProjectNodesInfo> resultList = findDoByTime(s);
-                resultList.forEach(r -> {
-                    try {
-                        if (r instanceof ProjectFeatureTableDO) {
-                            Optional<FeatureTableDO> featureTableDOOptional = featureTableRepository.findById(new FeatureTableDO.UPK(((ProjectFeatureTableDO) r).getUpk().getFeatureTableId(), ((ProjectFeatureTableDO) r).getUpk().getNodeId(), ((ProjectFeatureTableDO) r).getUpk().getDatasourceId()));
-                            if (featureTableDOOptional.isEmpty()) {
-                                log.warn("featureTableDOOptional is empty");
-                            }
-                            ((ProjectFeatureTableDO) r).setFeatureTable(featureTableDOOptional.get());
-                        }
-                        if (SseSendFlag(r, nodeId)) {
-                            SseSession.send(nodeId, SyncDataDTO.builder()
-                                    .data(r)
-                                    .action(DbChangeAction.CREATE.val)
-                                    .tableName(tableName)
-                                    .lastUpdateTime(lastUpdateTime)
-                                    .build());
+        SseEmitter sseEmitter = SseSession.sessionMap.get(nodeId);
+        if (sseEmitter == null) {
+            return;
+        }
+        boolean sequenced = SseSession.sequencedSessions.contains(nodeId);
+        Long resumeFrom = sequenced ? sseChangeLog.resumeFrom(lastEventId) : null;
+        try {
+            long cursor;
+            if (resumeFrom != null) {
+                cursor = resumeFrom;
+                log.info("data sync of {} resumes after change {}", nodeId, cursor);
+            } else {
+                cursor = sequenced ? sseChangeLog.lastSequence() : 0;
+                if (!CollectionUtils.isEmpty(syncDataDTOList)) {
+                    Map<String, List<String>> projectNodes = new HashMap<>();
+                    for (@SuppressWarnings(value = {"rawtypes"}) SyncDataDTO s : syncDataDTOList) {
+                        if (!catchUp(nodeId, sseEmitter, s, projectNodes)) {
+                            log.info("data sync catch up of {} stopped, session closed", nodeId);
+                            return;
                         }
-                    } catch (IOException e) {
-                        log.error("sse sync error ", e);
                     }
-                });
-            });
+                }
+            }
+            if (sequenced) {
+                sseChangeLog.replay(nodeId, sseEmitter, cursor);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("sse sync error ", e);
+            if (sequenced) {
+                // a session which can not finish its replay would never get live changes, let the edge reconnect
+                sseEmitter.completeWithError(e);
+            }
         }
     }
 
     @SuppressWarnings(value = {"rawtypes"})
-    public List<ProjectNodesInfo> findDoByTime(SyncDataDTO s) {
+    private boolean catchUp(String nodeId, SseEmitter sseEmitter, SyncDataDTO s, Map<String, List<String>> projectNodes) throws IOException {
         String tableName = s.getTableName();
-        String lastUpdateTime = s.getLastUpdateTime();
-        BaseRepository baseRepository = doAndRepository.get(tableName);
-        Specification<BaseAggregationRoot> gmtModified = null;
-        if (!"0".equals(lastUpdateTime)) {
-            LocalDateTime parse = LocalDateTime.parse(s.getLastUpdateTime(), DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-            gmtModified = (root, query, criteriaBuilder) -> criteriaBuilder.greaterThan(root.get("gmtModified"), parse);
+        Class<? extends BaseAggregationRoot> cls = entityClass(tableName);
+        SyncWatermark watermark = SyncWatermark.parse(s.getLastUpdateTime());
+        log.info("data sync start table: {} ,lastUpdateTime:{}", tableName, watermark);
+        int num = 0;
+        while (true) {
+            List<? extends BaseAggregationRoot> page = findDoPage(cls, watermark, catchUpPageSize);
+            for (BaseAggregationRoot r : page) {
+                if (r instanceof ProjectFeatureTableDO) {
+                    Optional<FeatureTableDO> featureTableDOOptional = featureTableRepository.findById(new FeatureTableDO.UPK(((ProjectFeatureTableDO) r).getUpk().getFeatureTableId(), ((ProjectFeatureTableDO) r).getUpk().getNodeId(), ((ProjectFeatureTableDO) r).getUpk().getDatasourceId()));
+                    if (featureTableDOOptional.isEmpty()) {
+                        log.warn("featureTableDOOptional is empty");
+                    }
+                    ((ProjectFeatureTableDO) r).setFeatureTable(featureTableDOOptional.get());
+                }
+                if (SseSendFlag(r, nodeId, projectNodes)) {
+                    SseSession.stream(nodeId, null, SyncDataDTO.builder()
+                            .data(r)
+                            .action(DbChangeAction.CREATE.val)
+                            .tableName(tableName)
+                            .lastUpdateTime(SyncWatermark.of(r).toString())
+                            .build());
+                }
+            }
+            if (SseSession.sessionMap.get(nodeId) != sseEmitter) {
+                return false;
+            }
+            if (page.isEmpty()) {
+                break;
+            }
+            num += page.size();
+            watermark = SyncWatermark.of(page.get(page.size() - 1));
+            SseSession.checkpoint(nodeId, SyncDataDTO.builder().tableName(tableName).lastUpdateTime(watermark.toString()).build());
+            if (page.size() < catchUpPageSize) {
+                break;
+            }
         }
-        List<ProjectNodesInfo> resultList = ObjectUtils.isEmpty(gmtModified) ? baseRepository.findAll() : baseRepository.findAll(gmtModified);
-        log.info("data sync start table: {} ,lastUpdateTime:{}, num: {}", tableName, lastUpdateTime, resultList.size());
-        return resultList;
+        log.info("data sync end table: {} ,lastUpdateTime:{}, num: {}", tableName, watermark, num);
+        return true;
+    }
+
+    /**
+     * next page after the watermark in (gmt_modified, id) order, a keyset query so that every page costs the same
+     */
+    @SuppressWarnings(value = {"rawtypes"})
+    public <T extends BaseAggregationRoot> List<T> findDoPage(Class<T> cls, SyncWatermark watermark, int size) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(cls);
+        Root<T> root = query.from(cls);
+        Path<LocalDateTime> gmtModified = root.get("gmtModified");
+        Path<Long> id = root.get("id");
+        if (watermark.getGmtModified() != null) {
+            Predicate after = cb.greaterThan(gmtModified, watermark.getGmtModified());
+            if (watermark.getId() != null) {
+                after = cb.or(after, cb.and(cb.equal(gmtModified, watermark.getGmtModified()), cb.greaterThan(id, watermark.getId())));
+            }
+            query.where(after);
+        }
+        query.orderBy(cb.asc(gmtModified), cb.asc(id));
+        return entityManager.createQuery(query).setMaxResults(size).getResultList();
     }
 
     public boolean SseSendFlag(ProjectNodesInfo p, String nodeId) {
+        return SseSendFlag(p, nodeId, new HashMap<>());
+    }
+
+    /**
+     * @param projectNodes project id -> node ids, filled on demand and shared by the rows of one scan
+     */
+    public boolean SseSendFlag(ProjectNodesInfo p, String nodeId, Map<String, List<String>> projectNodes) {
         if (p instanceof NodeDO) {
             return true;
         }
         List<String> nodeIds = p.getNodeIds();
         String projectId = p.getProjectId();
         if (CollectionUtils.isEmpty(nodeIds)) {
-            nodeIds = new ArrayList<>();
-            List<ProjectNodeDO> byProjectId = projectNodeRepository.findByProjectId(projectId);
-            if (!CollectionUtils.isEmpty(byProjectId)) {
-                for (ProjectNodeDO b : byProjectId) {
-                    nodeIds.add(b.getNodeId());
+            nodeIds = projectNodes.computeIfAbsent(String.valueOf(projectId), k -> {
+                List<String> ids = new ArrayList<>();
+                List<ProjectNodeDO> byProjectId = projectNodeRepository.findByProjectId(projectId);
+                if (!CollectionUtils.isEmpty(byProjectId)) {
+                    for (ProjectNodeDO b : byProjectId) {
+                        ids.add(b.getNodeId());
+                    }
                 }
-            }
+                return ids;
+            });
         }
         return nodeIds.contains(nodeId);
     }
 
+    @SuppressWarnings(value = {"rawtypes"})
+    private Class<? extends BaseAggregationRoot> entityClass(String tableName) {
+        try {
+            return Class.forName(tableName).asSubclass(BaseAggregationRoot.class);
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw SecretpadException.of(SystemErrorCode.SSE_ERROR, "no such table " + tableName);
+        }
+    }
+
     private String getRealTableName(String tableName) {
         Class<?> aClass;
         try {
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.sync;
+
+import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * catch up position of one table, the (gmt_modified, id) of the last row an edge has received.
+ * <p>
+ * Written as {@code yyyy-MM-dd HH:mm:ss#id}. The plain {@code yyyy-MM-dd HH:mm:ss} sent by older edges means every row
+ * modified after that second, {@code 0} means from the beginning.
+ *
+ * @author yutu
+ * @date 2024/12/20
+ */
+@Getter
+@AllArgsConstructor
+public class SyncWatermark {
+
+    public static final SyncWatermark BEGINNING = new SyncWatermark(null, null);
+    private static final String ZERO = "0";
+    private static final String SEPARATOR = "#";
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * null from the beginning
+     */
+    private final LocalDateTime gmtModified;
+    /**
+     * null for every row after gmtModified
+     */
+    private final Long id;
+
+    public static SyncWatermark parse(String s) {
+        if (StringUtils.isBlank(s) || ZERO.equals(s)) {
+            return BEGINNING;
+        }
+        int i = s.lastIndexOf(SEPARATOR);
+        if (i < 0) {
+            return new SyncWatermark(LocalDateTime.parse(s, FORMATTER), null);
+        }
+        return new SyncWatermark(LocalDateTime.parse(s.substring(0, i), FORMATTER), Long.parseLong(s.substring(i + 1)));
+    }
+
+    public static SyncWatermark of(BaseAggregationRoot<?> r) {
+        return new SyncWatermark(r.getGmtModified(), r.getId());
+    }
+
+    /**
+     * @return true if the watermark points at a row, so that a catch up can resume right after it
+     */
+    public static boolean resumable(String s) {
+        return StringUtils.isNotBlank(s) && s.contains(SEPARATOR);
+    }
+
+    @Override
+    public String toString() {
+        if (gmtModified == null) {
+            return ZERO;
+        }
+        return id == null ? FORMATTER.format(gmtModified) : FORMATTER.format(gmtModified) + SEPARATOR + id;
+    }
+}
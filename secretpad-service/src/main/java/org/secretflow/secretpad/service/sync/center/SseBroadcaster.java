@@ -0,0 +1,224 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.sync.center;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.Resource;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * fans sse events out to the sessions through one bounded outbox per session.
+ * <p>
+ * Producers only enqueue, a drain task on the writer executor flushes up to batchSize events of a session in one write,
+ * so a slow edge only holds back its own outbox. Live changes never wait: they coalesce by entity, and a session whose
+ * outbox is still full is closed so that the edge reconnects and resyncs by Last-Event-ID.
+ * Catch up and replay wait for space instead, they are the resync.
+ *
+ * @author yutu
+ * @date 2024/12/22
+ */
+@Slf4j
+public class SseBroadcaster {
+
+    private final Map<String, SseOutbox> outboxes = new ConcurrentHashMap<>();
+    private final Map<SseOutbox, List<Meter>> meters = new ConcurrentHashMap<>();
+    @Value("${secretpad.datasync.sse.queue-capacity:1024}")
+    @Setter
+    private int queueCapacity = 1024;
+    @Value("${secretpad.datasync.sse.batch-size:64}")
+    @Setter
+    private int batchSize = 64;
+    @Value("${secretpad.datasync.sse.max-wait-ms:30000}")
+    @Setter
+    private long maxWaitMillis = 30000;
+    /**
+     * runs the drain tasks, the caller thread if not set
+     */
+    @Resource(name = "sseWriterThreadPool")
+    @Setter
+    private Executor executor = Runnable::run;
+    @Resource
+    @Setter
+    private MeterRegistry meterRegistry;
+
+    @PostConstruct
+    public void init() {
+        SseSession.broadcaster = this;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        outboxes.values().forEach(SseOutbox::close);
+    }
+
+    public void open(String sessionKey, SseEmitter sseEmitter) {
+        SseOutbox outbox = new SseOutbox(sessionKey, sseEmitter, queueCapacity);
+        SseOutbox previous = outboxes.put(sessionKey, outbox);
+        if (previous != null) {
+            // before registering the gauges of the new outbox, they share the same id
+            release(previous);
+        }
+        if (meterRegistry != null) {
+            Tags tags = Tags.of("target", sessionKey);
+            meters.put(outbox, List.of(
+                    Gauge.builder("sse.session.queue.depth", outbox, SseOutbox::size).tags(tags).register(meterRegistry),
+                    Gauge.builder("sse.session.lag", outbox, SseOutbox::lagMillis).tags(tags).baseUnit("milliseconds").register(meterRegistry)));
+        }
+    }
+
+    public void close(String sessionKey, SseEmitter sseEmitter) {
+        SseOutbox outbox = outboxes.get(sessionKey);
+        if (outbox != null && outbox.getSseEmitter() == sseEmitter && outboxes.remove(sessionKey, outbox)) {
+            release(outbox);
+        }
+    }
+
+    /**
+     * queue a live event, it never waits
+     *
+     * @param key coalescing key, null if the event never replaces another one
+     * @return false if the session is gone or was closed on overflow
+     */
+    public boolean send(String sessionKey, SseEmitter.SseEventBuilder event, String key) {
+        SseOutbox outbox = outboxes.get(sessionKey);
+        if (outbox == null) {
+            return false;
+        }
+        int queued;
+        try {
+            queued = outbox.offer(event, key, 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        count(outbox, queued);
+        if (queued < 0) {
+            if (!outbox.isClosed()) {
+                overflow(outbox);
+            }
+            return false;
+        }
+        schedule(outbox);
+        return true;
+    }
+
+    /**
+     * queue an event, waiting while the outbox is full
+     *
+     * @throws IOException if the session is gone or the edge did not read for maxWaitMillis
+     */
+    public void sendAndWait(String sessionKey, SseEmitter.SseEventBuilder event, String key) throws IOException {
+        SseOutbox outbox = outboxes.get(sessionKey);
+        if (outbox == null) {
+            throw new IOException("sse session " + sessionKey + " is closed");
+        }
+        int queued;
+        try {
+            queued = outbox.offer(event, key, maxWaitMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("sse send to " + sessionKey + " interrupted", e);
+        }
+        count(outbox, queued);
+        if (queued < 0) {
+            throw new IOException("sse session " + sessionKey + " is closed or did not read for " + maxWaitMillis + "ms");
+        }
+        schedule(outbox);
+    }
+
+    /**
+     * @return queued events of the session, 0 if there is none
+     */
+    public int depth(String sessionKey) {
+        SseOutbox outbox = outboxes.get(sessionKey);
+        return outbox == null ? 0 : outbox.size();
+    }
+
+    private void schedule(SseOutbox outbox) {
+        if (outbox.schedule()) {
+            executor.execute(() -> drain(outbox));
+        }
+    }
+
+    private void drain(SseOutbox outbox) {
+        while (true) {
+            List<SseEmitter.SseEventBuilder> batch = outbox.drain(batchSize);
+            if (batch.isEmpty()) {
+                if (outbox.finish()) {
+                    return;
+                }
+                continue;
+            }
+            Set<ResponseBodyEmitter.DataWithMediaType> data = new LinkedHashSet<>();
+            batch.forEach(e -> data.addAll(e.build()));
+            try {
+                // one write and one flush for the whole batch
+                outbox.getSseEmitter().send(data);
+            } catch (Exception e) {
+                log.warn("sse send data error {}", outbox.getSessionKey(), e);
+                outbox.close();
+                outbox.finish();
+                outbox.getSseEmitter().completeWithError(e);
+                return;
+            }
+            if (meterRegistry != null) {
+                meterRegistry.counter("sse.session.flush", Tags.of("target", outbox.getSessionKey())).increment();
+                meterRegistry.counter("sse.session.events", Tags.of("target", outbox.getSessionKey())).increment(batch.size());
+            }
+        }
+    }
+
+    private void overflow(SseOutbox outbox) {
+        log.warn("sse session {} outbox is full, close it to resync", outbox.getSessionKey());
+        if (meterRegistry != null) {
+            meterRegistry.counter("sse.session.overflow", Tags.of("target", outbox.getSessionKey())).increment();
+        }
+        outbox.close();
+        outbox.getSseEmitter().complete();
+    }
+
+    private void count(SseOutbox outbox, int queued) {
+        if (queued == 0 && meterRegistry != null) {
+            meterRegistry.counter("sse.session.coalesced", Tags.of("target", outbox.getSessionKey())).increment();
+        }
+    }
+
+    private void release(SseOutbox outbox) {
+        outbox.close();
+        List<Meter> registered = meters.remove(outbox);
+        if (registered != null && meterRegistry != null) {
+            registered.forEach(meterRegistry::remove);
+        }
+    }
+}
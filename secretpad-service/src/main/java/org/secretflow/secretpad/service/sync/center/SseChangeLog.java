@@ -0,0 +1,178 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.sync.center;
+
+import org.secretflow.secretpad.common.dto.SyncDataDTO;
+import org.secretflow.secretpad.common.util.JsonUtils;
+import org.secretflow.secretpad.persistence.datasync.listener.EntityChangeListener;
+import org.secretflow.secretpad.persistence.entity.DataSyncChangeLogDO;
+import org.secretflow.secretpad.persistence.repository.DataSyncChangeLogRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * bounded log of the changes sent to edges, its id is the change sequence which edges resume from by Last-Event-ID.
+ * <p>
+ * A resumed session first replays the log after its Last-Event-ID and only then receives live changes.
+ * Replay and live dispatch meet under one lock, so that a change is either replayed or sent live, never skipped.
+ * The oldest entries are dropped once the log holds more than maxSize changes, an edge which is behind the
+ * dropped part gets a full resync instead.
+ *
+ * @author yutu
+ * @date 2024/12/21
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SseChangeLog {
+
+    private static final long PRUNE_EVERY = 1000;
+    private final DataSyncChangeLogRepository dataSyncChangeLogRepository;
+    private final Object liveLock = new Object();
+    /**
+     * sequences are not contiguous, a rolled back insert leaves a gap, so pruning counts from the last prune
+     */
+    private final AtomicLong lastPrunedAt = new AtomicLong();
+    @Value("${secretpad.datasync.change-log.max-size:100000}")
+    @Setter
+    private long maxSize = 100000;
+    @Value("${secretpad.datasync.change-log.replay-page-size:500}")
+    @Setter
+    private int replayPageSize = 500;
+
+    /**
+     * @param nodeIds nodes the change is sent to, null for every node
+     * @return change sequence, null if the change could not be logged
+     */
+    @SuppressWarnings(value = {"rawtypes"})
+    public Long append(EntityChangeListener.DbChangeEvent event, List<String> nodeIds) {
+        try {
+            DataSyncChangeLogDO changeLogDO = dataSyncChangeLogRepository.save(DataSyncChangeLogDO.builder()
+                    .tableName(event.getDType())
+                    .action(event.getAction())
+                    .nodeIds(nodeIds == null ? null : String.join(",", nodeIds))
+                    .payload(JsonUtils.toJSONString(event.getSource()))
+                    .build());
+            Long sequence = changeLogDO.getId();
+            long prunedAt = lastPrunedAt.get();
+            if (sequence > maxSize && sequence - prunedAt >= PRUNE_EVERY && lastPrunedAt.compareAndSet(prunedAt, sequence)) {
+                int pruned = dataSyncChangeLogRepository.deleteByIdLessThanEqual(sequence - maxSize);
+                log.info("data sync change log pruned {} changes up to {}", pruned, sequence - maxSize);
+            }
+            return sequence;
+        } catch (Exception e) {
+            log.error("data sync change log append error {}", event, e);
+            return null;
+        }
+    }
+
+    /**
+     * send live changes, runs exclusive with the end of a replay
+     */
+    public void dispatchLive(Runnable dispatch) {
+        synchronized (liveLock) {
+            dispatch.run();
+        }
+    }
+
+    public long lastSequence() {
+        Long max = dataSyncChangeLogRepository.findMaxId();
+        return max == null ? 0 : max;
+    }
+
+    /**
+     * @param lastEventId Last-Event-ID of the edge
+     * @return the sequence to replay after, null if the log can not fill the gap and the edge needs a full resync
+     */
+    public Long resumeFrom(String lastEventId) {
+        if (!StringUtils.isNumeric(lastEventId)) {
+            return null;
+        }
+        long sequence = Long.parseLong(lastEventId);
+        Long min = dataSyncChangeLogRepository.findMinId();
+        Long max = dataSyncChangeLogRepository.findMaxId();
+        if (sequence <= 0 || min == null || sequence < min - 1 || sequence > max) {
+            log.info("data sync change log [{}, {}] can not resume from {}", min, max, sequence);
+            return null;
+        }
+        return sequence;
+    }
+
+    /**
+     * replay the changes after the sequence to the session, then switch it to live
+     *
+     * @return false if the session was closed or replaced during the replay
+     */
+    public boolean replay(String nodeId, SseEmitter sseEmitter, long after) throws IOException {
+        long cursor = after;
+        int num = 0;
+        while (true) {
+            List<DataSyncChangeLogDO> page = dataSyncChangeLogRepository.findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.of(0, replayPageSize));
+            if (page.isEmpty()) {
+                synchronized (liveLock) {
+                    if (lastSequence() <= cursor) {
+                        SseSession.replayingSessions.remove(sseEmitter);
+                        break;
+                    }
+                }
+                continue;
+            }
+            for (DataSyncChangeLogDO changeLogDO : page) {
+                if (visible(nodeId, changeLogDO)) {
+                    SseSession.stream(nodeId, changeLogDO.getId(), SyncDataDTO.builder()
+                            .tableName(changeLogDO.getTableName())
+                            .action(changeLogDO.getAction())
+                            .data(JsonUtils.parseObject(changeLogDO.getPayload()))
+                            .build());
+                    num++;
+                }
+                cursor = changeLogDO.getId();
+            }
+            if (SseSession.sessionMap.get(nodeId) != sseEmitter) {
+                return false;
+            }
+        }
+        SseSession.synced(nodeId, cursor);
+        log.info("data sync change log replayed {} changes ({}, {}] to {}", num, after, cursor, nodeId);
+        return true;
+    }
+
+    @SuppressWarnings(value = {"rawtypes"})
+    private boolean visible(String nodeId, DataSyncChangeLogDO changeLogDO) {
+        if (changeLogDO.getNodeIds() == null) {
+            return true;
+        }
+        if (!Arrays.asList(changeLogDO.getNodeIds().split(",")).contains(nodeId)) {
+            return false;
+        }
+        List<SyncDataDTO> syncDataDTOList = SseSession.sessionTableMap.get(nodeId);
+        return !CollectionUtils.isEmpty(syncDataDTOList) && syncDataDTOList.stream().anyMatch(s -> changeLogDO.getTableName().equals(s.getTableName()));
+    }
+}
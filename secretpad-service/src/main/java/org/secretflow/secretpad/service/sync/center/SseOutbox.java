@@ -0,0 +1,165 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.sync.center;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.*;
+
+/**
+ * bounded send queue of one sse session.
+ * <p>
+ * An event with a coalescing key replaces the queued event of the same key and moves to the tail, so the queue holds
+ * at most the latest state of an entity and events still leave in change order.
+ * Producers never write to the emitter, a single drain task at a time does.
+ *
+ * @author yutu
+ * @date 2024/12/22
+ */
+class SseOutbox {
+
+    @Getter
+    private final String sessionKey;
+    @Getter
+    private final SseEmitter sseEmitter;
+    private final int capacity;
+    /**
+     * sequence -> event, in send order
+     */
+    private final LinkedHashMap<Long, Item> items = new LinkedHashMap<>();
+    /**
+     * coalescing key -> sequence of its queued event
+     */
+    private final Map<String, Long> index = new HashMap<>();
+    private long sequence;
+    private boolean scheduled;
+    private boolean closed;
+
+    SseOutbox(String sessionKey, SseEmitter sseEmitter, int capacity) {
+        this.sessionKey = sessionKey;
+        this.sseEmitter = sseEmitter;
+        this.capacity = capacity;
+    }
+
+    /**
+     * @param key       coalescing key, null if the event never replaces another one
+     * @param waitMillis how long to wait for space, 0 to fail at once
+     * @return 1 if queued, 0 if it replaced a queued event, -1 if the outbox is closed or stayed full
+     */
+    synchronized int offer(SseEmitter.SseEventBuilder event, String key, long waitMillis) throws InterruptedException {
+        if (closed) {
+            return -1;
+        }
+        Long replaced = key == null ? null : index.remove(key);
+        if (replaced != null) {
+            items.remove(replaced);
+        } else if (items.size() >= capacity) {
+            long deadline = System.currentTimeMillis() + waitMillis;
+            while (items.size() >= capacity && !closed) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    return -1;
+                }
+                wait(wait);
+            }
+            if (closed) {
+                return -1;
+            }
+        }
+        long s = sequence++;
+        items.put(s, new Item(event, key, System.currentTimeMillis()));
+        if (key != null) {
+            index.put(key, s);
+        }
+        return replaced == null ? 1 : 0;
+    }
+
+    /**
+     * detach up to max events from the head
+     */
+    synchronized List<SseEmitter.SseEventBuilder> drain(int max) {
+        List<SseEmitter.SseEventBuilder> batch = new ArrayList<>(Math.min(max, items.size()));
+        Iterator<Map.Entry<Long, Item>> iterator = items.entrySet().iterator();
+        while (iterator.hasNext() && batch.size() < max) {
+            Map.Entry<Long, Item> entry = iterator.next();
+            iterator.remove();
+            Item item = entry.getValue();
+            if (item.key != null && entry.getKey().equals(index.get(item.key))) {
+                index.remove(item.key);
+            }
+            batch.add(item.event);
+        }
+        if (!batch.isEmpty()) {
+            notifyAll();
+        }
+        return batch;
+    }
+
+    /**
+     * @return true if the caller should start a drain task
+     */
+    synchronized boolean schedule() {
+        if (scheduled || closed) {
+            return false;
+        }
+        scheduled = true;
+        return true;
+    }
+
+    /**
+     * @return true if the drain task may exit, false if events arrived meanwhile
+     */
+    synchronized boolean finish() {
+        if (!items.isEmpty() && !closed) {
+            return false;
+        }
+        scheduled = false;
+        return true;
+    }
+
+    synchronized void close() {
+        closed = true;
+        items.clear();
+        index.clear();
+        notifyAll();
+    }
+
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    synchronized int size() {
+        return items.size();
+    }
+
+    /**
+     * @return millis the oldest queued event has been waiting
+     */
+    synchronized long lagMillis() {
+        Iterator<Item> iterator = items.values().iterator();
+        return iterator.hasNext() ? System.currentTimeMillis() - iterator.next().enqueuedAt : 0;
+    }
+
+    @AllArgsConstructor
+    private static class Item {
+        private final SseEmitter.SseEventBuilder event;
+        private final String key;
+        private final long enqueuedAt;
+    }
+}
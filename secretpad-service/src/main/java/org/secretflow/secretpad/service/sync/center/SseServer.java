@@ -37,6 +37,17 @@ public interface SseServer {
     @SuppressWarnings(value = {"rawtypes"})
     SseEmitter open(String userId, List<SyncDataDTO> syncDataDTOList);
 
+    /**
+     * sse server open by one sse client come in
+     *
+     * @param userId          sse client tag
+     * @param syncDataDTOList sse client sync data tag
+     * @param sequenced       true if the client resumes by Last-Event-ID, the session gets live changes after its replay
+     * @return sseEmitter channel
+     */
+    @SuppressWarnings(value = {"rawtypes"})
+    SseEmitter open(String userId, List<SyncDataDTO> syncDataDTOList, boolean sequenced);
+
     /**
      * sse server open by one sse client come in
      *
@@ -39,6 +39,11 @@ import java.util.Set;
 public class SseServerImpl implements SseServer {
     @Override
     public SseEmitter open(String userId, List<SyncDataDTO> syncDataDTOList) {
+        return open(userId, syncDataDTOList, false);
+    }
+
+    @Override
+    public SseEmitter open(String userId, List<SyncDataDTO> syncDataDTOList, boolean sequenced) {
         checkClient(userId);
         if (SseSession.exists(userId)) {
             SseSession.remove(userId);
@@ -61,7 +66,7 @@ public class SseServerImpl implements SseServer {
             SseSession.remove(userId);
             SseSession.sessionTableMap.remove(userId);
         });
-        SseSession.add(userId, sseEmitter, syncDataDTOList);
+        SseSession.add(userId, sseEmitter, syncDataDTOList, sequenced);
         return sseEmitter;
     }
 
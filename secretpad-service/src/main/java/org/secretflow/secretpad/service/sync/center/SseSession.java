@@ -17,14 +17,16 @@
 package org.secretflow.secretpad.service.sync.center;
 
 import org.secretflow.secretpad.common.dto.SyncDataDTO;
+import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.ObjectUtils;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -34,16 +36,42 @@ import java.util.concurrent.ConcurrentHashMap;
 @Slf4j
 @SuppressWarnings(value = {"rawtypes"})
 public class SseSession {
+    public static final String LAST_EVENT_ID = "Last-Event-ID";
     public static final String SSE_PING_MSG = "ping";
+    public static final String SSE_CHECKPOINT_MSG = "checkpoint";
+    public static final String SSE_SYNCED_MSG = "synced";
     public static Map<String, SseEmitter> sessionMap = new ConcurrentHashMap<>();
     public static Map<String, List<SyncDataDTO>> sessionTableMap = new ConcurrentHashMap<>();
+    /**
+     * sessions of edges which resume by Last-Event-ID, their events carry the change sequence as id and the table as name
+     */
+    public static Set<String> sequencedSessions = ConcurrentHashMap.newKeySet();
+    /**
+     * sessions still catching up, live changes reach them through the change log replay
+     */
+    public static Set<SseEmitter> replayingSessions = ConcurrentHashMap.newKeySet();
+    /**
+     * writes the events of every session, replaced by the configured bean
+     */
+    public static SseBroadcaster broadcaster = new SseBroadcaster();
 
     public static void add(String sessionKey, SseEmitter sseEmitter, List<SyncDataDTO> syncDataDTOList) {
         add(sessionKey, sseEmitter);
         sessionTableMap.put(sessionKey, syncDataDTOList);
     }
 
+    public static void add(String sessionKey, SseEmitter sseEmitter, List<SyncDataDTO> syncDataDTOList, boolean sequenced) {
+        if (sequenced) {
+            sequencedSessions.add(sessionKey);
+            replayingSessions.add(sseEmitter);
+        } else {
+            sequencedSessions.remove(sessionKey);
+        }
+        add(sessionKey, sseEmitter, syncDataDTOList);
+    }
+
     public static void add(String sessionKey, SseEmitter sseEmitter) {
+        broadcaster.open(sessionKey, sseEmitter);
         sessionMap.put(sessionKey, sseEmitter);
         log.info("received node :{}", sessionKey);
     }
@@ -58,45 +86,97 @@ public class SseSession {
 
     public static boolean remove(String sessionKey, boolean close) {
         SseEmitter sseEmitter = sessionMap.remove(sessionKey);
-        if (close && sseEmitter != null) {
-            sseEmitter.complete();
+        if (sseEmitter != null) {
+            broadcaster.close(sessionKey, sseEmitter);
+            replayingSessions.remove(sseEmitter);
+            if (close) {
+                sseEmitter.complete();
+            }
         }
         sessionTableMap.remove(sessionKey);
         return false;
     }
 
+    /**
+     * @return true if live changes are sent to the session right away
+     */
+    public static boolean isLive(String sessionKey) {
+        SseEmitter sseEmitter = sessionMap.get(sessionKey);
+        return sseEmitter != null && !replayingSessions.contains(sseEmitter);
+    }
+
     public static void onError(String sessionKey, Throwable throwable) {
-        sessionMap.remove(sessionKey);
+        SseEmitter sseEmitter = sessionMap.remove(sessionKey);
+        if (sseEmitter != null) {
+            broadcaster.close(sessionKey, sseEmitter);
+            replayingSessions.remove(sseEmitter);
+        }
         sessionTableMap.remove(sessionKey);
         log.error("sse connection error ", throwable);
     }
 
     public static void send(String sessionKey, SyncDataDTO<?> content) throws IOException {
-        SseEmitter.SseEventBuilder build = SseEmitter.event().id(content.getTableName()).data(content);
-        SseEmitter sseEmitter = sessionMap.get(sessionKey);
-        if (ObjectUtils.isNotEmpty(sseEmitter)) {
-            log.info("*** get data sync , sse send to {} , data is  {} ", sessionKey, content);
-            try {
-                sseEmitter.send(build);
-            } catch (Exception e) {
-                sseEmitter.completeWithError(e);
-                log.warn("sse send data error {}", sessionKey, e);
-            }
+        send(sessionKey, null, content);
+    }
+
+    /**
+     * queue a live change, it never waits for the edge
+     *
+     * @param sequence change sequence, null for a change which has no sequence
+     */
+    public static void send(String sessionKey, Long sequence, SyncDataDTO<?> content) throws IOException {
+        log.debug("*** get data sync , sse send to {} , data is  {} ", sessionKey, content);
+        broadcaster.send(sessionKey, event(sessionKey, sequence, content), coalescingKey(content));
+    }
+
+    /**
+     * queue a catch up or replayed change, waiting while the session outbox is full
+     *
+     * @param sequence change sequence, null for a catch up row which has no sequence
+     */
+    public static void stream(String sessionKey, Long sequence, SyncDataDTO<?> content) throws IOException {
+        log.debug("*** get data sync , sse stream to {} , data is  {} ", sessionKey, content);
+        broadcaster.sendAndWait(sessionKey, event(sessionKey, sequence, content), coalescingKey(content));
+    }
+
+    /**
+     * tell the edge it has received every row of the table up to content.lastUpdateTime
+     */
+    public static void checkpoint(String sessionKey, SyncDataDTO<?> content) throws IOException {
+        broadcaster.sendAndWait(sessionKey, SseEmitter.event().id(SSE_CHECKPOINT_MSG).data(content), null);
+    }
+
+    /**
+     * tell a sequenced session it has every change up to the sequence, the edge resumes from there
+     */
+    public static void synced(String sessionKey, long sequence) throws IOException {
+        if (sequencedSessions.contains(sessionKey)) {
+            broadcaster.sendAndWait(sessionKey, SseEmitter.event().id(String.valueOf(sequence)).name(SSE_SYNCED_MSG).data(SSE_SYNCED_MSG), null);
         }
     }
 
+    /**
+     * a ping replaces the one still queued, it never waits
+     */
     public static void ping(String sessionKey) throws IOException {
         SseEmitter.SseEventBuilder build = SseEmitter.event().id(SSE_PING_MSG).comment(SSE_PING_MSG).data(SSE_PING_MSG);
-        SseEmitter sseEmitter = sessionMap.get(sessionKey);
-        if (ObjectUtils.isNotEmpty(sseEmitter)) {
-            sseEmitter.send(build);
-        }
+        broadcaster.send(sessionKey, build, SSE_PING_MSG);
     }
 
     public static void sendAll(SyncDataDTO<?> content) {
+        sendAll(null, content);
+    }
+
+    /**
+     * send to every live session
+     */
+    public static void sendAll(Long sequence, SyncDataDTO<?> content) {
         sessionMap.keySet().forEach(k -> {
+            if (!isLive(k)) {
+                return;
+            }
             try {
-                send(k, content);
+                send(k, sequence, content);
             } catch (IOException e) {
                 SseEmitter sseEmitter = sessionMap.get(k);
                 sseEmitter.completeWithError(e);
@@ -105,4 +185,28 @@ public class SseSession {
         });
     }
 
+    private static SseEmitter.SseEventBuilder event(String sessionKey, Long sequence, SyncDataDTO<?> content) {
+        SseEmitter.SseEventBuilder build = SseEmitter.event();
+        if (!sequencedSessions.contains(sessionKey)) {
+            build.id(content.getTableName());
+        } else if (sequence != null) {
+            build.id(String.valueOf(sequence)).name(content.getTableName());
+        } else {
+            build.name(content.getTableName());
+        }
+        return build.data(content);
+    }
+
+    /**
+     * table and id of the changed entity, a newer change of it replaces the queued one
+     */
+    private static String coalescingKey(SyncDataDTO<?> content) {
+        Object id = null;
+        if (content.getData() instanceof BaseAggregationRoot<?> root) {
+            id = root.getId();
+        } else if (content.getData() instanceof JsonNode node && node.hasNonNull("id")) {
+            id = node.get("id").asText();
+        }
+        return id == null ? null : content.getTableName() + "#" + id;
+    }
 }
\ No newline at end of file
@@ -27,6 +27,8 @@ import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.HttpUrl;
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -44,8 +46,12 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static org.secretflow.secretpad.service.sync.center.SseSession.LAST_EVENT_ID;
+import static org.secretflow.secretpad.service.sync.center.SseSession.SSE_CHECKPOINT_MSG;
 import static org.secretflow.secretpad.service.sync.center.SseSession.SSE_PING_MSG;
+import static org.secretflow.secretpad.service.sync.center.SseSession.SSE_SYNCED_MSG;
 
 /**
  * @author yutu
@@ -69,6 +75,15 @@ public class EdgeDataSyncServiceImpl implements EdgeDataSyncService {
     private String routeHeader;
     @Value("${secretpad.node-id}")
     private String nodeId;
+    @Value("${secretpad.datasync.sse.sequence-flush-ms:1000}")
+    private long sequenceFlushMillis = 1000;
+    /**
+     * newest change sequence applied without a failed change before it on the current connection
+     */
+    private final AtomicReference<String> appliedSequence = new AtomicReference<>();
+    private volatile boolean sequenceStalled;
+    private String flushedSequence;
+    private long sequenceFlushedAt;
 
     @SuppressWarnings(value = {"rawtypes"})
     @Override
@@ -87,19 +102,37 @@ public class EdgeDataSyncServiceImpl implements EdgeDataSyncService {
 
     private void useWebClientSse(String url) {
         WebClient webClient = WebClient.create(url);
-        Flux<ServerSentEvent<String>> eventStream = webClient.get()
-                .header("host", routeHeader)
-                .header("kuscia-origin-source", nodeId)
-                .retrieve()
-                .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() {
+        // deferred so that a retry resumes from the latest received change
+        Flux<ServerSentEvent<String>> eventStream = Flux.defer(() -> {
+                    // the new connection replays everything after the recorded sequence, a change that failed before is retried
+                    flushChangeSequence(true);
+                    sequenceStalled = false;
+                    return webClient.get()
+                            .header("host", routeHeader)
+                            .header("kuscia-origin-source", nodeId)
+                            .header(LAST_EVENT_ID, jpaSyncDataService.lastChangeSequence())
+                            .retrieve()
+                            .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() {
+                            });
                 })
                 .retryWhen(Retry.fixedDelay(3, Duration.ofSeconds(2)));
         eventStream.subscribe(
                 event -> {
-                    log.info("id :{} ,data: {}", event.id(), event.data());
-                    String id = event.id();
+                    log.info("id :{} ,event: {} ,data: {}", event.id(), event.event(), event.data());
+                    // a sequenced center names the table in the event and puts the change sequence in the id
+                    String id = ObjectUtils.isEmpty(event.event()) ? event.id() : event.event();
                     String data = event.data();
-                    if (!SSE_PING_MSG.equals(id)) {
+                    boolean applied = true;
+                    if (SSE_SYNCED_MSG.equals(id)) {
+                        log.info("sse synced up to change {}", event.id());
+                    } else if (SSE_CHECKPOINT_MSG.equals(id)) {
+                        try {
+                            jpaSyncDataService.logTableWatermark(JsonUtils.toJavaObject(data, SyncDataDTO.class));
+                        } catch (Exception e) {
+                            log.error("sse checkpoint error {} ", data, e);
+                            applied = false;
+                        }
+                    } else if (!SSE_PING_MSG.equals(id)) {
                         log.info("sync data DO - {}  Data - {}", id, data);
                         try {
                             Class<?> cls = Class.forName(id);
@@ -109,8 +142,17 @@ public class EdgeDataSyncServiceImpl implements EdgeDataSyncService {
                             jpaSyncDataService.syncData(o);
                         } catch (Exception e) {
                             log.error("sse onEvent sync error {} ", id, e);
+                            applied = false;
+                        }
+                    }
+                    if (!ObjectUtils.isEmpty(event.event()) && StringUtils.isNumeric(event.id())) {
+                        if (!applied) {
+                            sequenceStalled = true;
+                        } else if (!sequenceStalled) {
+                            appliedSequence.set(event.id());
                         }
                     }
+                    flushChangeSequence(false);
                 },
                 error -> {
                     log.error("Error receiving SSE: {}", error.getMessage(), error.getCause());
@@ -127,6 +169,22 @@ public class EdgeDataSyncServiceImpl implements EdgeDataSyncService {
     @Override
     public void close() {
         EdgeDataSyncServiceImpl.sseSate.set(-1);
+        flushChangeSequence(true);
+    }
+
+    /**
+     * write the applied change sequence at most once per sequence-flush-ms, pings keep flushing the last one.
+     * A sequence lost by a crash only replays changes which are applied again.
+     */
+    private synchronized void flushChangeSequence(boolean force) {
+        long now = System.currentTimeMillis();
+        String sequence = appliedSequence.get();
+        if (sequence == null || sequence.equals(flushedSequence) || (!force && now - sequenceFlushedAt < sequenceFlushMillis)) {
+            return;
+        }
+        jpaSyncDataService.logChangeSequence(sequence);
+        flushedSequence = sequence;
+        sequenceFlushedAt = now;
     }
 
     @SuppressWarnings(value = {"rawtypes"})
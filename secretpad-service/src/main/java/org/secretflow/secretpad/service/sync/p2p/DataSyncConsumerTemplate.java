@@ -19,6 +19,7 @@ package org.secretflow.secretpad.service.sync.p2p;
 import org.secretflow.secretpad.common.constant.KusciaDataSourceConstants;
 import org.secretflow.secretpad.common.constant.SystemConstants;
 import org.secretflow.secretpad.common.dto.SyncDataDTO;
+import org.secretflow.secretpad.common.dto.SyncDataResultDTO;
 import org.secretflow.secretpad.common.dto.UserContextDTO;
 import org.secretflow.secretpad.common.enums.PlatformTypeEnum;
 import org.secretflow.secretpad.common.enums.UserOwnerTypeEnum;
@@ -35,7 +36,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -100,6 +103,32 @@ public class DataSyncConsumerTemplate {
         return syncDataDTO;
     }
 
+    /**
+     * consume a batch in order, stop at the first failure so that later items never overtake an earlier one
+     *
+     * @return one result per item, items after the failed one are SKIPPED
+     */
+    public List<SyncDataResultDTO> consumer(String nodeId, List<SyncDataDTO> syncDataDTOs) {
+        List<SyncDataResultDTO> results = new ArrayList<>(syncDataDTOs.size());
+        boolean failed = false;
+        for (int i = 0; i < syncDataDTOs.size(); i++) {
+            if (failed) {
+                results.add(SyncDataResultDTO.builder().index(i).code(SyncDataResultDTO.SKIPPED).msg("skipped").build());
+                continue;
+            }
+            try {
+                consumer(nodeId, syncDataDTOs.get(i));
+                results.add(SyncDataResultDTO.builder().index(i).code(SyncDataResultDTO.SUCCESS).build());
+            } catch (Exception e) {
+                log.error("dataSyncConsumer consumer batch item {} error", i, e);
+                UserContext.remove();
+                failed = true;
+                results.add(SyncDataResultDTO.builder().index(i).code(SyncDataResultDTO.FAILED).msg(e.getMessage()).build());
+            }
+        }
+        return results;
+    }
+
     private void checkSourceNodeId(String nodeId, SyncDataDTO syncDataDTO) {
         log.info("dataSyncConsumer consumer {} {}", nodeId, syncDataDTO);
     }
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.util;
+
+import org.secretflow.secretpad.common.util.Sha256Utils;
+import org.secretflow.secretpad.service.model.data.DownloadInfo;
+
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * optional cache of downloaded result archives, so that a result is compressed once instead of on every download.
+ * <p>
+ * An archive is addressed by the result id and the path, length and modify time of every packed file, a result which
+ * is written again gets a new address. The cache is kept under max-size-mb by dropping the archives downloaded least
+ * recently.
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+@Slf4j
+@Component
+public class ResultArchiveCache {
+
+    private static final String SUFFIX = ".tar.gz";
+    /**
+     * archives downloaded within this time may still be streamed and are not dropped
+     */
+    private static final long IN_USE_MILLIS = 60000;
+
+    private final ConcurrentMap<String, Object> locks = new ConcurrentHashMap<>();
+    @Value("${secretpad.data.archive-cache.enabled:false}")
+    @Setter
+    private boolean enabled;
+    @Value("${secretpad.data.archive-cache.dir-path:${java.io.tmpdir}/secretpad/archive-cache/}")
+    @Setter
+    private String dirPath;
+    @Value("${secretpad.data.archive-cache.max-size-mb:10240}")
+    @Setter
+    private long maxSizeMb = 10240;
+
+    /**
+     * @param resultId result the files belong to
+     * @param files    files of the archive
+     * @param writer   writes the archive if it is not cached yet
+     * @return the cached archive, null if the cache is disabled
+     */
+    public File get(String resultId, List<File> files, DownloadInfo.ContentWriter writer) throws IOException {
+        if (!enabled) {
+            return null;
+        }
+        File dir = new File(dirPath);
+        String key = key(resultId, files);
+        File archive = new File(dir, key + SUFFIX);
+        // concurrent downloads of one result wait for one archive instead of each writing their own
+        synchronized (locks.computeIfAbsent(key, k -> new Object())) {
+            try {
+                if (archive.isFile()) {
+                    // the modify time of an archive is the time it was downloaded last
+                    archive.setLastModified(System.currentTimeMillis());
+                    log.debug("result {} archive {} served from cache", resultId, key);
+                    return archive;
+                }
+                write(dir, key, archive, writer);
+            } finally {
+                locks.remove(key);
+            }
+        }
+        log.info("result {} archived to cache, {} bytes", resultId, archive.length());
+        evict(dir, archive);
+        return archive;
+    }
+
+    private void write(File dir, String key, File archive, DownloadInfo.ContentWriter writer) throws IOException {
+        Files.createDirectories(dir.toPath());
+        File tmp = File.createTempFile(key, ".tmp", dir);
+        try {
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16)) {
+                writer.writeTo(out);
+            }
+            Files.move(tmp.toPath(), archive.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    private void evict(File dir, File keep) {
+        File[] archives = dir.listFiles((d, name) -> name.endsWith(SUFFIX));
+        if (archives == null) {
+            return;
+        }
+        long maxBytes = maxSizeMb * 1024 * 1024;
+        long total = Arrays.stream(archives).mapToLong(File::length).sum();
+        if (total <= maxBytes) {
+            return;
+        }
+        long inUse = System.currentTimeMillis() - IN_USE_MILLIS;
+        Arrays.sort(archives, Comparator.comparingLong(File::lastModified));
+        for (File archive : archives) {
+            if (total <= maxBytes) {
+                break;
+            }
+            if (archive.equals(keep) || archive.lastModified() > inUse) {
+                continue;
+            }
+            long length = archive.length();
+            if (archive.delete()) {
+                total -= length;
+                log.info("result archive {} dropped from cache, {} bytes", archive.getName(), length);
+            }
+        }
+    }
+
+    private String key(String resultId, List<File> files) {
+        StringBuilder sb = new StringBuilder(resultId);
+        for (File file : files) {
+            sb.append('\n').append(file.getAbsolutePath()).append('#').append(file.length()).append('#').append(file.lastModified());
+        }
+        return Sha256Utils.hash(sb.toString());
+    }
+}
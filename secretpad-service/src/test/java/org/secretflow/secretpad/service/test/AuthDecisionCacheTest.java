@@ -0,0 +1,124 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.test;
+
+import org.secretflow.secretpad.common.constant.CacheConstants;
+import org.secretflow.secretpad.common.enums.DataResourceTypeEnum;
+import org.secretflow.secretpad.persistence.datasync.event.EntityChangedEvent;
+import org.secretflow.secretpad.persistence.entity.NodeDO;
+import org.secretflow.secretpad.persistence.entity.ProjectNodeDO;
+import org.secretflow.secretpad.persistence.model.DbChangeAction;
+import org.secretflow.secretpad.service.auth.AuthDecisionCache;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * repeated auth decisions served from the cache until the membership changes
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+public class AuthDecisionCacheTest {
+
+    private AuthDecisionCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new AuthDecisionCache();
+        cache.setCacheManager(new ConcurrentMapCacheManager(CacheConstants.AUTH_DECISION_CACHE));
+    }
+
+    @Test
+    public void repeatedDecisionIsCached() {
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertTrue(cache.check(DataResourceTypeEnum.PROJECT_ID, "p1", "alice", () -> calls.incrementAndGet() > 0));
+        }
+        Assertions.assertEquals(1, calls.get());
+
+        // another owner of the same project is decided on its own
+        Assertions.assertFalse(cache.check(DataResourceTypeEnum.PROJECT_ID, "p1", "bob", () -> calls.incrementAndGet() < 0));
+        Assertions.assertFalse(cache.check(DataResourceTypeEnum.PROJECT_ID, "p1", "bob", () -> calls.incrementAndGet() < 0));
+        Assertions.assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void membershipChangeEvicts() {
+        AtomicInteger calls = new AtomicInteger();
+        cache.check(DataResourceTypeEnum.PROJECT_ID, "p1", "alice", () -> calls.incrementAndGet() > 0);
+        cache.check(DataResourceTypeEnum.NODE_ID, "n1", "inst1", () -> calls.incrementAndGet() > 0);
+
+        ProjectNodeDO projectNode = ProjectNodeDO.builder().upk(new ProjectNodeDO.UPK("p1", "bob")).build();
+        cache.onEntityChanged(new EntityChangedEvent(projectNode, DbChangeAction.CREATE));
+        cache.check(DataResourceTypeEnum.PROJECT_ID, "p1", "alice", () -> calls.incrementAndGet() > 0);
+        cache.check(DataResourceTypeEnum.NODE_ID, "n1", "inst1", () -> calls.incrementAndGet() > 0);
+        Assertions.assertEquals(3, calls.get());
+
+        cache.onEntityChanged(new EntityChangedEvent(NodeDO.builder().nodeId("n1").build(), DbChangeAction.UPDATE));
+        cache.check(DataResourceTypeEnum.NODE_ID, "n1", "inst1", () -> calls.incrementAndGet() > 0);
+        Assertions.assertEquals(4, calls.get());
+    }
+
+    @Test
+    public void decisionRacingAnEvictionIsNotCached() {
+        AtomicInteger calls = new AtomicInteger();
+        cache.check(DataResourceTypeEnum.PROJECT_ID, "p1", "alice", () -> {
+            calls.incrementAndGet();
+            cache.evict(DataResourceTypeEnum.PROJECT_ID, "p1");
+            return true;
+        });
+        cache.check(DataResourceTypeEnum.PROJECT_ID, "p1", "alice", () -> calls.incrementAndGet() > 0);
+        Assertions.assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void evictionAfterReadingDecisionsIsNotUndone() {
+        AtomicBoolean evictOnRead = new AtomicBoolean();
+        cache.setCacheManager(new ConcurrentMapCacheManager(CacheConstants.AUTH_DECISION_CACHE) {
+            @Override
+            protected Cache createConcurrentMapCache(String name) {
+                return new ConcurrentMapCache(name) {
+                    @Override
+                    public <T> T get(Object key, Class<T> type) {
+                        T value = super.get(key, type);
+                        if (evictOnRead.getAndSet(false)) {
+                            // alice leaves the project between the read and the put of bob's decision
+                            cache.evict(DataResourceTypeEnum.PROJECT_ID, "p1");
+                        }
+                        return value;
+                    }
+                };
+            }
+        });
+        AtomicInteger calls = new AtomicInteger();
+        cache.check(DataResourceTypeEnum.PROJECT_ID, "p1", "alice", () -> calls.incrementAndGet() > 0);
+        evictOnRead.set(true);
+        cache.check(DataResourceTypeEnum.PROJECT_ID, "p1", "bob", () -> calls.incrementAndGet() > 0);
+
+        // the map read before the eviction still held alice, it must not be put back
+        Assertions.assertFalse(cache.check(DataResourceTypeEnum.PROJECT_ID, "p1", "alice", () -> calls.incrementAndGet() < 0));
+        Assertions.assertEquals(3, calls.get());
+    }
+}
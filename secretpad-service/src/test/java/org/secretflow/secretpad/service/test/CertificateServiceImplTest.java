@@ -0,0 +1,87 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.test;
+
+import org.secretflow.secretpad.common.exception.SecretpadException;
+import org.secretflow.secretpad.kuscia.v1alpha1.service.impl.KusciaGrpcClientAdapter;
+import org.secretflow.secretpad.service.impl.CertificateServiceImpl;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.secretflow.v1alpha1.common.Common;
+import org.secretflow.v1alpha1.kusciaapi.Certificate;
+
+/**
+ * signing keys reused per node while fresh
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+@ExtendWith(MockitoExtension.class)
+public class CertificateServiceImplTest {
+
+    @Mock
+    private KusciaGrpcClientAdapter kusciaGrpcClientAdapter;
+
+    @InjectMocks
+    private CertificateServiceImpl certificateService;
+
+    @Test
+    public void keyIsReusedPerNodeWhileFresh() {
+        certificateService.setSignKeyCacheTtlSeconds(600);
+        Mockito.when(kusciaGrpcClientAdapter.generateKeyCerts(Mockito.any(), Mockito.anyString()))
+                .thenReturn(response(0, "k1"), response(0, "k2"));
+
+        Assertions.assertEquals("k1", certificateService.generateCertByNodeID("alice").getKey());
+        Assertions.assertEquals("k1", certificateService.generateCertByNodeID("alice").getKey());
+        Assertions.assertEquals("k2", certificateService.generateCertByNodeID("bob").getKey());
+        Mockito.verify(kusciaGrpcClientAdapter, Mockito.times(1)).generateKeyCerts(Mockito.any(), Mockito.eq("alice"));
+        Mockito.verify(kusciaGrpcClientAdapter, Mockito.times(1)).generateKeyCerts(Mockito.any(), Mockito.eq("bob"));
+    }
+
+    @Test
+    public void zeroTtlGeneratesEveryTime() {
+        certificateService.setSignKeyCacheTtlSeconds(0);
+        Mockito.when(kusciaGrpcClientAdapter.generateKeyCerts(Mockito.any(), Mockito.eq("alice")))
+                .thenReturn(response(0, "k1"), response(0, "k2"));
+
+        Assertions.assertEquals("k1", certificateService.generateCertByNodeID("alice").getKey());
+        Assertions.assertEquals("k2", certificateService.generateCertByNodeID("alice").getKey());
+    }
+
+    @Test
+    public void failedGenerationIsNotCached() {
+        certificateService.setSignKeyCacheTtlSeconds(600);
+        Mockito.when(kusciaGrpcClientAdapter.generateKeyCerts(Mockito.any(), Mockito.eq("alice")))
+                .thenReturn(response(1, ""), response(0, "k1"));
+
+        Assertions.assertThrows(SecretpadException.class, () -> certificateService.generateCertByNodeID("alice"));
+        Assertions.assertEquals("k1", certificateService.generateCertByNodeID("alice").getKey());
+    }
+
+    private Certificate.GenerateKeyCertsResponse response(int code, String key) {
+        return Certificate.GenerateKeyCertsResponse.newBuilder()
+                .setStatus(Common.Status.newBuilder().setCode(code).build())
+                .setKey(key)
+                .build();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.test;
+
+import org.secretflow.secretpad.service.constant.ComponentConstants;
+import org.secretflow.secretpad.service.factory.JsonProtobufSourceFactory;
+import org.secretflow.secretpad.service.graph.ComponentCatalog;
+import org.secretflow.secretpad.service.model.graph.ComponentKey;
+
+import com.secretflow.spec.v1.CompListDef;
+import com.secretflow.spec.v1.ComponentDef;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * component catalog built once from the component and i18n files
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+public class ComponentCatalogTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void buildFromConfig() throws Exception {
+        List<CompListDef> compListDefs = new JsonProtobufSourceFactory(new String[]{"../config/components"}).load();
+        CompListDef secretflow = compListDefs.stream().filter(c -> ComponentConstants.SECRETFLOW.equals(c.getName())).findFirst().orElseThrow();
+        ComponentDef hidden = secretflow.getComps(0);
+        String hide = secretflow.getName() + "/" + hidden.getDomain() + "/" + hidden.getName() + ":" + hidden.getVersion();
+
+        ComponentCatalog catalog = ComponentCatalog.build(compListDefs, List.of(hide), new File("../config/i18n"));
+
+        Assertions.assertSame(hidden, catalog.getComponents().get(new ComponentKey(secretflow.getName(), hidden.getDomain(), hidden.getName())));
+        Assertions.assertTrue(catalog.getHiddenComponents().containsKey(hidden.getName()));
+        Assertions.assertTrue(catalog.getComponentList().get(ComponentConstants.SECRETFLOW).getComps().stream().noneMatch(c -> c.getName().equals(hidden.getName())));
+        Assertions.assertFalse(catalog.getComponentList().containsKey(ComponentConstants.SECRETPAD));
+        Assertions.assertFalse(catalog.getComponentList().containsKey(ComponentConstants.SCQL));
+        Assertions.assertNotNull(catalog.getI18n().get(ComponentConstants.SECRETFLOW));
+        Assertions.assertNull(catalog.getI18nError());
+
+        ComponentCatalog rebuilt = ComponentCatalog.build(compListDefs, List.of(hide), new File("../config/i18n"));
+        Assertions.assertEquals(catalog.getComponentListEtag(), rebuilt.getComponentListEtag());
+        Assertions.assertEquals(catalog.getI18nEtag(), rebuilt.getI18nEtag());
+        Assertions.assertNotEquals(catalog.getComponentListEtag(),
+                ComponentCatalog.build(compListDefs, List.of(), new File("../config/i18n")).getComponentListEtag());
+    }
+
+    @Test
+    public void i18nMergedAndHidden() throws Exception {
+        Files.writeString(tempDir.resolve("secretflow.json"), "{\"a\":\"A\",\"b\":\"B\"}");
+        Files.writeString(tempDir.resolve("secretpad.json"), "{\"p\":\"P\"}");
+        Files.writeString(tempDir.resolve("scql.json"), "{\"s\":\"S\"}");
+
+        ComponentCatalog catalog = ComponentCatalog.build(List.of(), List.of("secretflow/b"), tempDir.toFile());
+
+        Assertions.assertEquals(List.of("a", "p", "s"), catalog.getI18n().get(ComponentConstants.SECRETFLOW).keySet().stream().sorted().toList());
+        Assertions.assertEquals(1, catalog.getI18n().size());
+    }
+
+    @Test
+    public void fingerprintChangesWithFiles() throws Exception {
+        String before = ComponentCatalog.fingerprint(tempDir.toFile());
+        Files.writeString(tempDir.resolve("trustedflow.json"), "{}");
+        Assertions.assertNotEquals(before, ComponentCatalog.fingerprint(tempDir.toFile()));
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.test;
+
+import org.secretflow.secretpad.common.util.JsonUtils;
+import org.secretflow.secretpad.persistence.datasync.buffer.DataSyncDataBufferTemplate;
+import org.secretflow.secretpad.persistence.datasync.buffer.p2p.P2PDataSyncDataBufferTemplate;
+import org.secretflow.secretpad.persistence.datasync.listener.EntityChangeListener;
+import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
+import org.secretflow.secretpad.persistence.entity.DataSyncDeadLetterDO;
+import org.secretflow.secretpad.persistence.entity.ProjectDO;
+import org.secretflow.secretpad.persistence.model.DbChangeAction;
+import org.secretflow.secretpad.persistence.repository.DataSyncDeadLetterRepository;
+import org.secretflow.secretpad.service.impl.DataSyncDeadLetterServiceImpl;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnitUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * dead letters are replayed with the current state of the entity
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+public class DataSyncDeadLetterServiceImplTest {
+
+    private static final String NODE = "bob";
+
+    @TempDir
+    Path dir;
+
+    private P2PDataSyncDataBufferTemplate buffer;
+    private DataSyncDeadLetterRepository repository;
+    private EntityManager entityManager;
+    private DataSyncDeadLetterServiceImpl service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        buffer = new P2PDataSyncDataBufferTemplate(Mockito.mock(ApplicationEventPublisher.class));
+        buffer.setSyncPath(dir.toString() + "/");
+        repository = Mockito.mock(DataSyncDeadLetterRepository.class);
+        entityManager = Mockito.mock(EntityManager.class);
+        EntityManagerFactory factory = Mockito.mock(EntityManagerFactory.class);
+        PersistenceUnitUtil persistenceUnitUtil = Mockito.mock(PersistenceUnitUtil.class);
+        Mockito.when(entityManager.getEntityManagerFactory()).thenReturn(factory);
+        Mockito.when(factory.getPersistenceUnitUtil()).thenReturn(persistenceUnitUtil);
+        Mockito.when(persistenceUnitUtil.getIdentifier(Mockito.any())).thenReturn(1L);
+        ObjectProvider<DataSyncDataBufferTemplate> provider = Mockito.mock(ObjectProvider.class);
+        Mockito.when(provider.getIfAvailable()).thenReturn(buffer);
+        service = new DataSyncDeadLetterServiceImpl(repository, provider, entityManager);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        buffer.close();
+    }
+
+    @Test
+    public void replayKeepsNewerPendingChange() {
+        buffer.push(event(DbChangeAction.UPDATE, project("v3")));
+        Mockito.when(repository.findAllById(Mockito.anyIterable())).thenReturn(List.of(deadLetter(project("v1"))));
+        Mockito.when(entityManager.find(ProjectDO.class, 1L)).thenReturn(project("v3"));
+
+        Assertions.assertEquals(1, service.replay(List.of(1L)));
+
+        List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> events = buffer.peek(NODE, 10);
+        Assertions.assertEquals(1, events.size());
+        Assertions.assertEquals(DbChangeAction.UPDATE.val, events.get(0).getAction());
+        Assertions.assertEquals("v3", ((ProjectDO) events.get(0).getSource()).getName());
+        Mockito.verify(repository).delete(Mockito.any(DataSyncDeadLetterDO.class));
+    }
+
+    @Test
+    public void replayRemovedEntity() {
+        Mockito.when(repository.findAllById(Mockito.anyIterable())).thenReturn(List.of(deadLetter(project("v1"))));
+
+        service.replay(List.of(1L));
+
+        List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> events = buffer.peek(NODE, 10);
+        Assertions.assertEquals(1, events.size());
+        Assertions.assertEquals(DbChangeAction.REMOVE.val, events.get(0).getAction());
+    }
+
+    private ProjectDO project(String name) {
+        ProjectDO projectDO = ProjectDO.builder().projectId("p1").name(name).build();
+        projectDO.setId(1L);
+        return projectDO;
+    }
+
+    @SuppressWarnings("unchecked")
+    private EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event(DbChangeAction action, ProjectDO projectDO) {
+        EntityChangeListener.DbChangeEvent event = EntityChangeListener.DbChangeEvent.of(action, projectDO);
+        event.setNodeIds(List.of(NODE));
+        return event;
+    }
+
+    private DataSyncDeadLetterDO deadLetter(ProjectDO projectDO) {
+        String payload = "{\"tableName\":\"" + ProjectDO.class.getName() + "\",\"action\":\"update\",\"data\":" + JsonUtils.toJSONString(projectDO) + "}";
+        return DataSyncDeadLetterDO.builder()
+                .id(1L)
+                .nodeId(NODE)
+                .tableName(ProjectDO.class.getName())
+                .action("update")
+                .payload(payload)
+                .reason("rejected by peer")
+                .attempts(1)
+                .build();
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.test;
+
+import org.secretflow.secretpad.persistence.datasync.event.EntityChangedEvent;
+import org.secretflow.secretpad.persistence.entity.NodeDO;
+import org.secretflow.secretpad.persistence.entity.ProjectGraphDO;
+import org.secretflow.secretpad.persistence.entity.ProjectGraphNodeDO;
+import org.secretflow.secretpad.persistence.entity.ProjectTaskDO;
+import org.secretflow.secretpad.persistence.model.DbChangeAction;
+import org.secretflow.secretpad.persistence.model.GraphJobStatus;
+import org.secretflow.secretpad.persistence.model.GraphNodeTaskStatus;
+import org.secretflow.secretpad.persistence.projection.ProjectJobStatus;
+import org.secretflow.secretpad.persistence.repository.NodeRepository;
+import org.secretflow.secretpad.persistence.repository.ProjectJobRepository;
+import org.secretflow.secretpad.persistence.repository.ProjectJobTaskRepository;
+import org.secretflow.secretpad.service.graph.GraphStatusView;
+import org.secretflow.secretpad.service.model.graph.GraphStatus;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * graph status read with one query per graph and served from the snapshot
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+@ExtendWith(MockitoExtension.class)
+public class GraphStatusViewTest {
+
+    @Mock
+    private ProjectJobTaskRepository taskRepository;
+
+    @Mock
+    private ProjectJobRepository jobRepository;
+
+    @Mock
+    private NodeRepository nodeRepository;
+
+    private GraphStatusView view;
+
+    @BeforeEach
+    public void setUp() {
+        view = new GraphStatusView();
+        view.setTaskRepository(taskRepository);
+        view.setJobRepository(jobRepository);
+        view.setNodeRepository(nodeRepository);
+        view.setTtlMillis(60000);
+    }
+
+    @Test
+    public void pollsAreServedFromSnapshotUntilTaskChanges() {
+        ProjectTaskDO task = ProjectTaskDO.builder()
+                .upk(new ProjectTaskDO.UPK("p", "job1", "task1"))
+                .graphNodeId("n1")
+                .parties(List.of("alice"))
+                .status(GraphNodeTaskStatus.RUNNING)
+                .build();
+        Mockito.when(taskRepository.findLatestTasksOfGraphNodes(Mockito.eq("p"), Mockito.any())).thenReturn(List.of(task));
+        Mockito.when(nodeRepository.findByNodeIdIn(Mockito.any())).thenReturn(List.of(NodeDO.builder().nodeId("alice").name("Alice").build()));
+        Mockito.when(jobRepository.findStatusByJobIds("p", List.of("job1")))
+                .thenReturn(List.of(new ProjectJobStatus("p", "job1", GraphJobStatus.RUNNING)));
+
+        ProjectGraphDO graph = graph("n1", "n2");
+        GraphStatus status = view.get(graph);
+        Assertions.assertFalse(status.getFinished());
+        Assertions.assertEquals(GraphNodeTaskStatus.RUNNING, status.getNodes().get(0).getStatus());
+        Assertions.assertEquals("Alice", status.getNodes().get(0).getParties().get(0).getNodeName());
+        Assertions.assertEquals(GraphNodeTaskStatus.STAGING, status.getNodes().get(1).getStatus());
+
+        status.getNodes().get(0).setStatus(GraphNodeTaskStatus.FAILED);
+        Assertions.assertEquals(GraphNodeTaskStatus.RUNNING, view.get(graph).getNodes().get(0).getStatus());
+        Mockito.verify(taskRepository, Mockito.times(1)).findLatestTasksOfGraphNodes(Mockito.eq("p"), Mockito.any());
+
+        view.onEntityChanged(new EntityChangedEvent(task, DbChangeAction.UPDATE));
+        view.get(graph);
+        Mockito.verify(taskRepository, Mockito.times(2)).findLatestTasksOfGraphNodes(Mockito.eq("p"), Mockito.any());
+    }
+
+    @Test
+    public void snapshotReadWhileTaskChangesIsNotKept() {
+        ProjectTaskDO task = ProjectTaskDO.builder()
+                .upk(new ProjectTaskDO.UPK("p", "job1", "task1"))
+                .graphNodeId("n1")
+                .status(GraphNodeTaskStatus.RUNNING)
+                .build();
+        Mockito.when(taskRepository.findLatestTasksOfGraphNodes(Mockito.eq("p"), Mockito.any())).thenAnswer(invocation -> {
+            view.onEntityChanged(new EntityChangedEvent(task, DbChangeAction.UPDATE));
+            return List.of(task);
+        });
+        Mockito.when(jobRepository.findStatusByJobIds("p", List.of("job1")))
+                .thenReturn(List.of(new ProjectJobStatus("p", "job1", GraphJobStatus.RUNNING)));
+
+        ProjectGraphDO graph = graph("n1");
+        view.get(graph);
+        view.get(graph);
+        Mockito.verify(taskRepository, Mockito.times(2)).findLatestTasksOfGraphNodes(Mockito.eq("p"), Mockito.any());
+    }
+
+    private ProjectGraphDO graph(String... graphNodeIds) {
+        ProjectGraphDO graph = new ProjectGraphDO();
+        graph.setUpk(new ProjectGraphDO.UPK("p", "g"));
+        graph.setNodes(Arrays.stream(graphNodeIds).map(id -> {
+            ProjectGraphNodeDO node = new ProjectGraphNodeDO();
+            node.setUpk(new ProjectGraphNodeDO.UPK("p", "g", id));
+            return node;
+        }).toList());
+        return graph;
+    }
+}
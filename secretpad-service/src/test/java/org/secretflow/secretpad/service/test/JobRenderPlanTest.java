@@ -0,0 +1,97 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.test;
+
+import org.secretflow.secretpad.service.graph.chain.JobRenderPlan;
+import org.secretflow.secretpad.service.model.graph.GraphNodeInfo;
+import org.secretflow.secretpad.service.model.graph.ProjectJob;
+import org.secretflow.secretpad.service.util.JobUtils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * render plan and structural copy of a job
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+public class JobRenderPlanTest {
+
+    @Test
+    public void planResolvesInputsOnce() {
+        GraphNodeInfo n1 = node("n1", List.of(), List.of("n1-output-0"));
+        GraphNodeInfo n2 = node("n2", List.of("n1-output-0"), List.of("n2-output-0"));
+        GraphNodeInfo n3 = node("n3", List.of("n2-output-0"), List.of("n3-output-0"));
+        ProjectJob job = ProjectJob.builder()
+                .projectId("p")
+                .jobId("job")
+                .fullNodes(List.of(n1, n2, n3))
+                .tasks(new ArrayList<>(List.of(task(n2), task(n3))))
+                .build();
+
+        JobRenderPlan plan = JobRenderPlan.of(job, node -> false);
+
+        Assertions.assertEquals(Set.of("n2", "n3"), plan.getSelectedNodes());
+        Assertions.assertEquals("n1", plan.getInputNodes().get("n1-output-0").getGraphNodeId());
+        Assertions.assertEquals("n2", plan.getInputNodes().get("n2-output-0").getGraphNodeId());
+        Assertions.assertEquals(Set.of("n1"), plan.getUnselectedDependencies());
+        Assertions.assertTrue(plan.getReadDatatableIds().isEmpty());
+        Assertions.assertEquals(JobUtils.genTaskOutputId("job", "n3-output-0"), plan.getOutputIds().get("n3-output-0"));
+        Assertions.assertFalse(plan.getOutputIds().containsKey("n1-output-0"));
+    }
+
+    @Test
+    public void copyLeavesJobUnchanged() {
+        GraphNodeInfo n1 = node("n1", List.of(), List.of("n1-output-0"));
+        ProjectJob job = ProjectJob.builder()
+                .jobId("job")
+                .fullNodes(List.of(n1))
+                .tasks(new ArrayList<>(List.of(task(n1))))
+                .build();
+
+        ProjectJob copy = job.copy();
+        copy.getTasks().get(0).getNode().getOutputs().set(0, "changed");
+        copy.getTasks().get(0).getNode().setNodeDef("changed");
+        copy.getTasks().add(task(n1));
+
+        Assertions.assertEquals("n1-output-0", job.getTasks().get(0).getNode().getOutputs().get(0));
+        Assertions.assertNull(job.getTasks().get(0).getNode().getNodeDef());
+        Assertions.assertEquals(1, job.getTasks().size());
+    }
+
+    private GraphNodeInfo node(String graphNodeId, List<String> inputs, List<String> outputs) {
+        return GraphNodeInfo.builder()
+                .graphNodeId(graphNodeId)
+                .codeName("stats/table_statistics")
+                .inputs(new ArrayList<>(inputs))
+                .outputs(new ArrayList<>(outputs))
+                .build();
+    }
+
+    private ProjectJob.JobTask task(GraphNodeInfo node) {
+        return ProjectJob.JobTask.builder()
+                .taskId(JobUtils.genTaskId("job", node.getGraphNodeId()))
+                .parties(List.of("alice"))
+                .node(node)
+                .build();
+    }
+}
@@ -46,4 +46,39 @@ public class ReadPartitionRuleAnalysisServiceImplTest {
         String finalSql = sql;
         Assertions.assertThrows(IllegalArgumentException.class, () -> readPartitionRuleAnalysisService.readPartitionRuleAnalysis("test_table", DataSourceTypeEnum.ODPS, finalSql, scheduleExpectStartDate, partitionColumns));
     }
+
+    @Test
+    public void renderCompiledRule() {
+        ReadPartitionRuleAnalysisServiceImpl service = new ReadPartitionRuleAnalysisServiceImpl();
+        Set<String> partitionColumns = Set.of("dt", "a", "b");
+        String rule = "dt=maxpt AND a >= ${yyyymmdd-1} or b!='x_1'";
+
+        Assertions.assertEquals("dt=max_pt('t1') and a>='20240909' or b!='x_1'",
+                service.readPartitionRuleAnalysis("t1", DataSourceTypeEnum.ODPS, rule, "20240910", partitionColumns));
+        Assertions.assertEquals("dt=max_pt('t2') and a>='20240301' or b!='x_1'",
+                service.readPartitionRuleAnalysis("t2", DataSourceTypeEnum.ODPS, rule, "20240302", partitionColumns));
+        Assertions.assertSame(service.compileReadPartitionRule(rule), service.compileReadPartitionRule(rule));
+    }
+
+    @Test
+    public void spacesAroundOperatorAreAccepted() {
+        ReadPartitionRuleAnalysisServiceImpl service = new ReadPartitionRuleAnalysisServiceImpl();
+        Set<String> partitionColumns = Set.of("dt", "a");
+
+        Assertions.assertEquals("dt=1", service.readPartitionRuleAnalysis("t1", DataSourceTypeEnum.ODPS, "dt = 1", "20240910", partitionColumns));
+        Assertions.assertEquals("dt=1 and a='20240909'",
+                service.readPartitionRuleAnalysis("t1", DataSourceTypeEnum.ODPS, "dt =1 and a = ${yyyymmdd-1}", "20240910", partitionColumns));
+    }
+
+    @Test
+    public void malformedRule() {
+        ReadPartitionRuleAnalysisServiceImpl service = new ReadPartitionRuleAnalysisServiceImpl();
+        IllegalArgumentException e = Assertions.assertThrows(IllegalArgumentException.class, () -> service.compileReadPartitionRule("dt=${yyyymmdd+}"));
+        Assertions.assertTrue(e.getMessage().startsWith("Invalid partition rule at 14,"), e.getMessage());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.compileReadPartitionRule("dt='2024-01-01'"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.compileReadPartitionRule("dt=1 xor a=2"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.compileReadPartitionRule("dt=1;a=2"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.compileReadPartitionRule("dt=${YYYYMMDD}"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.readPartitionRuleAnalysis("t1", DataSourceTypeEnum.ODPS, "x=1", "20240910", Set.of("dt")));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.test;
+
+import org.secretflow.secretpad.common.enums.ScheduledStatus;
+import org.secretflow.secretpad.common.util.UserContext;
+import org.secretflow.secretpad.persistence.entity.ProjectJobDO;
+import org.secretflow.secretpad.persistence.entity.ProjectScheduleDO;
+import org.secretflow.secretpad.persistence.entity.ProjectScheduleJobDO;
+import org.secretflow.secretpad.persistence.entity.ProjectScheduleTaskDO;
+import org.secretflow.secretpad.persistence.model.ScheduledGraphCreateRequest;
+import org.secretflow.secretpad.persistence.repository.ProjectScheduleJobRepository;
+import org.secretflow.secretpad.persistence.repository.ProjectScheduleTaskRepository;
+import org.secretflow.secretpad.scheduled.service.ISecretpadScheduledService;
+import org.secretflow.secretpad.service.EnvService;
+import org.secretflow.secretpad.service.GraphService;
+import org.secretflow.secretpad.service.graph.GraphContext;
+import org.secretflow.secretpad.service.impl.ScheduledServiceImpl;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.secretflow.v1alpha1.kusciaapi.Job;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * rendering the task of a schedule fire time
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+@ExtendWith(MockitoExtension.class)
+public class ScheduledServiceImplTest {
+
+    private static final LocalDateTime EXPECT_START_TIME = LocalDateTime.of(2024, 12, 23, 12, 0);
+
+    @Mock
+    private ISecretpadScheduledService secretpadScheduledService;
+    @Mock
+    private ProjectScheduleJobRepository projectScheduleJobRepository;
+    @Mock
+    private ProjectScheduleTaskRepository projectScheduleTaskRepository;
+    @Mock
+    private GraphService graphService;
+    @Mock
+    private EnvService envService;
+    @InjectMocks
+    private ScheduledServiceImpl scheduledService;
+
+    @Test
+    public void renderTaskOfFireTime() throws Exception {
+        mockTaskRepository();
+        List<String> seen = new ArrayList<>();
+        Mockito.doAnswer(invocation -> {
+            // the graph is started as the scheduled run of the fire date, on behalf of the schedule creator
+            seen.add(GraphContext.isScheduled() + "," + GraphContext.getScheduleExpectStartDate() + "," + UserContext.getUser().getOwnerId());
+            ProjectJobDO projectJobDO = new ProjectJobDO();
+            projectJobDO.setUpk(new ProjectJobDO.UPK("p1", "j1"));
+            GraphContext.setProjectJobDO(projectJobDO);
+            GraphContext.setRequest(Job.CreateJobRequest.newBuilder().setJobId("j1").build());
+            return null;
+        }).when(graphService).startGraph(ArgumentMatchers.any());
+
+        ProjectScheduleTaskDO task = scheduledService.render(buildSchedule(), EXPECT_START_TIME);
+
+        Assertions.assertEquals(List.of("true,20241223,owner1"), seen);
+        Assertions.assertEquals("task1", task.getScheduleTaskId());
+        Assertions.assertEquals("s1", task.getScheduleId());
+        Assertions.assertEquals("0 0 12 * * ?", task.getCron());
+        Assertions.assertEquals(EXPECT_START_TIME, task.getScheduleTaskExpectStartTime());
+        Assertions.assertEquals(ScheduledStatus.TO_BE_RUN, task.getStatus());
+        Assertions.assertEquals("j1", task.getScheduleJobId());
+        Assertions.assertEquals("j1", Job.CreateJobRequest.parseFrom(Base64.getDecoder().decode(task.getJobRequest())).getJobId());
+        Mockito.verify(projectScheduleJobRepository).save(ArgumentMatchers.argThat((ProjectScheduleJobDO j) ->
+                "task1".equals(j.getScheduleTaskId()) && "owner1".equals(j.getOwner()) && "j1".equals(j.getUpk().getJobId())));
+        Mockito.verify(projectScheduleTaskRepository).save(task);
+        // the contexts of the render do not leak into the next job on the quartz thread
+        Assertions.assertNull(GraphContext.getRequest());
+        Assertions.assertNull(UserContext.getUserOrNotExist());
+    }
+
+    @Test
+    public void failedRenderIsSavedAsFailed() {
+        mockTaskRepository();
+        Mockito.doThrow(new IllegalStateException("graph changed")).when(graphService).startGraph(ArgumentMatchers.any());
+
+        ProjectScheduleTaskDO task = scheduledService.render(buildSchedule(), EXPECT_START_TIME);
+
+        Assertions.assertEquals(ScheduledStatus.FAILED, task.getStatus());
+        Assertions.assertNotNull(task.getScheduleTaskEndTime());
+        Assertions.assertNull(task.getJobRequest());
+        Mockito.verify(projectScheduleTaskRepository).save(task);
+        Mockito.verifyNoInteractions(projectScheduleJobRepository);
+        Assertions.assertNull(UserContext.getUserOrNotExist());
+    }
+
+    private void mockTaskRepository() {
+        Mockito.when(secretpadScheduledService.buildSchedulerId(ArgumentMatchers.any())).thenReturn("task1");
+        Mockito.when(projectScheduleTaskRepository.save(ArgumentMatchers.any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private ProjectScheduleDO buildSchedule() {
+        ScheduledGraphCreateRequest request = ScheduledGraphCreateRequest.builder().nodes(List.of("n1")).build();
+        return ProjectScheduleDO.builder().scheduleId("s1").projectId("p1").graphId("g1").owner("owner1").creator("alice")
+                .cron(List.of("0 0 12 * * ?")).request(request).build();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.test;
+
+import org.secretflow.secretpad.common.dto.SyncDataDTO;
+import org.secretflow.secretpad.persistence.entity.ProjectDO;
+import org.secretflow.secretpad.service.sync.center.SseBroadcaster;
+import org.secretflow.secretpad.service.sync.center.SseSession;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author yutu
+ * @date 2024/12/22
+ */
+public class SseBroadcasterTest {
+
+    private static final String NODE = "alice";
+
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SseBroadcaster broadcaster = new SseBroadcaster();
+    private SseBroadcaster previous;
+
+    @BeforeEach
+    public void setup() {
+        previous = SseSession.broadcaster;
+        broadcaster.setExecutor(tasks::add);
+        broadcaster.setMeterRegistry(meterRegistry);
+        broadcaster.setQueueCapacity(3);
+        broadcaster.init();
+    }
+
+    @AfterEach
+    public void clean() {
+        SseSession.remove(NODE, false);
+        SseSession.broadcaster = previous;
+    }
+
+    @Test
+    public void coalesceByEntityAndFlushInOneWrite() throws IOException {
+        CapturingEmitter emitter = new CapturingEmitter();
+        SseSession.add(NODE, emitter);
+        SseSession.send(NODE, change(1L, "v1"));
+        SseSession.send(NODE, change(2L, "v1"));
+        SseSession.send(NODE, change(1L, "v2"));
+        Assertions.assertEquals(2, broadcaster.depth(NODE));
+        Assertions.assertEquals(2, meterRegistry.get("sse.session.queue.depth").gauge().value());
+
+        tasks.forEach(Runnable::run);
+        Assertions.assertEquals(1, emitter.writes);
+        Assertions.assertEquals(0, broadcaster.depth(NODE));
+        String sent = emitter.sent.toString();
+        // the newer state of entity 1 replaced its queued state and moved behind entity 2
+        Assertions.assertEquals(sent.indexOf("projectId=p1,"), sent.lastIndexOf("projectId=p1,"), sent);
+        Assertions.assertTrue(sent.indexOf("projectId=p2,") < sent.indexOf("projectId=p1, name=v2"), sent);
+        Assertions.assertEquals(1, meterRegistry.get("sse.session.coalesced").counter().count());
+    }
+
+    @Test
+    public void overflowClosesSessionForResync() throws IOException {
+        CapturingEmitter emitter = new CapturingEmitter();
+        SseSession.add(NODE, emitter);
+        for (long i = 0; i < 4; i++) {
+            SseSession.send(NODE, change(i, "v1"));
+        }
+        Assertions.assertTrue(emitter.completed);
+        Assertions.assertEquals(0, broadcaster.depth(NODE));
+        Assertions.assertEquals(1, meterRegistry.get("sse.session.overflow").counter().count());
+        Assertions.assertThrows(IOException.class, () -> SseSession.stream(NODE, null, change(9L, "v1")));
+    }
+
+    private SyncDataDTO<ProjectDO> change(Long id, String name) {
+        ProjectDO projectDO = ProjectDO.builder().projectId("p" + id).name(name).build();
+        projectDO.setId(id);
+        return SyncDataDTO.<ProjectDO>builder().tableName(ProjectDO.class.getTypeName()).action("update").data(projectDO).build();
+    }
+
+    private static class CapturingEmitter extends SseEmitter {
+        private final StringBuilder sent = new StringBuilder();
+        private int writes;
+        private boolean completed;
+
+        @Override
+        public void send(Set<DataWithMediaType> items) {
+            writes++;
+            items.forEach(d -> sent.append(d.getData()));
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.test;
+
+import org.secretflow.secretpad.common.dto.SyncDataDTO;
+import org.secretflow.secretpad.persistence.datasync.listener.EntityChangeListener;
+import org.secretflow.secretpad.persistence.entity.DataSyncChangeLogDO;
+import org.secretflow.secretpad.persistence.entity.ProjectDO;
+import org.secretflow.secretpad.persistence.model.DbChangeAction;
+import org.secretflow.secretpad.persistence.repository.DataSyncChangeLogRepository;
+import org.secretflow.secretpad.service.sync.center.SseChangeLog;
+import org.secretflow.secretpad.service.sync.center.SseSession;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author yutu
+ * @date 2024/12/21
+ */
+public class SseChangeLogTest {
+
+    private static final String NODE = "alice";
+
+    private final DataSyncChangeLogRepository repository = Mockito.mock(DataSyncChangeLogRepository.class);
+    private final SseChangeLog changeLog = new SseChangeLog(repository);
+
+    @AfterEach
+    public void clean() {
+        SseSession.remove(NODE, false);
+        SseSession.sequencedSessions.remove(NODE);
+    }
+
+    @Test
+    public void resumeOnlyInsideTheLog() {
+        Mockito.when(repository.findMinId()).thenReturn(5L);
+        Mockito.when(repository.findMaxId()).thenReturn(10L);
+        Assertions.assertEquals(4L, changeLog.resumeFrom("4"));
+        Assertions.assertEquals(10L, changeLog.resumeFrom("10"));
+        // truncated, ahead of the log, or no position at all
+        Assertions.assertNull(changeLog.resumeFrom("3"));
+        Assertions.assertNull(changeLog.resumeFrom("11"));
+        Assertions.assertNull(changeLog.resumeFrom("0"));
+        Assertions.assertNull(changeLog.resumeFrom(null));
+    }
+
+    @Test
+    public void replayGapThenGoLive() throws IOException {
+        CapturingEmitter emitter = new CapturingEmitter();
+        SseSession.add(NODE, emitter, List.of(SyncDataDTO.builder().tableName(ProjectDO.class.getTypeName()).build()), true);
+        Assertions.assertFalse(SseSession.isLive(NODE));
+
+        Mockito.when(repository.findByIdGreaterThanOrderByIdAsc(ArgumentMatchers.eq(5L), ArgumentMatchers.any()))
+                .thenReturn(List.of(change(6L, NODE), change(7L, "bob"), change(8L, NODE + ",bob")));
+        Mockito.when(repository.findByIdGreaterThanOrderByIdAsc(ArgumentMatchers.eq(8L), ArgumentMatchers.any())).thenReturn(List.of());
+        Mockito.when(repository.findMaxId()).thenReturn(8L);
+
+        Assertions.assertTrue(changeLog.replay(NODE, emitter, 5L));
+        Assertions.assertTrue(SseSession.isLive(NODE));
+        String sent = emitter.sent.toString();
+        Assertions.assertTrue(sent.contains("id:6\n"), sent);
+        Assertions.assertFalse(sent.contains("id:7\n"), sent);
+        Assertions.assertTrue(sent.contains("id:8\nevent:" + SseSession.SSE_SYNCED_MSG), sent);
+    }
+
+    @Test
+    public void pruneAcrossSequenceGaps() {
+        changeLog.setMaxSize(100);
+        // none of the sequences is a multiple of the prune interval
+        Deque<Long> sequences = new ArrayDeque<>(List.of(999L, 1999L, 2001L, 2500L, 3001L));
+        Mockito.when(repository.save(ArgumentMatchers.any())).thenAnswer(invocation -> {
+            DataSyncChangeLogDO changeLogDO = invocation.getArgument(0);
+            changeLogDO.setId(sequences.poll());
+            return changeLogDO;
+        });
+        EntityChangeListener.DbChangeEvent event = EntityChangeListener.DbChangeEvent.of(DbChangeAction.UPDATE, ProjectDO.builder().projectId("p").build());
+        for (int i = 0; i < 5; i++) {
+            changeLog.append(event, null);
+        }
+        Mockito.verify(repository).deleteByIdLessThanEqual(1899L);
+        Mockito.verify(repository).deleteByIdLessThanEqual(2901L);
+        Mockito.verify(repository, Mockito.times(2)).deleteByIdLessThanEqual(ArgumentMatchers.anyLong());
+    }
+
+    private DataSyncChangeLogDO change(long id, String nodeIds) {
+        return DataSyncChangeLogDO.builder().id(id).tableName(ProjectDO.class.getTypeName()).action("update")
+                .nodeIds(nodeIds).payload("{\"projectId\":\"p" + id + "\"}").build();
+    }
+
+    private static class CapturingEmitter extends SseEmitter {
+        private final StringBuilder sent = new StringBuilder();
+
+        @Override
+        public void send(Set<DataWithMediaType> items) {
+            items.forEach(d -> sent.append(d.getData()));
+        }
+    }
+}
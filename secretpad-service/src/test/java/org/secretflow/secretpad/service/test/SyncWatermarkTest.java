@@ -0,0 +1,57 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.test;
+
+import org.secretflow.secretpad.persistence.entity.ProjectDO;
+import org.secretflow.secretpad.service.sync.SyncWatermark;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+/**
+ * @author yutu
+ * @date 2024/12/20
+ */
+public class SyncWatermarkTest {
+
+    @Test
+    public void parseLegacyAndResumable() {
+        Assertions.assertSame(SyncWatermark.BEGINNING, SyncWatermark.parse("0"));
+        Assertions.assertSame(SyncWatermark.BEGINNING, SyncWatermark.parse(null));
+
+        SyncWatermark legacy = SyncWatermark.parse("2024-12-20 10:00:00");
+        Assertions.assertEquals(LocalDateTime.of(2024, 12, 20, 10, 0, 0), legacy.getGmtModified());
+        Assertions.assertNull(legacy.getId());
+        Assertions.assertFalse(SyncWatermark.resumable(legacy.toString()));
+
+        SyncWatermark resumable = SyncWatermark.parse("2024-12-20 10:00:00#42");
+        Assertions.assertEquals(42L, resumable.getId());
+        Assertions.assertEquals("2024-12-20 10:00:00#42", resumable.toString());
+        Assertions.assertTrue(SyncWatermark.resumable(resumable.toString()));
+    }
+
+    @Test
+    public void ofLastRow() {
+        ProjectDO projectDO = ProjectDO.builder().projectId("p").build();
+        projectDO.setId(7L);
+        projectDO.setGmtModified(LocalDateTime.of(2024, 12, 20, 10, 0, 1));
+        Assertions.assertEquals("2024-12-20 10:00:01#7", SyncWatermark.of(projectDO).toString());
+        Assertions.assertEquals("0", SyncWatermark.BEGINNING.toString());
+    }
+}
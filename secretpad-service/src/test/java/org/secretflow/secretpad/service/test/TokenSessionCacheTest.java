@@ -0,0 +1,138 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.test;
+
+import org.secretflow.secretpad.common.constant.CacheConstants;
+import org.secretflow.secretpad.persistence.datasync.event.EntityChangedEvent;
+import org.secretflow.secretpad.persistence.entity.TokensDO;
+import org.secretflow.secretpad.persistence.model.DbChangeAction;
+import org.secretflow.secretpad.persistence.repository.ProjectNodeRepository;
+import org.secretflow.secretpad.persistence.repository.UserTokensRepository;
+import org.secretflow.secretpad.service.auth.TokenSessionCache;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * tokens served from memory and their use times written back per flush
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+@ExtendWith(MockitoExtension.class)
+public class TokenSessionCacheTest {
+
+    @Spy
+    private CacheManager cacheManager = new ConcurrentMapCacheManager(CacheConstants.TOKEN_SESSION_CACHE,
+            CacheConstants.NODE_PROJECTS_CACHE);
+
+    @Mock
+    private UserTokensRepository userTokensRepository;
+
+    @Mock
+    private ProjectNodeRepository projectNodeRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private TokenSessionCache tokenSessionCache;
+
+    @Test
+    public void touchedTokenIsServedFromCache() {
+        tokenSessionCache.touch(token("t1"));
+
+        Optional<TokensDO> cached = tokenSessionCache.get("t1");
+        Assertions.assertTrue(cached.isPresent());
+        Assertions.assertEquals("alice", cached.get().getName());
+        Mockito.verifyNoInteractions(userTokensRepository);
+    }
+
+    @Test
+    public void missReadsDatabase() {
+        Mockito.when(userTokensRepository.findByToken("t1")).thenReturn(Optional.empty());
+
+        Assertions.assertTrue(tokenSessionCache.get("t1").isEmpty());
+        Mockito.verify(userTokensRepository).findByToken("t1");
+    }
+
+    @Test
+    public void removedTokenLeavesCache() {
+        TokensDO tokensDO = token("t1");
+        tokenSessionCache.touch(tokensDO);
+        // written by the cache itself, the cached token stays
+        tokenSessionCache.onEntityChanged(new EntityChangedEvent(tokensDO, DbChangeAction.UPDATE));
+        Assertions.assertTrue(tokenSessionCache.get("t1").isPresent());
+
+        // logout soft deletes the token, which raises its post remove event
+        Assertions.assertTrue(EntityChangedEvent.isWatched(tokensDO));
+        tokenSessionCache.onEntityChanged(new EntityChangedEvent(tokensDO, DbChangeAction.REMOVE));
+        Mockito.when(userTokensRepository.findByToken("t1")).thenReturn(Optional.empty());
+        Assertions.assertTrue(tokenSessionCache.get("t1").isEmpty());
+
+        // a removed token is not written back either
+        tokenSessionCache.flush();
+        Mockito.verify(userTokensRepository, Mockito.never()).updateGmtToken(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void useTimesAreWrittenBackOncePerFlush() {
+        Mockito.when(transactionManager.getTransaction(Mockito.any())).thenReturn(new SimpleTransactionStatus());
+        tokenSessionCache.touch(token("t1"));
+        tokenSessionCache.touch(token("t1"));
+        tokenSessionCache.touch(token("t2"));
+        Mockito.verify(userTokensRepository, Mockito.never()).updateGmtToken(Mockito.any(), Mockito.any());
+
+        tokenSessionCache.flush();
+        Mockito.verify(userTokensRepository, Mockito.times(1)).updateGmtToken(Mockito.eq("t1"), Mockito.any(LocalDateTime.class));
+        Mockito.verify(userTokensRepository, Mockito.times(1)).updateGmtToken(Mockito.eq("t2"), Mockito.any(LocalDateTime.class));
+        Mockito.verify(transactionManager, Mockito.times(1)).commit(Mockito.any());
+
+        // nothing touched within the interval, nothing written
+        tokenSessionCache.flush();
+        Mockito.verify(transactionManager, Mockito.times(1)).getTransaction(Mockito.any());
+    }
+
+    @Test
+    public void failedFlushIsRetried() {
+        Mockito.when(transactionManager.getTransaction(Mockito.any())).thenReturn(new SimpleTransactionStatus());
+        Mockito.doThrow(new IllegalStateException("db down")).doNothing()
+                .when(userTokensRepository).updateGmtToken(Mockito.eq("t1"), Mockito.any());
+        tokenSessionCache.touch(token("t1"));
+
+        tokenSessionCache.flush();
+        tokenSessionCache.flush();
+        Mockito.verify(userTokensRepository, Mockito.times(2)).updateGmtToken(Mockito.eq("t1"), Mockito.any());
+    }
+
+    private TokensDO token(String token) {
+        return TokensDO.builder().token(token).name("alice").gmtToken(LocalDateTime.now()).build();
+    }
+}
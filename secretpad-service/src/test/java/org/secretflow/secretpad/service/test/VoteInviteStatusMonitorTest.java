@@ -30,6 +30,7 @@ import org.secretflow.secretpad.service.enums.VoteStatusEnum;
 import org.secretflow.secretpad.service.enums.VoteTypeEnum;
 import org.secretflow.secretpad.service.schedule.VoteInviteStatusMonitor;
 
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -96,4 +97,26 @@ public class VoteInviteStatusMonitorTest {
         Mockito.when(voteInviteRepository.findByVoteID(Mockito.any())).thenReturn(voteInviteDOS);
         voteInviteStatusMonitor.sync();
     }
+
+    @Test
+    void tallySavesOnlyChangedStatus() {
+        voteInviteStatusMonitor.setVoteRequestRepository(voteRequestRepository);
+        voteInviteStatusMonitor.setVoteInviteRepository(voteInviteRepository);
+        VoteRequestDO voteRequestDO = new VoteRequestDO();
+        voteRequestDO.setType(VoteTypeEnum.PROJECT_NODE_ADD.name());
+        voteRequestDO.setVoteID("vote");
+        voteRequestDO.setStatus(VoteStatusEnum.REVIEWING.getCode());
+        VoteInviteDO bob = new VoteInviteDO();
+        bob.setUpk(new VoteInviteDO.UPK("vote", "bob"));
+        bob.setAction(VoteStatusEnum.REVIEWING.name());
+        Mockito.when(voteInviteRepository.findByVoteID("vote")).thenReturn(List.of(bob));
+
+        voteInviteStatusMonitor.tally(voteRequestDO);
+        Mockito.verify(voteRequestRepository, Mockito.never()).save(Mockito.any());
+
+        bob.setAction(VoteStatusEnum.APPROVED.name());
+        voteInviteStatusMonitor.tally(voteRequestDO);
+        Assertions.assertEquals(VoteStatusEnum.APPROVED.getCode(), voteRequestDO.getStatus());
+        Mockito.verify(voteRequestRepository, Mockito.times(1)).save(voteRequestDO);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.test;
+
+import org.secretflow.secretpad.persistence.datasync.event.EntityChangedEvent;
+import org.secretflow.secretpad.persistence.entity.VoteInviteDO;
+import org.secretflow.secretpad.persistence.entity.VoteRequestDO;
+import org.secretflow.secretpad.persistence.model.DbChangeAction;
+import org.secretflow.secretpad.persistence.repository.VoteRequestRepository;
+import org.secretflow.secretpad.service.enums.VoteStatusEnum;
+import org.secretflow.secretpad.service.listener.VoteStateMachine;
+import org.secretflow.secretpad.service.schedule.VoteInviteStatusMonitor;
+import org.secretflow.secretpad.service.schedule.VoteRequestStatusMonitor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Optional;
+
+/**
+ * votes advanced by the change events of their requests and invites
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+@ExtendWith(MockitoExtension.class)
+public class VoteStateMachineTest {
+
+    @Mock
+    private VoteRequestRepository voteRequestRepository;
+
+    @Mock
+    private VoteRequestStatusMonitor voteRequestStatusMonitor;
+
+    @Mock
+    private VoteInviteStatusMonitor voteInviteStatusMonitor;
+
+    @Mock
+    private ThreadPoolTaskExecutor voteStateThreadPool;
+
+    @InjectMocks
+    private VoteStateMachine voteStateMachine;
+
+    @Test
+    public void reviewingRequestIsSignedAndTallied() {
+        runInline();
+        VoteRequestDO request = request(VoteStatusEnum.REVIEWING);
+        Mockito.when(voteRequestRepository.findByVoteID("vote")).thenReturn(Optional.of(request));
+
+        voteStateMachine.onEntityChanged(new EntityChangedEvent(request, DbChangeAction.CREATE));
+
+        Mockito.verify(voteRequestStatusMonitor).advance(request);
+        Mockito.verify(voteInviteStatusMonitor).tally(request);
+    }
+
+    @Test
+    public void approvedRequestOnlyRunsCallback() {
+        runInline();
+        VoteRequestDO request = request(VoteStatusEnum.APPROVED);
+        Mockito.when(voteRequestRepository.findByVoteID("vote")).thenReturn(Optional.of(request));
+
+        voteStateMachine.onEntityChanged(new EntityChangedEvent(request, DbChangeAction.UPDATE));
+
+        Mockito.verify(voteRequestStatusMonitor).advance(request);
+        Mockito.verifyNoInteractions(voteInviteStatusMonitor);
+    }
+
+    @Test
+    public void inviteChangeTalliesItsVote() {
+        runInline();
+        VoteRequestDO request = request(VoteStatusEnum.REVIEWING);
+        Mockito.when(voteRequestRepository.findByVoteID("vote")).thenReturn(Optional.of(request));
+        VoteInviteDO invite = new VoteInviteDO();
+        invite.setUpk(new VoteInviteDO.UPK("vote", "bob"));
+
+        voteStateMachine.onEntityChanged(new EntityChangedEvent(invite, DbChangeAction.UPDATE));
+
+        Mockito.verify(voteInviteStatusMonitor).tally(request);
+    }
+
+    @Test
+    public void removedOrMissingVoteIsNotAdvanced() {
+        runInline();
+        Mockito.when(voteRequestRepository.findByVoteID("vote")).thenReturn(Optional.empty());
+
+        voteStateMachine.onEntityChanged(new EntityChangedEvent(request(VoteStatusEnum.REVIEWING), DbChangeAction.REMOVE));
+        voteStateMachine.onEntityChanged(new EntityChangedEvent(request(VoteStatusEnum.REVIEWING), DbChangeAction.UPDATE));
+
+        Mockito.verify(voteRequestRepository, Mockito.times(1)).findByVoteID("vote");
+        Mockito.verifyNoInteractions(voteRequestStatusMonitor, voteInviteStatusMonitor);
+    }
+
+    @Test
+    public void queuedVoteIsNotQueuedAgain() {
+        VoteRequestDO request = request(VoteStatusEnum.REVIEWING);
+        voteStateMachine.onEntityChanged(new EntityChangedEvent(request, DbChangeAction.UPDATE));
+        voteStateMachine.onEntityChanged(new EntityChangedEvent(request, DbChangeAction.UPDATE));
+
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        Mockito.verify(voteStateThreadPool, Mockito.times(1)).execute(task.capture());
+
+        // once running, a later change is queued again
+        Mockito.when(voteRequestRepository.findByVoteID("vote")).thenThrow(new IllegalStateException("db down"));
+        task.getValue().run();
+        voteStateMachine.onEntityChanged(new EntityChangedEvent(request, DbChangeAction.UPDATE));
+        Mockito.verify(voteStateThreadPool, Mockito.times(2)).execute(Mockito.any(Runnable.class));
+    }
+
+    private void runInline() {
+        Mockito.doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(voteStateThreadPool).execute(Mockito.any(Runnable.class));
+    }
+
+    private VoteRequestDO request(VoteStatusEnum status) {
+        VoteRequestDO request = new VoteRequestDO();
+        request.setVoteID("vote");
+        request.setStatus(status.getCode());
+        return request;
+    }
+}
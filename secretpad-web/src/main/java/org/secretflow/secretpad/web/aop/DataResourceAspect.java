@@ -38,9 +38,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
-import org.springframework.util.ReflectionUtils;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author beiwei
@@ -52,6 +56,11 @@ import java.lang.reflect.Field;
 @Slf4j
 public class DataResourceAspect {
 
+    /**
+     * getter of the resource field by request class and field name, looked up once instead of on every call
+     */
+    private final ConcurrentMap<String, MethodHandle> accessors = new ConcurrentHashMap<>();
+
     @Autowired
     private DataResourceAuth dataResourceAuth;
 
@@ -83,9 +92,7 @@ public class DataResourceAspect {
         }
         Object fieldValue;
         try {
-            Field nodeIdField = data.getClass().getDeclaredField(dataResource.field());
-            nodeIdField.setAccessible(true);
-            fieldValue = ReflectionUtils.getField(nodeIdField, data);
+            fieldValue = accessor(data.getClass(), dataResource.field()).invoke(data);
         } catch (NoSuchFieldException e) {
             String err = String.format("Invalid field. The field(%s) does not exist.", dataResource.field());
             log.error("DataResourceAspect check error {}", err, e);
@@ -101,4 +108,19 @@ public class DataResourceAspect {
         return joinPoint.proceed();
     }
 
+    private MethodHandle accessor(Class<?> clazz, String fieldName) throws NoSuchFieldException {
+        String key = clazz.getName() + "#" + fieldName;
+        MethodHandle accessor = accessors.get(key);
+        if (accessor == null) {
+            Field field = clazz.getDeclaredField(fieldName);
+            field.setAccessible(true);
+            try {
+                accessor = MethodHandles.lookup().unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class));
+            } catch (IllegalAccessException e) {
+                throw SecretpadException.of(AuthErrorCode.AUTH_FAILED, e, e.getMessage());
+            }
+            accessors.put(key, accessor);
+        }
+        return accessor;
+    }
 }
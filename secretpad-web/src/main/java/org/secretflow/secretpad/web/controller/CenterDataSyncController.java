@@ -20,6 +20,7 @@ import org.secretflow.secretpad.common.dto.SyncDataDTO;
 import org.secretflow.secretpad.common.util.JsonUtils;
 import org.secretflow.secretpad.service.sync.JpaSyncDataService;
 import org.secretflow.secretpad.service.sync.center.SseServer;
+import org.secretflow.secretpad.service.sync.center.SseSession;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -48,12 +49,13 @@ public class CenterDataSyncController {
     private final JpaSyncDataService jpaSyncDataService;
 
     @GetMapping(value = "/sync", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter sync(@RequestHeader("kuscia-origin-source") String nodeId, @RequestParam String p) throws UnsupportedEncodingException {
+    public SseEmitter sync(@RequestHeader("kuscia-origin-source") String nodeId, @RequestParam String p,
+                           @RequestHeader(value = SseSession.LAST_EVENT_ID, required = false) String lastEventId) throws UnsupportedEncodingException {
         p = URLDecoder.decode(p, StandardCharsets.UTF_8);
         @SuppressWarnings(value = {"rawtypes"})
         List<SyncDataDTO> syncDataDTOList = JsonUtils.toJavaList(p, SyncDataDTO.class);
-        SseEmitter sseEmitter = sseServer.open(nodeId, syncDataDTOList);
-        jpaSyncDataService.syncByLastUpdateTime(nodeId);
+        SseEmitter sseEmitter = sseServer.open(nodeId, syncDataDTOList, lastEventId != null);
+        jpaSyncDataService.syncByLastUpdateTime(nodeId, lastEventId);
         log.debug("CenterDataSyncController sync sseEmitter {}", sseEmitter);
         return sseEmitter;
     }
@@ -28,8 +28,9 @@ import org.secretflow.secretpad.service.model.data.CreateDataRequest;
 import org.secretflow.secretpad.service.model.data.DownloadDataRequest;
 import org.secretflow.secretpad.service.model.data.DownloadInfo;
 import org.secretflow.secretpad.service.model.data.UploadDataResultVO;
+import org.secretflow.secretpad.web.util.DownloadUtils;
+import org.secretflow.secretpad.web.util.RequestUtils;
 
-import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
@@ -39,8 +40,6 @@ import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.InputStream;
-
 /**
  * Data controller
  *
@@ -106,24 +105,8 @@ public class DataController {
     @ApiResource(code = ApiResourceCodeConstants.DATA_DOWNLOAD)
     public void download(HttpServletResponse response, @Valid @RequestBody DownloadDataRequest request) {
         DownloadInfo downloadInfo = dataService.download(request);
-        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
-        response.setHeader("Content-Disposition", "attachment;filename*=UTF-8''" + downloadInfo.getFileName());
-        response.setContentLength(downloadInfo.getFileLength());
         try {
-            ServletOutputStream outputStream = response.getOutputStream();
-            InputStream inputStream = downloadInfo.getInputStream();
-            if(downloadInfo.getFileLength() == 0){
-                response.setContentLength("No data".getBytes().length);
-                outputStream.write("No data".getBytes());
-            }else{
-                byte[] buf = new byte[1024];
-                int len;
-                while ((len = inputStream.read(buf)) > 0) {
-                    outputStream.write(buf, 0, len);
-                }
-            }
-            inputStream.close();
-            outputStream.close();
+            DownloadUtils.write(RequestUtils.getCurrentHttpRequest(), response, downloadInfo);
         } catch (Exception e) {
             LOGGER.error(e.getMessage());
             throw SecretpadException.of(SystemErrorCode.UNKNOWN_ERROR, e);
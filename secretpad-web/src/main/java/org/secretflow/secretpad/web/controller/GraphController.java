@@ -21,13 +21,18 @@ import org.secretflow.secretpad.common.annotation.resource.DataResource;
 import org.secretflow.secretpad.common.constant.resource.ApiResourceCodeConstants;
 import org.secretflow.secretpad.common.enums.DataResourceTypeEnum;
 import org.secretflow.secretpad.common.util.ProtoUtils;
+import org.secretflow.secretpad.service.ComponentService;
 import org.secretflow.secretpad.service.GraphService;
+import org.secretflow.secretpad.service.graph.ComponentCatalog;
 import org.secretflow.secretpad.service.model.common.SecretPadResponse;
 import org.secretflow.secretpad.service.model.graph.*;
 
 import io.swagger.v3.oas.annotations.Operation;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -49,6 +54,9 @@ public class GraphController {
     @Autowired
     private GraphService graphService;
 
+    @Autowired
+    private ComponentService componentService;
+
     /**
      * List component international config api
      *
@@ -57,8 +65,13 @@ public class GraphController {
     @PostMapping("/component/i18n")
     @Operation(summary = "component international config")
     @ApiResource(code = ApiResourceCodeConstants.GRAPH_COMM_I18N)
-    public SecretPadResponse<Object> listComponentI18n() {
-        return SecretPadResponse.success(graphService.listComponentI18n());
+    public SecretPadResponse<Object> listComponentI18n(HttpServletRequest request, HttpServletResponse response) {
+        ComponentCatalog catalog = componentService.catalog();
+        if (notModified(request, response, catalog.getI18nEtag())) {
+            return null;
+        }
+        // the etag and the content come from one catalog, the service is asked only to report an i18n failure
+        return SecretPadResponse.success(catalog.getI18n() != null ? catalog.getI18n() : graphService.listComponentI18n());
     }
 
     /**
@@ -69,8 +82,12 @@ public class GraphController {
     @PostMapping("/component/list")
     @Operation(summary = "component list")
     @ApiResource(code = ApiResourceCodeConstants.GRAPH_COMM_LIST)
-    public SecretPadResponse<Map<String, CompListVO>> listComponents() {
-        return SecretPadResponse.success(graphService.listComponents());
+    public SecretPadResponse<Map<String, CompListVO>> listComponents(HttpServletRequest request, HttpServletResponse response) {
+        ComponentCatalog catalog = componentService.catalog();
+        if (notModified(request, response, catalog.getComponentListEtag())) {
+            return null;
+        }
+        return SecretPadResponse.success(catalog.getComponentList());
     }
 
     /**
@@ -273,4 +290,33 @@ public class GraphController {
         GraphNodeMaxIndexRefreshVO vo = graphService.refreshNodeMaxIndex(request);
         return SecretPadResponse.success(vo);
     }
+
+    /**
+     * Set the etag of the content and answer 304 if the client already has it. The component endpoints are posts, so
+     * the If-None-Match header is compared here instead of by spring, which answers 412 to a matching post.
+     *
+     * @return true if the client copy is current and no body is to be sent
+     */
+    private boolean notModified(HttpServletRequest request, HttpServletResponse response, String etag) {
+        if (etag == null) {
+            return false;
+        }
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if ("*".equals(tag) || etag.equals(tag)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -18,14 +18,21 @@ package org.secretflow.secretpad.web.controller.p2p;
 
 import org.secretflow.secretpad.common.dto.SecretPadResponse;
 import org.secretflow.secretpad.common.dto.SyncDataDTO;
+import org.secretflow.secretpad.common.dto.SyncDataResultDTO;
 import org.secretflow.secretpad.common.util.JsonUtils;
+import org.secretflow.secretpad.common.util.SyncDataCodec;
 import org.secretflow.secretpad.service.sync.p2p.DataSyncConsumerTemplate;
 
 import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @author yutu
  * @date 2023/12/10
@@ -47,4 +54,30 @@ public class DataSyncController {
         syncDataDTO = JsonUtils.toJavaObject(p, javaType);
         return SecretPadResponse.success(consumerTemplate.consumer(nodeId, syncDataDTO));
     }
+
+    @PostMapping("sync/batch")
+    public SecretPadResponse<List<SyncDataResultDTO>> syncBatch(@RequestHeader("kuscia-origin-source") String nodeId, @RequestBody String p) throws ClassNotFoundException {
+        return SecretPadResponse.success(consumerTemplate.consumer(nodeId, toSyncDataDTOs(JsonUtils.parseObject(p))));
+    }
+
+    /**
+     * same as sync/batch with the body framed by SyncDataCodec, peers without this endpoint answer 404 and get json
+     */
+    @PostMapping(value = "sync/batch/binary", consumes = SyncDataCodec.MEDIA_TYPE)
+    public SecretPadResponse<List<SyncDataResultDTO>> syncBatchBinary(@RequestHeader("kuscia-origin-source") String nodeId,
+                                                                      @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+                                                                      @RequestBody byte[] p) throws ClassNotFoundException {
+        return SecretPadResponse.success(consumerTemplate.consumer(nodeId, toSyncDataDTOs(SyncDataCodec.decode(p, contentEncoding))));
+    }
+
+    private List<SyncDataDTO> toSyncDataDTOs(Iterable<JsonNode> items) throws ClassNotFoundException {
+        List<SyncDataDTO> syncDataDTOs = new ArrayList<>();
+        for (JsonNode item : items) {
+            String id = item.path("tableName").asText();
+            Class<?> cls = Class.forName(id);
+            JavaType javaType = JsonUtils.makeJavaType(SyncDataDTO.class, cls);
+            syncDataDTOs.add(JsonUtils.toJavaObject(item, javaType));
+        }
+        return syncDataDTOs;
+    }
 }
\ No newline at end of file
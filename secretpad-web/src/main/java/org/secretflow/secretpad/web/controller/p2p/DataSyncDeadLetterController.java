@@ -0,0 +1,66 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.web.controller.p2p;
+
+import org.secretflow.secretpad.common.annotation.resource.ApiResource;
+import org.secretflow.secretpad.common.constant.resource.ApiResourceCodeConstants;
+import org.secretflow.secretpad.service.DataSyncDeadLetterService;
+import org.secretflow.secretpad.service.model.common.SecretPadPageResponse;
+import org.secretflow.secretpad.service.model.common.SecretPadResponse;
+import org.secretflow.secretpad.service.model.datasync.deadletter.DataSyncDeadLetterIdsRequest;
+import org.secretflow.secretpad.service.model.datasync.deadletter.DataSyncDeadLetterPageRequest;
+import org.secretflow.secretpad.service.model.datasync.deadletter.DataSyncDeadLetterVO;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Data sync dead letter controller for p2p
+ *
+ * @author yutu
+ * @date 2024/12/19
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping(value = "/api/v1alpha1/data/sync/dead-letter")
+public class DataSyncDeadLetterController {
+
+    private final DataSyncDeadLetterService dataSyncDeadLetterService;
+
+    @PostMapping(value = "/page", consumes = "application/json")
+    @ApiResource(code = ApiResourceCodeConstants.DATA_SYNC_DEAD_LETTER_PAGE)
+    public SecretPadResponse<SecretPadPageResponse<DataSyncDeadLetterVO>> page(@Valid @RequestBody DataSyncDeadLetterPageRequest request) {
+        return SecretPadResponse.success(dataSyncDeadLetterService.queryPage(request, request.of()));
+    }
+
+    @PostMapping(value = "/replay", consumes = "application/json")
+    @ApiResource(code = ApiResourceCodeConstants.DATA_SYNC_DEAD_LETTER_REPLAY)
+    public SecretPadResponse<Integer> replay(@Valid @RequestBody DataSyncDeadLetterIdsRequest request) {
+        return SecretPadResponse.success(dataSyncDeadLetterService.replay(request.getIds()));
+    }
+
+    @PostMapping(value = "/delete", consumes = "application/json")
+    @ApiResource(code = ApiResourceCodeConstants.DATA_SYNC_DEAD_LETTER_DELETE)
+    public SecretPadResponse<Void> delete(@Valid @RequestBody DataSyncDeadLetterIdsRequest request) {
+        dataSyncDeadLetterService.delete(request.getIds());
+        return SecretPadResponse.success();
+    }
+}
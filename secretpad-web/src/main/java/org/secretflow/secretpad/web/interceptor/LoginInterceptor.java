@@ -24,12 +24,10 @@ import org.secretflow.secretpad.common.enums.UserOwnerTypeEnum;
 import org.secretflow.secretpad.common.errorcode.AuthErrorCode;
 import org.secretflow.secretpad.common.exception.SecretpadException;
 import org.secretflow.secretpad.common.util.UserContext;
-import org.secretflow.secretpad.persistence.entity.ProjectNodeDO;
 import org.secretflow.secretpad.persistence.entity.TokensDO;
-import org.secretflow.secretpad.persistence.repository.ProjectNodeRepository;
-import org.secretflow.secretpad.persistence.repository.UserTokensRepository;
 import org.secretflow.secretpad.service.EnvService;
 import org.secretflow.secretpad.service.SysResourcesBizService;
+import org.secretflow.secretpad.service.auth.TokenSessionCache;
 import org.secretflow.secretpad.web.util.AuthUtils;
 
 import jakarta.annotation.Resource;
@@ -48,10 +46,8 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
-import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Login interceptor
@@ -69,9 +65,6 @@ public class LoginInterceptor implements HandlerInterceptor {
      */
     private static final long EXPIRE = 60 * 60 * 24;
 
-    private final UserTokensRepository userTokensRepository;
-
-    private final ProjectNodeRepository projectNodeRepository;
     private final EnvService envService;
 
     private final SysResourcesBizService sysResourcesBizService;
@@ -88,13 +81,13 @@ public class LoginInterceptor implements HandlerInterceptor {
     @Resource
     private InnerPortPathConfig innerPortPathConfig;
 
+    @Resource
+    private TokenSessionCache tokenSessionCache;
+
     @Autowired
-    public LoginInterceptor(UserTokensRepository userTokensRepository, EnvService envService,
-                            SysResourcesBizService sysResourcesBizService, ProjectNodeRepository projectNodeRepository) {
-        this.userTokensRepository = userTokensRepository;
+    public LoginInterceptor(EnvService envService, SysResourcesBizService sysResourcesBizService) {
         this.envService = envService;
         this.sysResourcesBizService = sysResourcesBizService;
-        this.projectNodeRepository = projectNodeRepository;
     }
 
     private UserContextDTO createTmpUserForPlatformType(PlatformTypeEnum platformType) {
@@ -167,13 +160,8 @@ public class LoginInterceptor implements HandlerInterceptor {
         virtualUser.setPlatformNodeId(envService.getPlatformNodeId());
         virtualUser.setDeployMode(deployMode);
 
-
-        // TODO cache
-
         // fill project id
-        List<ProjectNodeDO> byNodeId = projectNodeRepository.findByNodeId(sourceNodeId);
-        Set<String> projectIds = byNodeId.stream().map(t -> t.getUpk().getProjectId()).collect(Collectors.toSet());
-        virtualUser.setProjectIds(projectIds);
+        virtualUser.setProjectIds(tokenSessionCache.projectIdsOfNode(sourceNodeId));
 
         // fill interface resource
         Set<String> resourceCodeSet = sysResourcesBizService.queryResourceCodeByUsername(PermissionUserTypeEnum.NODE, ResourceTypeEnum.API, sourceNodeId);
@@ -185,7 +173,7 @@ public class LoginInterceptor implements HandlerInterceptor {
     private void processByUserRequest(HttpServletRequest request, HttpServletResponse response) {
         refuseByOutPortInvokeInnerPort(request, response);
         String token = AuthUtils.findTokenInHeader(request);
-        Optional<TokensDO> tokensDO = userTokensRepository.findByToken(token);
+        Optional<TokensDO> tokensDO = tokenSessionCache.get(token);
         if (tokensDO.isEmpty()) {
             throw SecretpadException.of(AuthErrorCode.AUTH_FAILED, "login is required");
         }
@@ -193,21 +181,16 @@ public class LoginInterceptor implements HandlerInterceptor {
         LocalDateTime gmtToken = tokensDO.get().getGmtToken();
         long until = gmtToken.until(now, ChronoUnit.SECONDS);
         if (until > EXPIRE) {
+            tokenSessionCache.evict(token);
             throw SecretpadException.of(AuthErrorCode.AUTH_FAILED, "login is expire, please login again.");
         }
-        userTokensRepository.saveAndFlush(
-                TokensDO.builder()
-                        .name(tokensDO.get().getName())
-                        .token(tokensDO.get().getToken())
-                        .gmtToken(LocalDateTime.now())
-                        .sessionData(tokensDO.get().getSessionData())
-                        .build()
-        );
-
         String sessionData = tokensDO.get().getSessionData();
         if (StringUtils.isBlank(sessionData)) {
+            tokenSessionCache.evict(token);
             throw SecretpadException.of(AuthErrorCode.AUTH_FAILED, "login is required");
         }
+        // the use time is written back in batches, a read only request does not write the database
+        tokenSessionCache.touch(tokensDO.get());
         UserContextDTO userContextDTO = UserContextDTO.fromJson(sessionData);
         UserContext.setBaseUser(userContextDTO);
     }
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.web.util;
+
+import org.secretflow.secretpad.service.model.data.DownloadInfo;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Download utils
+ * <p>
+ * A file is sent with single byte range support, so that an interrupted download can resume, through tomcat sendfile
+ * if the connector supports it and FileChannel.transferTo otherwise. Streamed content has no length and is sent as it
+ * is written.
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+@Slf4j
+public class DownloadUtils {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final byte[] NO_DATA = "No data".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Write download content to the response
+     *
+     * @param request      http servlet request, null if there is none
+     * @param response     http servlet response
+     * @param downloadInfo download information
+     */
+    public static void write(HttpServletRequest request, HttpServletResponse response, DownloadInfo downloadInfo) throws IOException {
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment;filename*=UTF-8''" + downloadInfo.getFileName());
+        ServletOutputStream outputStream = response.getOutputStream();
+        File file = downloadInfo.getFile();
+        if (file == null) {
+            downloadInfo.getWriter().writeTo(outputStream);
+            outputStream.close();
+            return;
+        }
+        long length = file.length();
+        if (length == 0) {
+            response.setContentLength(NO_DATA.length);
+            outputStream.write(NO_DATA);
+            outputStream.close();
+            return;
+        }
+        String etag = "\"" + Long.toHexString(file.lastModified()) + "-" + Long.toHexString(length) + "\"";
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        long start = 0;
+        long end = length - 1;
+        HttpRange range = range(request, etag);
+        if (range != null) {
+            start = range.getRangeStart(length);
+            end = range.getRangeEnd(length);
+            if (start >= length || start > end) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+        response.setContentLengthLong(end - start + 1);
+        if (request != null && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // tomcat sends the file from the page cache after the handler returns
+            request.setAttribute(SENDFILE_FILENAME, file.getCanonicalPath());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(outputStream);
+            long position = start;
+            long remaining = end - start + 1;
+            while (remaining > 0) {
+                long n = channel.transferTo(position, remaining, target);
+                if (n <= 0) {
+                    break;
+                }
+                position += n;
+                remaining -= n;
+            }
+        }
+        outputStream.close();
+    }
+
+    /**
+     * @return the single range to send, null for the whole file. Multiple ranges and ranges of a changed file get the
+     * whole file
+     */
+    private static HttpRange range(HttpServletRequest request, String etag) {
+        if (request == null) {
+            return null;
+        }
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (StringUtils.isBlank(header)) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            log.info("ignore invalid range header {}: {}", header, e.getMessage());
+            return null;
+        }
+    }
+}
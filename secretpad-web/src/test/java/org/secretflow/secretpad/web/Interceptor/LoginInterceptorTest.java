@@ -16,6 +16,7 @@
 
 package org.secretflow.secretpad.web.Interceptor;
 
+import org.secretflow.secretpad.common.util.SyncDataCodec;
 import org.secretflow.secretpad.persistence.entity.TokensDO;
 import org.secretflow.secretpad.persistence.repository.UserTokensRepository;
 import org.secretflow.secretpad.web.constant.AuthConstants;
@@ -28,6 +29,7 @@ import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -103,4 +105,24 @@ public class LoginInterceptorTest extends ControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().json("{\"status\":{\"code\":202011602,\"msg\":\"用户认证失败: login is required\"},\"data\":null}"));
     }
+
+    @Test
+    void testDataSyncPathsRefusedOnUserPort() throws Exception {
+        Optional<TokensDO> tokensDO = Optional.of(TokensDO.builder()
+                .token("123")
+                .gmtToken(LocalDateTime.now())
+                .build());
+        Mockito.when(userTokensRepository.findByToken(Mockito.any())).thenReturn(tokensDO);
+        Map<String, String> paths = Map.of(
+                "/api/v1alpha1/data/sync", "application/json",
+                "/api/v1alpha1/data/sync/batch", "application/json",
+                "/api/v1alpha1/data/sync/batch/binary", SyncDataCodec.MEDIA_TYPE);
+        for (Map.Entry<String, String> path : paths.entrySet()) {
+            // the servlet path is what the inner port check matches on
+            MockHttpServletRequestBuilder requestBuilder = post(path.getKey()).servletPath(path.getKey())
+                    .contentType(path.getValue()).content(new byte[0]).header(AuthConstants.TOKEN_NAME, "123");
+            mockMvc.perform(requestBuilder)
+                    .andExpect(status().isNotFound());
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.web.controller;
+
+import org.secretflow.secretpad.common.util.JsonUtils;
+import org.secretflow.secretpad.persistence.datasync.buffer.DataSyncDataBufferTemplate;
+import org.secretflow.secretpad.persistence.entity.DataSyncDeadLetterDO;
+import org.secretflow.secretpad.persistence.entity.ProjectDO;
+import org.secretflow.secretpad.persistence.repository.DataSyncDeadLetterRepository;
+import org.secretflow.secretpad.service.model.datasync.deadletter.DataSyncDeadLetterIdsRequest;
+import org.secretflow.secretpad.service.model.datasync.deadletter.DataSyncDeadLetterPageRequest;
+import org.secretflow.secretpad.web.controller.p2p.DataSyncDeadLetterController;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * @author yutu
+ * @date 2024/12/19
+ */
+class DataSyncDeadLetterControllerTest extends ControllerTest {
+
+    @MockBean
+    private DataSyncDeadLetterRepository dataSyncDeadLetterRepository;
+    @MockBean
+    private DataSyncDataBufferTemplate dataSyncDataBufferTemplate;
+
+    @Test
+    void page() throws Exception {
+        assertResponse(() -> {
+            DataSyncDeadLetterPageRequest request = new DataSyncDeadLetterPageRequest();
+            request.setNodeId("bob");
+            request.setPage(1);
+            request.setSize(10);
+            Mockito.when(dataSyncDeadLetterRepository.findAll(Mockito.any(Specification.class), Mockito.any(Pageable.class)))
+                    .thenReturn(new PageImpl<>(List.of(buildDeadLetter())));
+            return MockMvcRequestBuilders.post(getMappingUrl(DataSyncDeadLetterController.class, "page", DataSyncDeadLetterPageRequest.class))
+                    .content(JsonUtils.toJSONString(request));
+        });
+    }
+
+    @Test
+    void replay() throws Exception {
+        assertResponse(() -> {
+            DataSyncDeadLetterIdsRequest request = new DataSyncDeadLetterIdsRequest();
+            request.setIds(List.of(1L));
+            Mockito.when(dataSyncDeadLetterRepository.findAllById(Mockito.anyIterable())).thenReturn(List.of(buildDeadLetter()));
+            return MockMvcRequestBuilders.post(getMappingUrl(DataSyncDeadLetterController.class, "replay", DataSyncDeadLetterIdsRequest.class))
+                    .content(JsonUtils.toJSONString(request));
+        });
+        Mockito.verify(dataSyncDataBufferTemplate).push(Mockito.argThat(e -> List.of("bob").equals(e.getNodeIds())));
+        Mockito.verify(dataSyncDeadLetterRepository).delete(Mockito.any(DataSyncDeadLetterDO.class));
+    }
+
+    @Test
+    void delete() throws Exception {
+        assertResponseWithEmptyData(() -> {
+            DataSyncDeadLetterIdsRequest request = new DataSyncDeadLetterIdsRequest();
+            request.setIds(List.of(1L));
+            return MockMvcRequestBuilders.post(getMappingUrl(DataSyncDeadLetterController.class, "delete", DataSyncDeadLetterIdsRequest.class))
+                    .content(JsonUtils.toJSONString(request));
+        });
+        Mockito.verify(dataSyncDeadLetterRepository).deleteAllById(List.of(1L));
+    }
+
+    private DataSyncDeadLetterDO buildDeadLetter() {
+        ProjectDO projectDO = ProjectDO.builder().projectId(PROJECT_ID).name("test").build();
+        projectDO.setId(1L);
+        String payload = "{\"tableName\":\"" + ProjectDO.class.getName() + "\",\"action\":\"update\",\"data\":" + JsonUtils.toJSONString(projectDO) + "}";
+        return DataSyncDeadLetterDO.builder()
+                .id(1L)
+                .nodeId("bob")
+                .tableName(ProjectDO.class.getName())
+                .action("update")
+                .payload(payload)
+                .reason("rejected by peer")
+                .attempts(1)
+                .gmtCreate(LocalDateTime.now())
+                .build();
+    }
+}
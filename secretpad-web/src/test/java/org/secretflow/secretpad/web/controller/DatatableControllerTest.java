@@ -266,6 +266,7 @@ class DatatableControllerTest extends ControllerTest {
             ListDatatableRequest request = FakerUtils.fake(ListDatatableRequest.class);
             request.setPageSize(10);
             request.setPageNumber(1);
+            request.setPageToken(null);
             request.setOwnerId("alice");
 
             UserContext.getUser().setApiResources(Set.of(ApiResourceCodeConstants.DATATABLE_LIST));
@@ -44,7 +44,10 @@ import org.secretflow.v1alpha1.common.Common;
 import org.secretflow.v1alpha1.kusciaapi.DomainOuterClass;
 import org.secretflow.v1alpha1.kusciaapi.Domaindatasource;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import java.util.List;
 import java.util.Optional;
@@ -125,6 +128,25 @@ class GraphControllerTest extends ControllerTest {
         });
     }
 
+    @Test
+    void listComponentsNotModified() throws Exception {
+        String url = getMappingUrl(GraphController.class, "listComponents");
+        String etag = mockMvc.perform(MockMvcRequestBuilders.post(url).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        for (String ifNoneMatch : List.of(etag, "\"other\", W/" + etag, "*")) {
+            mockMvc.perform(MockMvcRequestBuilders.post(url).contentType(MediaType.APPLICATION_JSON)
+                            .header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch))
+                    .andExpect(MockMvcResultMatchers.status().isNotModified())
+                    .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, etag))
+                    .andExpect(MockMvcResultMatchers.content().string(""));
+        }
+        mockMvc.perform(MockMvcRequestBuilders.post(url).contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+
     @Test
     void createGraph() throws Exception {
         assertResponse(() -> {
@@ -182,6 +182,7 @@ public class P2PDatatableControllerTest extends ControllerTest {
             ListDatatableRequest request = FakerUtils.fake(ListDatatableRequest.class);
             request.setPageSize(10);
             request.setPageNumber(1);
+            request.setPageToken(null);
             request.setOwnerId("test");
 
             UserContext.getUser().setApiResources(Set.of(ApiResourceCodeConstants.DATATABLE_LIST));
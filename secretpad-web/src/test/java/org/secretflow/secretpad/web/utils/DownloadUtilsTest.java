@@ -0,0 +1,101 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.web.utils;
+
+import org.secretflow.secretpad.service.model.data.DownloadInfo;
+import org.secretflow.secretpad.web.util.DownloadUtils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * ranges of downloaded files
+ *
+ * @author yutu
+ * @date 2024/12/23
+ */
+public class DownloadUtilsTest {
+
+    private static final String CONTENT = "id,age\n1,20\n2,30\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void wholeFile() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        DownloadUtils.write(new MockHttpServletRequest(), response, csv());
+        Assertions.assertEquals(200, response.getStatus());
+        Assertions.assertEquals(CONTENT, response.getContentAsString());
+        Assertions.assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+    }
+
+    @Test
+    public void resumeFromRange() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.RANGE, "bytes=7-");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        DownloadUtils.write(request, response, csv());
+        Assertions.assertEquals(206, response.getStatus());
+        Assertions.assertEquals(CONTENT.substring(7), response.getContentAsString());
+        Assertions.assertEquals("bytes 7-" + (CONTENT.length() - 1) + "/" + CONTENT.length(), response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    public void changedFileIsSentWhole() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.RANGE, "bytes=7-");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"old\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        DownloadUtils.write(request, response, csv());
+        Assertions.assertEquals(200, response.getStatus());
+        Assertions.assertEquals(CONTENT, response.getContentAsString());
+    }
+
+    @Test
+    public void rangeBeyondEnd() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.RANGE, "bytes=1000-");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        DownloadUtils.write(request, response, csv());
+        Assertions.assertEquals(416, response.getStatus());
+        Assertions.assertEquals("bytes */" + CONTENT.length(), response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    public void streamedContent() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        DownloadUtils.write(new MockHttpServletRequest(), response, DownloadInfo.builder().fileName("a.tar.gz").fileLength(-1)
+                .writer(out -> out.write(CONTENT.getBytes(StandardCharsets.UTF_8))).build());
+        Assertions.assertEquals(CONTENT, response.getContentAsString());
+        Assertions.assertNull(response.getHeader(HttpHeaders.ACCEPT_RANGES));
+    }
+
+    private DownloadInfo csv() throws Exception {
+        File file = Files.writeString(tempDir.resolve("result.csv"), CONTENT).toFile();
+        return DownloadInfo.builder().fileName("result.csv").fileLength(file.length()).file(file).build();
+    }
+}
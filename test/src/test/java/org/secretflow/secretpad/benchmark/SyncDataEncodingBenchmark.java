@@ -0,0 +1,207 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.benchmark;
+
+import org.secretflow.secretpad.common.dto.SyncDataDTO;
+import org.secretflow.secretpad.common.util.JsonUtils;
+import org.secretflow.secretpad.common.util.SyncDataCodec;
+import org.secretflow.secretpad.persistence.entity.ProjectGraphDO;
+import org.secretflow.secretpad.persistence.entity.ProjectGraphNodeDO;
+import org.secretflow.secretpad.persistence.entity.ProjectJobDO;
+import org.secretflow.secretpad.persistence.entity.ProjectTaskDO;
+import org.secretflow.secretpad.persistence.model.GraphEdgeDO;
+import org.secretflow.secretpad.persistence.model.GraphJobStatus;
+import org.secretflow.secretpad.persistence.model.GraphNodeTaskStatus;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * sync batch encodings on ProjectJobDO and ProjectGraphDO samples, each op encodes a batch on the sender and decodes it on the receiver.
+ * <p>
+ * Not a unit test, run it with main from the test classpath, the wire size of every encoding is printed at setup.
+ *
+ * @author yutu
+ * @date 2024/12/20
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SyncDataEncodingBenchmark {
+
+    private static final int GRAPH_NODES = 30;
+
+    @Param({"ProjectJobDO", "ProjectGraphDO"})
+    private String entity;
+
+    @Param({"20"})
+    private int batchSize;
+
+    private List<SyncDataDTO<Object>> batch;
+    private String json;
+    private byte[] smile;
+    private byte[] smileGzip;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SyncDataEncodingBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setup() {
+        batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            Object data = "ProjectJobDO".equals(entity) ? buildProjectJobDO(i) : buildProjectGraphDO(i);
+            batch.add(SyncDataDTO.builder().tableName(data.getClass().getName()).action("update").data(data).build());
+        }
+        json = encodeJson();
+        smile = encodeSmile(false);
+        smileGzip = encodeSmile(true);
+        System.out.printf("%n%s x %d: json %d bytes, smile %d bytes, smile+gzip %d bytes%n",
+                entity, batchSize, json.getBytes(StandardCharsets.UTF_8).length, smile.length, smileGzip.length);
+    }
+
+    @Benchmark
+    public void json(Blackhole blackhole) {
+        String body = encodeJson();
+        for (JsonNode item : JsonUtils.parseObject(body)) {
+            blackhole.consume(item);
+        }
+    }
+
+    @Benchmark
+    public void smile(Blackhole blackhole) {
+        blackhole.consume(SyncDataCodec.decode(encodeSmile(false), SyncDataCodec.IDENTITY));
+    }
+
+    @Benchmark
+    public void smileGzip(Blackhole blackhole) {
+        blackhole.consume(SyncDataCodec.decode(encodeSmile(true), SyncDataCodec.GZIP));
+    }
+
+    private String encodeJson() {
+        StringJoiner body = new StringJoiner(",", "[", "]");
+        batch.forEach(item -> body.add(item.toJson()));
+        return body.toString();
+    }
+
+    private byte[] encodeSmile(boolean gzip) {
+        List<byte[]> items = new ArrayList<>(batch.size());
+        batch.forEach(item -> items.add(SyncDataCodec.encode(item)));
+        return SyncDataCodec.frame(items, gzip);
+    }
+
+    private ProjectJobDO buildProjectJobDO(int index) {
+        String projectId = "project" + index;
+        String jobId = "job" + index;
+        Map<String, ProjectTaskDO> tasks = new LinkedHashMap<>();
+        List<ProjectGraphNodeDO> nodes = buildGraphNodes(projectId, "graph" + index);
+        for (ProjectGraphNodeDO node : nodes) {
+            String taskId = jobId + "-" + node.getUpk().getGraphNodeId();
+            ProjectTaskDO task = ProjectTaskDO.builder()
+                    .upk(new ProjectTaskDO.UPK(projectId, jobId, taskId))
+                    .parties(List.of("alice", "bob"))
+                    .status(GraphNodeTaskStatus.SUCCEED)
+                    .graphNodeId(node.getUpk().getGraphNodeId())
+                    .graphNode(node)
+                    .build();
+            tasks.put(taskId, task);
+        }
+        ProjectJobDO job = ProjectJobDO.builder()
+                .upk(new ProjectJobDO.UPK(projectId, jobId))
+                .name("job " + index)
+                .status(GraphJobStatus.SUCCEED)
+                .graphId("graph" + index)
+                .tasks(tasks)
+                .edges(buildEdges(nodes))
+                .finishedTime(LocalDateTime.now())
+                .build();
+        return job;
+    }
+
+    private ProjectGraphDO buildProjectGraphDO(int index) {
+        String projectId = "project" + index;
+        String graphId = "graph" + index;
+        List<ProjectGraphNodeDO> nodes = buildGraphNodes(projectId, graphId);
+        ProjectGraphDO graph = ProjectGraphDO.builder()
+                .upk(new ProjectGraphDO.UPK(projectId, graphId))
+                .name("graph " + index)
+                .ownerId("alice")
+                .nodes(nodes)
+                .edges(buildEdges(nodes))
+                .nodeMaxIndex(GRAPH_NODES)
+                .maxParallelism(1)
+                .build();
+        return graph;
+    }
+
+    private List<ProjectGraphNodeDO> buildGraphNodes(String projectId, String graphId) {
+        List<ProjectGraphNodeDO> nodes = new ArrayList<>(GRAPH_NODES);
+        for (int i = 0; i < GRAPH_NODES; i++) {
+            String graphNodeId = graphId + "-node-" + i;
+            Map<String, Object> nodeDef = new LinkedHashMap<>();
+            nodeDef.put("domain", "preprocessing");
+            nodeDef.put("name", "vert_binning");
+            nodeDef.put("version", "1.0.0");
+            nodeDef.put("attrPaths", List.of("input/input_ds/feature_selects", "bin_method", "bin_num", "report_rules"));
+            nodeDef.put("attrs", List.of(
+                    Map.of("ss", List.of("age", "education", "default", "balance", "housing", "loan", "day", "duration")),
+                    Map.of("s", "eq_range"),
+                    Map.of("i64", 10),
+                    Map.of("b", true)));
+            ProjectGraphNodeDO node = ProjectGraphNodeDO.builder()
+                    .upk(new ProjectGraphNodeDO.UPK(projectId, graphId, graphNodeId))
+                    .codeName("preprocessing/vert_binning")
+                    .label("binning " + i)
+                    .x(-200 + i * 20)
+                    .y(100 + i * 60)
+                    .inputs(i == 0 ? List.of() : List.of(graphId + "-node-" + (i - 1) + "-output-0"))
+                    .outputs(List.of(graphNodeId + "-output-0", graphNodeId + "-output-1"))
+                    .nodeDef(nodeDef)
+                    .build();
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    private List<GraphEdgeDO> buildEdges(List<ProjectGraphNodeDO> nodes) {
+        List<GraphEdgeDO> edges = new ArrayList<>(nodes.size());
+        for (int i = 1; i < nodes.size(); i++) {
+            String source = nodes.get(i - 1).getUpk().getGraphNodeId();
+            String target = nodes.get(i).getUpk().getGraphNodeId();
+            edges.add(GraphEdgeDO.builder()
+                    .edgeId(source + "-output-0__" + target + "-input-0")
+                    .source(source)
+                    .sourceAnchor(source + "-output-0")
+                    .target(target)
+                    .targetAnchor(target + "-input-0")
+                    .build());
+        }
+        return edges;
+    }
+}